@@ -25,6 +25,7 @@ public class K8sLogViewer extends Application {
 
             // 2. 后台线程执行清理，完成后退出
             new Thread(() -> {
+                PodLogFileManager.closeCurrent();
                 LogCleaner.cleanExpiredLogs();
                 new PodLogFileManager().cleanAllButLatest();
                 ExecutorManager.shutdownAll();
@@ -39,12 +39,20 @@ public final class AppPreferences {
     private static final int DEFAULT_MAX_LOG_SIZE_MB = 2048;
     private static final String LOG_FLUSH_INTERVAL_KEY = "log_flush_interval_ms";
     private static final int DEFAULT_LOG_FLUSH_INTERVAL_MS = 50;
+    private static final String LOG_QUEUE_OVERFLOW_POLICY_KEY = "log_queue_overflow_policy";
+    private static final String DEFAULT_LOG_QUEUE_OVERFLOW_POLICY = "DROP_OLDEST";
     private static final String SEARCH_REFRESH_INTERVAL_KEY = "search_refresh_interval_ms";
     private static final int DEFAULT_SEARCH_REFRESH_INTERVAL_MS = 1000;
     private static final String TREE_AUTO_REFRESH_KEY = "tree_auto_refresh";
     private static final boolean DEFAULT_TREE_AUTO_REFRESH = false;
     private static final String TREE_AUTO_REFRESH_INTERVAL_KEY = "tree_auto_refresh_interval_sec";
     private static final int DEFAULT_TREE_AUTO_REFRESH_INTERVAL_SEC = 20;
+    private static final String TREE_FETCH_CONCURRENCY_KEY = "tree_fetch_concurrency";
+    private static final int DEFAULT_TREE_FETCH_CONCURRENCY = 8;
+    private static final String TREE_FETCH_TIMEOUT_KEY = "tree_fetch_timeout_sec";
+    private static final int DEFAULT_TREE_FETCH_TIMEOUT_SEC = 15;
+    private static final String SEARCH_TOKEN_INDEX_KEY = "search_token_index";
+    private static final boolean DEFAULT_SEARCH_TOKEN_INDEX = false;
     private static final String SELECTED_NAMESPACES_KEY = "selected_namespaces_";
 
     private static final Gson GSON = new Gson();
@@ -255,6 +263,20 @@ public final class AppPreferences {
         return getInt(LOG_FLUSH_INTERVAL_KEY, DEFAULT_LOG_FLUSH_INTERVAL_MS);
     }
 
+    // ==================== Log Queue Overflow Policy ====================
+
+    /**
+     * UI 日志队列满时的处理策略：BLOCK（阻塞读取线程）、DROP_OLDEST（丢弃最旧的行）、
+     * DROP_NEWEST（新行只写盘不进 UI）。取值见 {@code BoundedMpscQueue.OverflowPolicy}。
+     */
+    public static void setLogQueueOverflowPolicy(String policy) {
+        put(LOG_QUEUE_OVERFLOW_POLICY_KEY, policy);
+    }
+
+    public static String getLogQueueOverflowPolicy() {
+        return get(LOG_QUEUE_OVERFLOW_POLICY_KEY, DEFAULT_LOG_QUEUE_OVERFLOW_POLICY);
+    }
+
     // ==================== Search Refresh Interval (ms) ====================
 
     public static void setSearchRefreshIntervalMs(int ms) {
@@ -265,6 +287,16 @@ public final class AppPreferences {
         return getInt(SEARCH_REFRESH_INTERVAL_KEY, DEFAULT_SEARCH_REFRESH_INTERVAL_MS);
     }
 
+    // ==================== Search Token Index ====================
+
+    public static void setSearchTokenIndexEnabled(boolean enabled) {
+        putBoolean(SEARCH_TOKEN_INDEX_KEY, enabled);
+    }
+
+    public static boolean isSearchTokenIndexEnabled() {
+        return getBoolean(SEARCH_TOKEN_INDEX_KEY, DEFAULT_SEARCH_TOKEN_INDEX);
+    }
+
     // ==================== Tree Auto Refresh ====================
 
     public static void setTreeAutoRefresh(boolean enabled) {
@@ -283,6 +315,24 @@ public final class AppPreferences {
         return getInt(TREE_AUTO_REFRESH_INTERVAL_KEY, DEFAULT_TREE_AUTO_REFRESH_INTERVAL_SEC);
     }
 
+    /** 加载容器树时并发请求的命名空间数上限 */
+    public static void setTreeFetchConcurrency(int concurrency) {
+        putInt(TREE_FETCH_CONCURRENCY_KEY, Math.max(1, Math.min(64, concurrency)));
+    }
+
+    public static int getTreeFetchConcurrency() {
+        return getInt(TREE_FETCH_CONCURRENCY_KEY, DEFAULT_TREE_FETCH_CONCURRENCY);
+    }
+
+    /** 加载容器树时单个命名空间 Pod 列表请求的超时 */
+    public static void setTreeFetchTimeoutSec(int sec) {
+        putInt(TREE_FETCH_TIMEOUT_KEY, Math.max(1, Math.min(300, sec)));
+    }
+
+    public static int getTreeFetchTimeoutSec() {
+        return getInt(TREE_FETCH_TIMEOUT_KEY, DEFAULT_TREE_FETCH_TIMEOUT_SEC);
+    }
+
     // ==================== 环境自动检测 ====================
 
     /**
@@ -1,5 +1,7 @@
 package com.longfor.lmk.k8slogviewer.config;
 
+import java.util.List;
+
 /**
  * K8s 日志查询参数，使用 Builder 模式创建。
  * 纯数据对象，不包含任何 UI 组件引用。
@@ -13,6 +15,12 @@ public class K8sQuery {
     private int tailLines;
     private boolean searchRunning;
     private boolean headerCaptured;
+    /** 容器名，null 表示 Pod 的默认容器 */
+    private String container;
+    /** 是否查看容器上一个实例（崩溃重启前）的日志 */
+    private boolean previous;
+    /** 多 Pod 合并跟踪的 Pod 列表，为空表示单 Pod 模式；合并模式下 podName 为缓存用的合成名称 */
+    private List<String> mergedPodNames = List.of();
 
     private K8sQuery(Builder builder) {
         this.tailLines = builder.tailLines;
@@ -117,6 +125,49 @@ public class K8sQuery {
         this.searchRunning = searchRunning;
     }
 
+    public String getContainer() {
+        return container;
+    }
+
+    public void setContainer(String container) {
+        this.container = container;
+    }
+
+    public boolean isPrevious() {
+        return previous;
+    }
+
+    public void setPrevious(boolean previous) {
+        this.previous = previous;
+    }
+
+    /**
+     * 磁盘缓存使用的名称：每个容器、每个容器的上一个实例各自独立缓存。
+     * K8s 资源名不含下划线，用下划线拼接不会与其他 Pod 冲突。
+     *
+     * @return Pod 未选择时返回 null
+     */
+    public String getCacheKey() {
+        if (podName == null || isMerged()) return podName;
+        StringBuilder key = new StringBuilder(podName);
+        if (container != null) key.append('_').append(container);
+        if (previous) key.append("_previous");
+        return key.toString();
+    }
+
+    public List<String> getMergedPodNames() {
+        return mergedPodNames;
+    }
+
+    public void setMergedPodNames(List<String> mergedPodNames) {
+        this.mergedPodNames = mergedPodNames == null ? List.of() : List.copyOf(mergedPodNames);
+    }
+
+    /** 是否为多 Pod 合并跟踪模式 */
+    public boolean isMerged() {
+        return !mergedPodNames.isEmpty();
+    }
+
     public boolean isHeaderCaptured() {
         return headerCaptured;
     }
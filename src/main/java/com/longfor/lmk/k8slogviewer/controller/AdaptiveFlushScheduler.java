@@ -0,0 +1,101 @@
+package com.longfor.lmk.k8slogviewer.controller;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 日志 UI 刷新的自适应调度器。
+ * <p>
+ * 固定间隔刷新在日志突发时会把整批数据塞进一个 FX 脉冲，导致窗口卡顿。本类按帧预算控制每次刷新：
+ * <ul>
+ *   <li>合并：上一次刷新还没在 FX 线程执行完时不再提交新的刷新，积压的行留在队列里，下次一并处理</li>
+ *   <li>帧预算：测量每行的平均渲染耗时（指数滑动平均），每次刷新最多渲染 {@link #renderLimit()} 行，
+ *       超出的旧行直接跳过，视图跳到最新窗口（跳过的行已在磁盘上，滚动时按需加载）</li>
+ *   <li>退避：单次刷新超出预算时加倍刷新间隔（最长 {@link #MAX_INTERVAL_MS}），恢复后逐步回到配置的间隔</li>
+ * </ul>
+ * 刷新线程调用 {@link #tryBeginPulse()} / {@link #cancelPulse()} / {@link #nextDelayMs()}，
+ * FX 线程调用 {@link #renderLimit()} / {@link #endPulse(int, long)}。
+ */
+public class AdaptiveFlushScheduler {
+
+    /** 每次刷新的 FX 线程时间预算（约半帧，留给布局与绘制） */
+    static final long FRAME_BUDGET_NANOS = 8_000_000L;
+
+    /** 刷新间隔上限 */
+    static final long MAX_INTERVAL_MS = 500;
+
+    /** 每次刷新至少渲染的行数，避免预算估计偏大时视图停滞 */
+    static final int MIN_RENDER_LINES = 50;
+
+    /** 每行渲染耗时的初始估计（纳秒） */
+    private static final double INITIAL_NANOS_PER_LINE = 20_000;
+
+    /** 滑动平均的新样本权重 */
+    private static final double EWMA_ALPHA = 0.3;
+
+    private final long baseIntervalMs;
+    private final int maxRenderLines;
+
+    private final AtomicBoolean pulsePending = new AtomicBoolean(false);
+    private volatile double nanosPerLine = INITIAL_NANOS_PER_LINE;
+    private volatile long intervalMs;
+
+    /**
+     * @param baseIntervalMs 配置的刷新间隔
+     * @param maxRenderLines 每次刷新最多渲染的行数（UI 窗口大小）
+     */
+    public AdaptiveFlushScheduler(long baseIntervalMs, int maxRenderLines) {
+        this.baseIntervalMs = Math.max(1, baseIntervalMs);
+        this.maxRenderLines = maxRenderLines;
+        this.intervalMs = this.baseIntervalMs;
+    }
+
+    // ==================== 刷新线程 ====================
+
+    /**
+     * 开始一次刷新。上一次刷新尚未在 FX 线程完成时返回 false，本次跳过（数据留在队列中合并到下次）。
+     */
+    public boolean tryBeginPulse() {
+        return pulsePending.compareAndSet(false, true);
+    }
+
+    /** 已开始但没有数据需要提交时撤销本次刷新 */
+    public void cancelPulse() {
+        pulsePending.set(false);
+    }
+
+    /** 距下次刷新的延迟 */
+    public long nextDelayMs() {
+        return intervalMs;
+    }
+
+    // ==================== FX 线程 ====================
+
+    /** 本次刷新最多渲染的行数：帧预算 / 每行平均耗时，限制在 [MIN_RENDER_LINES, maxRenderLines] */
+    public int renderLimit() {
+        long lines = (long) (FRAME_BUDGET_NANOS / Math.max(1.0, nanosPerLine));
+        return (int) Math.max(Math.min(MIN_RENDER_LINES, maxRenderLines), Math.min(maxRenderLines, lines));
+    }
+
+    /**
+     * 一次刷新在 FX 线程执行完毕，更新耗时估计与刷新间隔。
+     *
+     * @param renderedLines 实际渲染的行数
+     * @param elapsedNanos  FX 线程上的耗时
+     */
+    public void endPulse(int renderedLines, long elapsedNanos) {
+        if (renderedLines > 0) {
+            double sample = (double) elapsedNanos / renderedLines;
+            nanosPerLine = nanosPerLine + EWMA_ALPHA * (sample - nanosPerLine);
+        }
+        if (elapsedNanos > FRAME_BUDGET_NANOS) {
+            intervalMs = Math.min(Math.max(MAX_INTERVAL_MS, baseIntervalMs), intervalMs * 2);
+        } else if (intervalMs > baseIntervalMs) {
+            intervalMs = Math.max(baseIntervalMs, intervalMs * 3 / 4);
+        }
+        pulsePending.set(false);
+    }
+
+    double getNanosPerLine() {
+        return nanosPerLine;
+    }
+}
@@ -4,6 +4,9 @@ import com.longfor.lmk.k8slogviewer.config.AppConfig;
 import com.longfor.lmk.k8slogviewer.service.PodLogFileManager;
 import com.longfor.lmk.k8slogviewer.utils.CommonUtils;
 import com.longfor.lmk.k8slogviewer.utils.ExecutorManager;
+import com.longfor.lmk.k8slogviewer.utils.LineMatcher;
+import com.longfor.lmk.k8slogviewer.utils.LineSpanCache;
+import com.longfor.lmk.k8slogviewer.utils.LogQuery;
 import com.longfor.lmk.k8slogviewer.utils.LogStyleUtil;
 import javafx.application.Platform;
 import javafx.scene.control.Label;
@@ -14,8 +17,11 @@ import org.fxmisc.richtext.model.StyleSpansBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntFunction;
 import java.util.function.Supplier;
 
 /**
@@ -29,11 +35,22 @@ import java.util.function.Supplier;
  *   <li>搜索高亮（rehighlightLogArea / applyCurrentMatchHighlight）</li>
  *   <li>增量搜索更新（incrementalSearchUpdate）</li>
  * </ul>
+ * <p>
+ * 定时刷新只从上次扫描到达的字节偏移续搜新追加部分；关键字/模式变化、文件截断或切换时才全量搜索。
  */
 public class DiskSearchEngine {
 
     private static final Logger log = LoggerFactory.getLogger(DiskSearchEngine.class);
 
+    /** 高亮缓存每代行数，覆盖整个视图窗口 */
+    private static final int SPAN_CACHE_GENERATION_SIZE = 2048;
+
+    /** 增量高亮时可见区域上下额外着色的段落数，减少滚动时的未着色闪烁 */
+    private static final int VIEWPORT_MARGIN = 50;
+
+    /** 已着色行记录的上限，超出后清空重来 */
+    private static final int STYLED_LINES_LIMIT = 4 * SPAN_CACHE_GENERATION_SIZE;
+
     // ==================== UI 引用 ====================
 
     private final CodeArea logArea;
@@ -46,6 +63,7 @@ public class DiskSearchEngine {
     private int currentDiskMatchIndex = -1;
     private String lastKeyword = "";
     private boolean searchAndMode = false;
+    private boolean queryMode = false;
 
     /** 用户选中的关键字（通过标签单击选中），导航时优先跳转此关键字的匹配位置 */
     private String selectedKeyword = null;
@@ -65,10 +83,34 @@ public class DiskSearchEngine {
     /** 上一次橙色高亮的位置列表，用于导航时清除旧高亮（多关键字时可能有多个） */
     private final java.util.List<int[]> lastHighlightedRanges = new java.util.ArrayList<>();
 
+    /** 每行高亮结果缓存（按行实例 + 关键字），重算整个视图时只有新行需要计算 */
+    private final LineSpanCache lineSpanCache = new LineSpanCache(SPAN_CACHE_GENERATION_SIZE);
+
+    // ==================== 增量高亮（仅 FX 线程访问） ====================
+
+    /** 当前 logArea 中的高亮所对应的关键字与模式，null 表示无高亮 */
+    private String highlightedKeyword = null;
+    private boolean highlightedAndMode = false;
+    /** 已按 highlightedKeyword 着色的行（按行字符串实例） */
+    private final Set<String> styledLines = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean viewportHighlightPending = false;
+
+    // ==================== 续搜游标（仅 FX 线程访问） ====================
+
+    /** 上次完成扫描的关键字，null 表示无有效游标，下次须全量搜索 */
+    private String scanCursorKeyword = null;
+    private boolean scanCursorAndMode = false;
+    private Path scanCursorFile = null;
+    /** 上次扫描到达的字节偏移与行号 */
+    private long scanCursorOffset = 0;
+    private int scanCursorLine = 0;
+
     // ==================== 视图状态供应商（由 Controller 注入） ====================
 
     private Supplier<Integer> viewStartLineSupplier;
     private Supplier<Integer> viewEndLineSupplier;
+    /** 视图第 i 行的字符串实例（行模型持有），超出范围返回 null */
+    private IntFunction<String> viewLineSupplier;
 
     @FunctionalInterface
     public interface ViewLoader {
@@ -84,6 +126,7 @@ public class DiskSearchEngine {
         this.logArea = logArea;
         this.fileManager = fileManager;
         this.matchCountLabel = matchCountLabel;
+        logArea.estimatedScrollYProperty().addListener((obs, oldVal, newVal) -> scheduleViewportHighlight());
     }
 
     // ==================== 依赖注入 ====================
@@ -93,6 +136,10 @@ public class DiskSearchEngine {
         this.viewEndLineSupplier = endLine;
     }
 
+    public void setViewLineSupplier(IntFunction<String> supplier) {
+        this.viewLineSupplier = supplier;
+    }
+
     public void setViewLoader(ViewLoader loader) {
         this.viewLoader = loader;
     }
@@ -126,6 +173,7 @@ public class DiskSearchEngine {
             diskMatchLineNumbers.clear();
             currentDiskMatchIndex = -1;
             lastKeyword = "";
+            resetScanCursor();
             updateMatchLabel();
             rehighlightLogArea(null);
             return;
@@ -133,7 +181,7 @@ public class DiskSearchEngine {
 
         if (!force && keyword.equals(lastKeyword)) return;
 
-        String podName = AppConfig.getK8sQuery().getPodName();
+        String podName = AppConfig.getK8sQuery().getCacheKey();
         if (podName == null) return;
 
         // 递增代际，使之前未完成的后台搜索结果作废
@@ -143,8 +191,27 @@ public class DiskSearchEngine {
         int currentMatchLine = (currentDiskMatchIndex >= 0 && currentDiskMatchIndex < diskMatchLineNumbers.size())
                 ? diskMatchLineNumbers.get(currentDiskMatchIndex) : -1;
 
+        // 定时刷新且关键字/模式未变时只续搜新追加部分
+        boolean andMode = searchAndMode;
+        boolean resume = force && !incrementGeneration && canResume(keyword, andMode);
+        Path fromFile = resume ? scanCursorFile : null;
+        long fromOffset = resume ? scanCursorOffset : 0;
+        int fromLine = resume ? scanCursorLine : 0;
+
         ExecutorManager.submit(() -> {
-            PodLogFileManager.DiskSearchResult result = fileManager.searchInLogFile(podName, keyword, searchAndMode);
+            // 代际变化时中止所有进行中的分块扫描
+            BooleanSupplier cancelled = () -> gen != searchGeneration.get();
+            PodLogFileManager.DiskSearchResult found = fileManager.searchInLogFileFrom(
+                    podName, keyword, andMode, fromFile, fromOffset, fromLine, cancelled);
+            boolean resumed = resume;
+            if (found == null) {
+                // 文件已切换或被重写，退回全量搜索
+                resumed = false;
+                found = fileManager.searchInLogFileFrom(podName, keyword, andMode, null, 0, 0, cancelled);
+            }
+            if (gen != searchGeneration.get()) return;
+            PodLogFileManager.DiskSearchResult result = found;
+            boolean tailOnly = resumed;
 
             Platform.runLater(() -> {
                 // 代际不匹配说明已有更新的搜索任务，丢弃此结果
@@ -152,8 +219,27 @@ public class DiskSearchEngine {
                     return;
                 }
 
-                diskMatchLineNumbers.clear();
-                diskMatchLineNumbers.addAll(result.matchedLineNumbers);
+                if (tailOnly) {
+                    // 续搜：新匹配追加到已有列表（去重，增量更新可能已插入）
+                    for (int line : result.matchedLineNumbers) {
+                        int insertPos = Collections.binarySearch(diskMatchLineNumbers, line);
+                        if (insertPos < 0) {
+                            diskMatchLineNumbers.add(~insertPos, line);
+                        }
+                    }
+                } else {
+                    diskMatchLineNumbers.clear();
+                    diskMatchLineNumbers.addAll(result.matchedLineNumbers);
+                }
+                if (result.isResumable()) {
+                    scanCursorKeyword = keyword;
+                    scanCursorAndMode = andMode;
+                    scanCursorFile = result.logFile;
+                    scanCursorOffset = result.endOffset;
+                    scanCursorLine = result.totalLines;
+                } else {
+                    resetScanCursor();
+                }
                 lastKeyword = keyword;
                 // 截断重搜索完成，解除抑制
                 truncateRefreshPending = false;
@@ -193,6 +279,20 @@ public class DiskSearchEngine {
         });
     }
 
+    /** 续搜游标是否对当前关键字和模式有效 */
+    private boolean canResume(String keyword, boolean andMode) {
+        return scanCursorKeyword != null && scanCursorKeyword.equals(keyword)
+                && scanCursorAndMode == andMode && scanCursorFile != null;
+    }
+
+    /** 作废续搜游标，下次搜索改为全量扫描 */
+    private void resetScanCursor() {
+        scanCursorKeyword = null;
+        scanCursorFile = null;
+        scanCursorOffset = 0;
+        scanCursorLine = 0;
+    }
+
     /** 跳转到下一个匹配 */
     public void findNext() {
         searchGeneration.incrementAndGet();
@@ -236,7 +336,7 @@ public class DiskSearchEngine {
         } else {
             lastHighlightedRanges.clear();
             if (viewLoader != null) {
-                String podName = AppConfig.getK8sQuery().getPodName();
+                String podName = AppConfig.getK8sQuery().getCacheKey();
                 viewLoader.loadView(podName, targetLine, () -> {
                     int newViewStart = viewStartLineSupplier.get();
                     int localLine = targetLine - newViewStart;
@@ -291,7 +391,7 @@ public class DiskSearchEngine {
             // 视图切换前重置橙色高亮追踪，因为文本内容将完全替换
             lastHighlightedRanges.clear();
             if (viewLoader != null) {
-                String podName = AppConfig.getK8sQuery().getPodName();
+                String podName = AppConfig.getK8sQuery().getCacheKey();
                 viewLoader.loadView(podName, targetLine, () -> {
                     int newViewStart = viewStartLineSupplier.get();
                     int localLine = targetLine - newViewStart;
@@ -314,34 +414,112 @@ public class DiskSearchEngine {
             int len = range[1];
             int kwIdx = range[2];
             // 恢复为对应关键字的原始高亮颜色（search-highlight-0, search-highlight-1, ...）
-            String styleClass = "search-highlight-" + (kwIdx % LogStyleUtil.SEARCH_HIGHLIGHT_COLORS);
-            Set<String> normalStyles = Set.of("plain-text", styleClass);
             StyleSpansBuilder<Collection<String>> ssb = new StyleSpansBuilder<>();
-            ssb.add(normalStyles, len);
+            ssb.add(LogStyleUtil.searchStyle(kwIdx), len);
             logArea.setStyleSpans(start, ssb.create());
         }
         lastHighlightedRanges.clear();
     }
 
     /**
-     * 对整个 logArea 重新计算搜索高亮样式。
+     * 按当前关键字更新 logArea 的搜索高亮。
+     * <p>
+     * 高亮按段落跟踪：已按当前关键字着色的行记录在 {@link #styledLines} 中（按行字符串实例），
+     * 每次只为可见区域（上下各留 {@link #VIEWPORT_MARGIN} 行余量）和文档末尾新追加的段落中尚未着色的行计算样式，
+     * 连续的行合并为一次 setStyleSpans。关键字变化时只清空记录，屏幕外的行在滚动进入视口时再着色；
+     * 追加、前插的行是新实例，裁剪掉的行随之消失，都不需要重算其他段落。
+     *
      * @param searchKeyword 搜索关键字，null 或空则清除高亮
      */
     public void rehighlightLogArea(String searchKeyword) {
         String searchKw = (searchKeyword != null && !searchKeyword.isBlank()) ? searchKeyword : null;
-        if (searchKw == null || !searchAndMode) {
-            String text = logArea.getText();
-            StyleSpans<Collection<String>> spans =
-                    LogStyleUtil.computeHighlighting(false, text, searchKw, false);
-            logArea.setStyleSpans(0, spans);
-        } else {
-            List<String> lines = new ArrayList<>();
-            for (int i = 0; i < logArea.getParagraphs().size(); i++) {
-                lines.add(logArea.getText(i, 0, i, logArea.getParagraphLength(i)));
+        if (searchKw == null) {
+            if (highlightedKeyword != null) {
+                highlightedKeyword = null;
+                styledLines.clear();
+                lineSpanCache.invalidate();
+                StyleSpansBuilder<Collection<String>> ssb = new StyleSpansBuilder<>();
+                ssb.add(LogStyleUtil.plainStyle(), logArea.getLength());
+                logArea.setStyleSpans(0, ssb.create());
+            }
+            return;
+        }
+        if (!searchKw.equals(highlightedKeyword) || highlightedAndMode != searchAndMode) {
+            highlightedKeyword = searchKw;
+            highlightedAndMode = searchAndMode;
+            styledLines.clear();
+        }
+        if (viewLineSupplier == null) {
+            // 没有行模型时无法按行跟踪，退回整篇重算
+            highlightParagraphs(0, logArea.getParagraphs().size());
+            return;
+        }
+        if (styledLines.size() > STYLED_LINES_LIMIT) {
+            // 被裁剪的行不会再出现，记录过多时清空，可见行下次会重新着色一次
+            styledLines.clear();
+        }
+        int paragraphs = logArea.getParagraphs().size();
+        int[] viewport = viewportRange();
+        highlightParagraphs(viewport[0], viewport[1]);
+        highlightParagraphs(Math.max(viewport[1], paragraphs - VIEWPORT_MARGIN), paragraphs);
+    }
+
+    /** 滚动后为进入视口的段落着色（合并到一次 FX 脉冲） */
+    private void scheduleViewportHighlight() {
+        if (highlightedKeyword == null || viewportHighlightPending) return;
+        viewportHighlightPending = true;
+        Platform.runLater(() -> {
+            viewportHighlightPending = false;
+            if (highlightedKeyword == null) return;
+            int[] viewport = viewportRange();
+            highlightParagraphs(viewport[0], viewport[1]);
+        });
+    }
+
+    /** 当前可见段落范围 [from, to)，上下各扩展 VIEWPORT_MARGIN；尚未布局时取文档末尾 */
+    private int[] viewportRange() {
+        int paragraphs = logArea.getParagraphs().size();
+        if (logArea.getVisibleParagraphs().isEmpty()) {
+            return new int[]{Math.max(0, paragraphs - VIEWPORT_MARGIN), paragraphs};
+        }
+        int first = logArea.firstVisibleParToAllParIndex();
+        int last = logArea.lastVisibleParToAllParIndex();
+        return new int[]{Math.max(0, first - VIEWPORT_MARGIN), Math.min(paragraphs, last + 1 + VIEWPORT_MARGIN)};
+    }
+
+    /** 为 [from, to) 中尚未按当前关键字着色的段落计算并设置样式，连续段落合并为一次 setStyleSpans */
+    private void highlightParagraphs(int from, int to) {
+        String searchKw = highlightedKeyword;
+        if (searchKw == null) return;
+        to = Math.min(to, logArea.getParagraphs().size());
+        int runStart = -1;
+        StyleSpansBuilder<Collection<String>> ssb = null;
+        for (int i = Math.max(0, from); i <= to; i++) {
+            String line = null;
+            if (i < to) {
+                line = viewLineSupplier != null ? viewLineSupplier.apply(i) : null;
+                if (line == null) {
+                    line = logArea.getText(i, 0, i, logArea.getParagraphLength(i));
+                } else if (!styledLines.add(line)) {
+                    line = null;
+                }
+            }
+            if (line == null) {
+                if (runStart >= 0) {
+                    logArea.setStyleSpans(logArea.getAbsolutePosition(runStart, 0), ssb.create());
+                    runStart = -1;
+                }
+                continue;
+            }
+            if (runStart < 0) {
+                runStart = i;
+                ssb = new StyleSpansBuilder<>();
+            } else {
+                ssb.add(LogStyleUtil.plainStyle(), 1);
+            }
+            for (var span : lineSpanCache.get(line, searchKw, highlightedAndMode)) {
+                ssb.add(span);
             }
-            StyleSpans<Collection<String>> spans =
-                    LogStyleUtil.computeBatchHighlighting(lines, searchKw, true);
-            logArea.setStyleSpans(0, spans);
         }
     }
 
@@ -357,28 +535,42 @@ public class DiskSearchEngine {
         if (localLine < 0 || localLine >= logArea.getParagraphs().size()) return;
 
         String lineText = logArea.getParagraph(localLine).getText();
-        String lowerText = lineText.toLowerCase();
 
+        // 先保证该行已按关键字着色，避免之后滚动时的增量着色覆盖当前匹配的橙色
+        highlightParagraphs(localLine, localLine + 1);
         clearPreviousCurrentHighlight();
 
-        List<String> keywords = CommonUtils.parseSearchKeywords(keyword);
-        for (int ki = 0; ki < keywords.size(); ki++) {
-            String kw = keywords.get(ki);
-            String lowerKw = kw.toLowerCase();
-            int idx = 0;
-            while ((idx = lowerText.indexOf(lowerKw, idx)) != -1) {
-                int start = logArea.getAbsolutePosition(localLine, idx);
-                String styleClass = "search-highlight-current-" + (ki % LogStyleUtil.SEARCH_HIGHLIGHT_COLORS);
-                Set<String> currentStyles = Set.of("plain-text", styleClass);
-                StyleSpansBuilder<Collection<String>> ssb = new StyleSpansBuilder<>();
-                ssb.add(currentStyles, kw.length());
-                logArea.setStyleSpans(start, ssb.create());
-                lastHighlightedRanges.add(new int[]{start, kw.length(), ki});
-                idx += kw.length();
-            }
+        for (int[] match : findLineMatches(lineText, keyword)) {
+            int start = logArea.getAbsolutePosition(localLine, match[0]);
+            String styleClass = "search-highlight-current-" + (match[2] % LogStyleUtil.SEARCH_HIGHLIGHT_COLORS);
+            Set<String> currentStyles = Set.of("plain-text", styleClass);
+            StyleSpansBuilder<Collection<String>> ssb = new StyleSpansBuilder<>();
+            ssb.add(currentStyles, match[1]);
+            logArea.setStyleSpans(start, ssb.create());
+            lastHighlightedRanges.add(new int[]{start, match[1], match[2]});
         }
     }
 
+    /**
+     * 用共享的多关键字自动机找出行内所有匹配，按起始位置排序。
+     * 同一关键字的重叠匹配只保留最左的一个，与逐个 indexOf 的结果一致。
+     *
+     * @return [start, length, kwIndex] 列表
+     */
+    private static List<int[]> findLineMatches(String lineText, String keyword) {
+        LineMatcher matcher = LineMatcher.forSearchKeyword(keyword);
+        List<int[]> matches = new ArrayList<>();
+        int[] nextAllowed = new int[matcher.size()];
+        matcher.forEachMatch(lineText, (start, end, kwIndex) -> {
+            if (start >= nextAllowed[kwIndex]) {
+                matches.add(new int[]{start, end - start, kwIndex});
+                nextAllowed[kwIndex] = end;
+            }
+        });
+        matches.sort((a, b) -> Integer.compare(a[0], b[0]));
+        return matches;
+    }
+
     /**
      * 高亮并选中指定行中的搜索关键字。
      *
@@ -391,7 +583,6 @@ public class DiskSearchEngine {
         }
 
         String lineText = logArea.getParagraph(localLine).getText();
-        String lowerText = lineText.toLowerCase();
 
         // 导航时不重算全文高亮（rehighlightLogArea），仅设置当前匹配行的橙色样式
         // 全文高亮在搜索关键字变化时已由 rehighlightLogArea 设置，无需重复
@@ -402,17 +593,7 @@ public class DiskSearchEngine {
         List<String> keywords = CommonUtils.parseSearchKeywords(keyword);
 
         // 收集当前行中所有关键字的匹配位置，按位置排序
-        List<int[]> allMatches = new java.util.ArrayList<>();  // [start, length, kwIndex]
-        for (int ki = 0; ki < keywords.size(); ki++) {
-            String kw = keywords.get(ki);
-            String lowerKw = kw.toLowerCase();
-            int idx = 0;
-            while ((idx = lowerText.indexOf(lowerKw, idx)) != -1) {
-                allMatches.add(new int[]{idx, kw.length(), ki});
-                idx += kw.length();
-            }
-        }
-        allMatches.sort((a, b) -> Integer.compare(a[0], b[0]));
+        List<int[]> allMatches = findLineMatches(lineText, keyword);  // [start, length, kwIndex]
 
         if (!allMatches.isEmpty()) {
             lastHighlightedRanges.clear();
@@ -423,7 +604,7 @@ public class DiskSearchEngine {
             for (int[] match : allMatches) {
                 int start = logArea.getAbsolutePosition(localLine, match[0]);
                 String matchedKw = keywords.get(match[2]);
-                int kwLen = matchedKw.length();
+                int kwLen = match[1];
                 String styleClass = "search-highlight-current-" + (match[2] % LogStyleUtil.SEARCH_HIGHLIGHT_COLORS);
                 Set<String> currentStyles = Set.of("plain-text", styleClass);
                 StyleSpansBuilder<Collection<String>> ssb = new StyleSpansBuilder<>();
@@ -446,7 +627,7 @@ public class DiskSearchEngine {
             } else {
                 int[] first = allMatches.get(0);
                 selectStart = logArea.getAbsolutePosition(localLine, first[0]);
-                selectEnd = selectStart + keywords.get(first[2]).length();
+                selectEnd = selectStart + first[1];
             }
             if (selectStart >= 0) {
                 logArea.selectRange(selectStart, selectEnd);
@@ -501,8 +682,8 @@ public class DiskSearchEngine {
     public void incrementalSearchUpdate(List<String> newLines, String keyword, int diskEndLine) {
         if (truncateRefreshPending) return;  // 截断重搜索期间跳过增量更新
         if (newLines == null || newLines.isEmpty()) return;
-        List<String> keywords = CommonUtils.parseSearchKeywords(keyword);
-        if (keywords.isEmpty()) return;
+        LineMatcher matcher = LineMatcher.forSearchKeyword(keyword);
+        if (matcher.isEmpty()) return;
 
         // 记住当前匹配行号，插入后据此修正索引偏移
         int currentLine = (currentDiskMatchIndex >= 0 && currentDiskMatchIndex < diskMatchLineNumbers.size())
@@ -511,14 +692,7 @@ public class DiskSearchEngine {
         int startDiskLine = diskEndLine - newLines.size();
 
         for (int i = 0; i < newLines.size(); i++) {
-            String line = newLines.get(i);
-            boolean matches;
-            if (searchAndMode) {
-                matches = keywords.stream().allMatch(kw -> line.toLowerCase().contains(kw.toLowerCase()));
-            } else {
-                matches = keywords.stream().anyMatch(kw -> line.toLowerCase().contains(kw.toLowerCase()));
-            }
-            if (matches) {
+            if (matcher.matches(newLines.get(i), searchAndMode)) {
                 int newLine = startDiskLine + i;
                 // 去重：避免与全量搜索结果重复
                 int insertPos = Collections.binarySearch(diskMatchLineNumbers, newLine);
@@ -538,44 +712,18 @@ public class DiskSearchEngine {
     // ==================== 裁剪同步 ====================
 
     /**
-     * 视图裁剪后同步更新磁盘搜索匹配列表。
+     * 视图裁剪后同步刷新匹配显示。
      * <p>
      * 注意：trimLogArea 只是从 CodeArea 视图中移除旧行，磁盘文件并未改变。
-     * diskMatchLineNumbers 存储的是磁盘文件的绝对行号，不应做偏移调整。
-     * 被裁剪出视图的匹配行仍然存在于磁盘文件中，navigateToDiskMatch
-     * 会在需要时通过 loadViewFromDisk 重新加载它们。
-     * <p>
-     * 此方法仅移除已超出视图范围的匹配（由定时搜索刷新补回），
-     * 并修正 currentDiskMatchIndex 使其仍指向正确的匹配项。
+     * diskMatchLineNumbers 存储的是磁盘文件的绝对行号，被裁剪出视图的匹配行仍然存在于磁盘文件中，
+     * navigateToDiskMatch 会在需要时通过 loadViewFromDisk 重新加载它们，因此匹配列表保持不变。
+     * 定时刷新只续搜新追加部分，不会再补回被移除的匹配，所以这里不能移除。
      *
      * @param removedStart 被裁剪区域起始行号（0-based，磁盘行号）
      * @param removedCount 被裁剪的行数
      */
     public void trimDiskMatches(int removedStart, int removedCount) {
         if (diskMatchLineNumbers.isEmpty()) return;
-
-        int removedEnd = removedStart + removedCount;
-        int currentLine = (currentDiskMatchIndex >= 0 && currentDiskMatchIndex < diskMatchLineNumbers.size())
-                ? diskMatchLineNumbers.get(currentDiskMatchIndex) : -1;
-
-        // 仅移除被裁剪出视图的匹配项（定时搜索会补回），不对剩余行号做偏移
-        // 因为磁盘文件未变，行号仍是绝对磁盘行号
-        diskMatchLineNumbers.removeIf(line -> line >= removedStart && line < removedEnd);
-
-        // 修正 currentDiskMatchIndex
-        if (diskMatchLineNumbers.isEmpty()) {
-            currentDiskMatchIndex = -1;
-        } else if (currentLine >= removedStart && currentLine < removedEnd) {
-            // 当前匹配被移除，定位到第一个匹配
-            currentDiskMatchIndex = 0;
-        } else if (currentLine >= 0) {
-            // 当前匹配仍在列表中，找到它的位置
-            int idx = diskMatchLineNumbers.indexOf(currentLine);
-            currentDiskMatchIndex = idx >= 0 ? idx : Math.min(currentDiskMatchIndex, diskMatchLineNumbers.size() - 1);
-        } else {
-            currentDiskMatchIndex = 0;
-        }
-
         updateMatchLabel();
         applyCurrentMatchHighlight();
     }
@@ -585,6 +733,8 @@ public class DiskSearchEngine {
     /** 磁盘文件截断时标记待重搜索，不立即清空避免闪烁 */
     public void clearOnFileTruncate() {
         truncateRefreshPending = true;
+        // 文件已重写，行号与偏移全部失效
+        resetScanCursor();
     }
 
     /** 关闭搜索时清除全部搜索状态 */
@@ -594,6 +744,7 @@ public class DiskSearchEngine {
         diskMatchLineNumbers.clear();
         currentDiskMatchIndex = -1;
         lastKeyword = "";
+        resetScanCursor();
         lastHighlightedRanges.clear();
         selectedKeyword = null;
         selectedKeywordMatchLines.clear();
@@ -623,6 +774,9 @@ public class DiskSearchEngine {
 
     public void setSearchAndMode(boolean mode) { this.searchAndMode = mode; }
 
+    /** 设置是否为正则/查询模式，影响选中关键字的单独搜索 */
+    public void setQueryMode(boolean mode) { this.queryMode = mode; }
+
     /** 设置选中的关键字，导航时优先跳转此关键字的匹配位置；传 null 清除选中 */
     public void setSelectedKeyword(String keyword) {
         this.selectedKeyword = keyword;
@@ -639,11 +793,14 @@ public class DiskSearchEngine {
     private final AtomicLong selectedSearchGeneration = new AtomicLong(0);
 
     private void searchSelectedKeywordInBackground(String keyword) {
-        String podName = AppConfig.getK8sQuery().getPodName();
+        String podName = AppConfig.getK8sQuery().getCacheKey();
         if (podName == null) return;
         long gen = selectedSearchGeneration.incrementAndGet();  // 递增，使之前的回调失效
+        String searchKw = queryMode ? LogQuery.QUERY_MODE_PREFIX + keyword : keyword;
         ExecutorManager.submit(() -> {
-            PodLogFileManager.DiskSearchResult result = fileManager.searchInLogFile(podName, keyword, false);
+            PodLogFileManager.DiskSearchResult result = fileManager.searchInLogFile(
+                    podName, searchKw, false, () -> gen != selectedSearchGeneration.get());
+            if (gen != selectedSearchGeneration.get()) return;
             Platform.runLater(() -> {
                 if (gen != selectedSearchGeneration.get()) return;  // 过时则丢弃
 
@@ -1,11 +1,14 @@
 package com.longfor.lmk.k8slogviewer.controller;
 
 import com.longfor.lmk.k8slogviewer.config.*;
+import com.longfor.lmk.k8slogviewer.model.ClusterSnapshot;
 import com.longfor.lmk.k8slogviewer.service.ClusterTreeService;
+import com.longfor.lmk.k8slogviewer.service.LogChunk;
 import com.longfor.lmk.k8slogviewer.service.LogFetchService;
 import com.longfor.lmk.k8slogviewer.service.PodLogFileManager;
 import com.longfor.lmk.k8slogviewer.utils.CommonUtils;
 import com.longfor.lmk.k8slogviewer.utils.ExecutorManager;
+import com.longfor.lmk.k8slogviewer.utils.LogQuery;
 import com.longfor.lmk.k8slogviewer.utils.LogStyleUtil;
 import javafx.animation.PauseTransition;
 import javafx.application.Platform;
@@ -36,6 +39,8 @@ import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -80,6 +85,7 @@ public class K8sLogViewerController {
     @FXML private VBox treePane;
     @FXML private HBox treePaneWrapper;
     @FXML private ComboBox<String> statusFilterCombo;
+    @FXML private TextField labelSelectorField;
     @FXML private VBox treeLoadingOverlay;
 
     @FXML private Button collapseTab;
@@ -93,6 +99,7 @@ public class K8sLogViewerController {
     @FXML private Label matchCountLabel;
     @FXML private FlowPane tagContainer;
     @FXML private ToggleButton andOrToggle;
+    @FXML private ToggleButton regexToggle;
 
     // ==================== 服务与管理器 ====================
 
@@ -116,8 +123,12 @@ public class K8sLogViewerController {
     /** 日志流代际计数器，切换 Pod 时递增以使旧的重连循环失效 */
     private final AtomicInteger logStreamGeneration = new AtomicInteger(0);
 
-    /** 最大自动重连次数 */
-    private static final int MAX_RECONNECT_ATTEMPTS = 3;
+    /** 连续无进展的最大自动重连次数（收到新日志后重新计数） */
+    private static final int MAX_RECONNECT_ATTEMPTS = 10;
+
+    /** 重连退避：首次延迟与最大延迟（毫秒），每次无进展的重连延迟翻倍 */
+    private static final long RECONNECT_BASE_DELAY_MS = 1000;
+    private static final long RECONNECT_MAX_DELAY_MS = 30_000;
 
     /** 搜索高亮颜色数量，与 LogStyleUtil 保持一致 */
     private static final int SEARCH_HIGHLIGHT_COLORS = LogStyleUtil.SEARCH_HIGHLIGHT_COLORS;
@@ -142,7 +153,9 @@ public class K8sLogViewerController {
         logStreamManager.setOnAutoScrollStateChanged(paused ->
                 searchToggleButton.setText(paused ? "恢复" : "暂停"));
         diskSearchEngine = new DiskSearchEngine(logArea, fileManager, matchCountLabel);
-        treeViewManager = new TreeViewManager(treeView, statusFilterCombo, searchField, clusterTreeService);
+        treeViewManager = new TreeViewManager(treeView, statusFilterCombo, searchField, labelSelectorField, clusterTreeService);
+        // 状态 / 标签条件下推到服务端后，保留当前筛选重新加载树
+        treeViewManager.setOnServerFilterChanged(() -> reloadTreeWithApiCall(false));
 
         // 先加载偏好文件（必须在 init 之前，否则 combo 读到空数据）
         AppPreferences.loadFromFile();
@@ -199,6 +212,7 @@ public class K8sLogViewerController {
                 logStreamManager::getViewStartLine,
                 logStreamManager::getViewEndLine
         );
+        diskSearchEngine.setViewLineSupplier(logStreamManager::getViewLine);
         diskSearchEngine.setViewLoader(logStreamManager::loadViewFromDisk);
         diskSearchEngine.setLogScrollPaneSupplier(() -> logScrollPane);
 
@@ -215,6 +229,11 @@ public class K8sLogViewerController {
             }
         }));
 
+        // 多 Pod 合并跟踪、指定容器 / 上一个实例
+        treeViewManager.setOnMergeTail(this::showMergedLogs);
+        treeViewManager.setOnContainerLogs(this::showContainerLogs);
+        treeViewManager.setOnExportLogs(this::showExportDialog);
+
         // 初始化树视图
         treeViewManager.init();
 
@@ -230,18 +249,24 @@ public class K8sLogViewerController {
         treeView.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
             // 命名空间切换刷新树期间跳过，避免误触发日志查询
             if (isNsReloading) return;
+            // 多选（准备合并跟踪）时不切换单个 Pod
+            if (treeView.getSelectionModel().getSelectedItems().size() > 1) return;
             if (newVal != null && newVal.getParent() != null) {
                 TreeItem<String> parent = newVal.getParent();
                 if (parent.getParent() != null) {
                     String namespace = parent.getValue();
                     String podName = newVal.getValue();
                     K8sQuery k8sQuery = AppConfig.getK8sQuery();
-                    if (podName.equals(k8sQuery.getPodName()) && namespace.equals(k8sQuery.getNamespace())) {
+                    if (!k8sQuery.isMerged() && k8sQuery.getContainer() == null && !k8sQuery.isPrevious()
+                            && podName.equals(k8sQuery.getPodName()) && namespace.equals(k8sQuery.getNamespace())) {
                         return;
                     }
                     log.info("选择命名空间: {}, Pod: {}", namespace, podName);
                     k8sQuery.setNamespace(namespace);
                     k8sQuery.setPodName(podName);
+                    k8sQuery.setContainer(null);
+                    k8sQuery.setPrevious(false);
+                    k8sQuery.setMergedPodNames(null);
 
                     // 标记该 Pod 及其上级为手动展开，搜索清空时不会折叠
                     treeViewManager.markExpandedToRoot(newVal);
@@ -388,14 +413,75 @@ public class K8sLogViewerController {
         treeViewManager.setActivePodPath(null);
     }
 
-    /** 从 K8s API 加载命名空间列表并恢复选中状态（仅首次或切配置时调用） */
+    /**
+     * 加载命名空间列表并恢复选中状态（仅首次或切配置时调用）。
+     * 有本地快照时先用快照立即展示命名空间和树（标记为过期），API 返回后再按最新命名空间同步。
+     */
     private void loadNamespaceOptions() {
+        boolean snapshotShown = showTreeSnapshot();
         fetchNamespacesFromApi(allNs -> {
-            namespaceTagInput.getItems().setAll(allNs);
-            restoreNamespaceSelection(allNs);
+            clusterTreeService.recordNamespaces(allNs);
+            if (snapshotShown) {
+                reconcileNamespaceSelection(allNs);
+            } else {
+                namespaceTagInput.getItems().setAll(allNs);
+                restoreNamespaceSelection(allNs);
+            }
         }, err -> CommonUtils.showToast(settingsButton, "✗", "加载命名空间失败: " + err, "#E74C3C"));
     }
 
+    /**
+     * 用当前配置的本地快照展示命名空间和树，不请求 API。
+     * 选中已保存的命名空间，没有保存时选中快照中第一个有 Pod 的命名空间。
+     *
+     * @return 是否已展示快照
+     */
+    private boolean showTreeSnapshot() {
+        ClusterSnapshot snapshot = clusterTreeService.restoreSnapshot();
+        if (snapshot == null || snapshot.getNamespaces().isEmpty()) return false;
+
+        List<String> selected = new ArrayList<>();
+        String profileName = AppPreferences.getActiveProfileName();
+        if (profileName != null) {
+            selected.addAll(AppPreferences.getSelectedNamespaces(profileName));
+            selected.retainAll(snapshot.getNamespaces());
+        }
+        if (selected.isEmpty()) {
+            String first = snapshot.firstNamespaceWithPods();
+            if (first == null) return false;
+            selected.add(first);
+        }
+
+        namespaceTagInput.getItems().setAll(snapshot.getNamespaces());
+        namespaceTagInput.selectMultiple(selected);
+        TreeItem<String> root = clusterTreeService.loadForNamespaces(selected);
+        if (root == null) return false;
+        treeViewManager.setRootDirectly(root);
+        treeViewManager.markStale(snapshot.getSavedAt());
+        log.info("使用本地快照展示集群树: {}", snapshot);
+        return true;
+    }
+
+    /** 快照展示后收到最新命名空间列表：剔除已不存在的选中项，再从 API 全量加载以替换快照数据 */
+    private void reconcileNamespaceSelection(List<String> allNs) {
+        String activeNs = getActiveNamespace();
+        if (activeNs != null && !allNs.contains(activeNs)) {
+            stopCurrentLogStream();
+        }
+        List<String> currentSelected = new ArrayList<>(namespaceTagInput.getSelectedItems());
+        currentSelected.retainAll(allNs);
+        namespaceTagInput.resetSilent();
+        namespaceTagInput.getItems().setAll(allNs);
+        if (currentSelected.isEmpty()) {
+            restoreNamespaceSelection(allNs);
+            return;
+        }
+        namespaceTagInput.selectMultiple(currentSelected);
+        saveNamespaceSelection();
+        // 保留用户在快照展示期间输入的筛选条件
+        reloadTreeWithApiCall(false);
+    }
+
     /**
      * 从 K8s API 异步加载全量命名空间列表（不再查询全量 Pod）。
      *
@@ -449,28 +535,45 @@ public class K8sLogViewerController {
     }
 
     /**
-     * 逐个探测命名空间，找到第一个包含 Pod 的 ns 后选中并保存为默认配置。
+     * 找到第一个包含 Pod 的 ns 后选中并保存为默认配置。
+     * 先用一次 limit=1 的集群级请求（结果按命名空间排序），无集群级权限时再逐个探测，每次同样只取 1 个 Pod。
      */
     private void findFirstNamespaceWithPodsAndSelect(java.util.List<String> allNs) {
         ExecutorManager.submit(() -> {
-            for (String ns : allNs) {
+            String found = null;
+            try {
+                var api = com.longfor.lmk.k8slogviewer.config.K8sClientManager.getCoreV1Api();
+                var pods = api.listPodForAllNamespaces(null, null, null, null,
+                        1, null, null, null, null);
+                if (pods != null && !pods.getItems().isEmpty()) {
+                    String ns = pods.getItems().get(0).getMetadata().getNamespace();
+                    if (allNs.contains(ns)) found = ns;
+                }
+            } catch (Exception e) {
+                log.info("集群级探测 Pod 失败，改为逐个命名空间探测: {}", e.getMessage());
+            }
+            for (int i = 0; found == null && i < allNs.size(); i++) {
+                String ns = allNs.get(i);
                 try {
                     var api = com.longfor.lmk.k8slogviewer.config.K8sClientManager.getCoreV1Api();
                     var pods = api.listNamespacedPod(ns, null, null, null, null,
-                            null, null, null, null, null);
+                            null, 1, null, null, null);
                     if (pods != null && !pods.getItems().isEmpty()) {
-                        String found = ns;
-                        Platform.runLater(() -> {
-                            namespaceTagInput.selectMultiple(List.of(found));
-                            saveNamespaceSelection();
-                            applyNsFilterFromCache();
-                        });
-                        return;
+                        found = ns;
                     }
                 } catch (Exception e) {
                     log.warn("探测命名空间[{}]是否有Pod失败: {}", ns, e.getMessage());
                 }
             }
+            if (found != null) {
+                String selected = found;
+                Platform.runLater(() -> {
+                    namespaceTagInput.selectMultiple(List.of(selected));
+                    saveNamespaceSelection();
+                    applyNsFilterFromCache();
+                });
+                return;
+            }
             // 所有命名空间都没有 Pod，选中第一个作为兜底
             if (!allNs.isEmpty()) {
                 String first = allNs.get(0);
@@ -499,29 +602,52 @@ public class K8sLogViewerController {
     }
 
     /**
-     * 根据当前选中命名空间全量加载树（含所有 Pod 子节点，不懒加载）。
+     * 根据当前选中命名空间全量加载树（含所有 Pod 子节点，不懒加载），并清空搜索与状态筛选。
      */
     private void reloadTreeWithApiCall() {
+        reloadTreeWithApiCall(true);
+    }
+
+    /**
+     * @param resetFilters 是否清空搜索与状态筛选；筛选条件下推触发的重载需保留
+     */
+    private void reloadTreeWithApiCall(boolean resetFilters) {
         List<String> nsList = getEffectiveNamespaces();
         if (nsList.isEmpty()) return;
 
         isNsReloading = true;
         refreshButton.setDisable(true);
         treeViewManager.cancelPendingFilters();
-        searchField.setText("");
-        treeViewManager.clearStatusFilter();
+        if (resetFilters) {
+            searchField.setText("");
+            treeViewManager.clearStatusFilter();
+        }
         loadingIndicator.setVisible(true);
-        treeLoadingOverlay.setVisible(true);
+        // 展示快照时不遮挡树，加载完成后原地替换
+        treeLoadingOverlay.setVisible(!treeViewManager.isStale());
 
         ExecutorManager.submit(() -> {
             try {
                 // 先设置 lastRequestedNamespaces（forceReloadFull 依赖此字段）
                 clusterTreeService.loadForNamespaces(nsList);
-                // 全量加载所有 Pod
-                TreeItem<String> fullRoot = clusterTreeService.forceReloadFull();
+                // 全量加载所有 Pod：各命名空间并发请求，完成一个先显示一个
+                String rootName = clusterTreeService.getRootName();
+                TreeItem<String> fullRoot = clusterTreeService.forceReloadFull((ns, pods) ->
+                        Platform.runLater(() -> {
+                            if (!isNsReloading || pods.isEmpty()) return;
+                            treeLoadingOverlay.setVisible(false);
+                            treeViewManager.showLoadedNamespace(rootName, ns, pods, nsList);
+                        }));
                 Platform.runLater(() -> {
                     if (fullRoot != null) {
                         treeViewManager.setRootDirectly(fullRoot);
+                        // 加载失败的命名空间仍是旧数据，保留其过期标记
+                        Set<String> failed = clusterTreeService.getFailedNamespaces();
+                        treeViewManager.clearStale(failed);
+                        if (!failed.isEmpty()) {
+                            CommonUtils.showToast(refreshButton, "⚠",
+                                    failed.size() + " 个命名空间加载失败，显示上次的数据", "#F39C12");
+                        }
                         // 如果有正在跑日志的容器且其命名空间仍在选中列表中，自动定位到该 Pod
                         String activePath = treeViewManager.getActivePodPath();
                         String activeNs = getActiveNamespace();
@@ -579,9 +705,8 @@ public class K8sLogViewerController {
 
         // 静默清空（不触发中间状态的 UI 重建，避免闪烁）
         namespaceTagInput.resetSilent();
+        treeViewManager.clearStale();
         loadNamespaceOptions();
-
-        reloadTreeWithApiCall();
     }
 
     private void initQueryDefaults() {
@@ -626,7 +751,7 @@ public class K8sLogViewerController {
         logStreamManager.resetForNewPod();
 
         try {
-            fileManager.switchPod(query.getPodName());
+            fileManager.switchPod(query.getCacheKey());
         } catch (IOException e) {
             log.warn("重建日志文件失败: {}", e.getMessage());
         }
@@ -637,29 +762,20 @@ public class K8sLogViewerController {
         LogFetchService.cancelCurrentCall();
         ScheduledExecutorService flushExecutor = ExecutorManager.restartLogFlushExecutor();
         int flushIntervalMs = AppPreferences.getLogFlushIntervalMs();
-        flushExecutor.scheduleAtFixedRate(
-                this::flushLogsToUI, 0, flushIntervalMs, TimeUnit.MILLISECONDS
-        );
+        scheduleFlush(flushExecutor, new AdaptiveFlushScheduler(flushIntervalMs, LogStreamManager.MAX_LOG_LINES), 0);
 
         ExecutorManager.submit(() -> {
             try {
-                LogFetchService.fetchStreaming(logStreamManager::enqueueLine);
+                fetchLogStream(query, true);
                 // 流正常结束 — 仅当代际匹配时才处理（否则是切换容器导致的取消）
                 if (generation != logStreamGeneration.get()) {
                     log.info("日志流因切换容器而取消，静默退出");
                     return;
                 }
-                if (query.isSearchRunning() && query.getPodName() != null) {
+                // 上一个实例的日志是一次性的，读完即结束，不重连
+                if (query.isSearchRunning() && query.getPodName() != null && !query.isPrevious()) {
                     log.info("日志流断开，容器仍在运行，自动重连...");
-                    Platform.runLater(() -> {
-                        PauseTransition delay = new PauseTransition(Duration.seconds(1));
-                        delay.setOnFinished(e -> {
-                            if (generation == logStreamGeneration.get()) {
-                                reconnectLogStream(generation, MAX_RECONNECT_ATTEMPTS);
-                            }
-                        });
-                        delay.play();
-                    });
+                    scheduleReconnect(generation, 0);
                 } else {
                     log.info("日志流已结束");
                     Platform.runLater(this::onLogStreamEnded);
@@ -678,8 +794,91 @@ public class K8sLogViewerController {
         });
     }
 
-    /** 重连日志流（不清理已有日志，不重置状态） */
-    private void reconnectLogStream(int expectedGeneration, int remainingAttempts) {
+    /** 按当前模式获取日志流：单 Pod 或多 Pod 合并，阻塞直到流结束 */
+    private void fetchLogStream(K8sQuery query, boolean emitHeader) throws IOException {
+        if (query.isMerged()) {
+            LogFetchService.fetchMergedStreaming(query.getMergedPodNames(), logStreamManager, emitHeader);
+        } else {
+            LogFetchService.fetchStreaming(logStreamManager, emitHeader);
+        }
+    }
+
+    /**
+     * 查看 Pod 指定容器的日志，previous=true 时获取该容器上一个实例（崩溃重启前）的日志。
+     * 每个容器及其上一个实例各自缓存到独立的会话中，可以像实时日志一样搜索。
+     */
+    private void showContainerLogs(String namespace, String podName, String container, boolean previous) {
+        K8sQuery k8sQuery = AppConfig.getK8sQuery();
+        log.info("查看容器日志: {}/{} 容器: {}{}", namespace, podName, container, previous ? "（上一个实例）" : "");
+        k8sQuery.setNamespace(namespace);
+        k8sQuery.setPodName(podName);
+        k8sQuery.setContainer(container);
+        k8sQuery.setPrevious(previous);
+        k8sQuery.setMergedPodNames(null);
+        showLogs();
+    }
+
+    /**
+     * 打开日志导出弹窗。导出当前正在查看的 Pod 时沿用其容器 / 上一个实例选择，并可按当前搜索条件过滤。
+     */
+    private void showExportDialog(String namespace, String podName) {
+        K8sQuery query = AppConfig.getK8sQuery();
+        boolean current = !query.isMerged() && podName.equals(query.getPodName()) && namespace.equals(query.getNamespace());
+        String searchKw = (searchBar != null && searchBar.isVisible()) ? buildSearchKeywordFromTags() : "";
+        LogExportDialog.show(namespace, podName,
+                current ? query.getContainer() : null,
+                current && query.isPrevious(),
+                searchKw, andOrToggle.isSelected());
+    }
+
+    /**
+     * 合并跟踪同一命名空间下的多个 Pod：按时间戳交错显示，缓存到以合成名称命名的会话中。
+     */
+    private void showMergedLogs(String namespace, List<String> podNames) {
+        K8sQuery k8sQuery = AppConfig.getK8sQuery();
+        log.info("合并跟踪命名空间: {}, Pod: {}", namespace, podNames);
+        k8sQuery.setNamespace(namespace);
+        k8sQuery.setContainer(null);
+        k8sQuery.setPrevious(false);
+        k8sQuery.setMergedPodNames(podNames);
+        k8sQuery.setPodName(mergedSessionName(podNames));
+        treeViewManager.setActivePodPath(null);
+        showLogs();
+    }
+
+    /** 合并会话的缓存名称：Pod 名公共前缀 + Pod 数 */
+    private static String mergedSessionName(List<String> podNames) {
+        String prefix = podNames.get(0);
+        for (String name : podNames) {
+            int i = 0;
+            while (i < prefix.length() && i < name.length() && prefix.charAt(i) == name.charAt(i)) i++;
+            prefix = prefix.substring(0, i);
+        }
+        prefix = prefix.replaceAll("[-.]+$", "");
+        return "merged-" + (prefix.isEmpty() ? "pods" : prefix) + "-x" + podNames.size();
+    }
+
+    /**
+     * 按指数退避延迟后重连：第 attempt 次（从 0 开始）等待 min(1s × 2^attempt, 30s)。
+     * 连续 {@link #MAX_RECONNECT_ATTEMPTS} 次重连都没有收到新日志时停止。
+     */
+    private void scheduleReconnect(int expectedGeneration, int attempt) {
+        if (attempt >= MAX_RECONNECT_ATTEMPTS) {
+            log.info("已连续重连 {} 次未收到新日志，停止重连", attempt);
+            Platform.runLater(this::onLogStreamEnded);
+            return;
+        }
+        long delayMs = Math.min(RECONNECT_BASE_DELAY_MS << Math.min(attempt, 16), RECONNECT_MAX_DELAY_MS);
+        log.info("{} ms 后第 {} 次重连日志流", delayMs, attempt + 1);
+        Platform.runLater(() -> {
+            PauseTransition delay = new PauseTransition(Duration.millis(delayMs));
+            delay.setOnFinished(e -> reconnectLogStream(expectedGeneration, attempt));
+            delay.play();
+        });
+    }
+
+    /** 重连日志流（不清理已有日志，不重置状态），从最后收到的行时间戳续传 */
+    private void reconnectLogStream(int expectedGeneration, int attempt) {
         if (expectedGeneration != logStreamGeneration.get()) return;
 
         K8sQuery query = AppConfig.getK8sQuery();
@@ -688,25 +887,16 @@ public class K8sLogViewerController {
         LogFetchService.cancelCurrentCall();
 
         ExecutorManager.submit(() -> {
+            long lastBefore = LogFetchService.getLastLogTimestamp();
             try {
-                LogFetchService.fetchStreaming(logStreamManager::enqueueLine, false);
+                fetchLogStream(query, false);
                 if (expectedGeneration != logStreamGeneration.get()) {
                     log.info("重连的日志流因切换容器而取消，静默退出");
                     return;
                 }
                 if (query.isSearchRunning() && query.getPodName() != null) {
-                    int next = remainingAttempts - 1;
-                    if (next <= 0) {
-                        log.info("已达最大重连次数，停止重连");
-                        Platform.runLater(this::onLogStreamEnded);
-                        return;
-                    }
-                    log.info("重连的日志流断开，继续自动重连（剩余{}次）...", next);
-                    Platform.runLater(() -> {
-                        PauseTransition delay = new PauseTransition(Duration.seconds(1));
-                        delay.setOnFinished(e -> reconnectLogStream(expectedGeneration, next));
-                        delay.play();
-                    });
+                    log.info("重连的日志流断开，继续自动重连...");
+                    scheduleReconnect(expectedGeneration, nextAttempt(attempt, lastBefore));
                 } else {
                     Platform.runLater(this::onLogStreamEnded);
                 }
@@ -716,25 +906,24 @@ public class K8sLogViewerController {
                     return;
                 }
                 log.error("重连日志流失败: {}", e.getMessage());
-                int next = remainingAttempts - 1;
-                if (query.isSearchRunning() && next > 0) {
-                    Platform.runLater(() -> {
-                        PauseTransition delay = new PauseTransition(Duration.seconds(3));
-                        delay.setOnFinished(ev -> reconnectLogStream(expectedGeneration, next));
-                        delay.play();
-                    });
+                if (query.isSearchRunning()) {
+                    scheduleReconnect(expectedGeneration, nextAttempt(attempt, lastBefore));
                 } else {
-                    log.info("已达最大重连次数或已停止，停止重连");
                     Platform.runLater(this::onLogStreamEnded);
                 }
             }
         });
     }
 
+    /** 本次重连收到了新日志则退避重新计数，否则递增 */
+    private static int nextAttempt(int attempt, long lastTimestampBefore) {
+        return LogFetchService.getLastLogTimestamp() > lastTimestampBefore ? 0 : attempt + 1;
+    }
+
     /** 日志流结束（容器退出/Pod消失/连接断开）后的清理工作 */
     private void onLogStreamEnded() {
         // 排空残留的日志行
-        List<String> remaining = logStreamManager.drainQueue();
+        List<LogChunk> remaining = logStreamManager.drainQueue();
         if (!remaining.isEmpty()) {
             logStreamManager.processLogBatch(remaining);
         }
@@ -751,22 +940,51 @@ public class K8sLogViewerController {
         logStreamManager.appendEndMarker();
     }
 
-    /** 定时刷新：排空队列 → 处理批次 → 搜索刷新 */
-    private void flushLogsToUI() {
-        List<String> batch = logStreamManager.drainQueue();
-        if (!batch.isEmpty()) {
-            Platform.runLater(() -> {
-                List<String> processedLines = logStreamManager.processLogBatch(batch);
-                // 搜索增量更新
-                if (!processedLines.isEmpty()) {
-                    String searchKw = (searchBar != null && searchBar.isVisible()) ? buildSearchKeywordFromTags() : null;
-                    if (searchKw != null && !searchKw.isBlank()) {
-                        diskSearchEngine.rehighlightLogArea(searchKw);
-                        diskSearchEngine.incrementalSearchUpdate(processedLines, searchKw, logStreamManager.getDiskEndLine());
-                        diskSearchEngine.applyCurrentMatchHighlight();
-                    }
+    /** 按调度器给出的延迟安排下一次刷新（每次刷新后重新计算间隔，刷新线程池停止后不再调度） */
+    private void scheduleFlush(ScheduledExecutorService executor, AdaptiveFlushScheduler scheduler, long delayMs) {
+        if (executor.isShutdown()) return;
+        try {
+            executor.schedule(() -> {
+                try {
+                    flushLogsToUI(scheduler);
+                } finally {
+                    scheduleFlush(executor, scheduler, scheduler.nextDelayMs());
                 }
-            });
+            }, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 切换 Pod 时线程池已停止
+        }
+    }
+
+    /**
+     * 刷新：排空队列 → 处理批次 → 搜索刷新。
+     * 上一次刷新还没在 FX 线程执行完时本次跳过，积压的行合并到下次；每次最多渲染帧预算内的行数。
+     */
+    private void flushLogsToUI(AdaptiveFlushScheduler scheduler) {
+        if (scheduler.tryBeginPulse()) {
+            List<LogChunk> batch = logStreamManager.drainQueue();
+            if (batch.isEmpty()) {
+                scheduler.cancelPulse();
+            } else {
+                Platform.runLater(() -> {
+                    long start = System.nanoTime();
+                    List<String> processedLines = List.of();
+                    try {
+                        processedLines = logStreamManager.processLogBatch(batch, scheduler.renderLimit());
+                        // 搜索增量更新
+                        if (!processedLines.isEmpty()) {
+                            String searchKw = (searchBar != null && searchBar.isVisible()) ? buildSearchKeywordFromTags() : null;
+                            if (searchKw != null && !searchKw.isBlank()) {
+                                diskSearchEngine.rehighlightLogArea(searchKw);
+                                diskSearchEngine.incrementalSearchUpdate(processedLines, searchKw, logStreamManager.getDiskEndLine());
+                                diskSearchEngine.applyCurrentMatchHighlight();
+                            }
+                        }
+                    } finally {
+                        scheduler.endPulse(processedLines.size(), System.nanoTime() - start);
+                    }
+                });
+            }
         }
 
         String refreshKw = (searchBar != null && searchBar.isVisible()) ? buildSearchKeywordFromTags() : null;
@@ -780,7 +998,7 @@ public class K8sLogViewerController {
         }
     }
 
-    /** 定时刷新搜索（由 flushLogsToUI 触发），强制全量搜索保证匹配列表完整 */
+    /** 定时刷新搜索（由 flushLogsToUI 触发），只续搜文件新追加部分，截断或关键字变化后自动退回全量搜索 */
     private void refreshSearchIfNeeded() {
         String searchKw = (searchBar != null && searchBar.isVisible()) ? buildSearchKeywordFromTags() : null;
         if (searchKw != null && !searchKw.isBlank()) {
@@ -1022,6 +1240,10 @@ public class K8sLogViewerController {
     private String buildSearchKeywordFromTags() {
         if (tagContainer.getChildren().isEmpty()) return "";
         StringBuilder sb = new StringBuilder();
+        // 正则模式：加查询模式标记，每个标签按查询表达式解析
+        if (regexToggle != null && regexToggle.isSelected()) {
+            sb.append(LogQuery.QUERY_MODE_PREFIX);
+        }
         for (var node : tagContainer.getChildren()) {
             String kw = (String) node.getUserData();
             sb.append(kw).append('\0');
@@ -1052,6 +1274,17 @@ public class K8sLogViewerController {
         onSearchTagsChanged();
     }
 
+    @FXML
+    private void onRegexToggle() {
+        diskSearchEngine.setQueryMode(regexToggle.isSelected());
+        diskSearchEngine.resetLastKeyword();
+        onSearchTagsChanged();
+        // 选中标签的单独搜索也切换到对应模式
+        if (selectedSearchKeyword != null) {
+            diskSearchEngine.setSelectedKeyword(selectedSearchKeyword);
+        }
+    }
+
     @FXML
     private void findNext() {
         String keyword = buildSearchKeywordFromTags();
@@ -1289,7 +1522,7 @@ public class K8sLogViewerController {
         if (k8sQuery.isSearchRunning()) {
             logStreamManager.pauseAutoScroll();   // 触发回调改按钮文案为"恢复"
         }
-        logStreamManager.scrollToTop(k8sQuery.getPodName());
+        logStreamManager.scrollToTop(k8sQuery.getCacheKey());
     }
 
     @FXML
@@ -1297,12 +1530,12 @@ public class K8sLogViewerController {
         K8sQuery k8sQuery = AppConfig.getK8sQuery();
         k8sQuery.setSearchRunning(true);
         logStreamManager.resumeAutoScroll();   // 触发回调改按钮文案为"暂停"
-        logStreamManager.scrollToBottom(k8sQuery.getPodName());
+        logStreamManager.scrollToBottom(k8sQuery.getCacheKey());
     }
 
     @FXML
     public void openLogFileClick(MouseEvent mouseEvent) {
-        String podName = AppConfig.getK8sQuery().getPodName();
+        String podName = AppConfig.getK8sQuery().getCacheKey();
         if (podName == null) {
             CommonUtils.showToast(openLogFileButton, "⚠", "请先选择一个 Pod", "#F39C12");
             return;
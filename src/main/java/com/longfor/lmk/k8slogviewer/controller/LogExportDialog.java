@@ -0,0 +1,245 @@
+package com.longfor.lmk.k8slogviewer.controller;
+
+import com.longfor.lmk.k8slogviewer.service.LogExportService;
+import com.longfor.lmk.k8slogviewer.utils.ExecutorManager;
+import com.longfor.lmk.k8slogviewer.utils.LineMatcher;
+import javafx.application.Platform;
+import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 日志导出弹窗：选择目标文件与导出参数，流式导出并显示进度与吞吐量。
+ */
+public class LogExportDialog {
+
+    private static final Logger log = LoggerFactory.getLogger(LogExportDialog.class);
+
+    private static final DateTimeFormatter FILE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    @FXML private TextField podNameLabel;
+    @FXML private TextField fileField;
+    @FXML private Button browseButton;
+    @FXML private TextField limitField;
+    @FXML private TextField sinceField;
+    @FXML private CheckBox gzipCheck;
+    @FXML private CheckBox filterCheck;
+    @FXML private ProgressBar progressBar;
+    @FXML private Label statusLabel;
+    @FXML private Button startButton;
+    @FXML private Button cancelButton;
+
+    private final String namespace;
+    private final String podName;
+    private final String container;
+    private final boolean previous;
+    /** 打开弹窗时搜索栏的关键字串，空串表示无搜索条件 */
+    private final String searchKeyword;
+    private final boolean andMode;
+
+    private Stage stage;
+    private final AtomicBoolean cancelled = new AtomicBoolean(false);
+    private volatile boolean running = false;
+
+    private LogExportDialog(String namespace, String podName, String container, boolean previous,
+                            String searchKeyword, boolean andMode) {
+        this.namespace = namespace;
+        this.podName = podName;
+        this.container = container;
+        this.previous = previous;
+        this.searchKeyword = searchKeyword != null ? searchKeyword : "";
+        this.andMode = andMode;
+    }
+
+    /**
+     * 打开导出弹窗。
+     *
+     * @param container     容器名，null 表示默认容器
+     * @param searchKeyword 当前搜索栏条件，可选用于过滤导出的行
+     * @param andMode       搜索条件的且/或模式
+     */
+    public static void show(String namespace, String podName, String container, boolean previous,
+                            String searchKeyword, boolean andMode) {
+        new LogExportDialog(namespace, podName, container, previous, searchKeyword, andMode).open();
+    }
+
+    private void open() {
+        try {
+            FXMLLoader loader = new FXMLLoader(
+                    getClass().getResource("/com/longfor/lmk/k8slogviewer/log_export_dialog.fxml"));
+            loader.setController(this);
+            VBox root = loader.load();
+
+            stage = new Stage();
+            stage.setTitle("导出日志 - " + namespace + "/" + podName);
+            Scene scene = new Scene(root, 560, 300);
+            scene.getStylesheets().add(getClass().getResource("/styles.css").toExternalForm());
+            stage.setScene(scene);
+            // 关闭窗口时中止进行中的导出
+            stage.setOnCloseRequest(e -> cancelled.set(true));
+            stage.show();
+        } catch (IOException e) {
+            log.error("加载导出弹窗 FXML 失败", e);
+        }
+    }
+
+    @FXML
+    public void initialize() {
+        String title = podName + (container != null ? " / " + container : "") + (previous ? "（上一个实例）" : "");
+        podNameLabel.setText(title);
+
+        String fileName = podName + (container != null ? "_" + container : "") + (previous ? "_previous" : "")
+                + "_" + LocalDateTime.now().format(FILE_TIME_FORMAT) + ".log";
+        fileField.setText(new File(System.getProperty("user.home"), fileName).getAbsolutePath());
+
+        boolean hasFilter = !LineMatcher.forSearchKeyword(searchKeyword).isEmpty();
+        filterCheck.setDisable(!hasFilter);
+        filterCheck.setSelected(hasFilter);
+
+        limitField.textProperty().addListener((obs, oldVal, newVal) -> {
+            if (!newVal.matches("\\d*")) limitField.setText(oldVal);
+        });
+        sinceField.textProperty().addListener((obs, oldVal, newVal) -> {
+            if (!newVal.matches("\\d*")) sinceField.setText(oldVal);
+        });
+    }
+
+    // ==================== 操作 ====================
+
+    @FXML
+    private void onBrowse() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("导出日志");
+        File current = new File(fileField.getText());
+        if (current.getParentFile() != null && current.getParentFile().isDirectory()) {
+            chooser.setInitialDirectory(current.getParentFile());
+        }
+        chooser.setInitialFileName(current.getName());
+        File selected = chooser.showSaveDialog(stage);
+        if (selected != null) {
+            fileField.setText(selected.getAbsolutePath());
+            onGzipToggle();
+        }
+    }
+
+    /** 勾选 gzip 时自动补上 / 去掉 .gz 后缀 */
+    @FXML
+    private void onGzipToggle() {
+        String path = fileField.getText();
+        if (gzipCheck.isSelected() && !path.endsWith(".gz")) {
+            fileField.setText(path + ".gz");
+        } else if (!gzipCheck.isSelected() && path.endsWith(".gz")) {
+            fileField.setText(path.substring(0, path.length() - 3));
+        }
+    }
+
+    @FXML
+    private void onStart() {
+        String path = fileField.getText().trim();
+        if (path.isEmpty()) {
+            statusLabel.setText("请选择导出文件");
+            return;
+        }
+        Path target = Path.of(path);
+        if (target.toAbsolutePath().getParent() == null || !target.toAbsolutePath().getParent().toFile().isDirectory()) {
+            statusLabel.setText("目录不存在: " + target.toAbsolutePath().getParent());
+            return;
+        }
+
+        long limitMb = limitField.getText().isEmpty() ? 0 : Long.parseLong(limitField.getText());
+        long sinceSeconds = sinceField.getText().isEmpty() ? 0 : Long.parseLong(sinceField.getText());
+        LogExportService.ExportOptions options = LogExportService.ExportOptions.builder(namespace, podName)
+                .container(container)
+                .previous(previous)
+                .gzip(gzipCheck.isSelected())
+                .limitBytes(limitMb * 1024 * 1024)
+                .sinceSeconds(sinceSeconds)
+                .filter(filterCheck.isSelected() ? LineMatcher.forSearchKeyword(searchKeyword) : null, andMode)
+                .build();
+
+        setRunning(true);
+        Integer limitBytes = options.getLimitBytes();
+        progressBar.setProgress(limitBytes != null ? 0 : ProgressBar.INDETERMINATE_PROGRESS);
+        statusLabel.setText("正在连接...");
+
+        ExecutorManager.submit(() -> {
+            try {
+                LogExportService.ExportResult result = LogExportService.export(options, target,
+                        (bytesRead, lines, elapsed) -> Platform.runLater(() -> {
+                            if (limitBytes != null) {
+                                progressBar.setProgress(Math.min(1.0, (double) bytesRead / limitBytes));
+                            }
+                            statusLabel.setText(formatProgress(bytesRead, lines, elapsed));
+                        }),
+                        cancelled::get);
+                Platform.runLater(() -> {
+                    setRunning(false);
+                    progressBar.setProgress(1);
+                    statusLabel.setText("导出完成：" + formatProgress(result.bytesRead, result.linesWritten, result.elapsedNanos));
+                    cancelButton.setText("关闭");
+                });
+            } catch (InterruptedIOException e) {
+                log.info("日志导出已取消");
+                Platform.runLater(() -> {
+                    setRunning(false);
+                    progressBar.setProgress(0);
+                    statusLabel.setText("已取消");
+                });
+            } catch (IOException | RuntimeException e) {
+                log.error("导出日志失败: {}", e.getMessage());
+                Platform.runLater(() -> {
+                    setRunning(false);
+                    progressBar.setProgress(0);
+                    statusLabel.setText("导出失败: " + e.getMessage());
+                });
+            }
+        });
+    }
+
+    @FXML
+    private void onCancel() {
+        if (running) {
+            cancelled.set(true);
+            statusLabel.setText("正在取消...");
+        } else {
+            stage.close();
+        }
+    }
+
+    private void setRunning(boolean running) {
+        this.running = running;
+        if (running) cancelled.set(false);
+        startButton.setDisable(running);
+        browseButton.setDisable(running);
+        fileField.setDisable(running);
+        limitField.setDisable(running);
+        sinceField.setDisable(running);
+        gzipCheck.setDisable(running);
+        filterCheck.setDisable(running || LineMatcher.forSearchKeyword(searchKeyword).isEmpty());
+    }
+
+    /** 格式化进度：已读取字节数、写入行数与平均吞吐量 */
+    static String formatProgress(long bytes, long lines, long elapsedNanos) {
+        double mb = bytes / (1024.0 * 1024.0);
+        double seconds = Math.max(elapsedNanos, 1) / 1_000_000_000.0;
+        return String.format("已读取 %.1f MB，写入 %,d 行，%.1f MB/s", mb, lines, mb / seconds);
+    }
+}
@@ -1,8 +1,13 @@
 package com.longfor.lmk.k8slogviewer.controller;
 
 import com.longfor.lmk.k8slogviewer.config.AppConfig;
+import com.longfor.lmk.k8slogviewer.config.AppPreferences;
 import com.longfor.lmk.k8slogviewer.config.K8sQuery;
+import com.longfor.lmk.k8slogviewer.model.LogLineRing;
+import com.longfor.lmk.k8slogviewer.service.LogChunk;
+import com.longfor.lmk.k8slogviewer.service.LogFetchService;
 import com.longfor.lmk.k8slogviewer.service.PodLogFileManager;
+import com.longfor.lmk.k8slogviewer.utils.BoundedMpscQueue;
 import com.longfor.lmk.k8slogviewer.utils.LogStyleUtil;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
@@ -14,10 +19,9 @@ import javafx.scene.layout.VBox;
 import org.fxmisc.flowless.VirtualizedScrollPane;
 import org.fxmisc.richtext.CodeArea;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 
 import static com.longfor.lmk.k8slogviewer.utils.LogStyleUtil.SEPARATOR_LINE;
@@ -33,17 +37,32 @@ import static com.longfor.lmk.k8slogviewer.utils.LogStyleUtil.SEPARATOR_LINE;
  *   <li>历史日志加载（向前/向后翻页）</li>
  *   <li>CodeArea 初始化与行号渲染</li>
  * </ul>
+ * <p>
+ * 视图窗口由固定容量的环形缓冲区 {@link LogLineRing} 描述：CodeArea 的第 i 个段落就是环中第 i 行，
+ * 全局行号 = 环的起始行号 + i。文档只通过本类的视图方法（viewReset / viewAppend / viewPrepend / trimFront / trimBack）修改，
+ * 环与文档始终一致。裁剪按批进行（超出窗口 + 余量后一次删到窗口大小），删除范围由环中记录的字符位置直接得出；
+ * 行号标签挂在环的每一行上，段落下标因前端删除或插入而变化时复用原标签，不再每次重建全部行号。
+ * <p>
+ * 日志缓冲队列是有界的多生产者 / 单消费者无锁队列（{@link BoundedMpscQueue}），读取线程入队时不持有任何锁，
+ * 写盘与入队互不阻塞；多个流（合并模式、重连交替期间）可同时写入同一个视图。每个块入队时分配连续的行序号，
+ * 队满丢弃的行已写盘，出队时根据序号空洞插入占位块（{@link LogChunk#gap}），视图跳过它们并保持行号正确。
  */
-public class LogStreamManager {
+public class LogStreamManager implements LogFetchService.StreamSink {
 
     /** UI 最大保持行数 */
-    private static final int MAX_LOG_LINES = 500;
+    static final int MAX_LOG_LINES = 500;
+    /** 裁剪余量：实时追加时超出 MAX_LOG_LINES 这么多行才裁剪一次，减少对文档开头的编辑 */
+    private static final int TRIM_SLACK = MAX_LOG_LINES / 2;
     /** 非暂停状态每次从磁盘加载的行数 */
     private static final int HISTORY_LOAD_LINES = 1000;
     /** 暂停状态每次从磁盘加载的行数（小批量保证无感） */
     private static final int PAUSED_LOAD_LINES = 50;
     /** 首次打开/置顶置底时的初始渲染行数（避免一次 500 行卡顿） */
     private static final int INITIAL_RENDER_LINES = 100;
+    /** 视图窗口容量：实时窗口 + 一次历史加载，向上翻页超出时从末尾淘汰 */
+    private static final int VIEW_CAPACITY = MAX_LOG_LINES + HISTORY_LOAD_LINES;
+    /** UI 日志队列容量（行），超出后按配置的溢出策略处理 */
+    static final int LOG_QUEUE_CAPACITY_LINES = 20_000;
 
     // ==================== UI 引用 ====================
 
@@ -53,12 +72,20 @@ public class LogStreamManager {
 
     // ==================== 日志缓冲 ====================
 
-    private final Queue<String> logQueue = new ArrayDeque<>();
-    private final Object logQueueLock = new Object();
+    /** 未解码的日志字节块（带行序号），UI 刷新时只解码真正显示的行 */
+    private final BoundedMpscQueue<QueuedChunk> logQueue = new BoundedMpscQueue<>(
+            LOG_QUEUE_CAPACITY_LINES, QueuedChunk::lineCount, overflowPolicy(), null);
+    /** 下一个日志块的起始行序号（只增不减，与磁盘截断无关，仅用于发现丢弃造成的空洞） */
+    private final AtomicInteger nextSequence = new AtomicInteger();
+    /** 消费端状态：出队时复用的缓冲列表、已出队到的行序号；只在持有 drainLock 时访问 */
+    private final List<QueuedChunk> drainBuffer = new ArrayList<>();
+    private int drainedSequence = 0;
+    private final Object drainLock = new Object();
 
     // ==================== 视图行号追踪 ====================
 
-    private int viewStartLine = 0;
+    /** 视图窗口的行模型，起始行号即 viewStartLine，附件为行号标签；保存原始行（可含 ANSI 序列），文档中为去掉序列后的显示文本 */
+    private final LogLineRing<Label> viewLines = new LogLineRing<>(VIEW_CAPACITY, LogStyleUtil::displayLength);
     private int viewEndLine = 0;
     private int diskEndLine = 0;
     private volatile boolean loadingHistory = false;
@@ -126,7 +153,7 @@ public class LogStreamManager {
     public VirtualizedScrollPane<CodeArea> initCodeArea() {
         headerArea.setEditable(true);
         logArea.setEditable(false);
-        logArea.setParagraphGraphicFactory(this::createLineNumberLabel);
+        logArea.setParagraphGraphicFactory(this::lineNumberLabel);
         headerArea.setWrapText(true);
         logArea.setWrapText(true);
 
@@ -156,8 +183,22 @@ public class LogStreamManager {
         return scrollPane;
     }
 
-    private Node createLineNumberLabel(int line) {
-        Label label = new Label(String.valueOf(viewStartLine + line + 1));
+    /** 段落行号：复用挂在环上的标签，段落下标变化但全局行号不变时不重建 */
+    private Node lineNumberLabel(int index) {
+        if (index >= viewLines.size()) {
+            // 文档末尾的空段落
+            return createLineNumberLabel(viewLines.getFirstLine() + index + 1);
+        }
+        Label label = viewLines.getAttachment(index);
+        if (label == null) {
+            label = createLineNumberLabel(viewLines.getFirstLine() + index + 1);
+            viewLines.setAttachment(index, label);
+        }
+        return label;
+    }
+
+    private static Label createLineNumberLabel(int number) {
+        Label label = new Label(String.valueOf(number));
         label.setFont(javafx.scene.text.Font.font("JetBrains Mono", javafx.scene.text.FontWeight.NORMAL, 12));
         label.setTextFill(javafx.scene.paint.Color.web("#E0E0E0"));
         label.setAlignment(Pos.CENTER_RIGHT);
@@ -167,32 +208,72 @@ public class LogStreamManager {
         return label;
     }
 
+    /** 重建全部行号（全局行号整体变化时调用，如磁盘文件截断） */
     public void refreshLineNumbers() {
-        logArea.setParagraphGraphicFactory(this::createLineNumberLabel);
+        logArea.setParagraphGraphicFactory(this::lineNumberLabel);
     }
 
     // ==================== 队列操作 ====================
 
     /**
-     * 入队一行日志，同时写入磁盘文件。
+     * 入队一行头部信息（只显示，不写盘）。
+     * 由 LogFetchService 的流式回调调用。
+     */
+    @Override
+    public void onHeader(String line) {
+        enqueue(LogChunk.header(line));
+    }
+
+    /**
+     * 入队一块未解码的日志字节，同时放入磁盘异步写入队列（无解码、无磁盘 IO，写盘由 PodLogFileManager 的写盘线程成批完成）。
+     * 写盘积压超过上限时在此阻塞读取线程，显示队列的丢弃策略只约束视图，堆内存由写盘队列的上限约束。
      * 由 LogFetchService 的流式回调调用。
      */
-    public void enqueueLine(String line) {
-        synchronized (logQueueLock) {
-            fileManager.append(line);
-            logQueue.offer(line);
+    @Override
+    public void onChunk(LogChunk chunk) {
+        enqueue(chunk);
+    }
+
+    /** 写盘后入队（不持有锁），日志块按行数分配连续序号，头部块不占序号 */
+    private void enqueue(LogChunk chunk) {
+        if (chunk.isHeader()) {
+            logQueue.offer(new QueuedChunk(chunk, -1));
+            return;
         }
+        int sequence = nextSequence.getAndAdd(chunk.lineCount());
+        fileManager.append(chunk);
+        logQueue.offer(new QueuedChunk(chunk, sequence));
     }
 
-    /** 排空日志缓冲队列，返回所有待处理行 */
-    public List<String> drainQueue() {
-        List<String> batch = new ArrayList<>();
-        synchronized (logQueueLock) {
-            while (!logQueue.isEmpty()) {
-                batch.add(logQueue.poll());
+    /**
+     * 排空日志缓冲队列，返回所有待处理的字节块。
+     * 因队满被丢弃的行（已写盘）以占位块 {@link LogChunk#gap} 的形式出现在原位置。
+     * 队列是单消费者的，刷新线程与 FX 线程都会调用，这里用 drainLock 串行化消费端（不影响生产者）。
+     */
+    public List<LogChunk> drainQueue() {
+        synchronized (drainLock) {
+            drainBuffer.clear();
+            logQueue.drainTo(drainBuffer);
+            List<LogChunk> batch = new ArrayList<>(drainBuffer.size() + 1);
+            for (QueuedChunk queued : drainBuffer) {
+                LogChunk chunk = queued.chunk;
+                if (queued.sequence < 0) {
+                    batch.add(chunk);
+                    continue;
+                }
+                if (queued.sequence < drainedSequence) {
+                    // 并发生产者乱序到达，这些行已被之前的占位块计入，只在磁盘上
+                    continue;
+                }
+                if (queued.sequence > drainedSequence) {
+                    batch.add(LogChunk.gap(queued.sequence - drainedSequence));
+                }
+                batch.add(chunk);
+                drainedSequence = queued.sequence + chunk.lineCount();
             }
+            drainBuffer.clear();
+            return batch;
         }
-        return batch;
     }
 
     // ==================== 状态重置 ====================
@@ -200,74 +281,118 @@ public class LogStreamManager {
     /** 切换 Pod 时重置视图行号追踪和缓冲 */
     public void resetForNewPod() {
         resumeAutoScroll();
-        viewStartLine = 0;
         viewEndLine = 0;
         diskEndLine = 0;
         lastSearchRefreshTime = 0;
         loadingHistory = false;
-        synchronized (logQueueLock) {
+        synchronized (drainLock) {
             logQueue.clear();
+            logQueue.setPolicy(overflowPolicy());
+            nextSequence.set(0);
+            drainedSequence = 0;
+        }
+    }
+
+    private static BoundedMpscQueue.OverflowPolicy overflowPolicy() {
+        return BoundedMpscQueue.OverflowPolicy.parse(AppPreferences.getLogQueueOverflowPolicy(),
+                BoundedMpscQueue.OverflowPolicy.DROP_OLDEST);
+    }
+
+    /** 队列中的日志块及其起始行序号（头部块为 -1） */
+    private static final class QueuedChunk {
+        final LogChunk chunk;
+        final int sequence;
+
+        QueuedChunk(LogChunk chunk, int sequence) {
+            this.chunk = chunk;
+            this.sequence = sequence;
+        }
+
+        int lineCount() {
+            return chunk.isHeader() ? 0 : chunk.lineCount();
         }
     }
 
     /** 清空 logArea 和 headerArea */
     public void clearAreas() {
         Platform.runLater(() -> {
-            LogStyleUtil.clear(logArea);
+            viewReset(0);
             LogStyleUtil.clear(headerArea);
-            refreshLineNumbers();
         });
     }
 
     // ==================== 批处理 ====================
 
     /**
-     * 处理一批日志行：分离 header/log，追加到 CodeArea，更新行号追踪。
+     * 处理一批日志字节块：头部追加到 headerArea，日志行解码后追加到 CodeArea，更新行号追踪。
+     * <p>
+     * 只解码真正显示的行：暂停时只计数不解码；一批超过 UI 最大行数时只解码最后 MAX_LOG_LINES 行，
+     * 其余行追加后也会被立即裁掉，直接跳过（仍在磁盘上，可滚动加载）。占位块及其之前的行同样跳过。
      * <p>
      * 注意：搜索高亮由调用方（Controller）在调用此方法后单独处理。
      *
      * @return 实际追加到 logArea 的行列表（用于搜索增量更新），暂停时返回空列表
      */
-    public List<String> processLogBatch(List<String> lines) {
-        K8sQuery k8sQuery = AppConfig.getK8sQuery();
+    public List<String> processLogBatch(List<LogChunk> chunks) {
+        return processLogBatch(chunks, MAX_LOG_LINES);
+    }
 
-        // 分离 header 行和 log 行
-        List<String> headerLines = new ArrayList<>();
-        List<String> logLines = new ArrayList<>();
+    /**
+     * 处理一批日志字节块，最多渲染最新的 maxRenderLines 行（帧预算限制）。
+     * 超出的旧行不解码，视图直接跳到最新窗口，跳过的行仍在磁盘上，向上滚动时按需加载。
+     */
+    public List<String> processLogBatch(List<LogChunk> chunks, int maxRenderLines) {
+        int renderLimit = Math.max(1, Math.min(maxRenderLines, MAX_LOG_LINES));
+        K8sQuery k8sQuery = AppConfig.getK8sQuery();
 
-        for (String line : lines) {
-            if (k8sQuery.isHeaderCaptured()) {
-                boolean isSeparator = line.trim().contains(SEPARATOR_LINE);
-                if (isSeparator) {
+        // 分离 header 块和 log 块
+        List<LogChunk> logChunks = new ArrayList<>(chunks.size());
+        int total = 0;
+        int gapEnd = 0;
+        for (LogChunk chunk : chunks) {
+            if (chunk.isHeader()) {
+                String line = chunk.decodeLine(0);
+                if (line.trim().contains(SEPARATOR_LINE)) {
                     k8sQuery.setHeaderCaptured(false);
                 } else {
-                    headerLines.add(line);
+                    LogStyleUtil.appendHeaderLine(headerArea, line);
                 }
             } else {
-                logLines.add(line);
+                logChunks.add(chunk);
+                total += chunk.lineCount();
+                if (chunk.isGap()) {
+                    gapEnd = total;
+                }
             }
         }
 
-        // 追加 header 行
-        for (String line : headerLines) {
-            LogStyleUtil.appendHeaderLine(headerArea, line);
+        // 用户手动暂停时不追加日志到 UI（仍写入磁盘），无需解码
+        if (autoScrollPaused || total == 0) {
+            diskEndLine += total;
+            return List.of();
         }
 
-        // 用户手动暂停时不追加日志到 UI（仍写入磁盘）
-        if (autoScrollPaused || logLines.isEmpty()) {
-            if (!logLines.isEmpty()) {
-                diskEndLine += logLines.size();
+        // 整批超过渲染上限或含有丢弃的行：旧内容和本批前段不再渲染，直接清空并跳到最新窗口
+        int skipped = Math.max(gapEnd, total - renderLimit);
+        if (skipped > 0) {
+            int oldViewStart = viewLines.getFirstLine();
+            int removed = viewLines.size() + skipped;
+            viewReset(viewEndLine + skipped);
+            viewEndLine += skipped;
+            diskEndLine += skipped;
+            if (onTrimmed != null) {
+                onTrimmed.accept(oldViewStart, removed);
             }
-            return List.of();
         }
+        List<String> logLines = decodeLines(logChunks, skipped, total - skipped);
 
-        // 追加 log 行
-        LogStyleUtil.appendBatch(logArea, logLines, null);
+        // 追加 log 行，超出窗口 + 余量时成批裁剪旧行
+        viewAppend(logLines);
         viewEndLine += logLines.size();
         diskEndLine += logLines.size();
-
-        // 裁剪旧行
-        trimLogArea();
+        if (viewLines.size() > MAX_LOG_LINES + TRIM_SLACK) {
+            trimFront(viewLines.size() - MAX_LOG_LINES);
+        }
 
         // 自动跟滚
         if (!autoScrollPaused) {
@@ -278,47 +403,115 @@ public class LogStreamManager {
         return logLines;
     }
 
+    /** 跳过前 skip 行后解码 count 行 */
+    private static List<String> decodeLines(List<LogChunk> chunks, int skip, int count) {
+        List<String> lines = new ArrayList<>(count);
+        for (LogChunk chunk : chunks) {
+            int n = chunk.lineCount();
+            if (skip >= n) {
+                skip -= n;
+                continue;
+            }
+            for (int i = skip; i < n && lines.size() < count; i++) {
+                lines.add(chunk.decodeLine(i));
+            }
+            skip = 0;
+        }
+        return lines;
+    }
+
+    /** 裁剪旧行，保持 UI 在 MAX_LOG_LINES 以内（用于非实时追加路径，不留余量） */
+    private void trimLogArea() {
+        if (viewLines.size() > MAX_LOG_LINES) {
+            trimFront(viewLines.size() - MAX_LOG_LINES);
+        }
+    }
+
+    // ==================== 视图窗口（环形缓冲区 ↔ CodeArea） ====================
+
+    /** 清空视图，窗口从全局行号 startLine 开始 */
+    private void viewReset(int startLine) {
+        viewLines.reset(startLine);
+        LogStyleUtil.clear(logArea);
+        refreshLineNumbers();
+    }
+
     /**
-     * 裁剪旧行，始终保持 UI 在 MAX_LOG_LINES 以内。
-     * 裁剪后通过 onTrimmed 回调通知搜索引擎同步调整。
-     *
-     * @return 实际裁剪的段落数
+     * 在视图末尾追加行。超出窗口容量时先从开头淘汰；一次追加超过容量时只保留最后 VIEW_CAPACITY 行。
      */
-    private int trimLogArea() {
-        int paragraphCount = logArea.getParagraphs().size();
-        if (paragraphCount <= MAX_LOG_LINES) {
-            viewStartLine = viewEndLine - paragraphCount;
-            if (viewStartLine < 0) viewStartLine = 0;
-            refreshLineNumbers();
-            return 0;
+    private void viewAppend(List<String> lines) {
+        if (lines.isEmpty()) return;
+        int overflow = lines.size() - VIEW_CAPACITY;
+        if (overflow > 0) {
+            int oldViewStart = viewLines.getFirstLine();
+            int removed = viewLines.size() + overflow;
+            viewReset(viewLines.getEndLine() + overflow);
+            lines = lines.subList(overflow, lines.size());
+            if (onTrimmed != null) {
+                onTrimmed.accept(oldViewStart, removed);
+            }
+        } else if (lines.size() > viewLines.remaining()) {
+            trimFront(lines.size() - viewLines.remaining());
+        }
+        // 先更新环再改文档：文档变化时段落行号工厂按新的环取标签
+        for (String line : lines) {
+            viewLines.addLast(line);
         }
+        LogStyleUtil.appendBatch(logArea, lines, null);
+    }
 
-        int removeCount = Math.min(paragraphCount - MAX_LOG_LINES + (MAX_LOG_LINES / 10), paragraphCount);
-        int endPos = 0;
-        for (int i = 0; i < removeCount; i++) {
-            endPos += logArea.getParagraphs().get(i).length() + 1;
+    /**
+     * 在视图开头插入更早的行。超出窗口容量时从末尾淘汰（viewEndLine 随之前移，向下滚动时再从磁盘加载）。
+     */
+    private void viewPrepend(List<String> lines) {
+        if (lines.isEmpty()) return;
+        if (lines.size() > VIEW_CAPACITY) {
+            lines = lines.subList(lines.size() - VIEW_CAPACITY, lines.size());
         }
-        endPos = Math.min(endPos, logArea.getLength());
-        logArea.deleteText(0, endPos);
+        if (lines.size() > viewLines.remaining()) {
+            trimBack(lines.size() - viewLines.remaining());
+        }
+        for (int i = lines.size() - 1; i >= 0; i--) {
+            viewLines.addFirst(lines.get(i));
+        }
+        LogStyleUtil.prependBatch(logArea, lines, null);
+    }
 
-        int oldViewStart = viewStartLine;
-        viewStartLine += removeCount;
+    /**
+     * 从视图开头淘汰 count 行：一次 deleteText，删除范围由环中的字符位置直接得出。
+     * 裁剪后通过 onTrimmed 回调通知搜索引擎同步调整。
+     */
+    private void trimFront(int count) {
+        count = Math.min(count, viewLines.size());
+        if (count <= 0) return;
+        int oldViewStart = viewLines.getFirstLine();
+        int endPos = Math.min(viewLines.charOffset(count), logArea.getLength());
+        viewLines.removeFirst(count);
+        logArea.deleteText(0, endPos);
 
-        // 通知搜索引擎
         if (onTrimmed != null) {
-            onTrimmed.accept(oldViewStart, removeCount);
+            onTrimmed.accept(oldViewStart, count);
         }
+    }
 
-        refreshLineNumbers();
-        return removeCount;
+    /** 从视图末尾淘汰 count 行 */
+    private void trimBack(int count) {
+        count = Math.min(count, viewLines.size());
+        if (count <= 0) return;
+        int startPos = Math.min(viewLines.charOffset(viewLines.size() - count), logArea.getLength());
+        int removedStreamLines = Math.max(0, Math.min(count, viewEndLine - (viewLines.getEndLine() - count)));
+        viewLines.removeLast(count);
+        logArea.deleteText(startPos, logArea.getLength());
+        viewEndLine -= removedStreamLines;
     }
 
     // ==================== 历史加载 ====================
 
     /** 滚动到顶部时加载更早的历史日志 */
     public void loadHistoryFromDisk() {
-        String podName = AppConfig.getK8sQuery().getPodName();
+        String podName = AppConfig.getK8sQuery().getCacheKey();
         if (podName == null || loadingHistory) return;
+        int viewStartLine = viewLines.getFirstLine();
         if (viewStartLine <= 0) return;
 
         // 暂停时每次只加载少量行，配合 VS 自身的 scrollY 保持实现无感
@@ -336,10 +529,10 @@ public class LogStreamManager {
             }
 
             Platform.runLater(() -> {
-                // 小批量 prepend，VS 自动保持 scrollY 像素值 ≈ 无感
-                LogStyleUtil.prependBatch(logArea, historyLines, null);
-                viewStartLine -= historyLines.size();
-                refreshLineNumbers();
+                // 小批量 prepend，VS 自动保持 scrollY 像素值 ≈ 无感；超出窗口容量时从末尾淘汰
+                if (viewLines.getFirstLine() == viewStartLine) {
+                    viewPrepend(historyLines);
+                }
 
                 loadingHistory = false;
             });
@@ -348,7 +541,7 @@ public class LogStreamManager {
 
     /** 滚动到底部时加载更新的日志 */
     public void loadForwardFromDisk() {
-        String podName = AppConfig.getK8sQuery().getPodName();
+        String podName = AppConfig.getK8sQuery().getCacheKey();
         if (podName == null || loadingHistory) return;
         if (diskEndLine <= viewEndLine) return;
 
@@ -367,10 +560,9 @@ public class LogStreamManager {
 
             Platform.runLater(() -> {
                 // 小批量 append + trim（50行通常不会触发trim），VS 保持 scrollY ≈ 无感
-                LogStyleUtil.appendBatch(logArea, forwardLines, null);
+                viewAppend(forwardLines);
                 viewEndLine += forwardLines.size();
                 trimLogArea();
-                refreshLineNumbers();
 
                 loadingHistory = false;
             });
@@ -404,11 +596,9 @@ public class LogStreamManager {
             List<String> initialBatch = allLines.subList(renderStart, renderEnd);
 
             Platform.runLater(() -> {
-                LogStyleUtil.clear(logArea);
-                LogStyleUtil.appendBatch(logArea, initialBatch, null);
-                viewStartLine = startLine + renderStart;
+                viewReset(startLine + renderStart);
+                viewAppend(initialBatch);
                 viewEndLine = startLine + renderEnd;
-                refreshLineNumbers();
 
                 // 后台静默补齐剩余行（先补前面 prepend，再补后面 append），完成后才定位
                 if (renderStart > 0 || renderEnd < allLines.size()) {
@@ -416,17 +606,13 @@ public class LogStreamManager {
                             Platform.runLater(() -> {
                                 // 补前面
                                 if (renderStart > 0) {
-                                    List<String> front = allLines.subList(0, renderStart);
-                                    LogStyleUtil.prependBatch(logArea, front, null);
-                                    viewStartLine = startLine;
+                                    viewPrepend(allLines.subList(0, renderStart));
                                 }
                                 // 补后面
                                 if (renderEnd < allLines.size()) {
-                                    List<String> tail = allLines.subList(renderEnd, allLines.size());
-                                    LogStyleUtil.appendBatch(logArea, tail, null);
+                                    viewAppend(allLines.subList(renderEnd, allLines.size()));
                                     viewEndLine = startLine + allLines.size();
                                 }
-                                refreshLineNumbers();
 
                                 // 补齐后再通知回调（搜索跳转到目标位置），此时内容已是最终状态
                                 if (onLoaded != null) {
@@ -451,11 +637,10 @@ public class LogStreamManager {
     /** 恢复滚动时，把暂停期间积压在磁盘但未显示的日志补回到 UI */
     public void resumeAndCatchUp() {
         resumeAutoScroll();
-        String podName = AppConfig.getK8sQuery().getPodName();
+        String podName = AppConfig.getK8sQuery().getCacheKey();
         if (podName == null) return;
 
-        int currentVisibleLines = logArea.getParagraphs().size();
-        int gapStart = viewStartLine + currentVisibleLines;
+        int gapStart = viewLines.getEndLine();
         int gapCount = diskEndLine - gapStart;
 
         if (gapCount <= 0) return;
@@ -465,7 +650,7 @@ public class LogStreamManager {
             if (lines.isEmpty()) return;
 
             Platform.runLater(() -> {
-                LogStyleUtil.appendBatch(logArea, lines, null);
+                viewAppend(lines);
                 trimLogArea();
                 logArea.moveTo(logArea.getLength());
                 logArea.requestFollowCaret();
@@ -493,11 +678,9 @@ public class LogStreamManager {
             List<String> initialBatch = allLines.subList(0, initialEnd);
 
             Platform.runLater(() -> {
-                LogStyleUtil.clear(logArea);
-                LogStyleUtil.appendBatch(logArea, initialBatch, null);
-                viewStartLine = 0;
+                viewReset(0);
+                viewAppend(initialBatch);
                 viewEndLine = initialEnd;
-                refreshLineNumbers();
                 logArea.moveTo(0, 0);
                 logArea.requestFollowCaret();
 
@@ -506,9 +689,8 @@ public class LogStreamManager {
                     List<String> remaining = allLines.subList(initialEnd, allLines.size());
                     com.longfor.lmk.k8slogviewer.utils.ExecutorManager.submit(() ->
                             Platform.runLater(() -> {
-                                LogStyleUtil.appendBatch(logArea, remaining, null);
+                                viewAppend(remaining);
                                 viewEndLine = allLines.size();
-                                refreshLineNumbers();
                                 loadingHistory = false;
                             })
                     );
@@ -548,12 +730,10 @@ public class LogStreamManager {
             List<String> initialBatch = allLines.subList(initialStart, allLines.size());
 
             Platform.runLater(() -> {
-                LogStyleUtil.clear(logArea);
-                LogStyleUtil.appendBatch(logArea, initialBatch, null);
-                viewStartLine = startLine + initialStart;
+                viewReset(startLine + initialStart);
+                viewAppend(initialBatch);
                 viewEndLine = totalLines;
                 diskEndLine = Math.max(diskEndLine, totalLines);
-                refreshLineNumbers();
                 logArea.moveTo(logArea.getLength());
                 logArea.requestFollowCaret();
 
@@ -563,9 +743,7 @@ public class LogStreamManager {
                     com.longfor.lmk.k8slogviewer.utils.ExecutorManager.submit(() ->
                             Platform.runLater(() -> {
                                 // 补插到顶部
-                                LogStyleUtil.prependBatch(logArea, remaining, null);
-                                viewStartLine = startLine;
-                                refreshLineNumbers();
+                                viewPrepend(remaining);
                                 loadingHistory = false;
                             })
                     );
@@ -580,7 +758,7 @@ public class LogStreamManager {
 
     /** 磁盘文件被截断后，同步调整视图行号映射 */
     public void adjustViewLinesOnTruncate(int removedLines) {
-        viewStartLine = Math.max(0, viewStartLine - removedLines);
+        viewLines.shiftLines(-Math.min(removedLines, viewLines.getFirstLine()));
         viewEndLine = Math.max(0, viewEndLine - removedLines);
         diskEndLine = Math.max(0, diskEndLine - removedLines);
         refreshLineNumbers();
@@ -588,9 +766,15 @@ public class LogStreamManager {
 
     // ==================== Getter / Setter ====================
 
-    public int getViewStartLine() { return viewStartLine; }
+    public int getViewStartLine() { return viewLines.getFirstLine(); }
     public int getViewEndLine() { return viewEndLine; }
     public int getDiskEndLine() { return diskEndLine; }
+    /** 视图第 index 行的字符串（行模型中的实例，可作为缓存键），超出范围返回 null */
+    public String getViewLine(int index) { return index >= 0 && index < viewLines.size() ? viewLines.get(index) : null; }
+    /** UI 日志队列中待处理的行数 */
+    public int getQueueDepth() { return logQueue.depth(); }
+    /** 因队满未进入 UI 的累计行数（仍在磁盘上） */
+    public long getDroppedLines() { return logQueue.getDroppedWeight(); }
     public long getLastSearchRefreshTime() { return lastSearchRefreshTime; }
     public void setLastSearchRefreshTime(long time) { this.lastSearchRefreshTime = time; }
 
@@ -599,8 +783,7 @@ public class LogStreamManager {
     /** 在日志区域追加流结束标记 */
     public void appendEndMarker() {
         Platform.runLater(() -> {
-            LogStyleUtil.appendBatch(logArea,
-                    List.of("", "--- 日志流已结束，容器可能已退出或被删除 ---"), null);
+            viewAppend(List.of("", "--- 日志流已结束，容器可能已退出或被删除 ---"));
             logArea.moveTo(logArea.getLength());
             logArea.requestFollowCaret();
         });
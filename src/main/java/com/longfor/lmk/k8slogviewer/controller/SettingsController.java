@@ -35,6 +35,7 @@ public class SettingsController {
     @FXML private TextField maxLogSizeField;
     @FXML private TextField logFlushIntervalField;
     @FXML private TextField searchRefreshIntervalField;
+    @FXML private CheckBox searchTokenIndexCheckBox;
     @FXML private CheckBox treeAutoRefreshCheckBox;
     @FXML private TextField treeAutoRefreshIntervalField;
 
@@ -50,6 +51,7 @@ public class SettingsController {
         maxLogSizeField.setText(String.valueOf(AppPreferences.getMaxLogSizeMB()));
         logFlushIntervalField.setText(String.valueOf(AppPreferences.getLogFlushIntervalMs()));
         searchRefreshIntervalField.setText(String.valueOf(AppPreferences.getSearchRefreshIntervalMs()));
+        searchTokenIndexCheckBox.setSelected(AppPreferences.isSearchTokenIndexEnabled());
         treeAutoRefreshCheckBox.setSelected(AppPreferences.isTreeAutoRefresh());
         treeAutoRefreshIntervalField.setText(String.valueOf(AppPreferences.getTreeAutoRefreshIntervalSec()));
         treeAutoRefreshIntervalField.disableProperty().bind(treeAutoRefreshCheckBox.selectedProperty().not());
@@ -286,6 +288,9 @@ public class SettingsController {
             }
         }
 
+        // 保存搜索词索引开关（切换 Pod 后生效）
+        AppPreferences.setSearchTokenIndexEnabled(searchTokenIndexCheckBox.isSelected());
+
         // 保存容器树自动刷新设置
         AppPreferences.setTreeAutoRefresh(treeAutoRefreshCheckBox.isSelected());
         String treeRefreshText = treeAutoRefreshIntervalField.getText();
@@ -2,7 +2,9 @@ package com.longfor.lmk.k8slogviewer.controller;
 
 import com.longfor.lmk.k8slogviewer.config.AppPreferences;
 import com.longfor.lmk.k8slogviewer.config.K8sClientManager;
+import com.longfor.lmk.k8slogviewer.model.PodFilter;
 import com.longfor.lmk.k8slogviewer.model.PodStatus;
+import com.longfor.lmk.k8slogviewer.model.PodSummary;
 import com.longfor.lmk.k8slogviewer.service.ClusterTreeService;
 import com.longfor.lmk.k8slogviewer.utils.CommonUtils;
 import com.longfor.lmk.k8slogviewer.utils.ExecutorManager;
@@ -22,9 +24,12 @@ import javafx.util.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 
 /**
  * 树视图管理器，负责树初始化、状态筛选、上下文菜单、定时刷新。
@@ -34,7 +39,7 @@ import java.util.concurrent.TimeUnit;
  *   <li>TreeView 初始化与事件绑定</li>
  *   <li>按文本/状态筛选树节点</li>
  *   <li>状态下拉筛选 ComboBox 初始化</li>
- *   <li>右键上下文菜单（删除 Pod / 性能监控）</li>
+ *   <li>右键上下文菜单（删除 Pod / 性能监控 / 导出日志 / 多 Pod 合并跟踪 / 容器与上一个实例日志）</li>
  *   <li>定时刷新树并保持选中状态</li>
  * </ul>
  */
@@ -45,6 +50,7 @@ public class TreeViewManager {
     private final TreeView<String> treeView;
     private final ComboBox<String> statusFilterCombo;
     private final TextField searchField;
+    private final TextField labelSelectorField;
     private final ClusterTreeService clusterTreeService;
 
     /** 当前状态筛选，null 表示"全部" */
@@ -83,12 +89,68 @@ public class TreeViewManager {
         return activePodPath;
     }
 
-    /** 清除状态筛选，恢复为"全部" */
+    /** 树上展示的是本地快照时为快照保存时间，与集群同步后为 null */
+    private Instant staleSince = null;
+
+    /** 同步时加载失败、仍显示旧数据的命名空间 */
+    private Set<String> staleNamespaces = Set.of();
+
+    /** 标记当前树来自本地快照（过期数据）：根节点显示快照时间，命名空间与 Pod 文字置灰 */
+    public void markStale(Instant savedAt) {
+        staleSince = savedAt;
+        treeView.refresh();
+    }
+
+    /** 与集群同步完成，清除所有过期标记 */
+    public void clearStale() {
+        clearStale(Set.of());
+    }
+
+    /**
+     * 与集群同步完成，清除整棵树的过期标记；同步失败、仍显示旧数据的命名空间保留标记。
+     *
+     * @param stillStale 仍为旧数据的命名空间
+     */
+    public void clearStale(Set<String> stillStale) {
+        Set<String> next = stillStale != null ? Set.copyOf(stillStale) : Set.of();
+        if (staleSince == null && staleNamespaces.equals(next)) return;
+        staleSince = null;
+        staleNamespaces = next;
+        treeView.refresh();
+    }
+
+    public boolean isStale() {
+        return staleSince != null;
+    }
+
+    /** 节点所在命名空间是否为旧数据（整棵树来自快照，或该命名空间同步失败） */
+    private boolean isStaleItem(TreeItem<String> item, int level) {
+        if (staleSince != null) return level > 0;
+        if (staleNamespaces.isEmpty() || level == 0) return false;
+        TreeItem<String> nsItem = level == 1 ? item : item.getParent();
+        return nsItem != null && staleNamespaces.contains(nsItem.getValue());
+    }
+
+    /** 清除状态筛选，恢复为"全部"（同时撤销下推的状态条件，由调用方负责重新加载） */
     public void clearStatusFilter() {
         currentStatusFilter = null;
+        clusterTreeService.setPodFilter(currentPodFilter());
         statusFilterCombo.getSelectionModel().selectFirst();
     }
 
+    /** 当前状态筛选 + 标签选择器组成的服务端过滤条件 */
+    private PodFilter currentPodFilter() {
+        String labelSelector = labelSelectorField != null ? labelSelectorField.getText() : null;
+        return new PodFilter(labelSelector, currentStatusFilter);
+    }
+
+    /** 将状态 / 标签条件下推到服务端，条件变化时通知重新加载树 */
+    private void pushDownPodFilter() {
+        if (clusterTreeService.setPodFilter(currentPodFilter()) && onServerFilterChanged != null) {
+            onServerFilterChanged.run();
+        }
+    }
+
     /**
      * 取消所有待执行的过滤任务（配置切换时调用，防止旧任务覆盖新树）。
      * 递增代际计数器使正在执行的异步任务结果被丢弃，并停止搜索防抖。
@@ -99,14 +161,53 @@ public class TreeViewManager {
         searchDebounce.stop();
     }
 
-    /** 自动刷新定时器，null 表示未启动 */
-    private volatile ScheduledExecutorService autoRefreshExecutor;
+    /** 多 Pod 合并跟踪回调：参数为命名空间和 Pod 列表 */
+    private BiConsumer<String, List<String>> onMergeTail;
+
+    public void setOnMergeTail(BiConsumer<String, List<String>> callback) {
+        this.onMergeTail = callback;
+    }
+
+    /** 查看指定容器日志的回调 */
+    @FunctionalInterface
+    public interface ContainerLogHandler {
+        /**
+         * @param container 容器名
+         * @param previous  是否查看上一个实例（崩溃重启前）的日志
+         */
+        void open(String namespace, String podName, String container, boolean previous);
+    }
+
+    private ContainerLogHandler onContainerLogs;
+
+    /** 导出 Pod 日志的回调：(namespace, podName) */
+    private BiConsumer<String, String> onExportLogs;
+
+    public void setOnExportLogs(BiConsumer<String, String> callback) {
+        this.onExportLogs = callback;
+    }
+
+    /** 服务端过滤条件（状态 / 标签选择器）变化的回调，需重新加载树 */
+    private Runnable onServerFilterChanged;
+
+    public void setOnServerFilterChanged(Runnable callback) {
+        this.onServerFilterChanged = callback;
+    }
+
+    public void setOnContainerLogs(ContainerLogHandler callback) {
+        this.onContainerLogs = callback;
+    }
+
+    /** 是否已开启自动刷新（Pod 监听） */
+    private boolean autoRefreshing;
 
     public TreeViewManager(TreeView<String> treeView, ComboBox<String> statusFilterCombo,
-                           TextField searchField, ClusterTreeService clusterTreeService) {
+                           TextField searchField, TextField labelSelectorField,
+                           ClusterTreeService clusterTreeService) {
         this.treeView = treeView;
         this.statusFilterCombo = statusFilterCombo;
         this.searchField = searchField;
+        this.labelSelectorField = labelSelectorField;
         this.clusterTreeService = clusterTreeService;
     }
 
@@ -114,6 +215,8 @@ public class TreeViewManager {
     public void init() {
         // 自定义 Cell Factory
         treeView.setCellFactory(tv -> new StyledTreeCell());
+        // 支持 Ctrl/Shift 多选 Pod 后合并跟踪
+        treeView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
 
         treeView.setOnMouseClicked(event -> {
             if (event.getClickCount() == 1) {
@@ -139,7 +242,21 @@ public class TreeViewManager {
         deletePodItem.setOnAction(e -> onDeletePod());
         MenuItem monitorItem = new MenuItem("性能监控");
         monitorItem.setOnAction(e -> onPodMonitor());
-        podContextMenu.getItems().addAll(deletePodItem, monitorItem);
+        MenuItem mergeSelectedItem = new MenuItem();
+        mergeSelectedItem.setOnAction(e -> fireMergeTail(selectedPods()));
+        MenuItem mergeWorkloadItem = new MenuItem();
+        mergeWorkloadItem.setOnAction(e -> fireMergeTail(workloadSiblings(treeView.getSelectionModel().getSelectedItem())));
+        Menu containerMenu = new Menu("查看容器日志");
+        Menu previousMenu = new Menu("查看上一个实例日志");
+        MenuItem exportItem = new MenuItem("导出日志...");
+        exportItem.setOnAction(e -> {
+            TreeItem<String> selected = treeView.getSelectionModel().getSelectedItem();
+            if (onExportLogs != null && selected != null && selected.getParent() != null) {
+                onExportLogs.accept(selected.getParent().getValue(), selected.getValue());
+            }
+        });
+        podContextMenu.getItems().addAll(deletePodItem, monitorItem, exportItem, containerMenu, previousMenu,
+                mergeSelectedItem, mergeWorkloadItem);
 
         treeView.setContextMenu(podContextMenu);
         podContextMenu.showingProperty().addListener((obs, wasShowing, isShowing) -> {
@@ -149,6 +266,20 @@ public class TreeViewManager {
                         && selected.getParent().getParent() != null;
                 deletePodItem.setVisible(isPod);
                 monitorItem.setVisible(isPod);
+                exportItem.setVisible(isPod);
+                List<String> containers = isPod
+                        ? clusterTreeService.getContainerNames(selected.getParent().getValue(), selected.getValue())
+                        : List.of();
+                fillContainerMenu(containerMenu, selected, containers, false);
+                fillContainerMenu(previousMenu, selected, containers, true);
+                containerMenu.setVisible(containers.size() > 1);
+                previousMenu.setVisible(isPod);
+                List<TreeItem<String>> pods = selectedPods();
+                mergeSelectedItem.setText("合并跟踪选中的 " + pods.size() + " 个 Pod");
+                mergeSelectedItem.setVisible(pods.size() > 1);
+                List<TreeItem<String>> siblings = isPod && pods.size() <= 1 ? workloadSiblings(selected) : List.of();
+                mergeWorkloadItem.setText("合并跟踪同工作负载的 " + siblings.size() + " 个 Pod");
+                mergeWorkloadItem.setVisible(siblings.size() > 1);
             }
         });
 
@@ -186,6 +317,9 @@ public class TreeViewManager {
         // 状态筛选下拉
         initStatusFilterDots();
 
+        // 标签选择器回车后下推到服务端
+        labelSelectorField.setOnAction(e -> pushDownPodFilter());
+
         // 首次加载（不弹 toast）
         refreshTree(false);
 
@@ -242,53 +376,47 @@ public class TreeViewManager {
         }
     }
 
-    /** 启动自动刷新定时器 */
+    /**
+     * 开启自动刷新：监听选中命名空间的 Pod 变化（list + watch），变化事件合并后在 FX 线程增量更新树。
+     * 配置的刷新间隔用作断线重连的最长等待。
+     */
     private void startAutoRefresh() {
-        if (autoRefreshExecutor != null) return;
+        if (autoRefreshing) return;
+        autoRefreshing = true;
         int intervalSec = AppPreferences.getTreeAutoRefreshIntervalSec();
-        log.debug("[自动刷新] 启动定时器，间隔={}s", intervalSec);
-        autoRefreshExecutor = ExecutorManager.newSingleThreadScheduled("k8s-tree-refresh-");
-        autoRefreshExecutor.scheduleAtFixedRate(() -> {
+        log.debug("[自动刷新] 启动 Pod 监听，重连最长间隔={}s", intervalSec);
+        clusterTreeService.startPodWatch(TimeUnit.SECONDS.toMillis(intervalSec), events -> {
             int gen = profileGeneration;
-            log.debug("[自动刷新] 触发增量刷新，代际={}, 间隔={}s", gen, intervalSec);
-            // 后台线程只做 K8s API 数据采集，不触碰已有 TreeItem
-            var podData = clusterTreeService.incrementalFetchPods();
-            if (podData == null) {
-                log.debug("[自动刷新] 增量采集返回 null（无命名空间或配置缺失）");
-                return;
-            }
-            log.debug("[自动刷新] 采集完成，{} 个命名空间有数据", podData.size());
-
             Platform.runLater(() -> {
-                // 配置已切换，丢弃过时的刷新结果
+                // 配置已切换，丢弃过时的事件
                 if (gen != profileGeneration) return;
+                if (!clusterTreeService.applyPodEvents(events)) return;
+                log.debug("[自动刷新] 应用 {} 个 Pod 变化", events.size());
 
                 String textFilter = searchField.getText();
                 boolean hasFilter = textFilter != null && !textFilter.isEmpty()
                         || currentStatusFilter != null;
+                TreeItem<String> cachedRoot = clusterTreeService.getCachedRoot();
                 // 有过滤条件时走过滤流程
                 if (hasFilter) {
-                    // 先在 FX 线程上合并数据到树，再过滤
-                    TreeItem<String> mergedRoot = clusterTreeService.applyIncrementalUpdate(podData);
-                    applyTreeFilterAsync(mergedRoot);
+                    applyTreeFilterAsync(cachedRoot);
                     return;
                 }
 
-                // 无过滤：FX 线程上合并数据 + refresh 视图
-                clusterTreeService.applyIncrementalUpdate(podData);
+                // 无过滤：显示的树可能是合并后保留的旧节点，需同样应用一次
+                TreeItem<String> displayed = treeView.getRoot();
+                if (displayed != null && displayed != cachedRoot) {
+                    ClusterTreeService.applyPodEvents(displayed, events, null);
+                }
                 treeView.refresh();
-                log.debug("[自动刷新] 树视图刷新完成");
             });
-        }, intervalSec, intervalSec, TimeUnit.SECONDS);
+        });
     }
 
-    /** 停止自动刷新定时器 */
+    /** 停止自动刷新 */
     private void stopAutoRefresh() {
-        ScheduledExecutorService executor = autoRefreshExecutor;
-        autoRefreshExecutor = null;
-        if (executor != null) {
-            executor.shutdownNow();
-        }
+        autoRefreshing = false;
+        clusterTreeService.stopPodWatch();
     }
 
     /** 重新加载自动刷新配置（设置变更后调用） */
@@ -413,6 +541,44 @@ public class TreeViewManager {
         }
     }
 
+    /**
+     * 全量加载过程中，先把已完成的命名空间显示到树上（必须在 FX 线程调用），全部完成后再由 {@link #setRootDirectly} 合并。
+     * 不在选中列表中的旧命名空间会被移除；已显示的命名空间（如来自快照）合并为最新的 Pod，保留展开状态；
+     * 有搜索/状态筛选时不处理，等全部完成后统一过滤。
+     *
+     * @param namespaceOrder 命名空间显示顺序（选中顺序）
+     */
+    public void showLoadedNamespace(String rootName, String namespace, List<PodSummary> pods,
+                                    List<String> namespaceOrder) {
+        String textFilter = searchField.getText();
+        if (textFilter != null && !textFilter.isEmpty() || currentStatusFilter != null) return;
+        if (pods.isEmpty()) return;
+
+        TreeItem<String> root = treeView.getRoot();
+        if (root == null || !Objects.equals(root.getValue(), rootName)) {
+            root = new TreeItem<>(rootName);
+            root.setExpanded(true);
+            treeView.setRoot(root);
+        }
+        List<TreeItem<String>> children = root.getChildren();
+        children.removeIf(child -> !namespaceOrder.contains(child.getValue()));
+        TreeItem<String> nsItem = new TreeItem<>(namespace);
+        nsItem.getChildren().addAll(ClusterTreeService.buildPodItems(pods));
+        for (TreeItem<String> child : children) {
+            if (namespace.equals(child.getValue())) {
+                mergeChildren(child, nsItem);
+                return;
+            }
+        }
+
+        int order = namespaceOrder.indexOf(namespace);
+        int index = 0;
+        while (index < children.size() && namespaceOrder.indexOf(children.get(index).getValue()) < order) {
+            index++;
+        }
+        children.add(index, nsItem);
+    }
+
     /**
      * 增量合并：将 source 的子节点合并到 target 中。
      * 保留 target 中已有的节点（含展开状态），添加新增节点，移除已删除节点。
@@ -537,7 +703,9 @@ public class TreeViewManager {
 
         statusFilterCombo.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
             currentStatusFilter = "All".equals(newVal) ? null : newVal;
+            // 先在已加载的树上过滤立即响应，再下推到服务端重新加载
             applyTreeFilter();
+            pushDownPodFilter();
         });
     }
 
@@ -652,6 +820,65 @@ public class TreeViewManager {
         });
     }
 
+    /** 按容器列表填充子菜单；上一个实例菜单在容器列表未知时提供默认容器一项 */
+    private void fillContainerMenu(Menu menu, TreeItem<String> pod, List<String> containers, boolean previous) {
+        menu.getItems().clear();
+        if (pod == null || pod.getParent() == null) return;
+        String namespace = pod.getParent().getValue();
+        String podName = pod.getValue();
+        List<String> names = containers.isEmpty() && previous ? Collections.singletonList(null) : containers;
+        for (String container : names) {
+            MenuItem item = new MenuItem(container != null ? container : "默认容器");
+            item.setOnAction(e -> {
+                if (onContainerLogs != null) {
+                    onContainerLogs.open(namespace, podName, container, previous);
+                }
+            });
+            menu.getItems().add(item);
+        }
+    }
+
+    /** 当前选中的 Pod 节点（只保留与第一个 Pod 同命名空间的） */
+    private List<TreeItem<String>> selectedPods() {
+        List<TreeItem<String>> pods = new ArrayList<>();
+        TreeItem<String> namespace = null;
+        for (TreeItem<String> item : treeView.getSelectionModel().getSelectedItems()) {
+            if (item == null || item.getParent() == null || item.getParent().getParent() == null) continue;
+            if (namespace == null) namespace = item.getParent();
+            if (item.getParent() == namespace) pods.add(item);
+        }
+        return pods;
+    }
+
+    /**
+     * 与指定 Pod 属于同一工作负载的 Pod（含自身）：去掉 Pod 名最后一段随机后缀后前缀相同，
+     * 如 Deployment 的同一 ReplicaSet 副本、StatefulSet 的各序号实例。
+     */
+    static List<TreeItem<String>> workloadSiblings(TreeItem<String> pod) {
+        if (pod == null || pod.getParent() == null || pod.getParent().getParent() == null) return List.of();
+        String name = pod.getValue();
+        int dash = name.lastIndexOf('-');
+        if (dash <= 0) return List.of(pod);
+        String prefix = name.substring(0, dash + 1);
+        List<TreeItem<String>> siblings = new ArrayList<>();
+        for (TreeItem<String> item : pod.getParent().getChildren()) {
+            String other = item.getValue();
+            if (other.startsWith(prefix) && other.indexOf('-', prefix.length()) < 0) {
+                siblings.add(item);
+            }
+        }
+        return siblings;
+    }
+
+    private void fireMergeTail(List<TreeItem<String>> pods) {
+        if (onMergeTail == null || pods.size() < 2) return;
+        List<String> podNames = new ArrayList<>(pods.size());
+        for (TreeItem<String> pod : pods) {
+            podNames.add(pod.getValue());
+        }
+        onMergeTail.accept(pods.get(0).getParent().getValue(), podNames);
+    }
+
     /** 右键查看选中 Pod 的性能监控 */
     private void onPodMonitor() {
         TreeItem<String> selected = treeView.getSelectionModel().getSelectedItem();
@@ -673,6 +900,8 @@ public class TreeViewManager {
     private static final Color BOX_HOVER_FILL = Color.web("#E8F0FE");
     private static final Color SYMBOL_COLOR = Color.web("#5C6B7A");
     private static final Color ACTIVE_POD_INDICATOR = Color.web("#326CE5");
+    private static final DateTimeFormatter TOOLTIP_TIME_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
 
     /**
      * 自定义树单元格，提供：
@@ -871,9 +1100,12 @@ public class TreeViewManager {
 
             // 层级字体差异，活跃 Pod 加粗显示
             boolean selected = isSelected();
+            boolean stale = isStaleItem(treeItem, level);
             String style;
             String fontWeight = isActivePod && !selected ? "bold" : null;
-            if (level == 0) {
+            if (stale && !selected && !isActivePod) {
+                style = "-fx-font-size: 13px; -fx-font-style: italic; -fx-text-fill: #95A5A6;";
+            } else if (level == 0) {
                 style = "-fx-font-size: 14px; -fx-font-weight: bold; -fx-text-fill: " + (selected ? "#FFFFFF" : "#2C3E50") + ";";
             } else if (level == 1) {
                 style = "-fx-font-size: 13px; " + (fontWeight != null ? "-fx-font-weight: " + fontWeight + "; " : "") + "-fx-text-fill: " + (selected ? "#FFFFFF" : "#34495E") + ";";
@@ -881,11 +1113,18 @@ public class TreeViewManager {
                 style = "-fx-font-size: 13px; " + (fontWeight != null ? "-fx-font-weight: " + fontWeight + "; " : "") + "-fx-text-fill: " + (selected ? "#FFFFFF" : (isActivePod ? "#326CE5" : "#555")) + ";";
             }
             label.setStyle(style);
-            label.setText(item);
+            Instant snapshotTime = staleSince;
+            if (level == 0 && snapshotTime != null) {
+                label.setText(item + "  (本地快照 " + TOOLTIP_TIME_FORMAT.format(snapshotTime) + ")");
+            } else if (level == 1 && stale && snapshotTime == null) {
+                label.setText(item + "  (加载失败，显示旧数据)");
+            } else {
+                label.setText(item);
+            }
 
-            // Pod 节点显示状态 Tooltip
+            // Pod 节点显示状态 Tooltip（附带节点、重启次数、启动时间）
             if (CommonUtils.getTreeItemData(treeItem) instanceof String phase) {
-                Tooltip tooltip = new Tooltip("状态: " + phase);
+                Tooltip tooltip = new Tooltip(podTooltipText(treeItem, phase));
                 Tooltip.install(label, tooltip);
             }
 
@@ -893,6 +1132,27 @@ public class TreeViewManager {
             setText(null);
         }
 
+        private String podTooltipText(TreeItem<String> treeItem, String phase) {
+            StringBuilder sb = new StringBuilder("状态: ").append(phase);
+            TreeItem<String> nsItem = treeItem.getParent();
+            PodSummary pod = nsItem != null
+                    ? clusterTreeService.getPodSummary(nsItem.getValue(), treeItem.getValue()) : null;
+            if (pod != null) {
+                if (pod.getNodeName() != null) sb.append("\n节点: ").append(pod.getNodeName());
+                sb.append("\n重启: ").append(pod.getRestartCount());
+                if (pod.getStartTime() != null) {
+                    sb.append("\n启动: ").append(TOOLTIP_TIME_FORMAT.format(pod.getStartTime()));
+                }
+            }
+            Instant snapshotTime = staleSince;
+            if (snapshotTime != null) {
+                sb.append("\n（本地快照，保存于 ").append(TOOLTIP_TIME_FORMAT.format(snapshotTime)).append("）");
+            } else if (nsItem != null && staleNamespaces.contains(nsItem.getValue())) {
+                sb.append("\n（该命名空间加载失败，显示的是上次获取的数据）");
+            }
+            return sb.toString();
+        }
+
         static int getTreeItemLevel(TreeItem<?> item) {
             int level = 0;
             TreeItem<?> parent = item.getParent();
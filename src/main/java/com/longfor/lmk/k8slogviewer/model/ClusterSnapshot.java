@@ -0,0 +1,48 @@
+package com.longfor.lmk.k8slogviewer.model;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 某个 KubeConfig 配置最近一次已知的集群快照：全量命名空间列表及各命名空间排好序的 Pod。
+ * <p>
+ * 持久化到本地，启动时先用它展示树（标记为过期），再在后台与 API Server 同步。不可变对象。
+ */
+public final class ClusterSnapshot {
+
+    private final Instant savedAt;
+    private final List<String> namespaces;
+    /** namespace → Pod，只包含加载过且有 Pod 的命名空间，按命名空间顺序 */
+    private final Map<String, List<PodSummary>> pods;
+
+    public ClusterSnapshot(Instant savedAt, List<String> namespaces, Map<String, List<PodSummary>> pods) {
+        this.savedAt = savedAt;
+        this.namespaces = namespaces != null ? List.copyOf(namespaces) : List.of();
+        Map<String, List<PodSummary>> copy = new LinkedHashMap<>();
+        if (pods != null) {
+            pods.forEach((ns, list) -> copy.put(ns, List.copyOf(list)));
+        }
+        this.pods = Collections.unmodifiableMap(copy);
+    }
+
+    public Instant getSavedAt() { return savedAt; }
+    public List<String> getNamespaces() { return namespaces; }
+    public Map<String, List<PodSummary>> getPods() { return pods; }
+
+    /** 快照中第一个有 Pod 的命名空间（按命名空间列表顺序），没有时返回 null */
+    public String firstNamespaceWithPods() {
+        for (String ns : namespaces) {
+            List<PodSummary> list = pods.get(ns);
+            if (list != null && !list.isEmpty()) return ns;
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "ClusterSnapshot[" + namespaces.size() + " namespaces, " + pods.size() + " loaded, " + savedAt + "]";
+    }
+}
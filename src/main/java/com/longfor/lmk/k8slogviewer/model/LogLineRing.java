@@ -0,0 +1,206 @@
+package com.longfor.lmk.k8slogviewer.model;
+
+import java.util.NoSuchElementException;
+import java.util.function.ToIntFunction;
+
+/**
+ * 固定容量的日志行环形缓冲区，作为日志视图的行模型。
+ * <p>
+ * 第 i 行（0-based，相对于窗口起点）对应 CodeArea 的第 i 个段落，全局行号为 {@code firstLine + i}。
+ * 两端的追加和淘汰都是 O(1)：不移动数组元素，只移动头指针，并维护每行在文档中的起始字符位置，
+ * 淘汰前 n 行时无需逐段测量段落长度即可得到要删除的字符范围。
+ * <p>
+ * 每行可以挂一个附件（如行号标签），随行一起淘汰，行号不变时可复用。
+ * 行在文档中的长度默认为字符串长度，文档显示的文本与行内容不同时（如去掉 ANSI 转义序列）可指定长度函数。
+ * 只在 JavaFX 线程访问，不是线程安全的。
+ *
+ * @param <A> 附件类型
+ */
+public final class LogLineRing<A> {
+
+    private final String[] lines;
+    /** 每行起始字符的全局位置（单调递增，每行占 length + 1 个字符，含换行符） */
+    private final long[] starts;
+    private final Object[] attachments;
+    private final int capacity;
+    /** 行在文档中占用的字符数（不含换行符） */
+    private final ToIntFunction<String> lengthFunction;
+
+    /** 第 0 行所在的数组下标 */
+    private int head = 0;
+    private int size = 0;
+    /** 第 0 行的全局行号 */
+    private int firstLine = 0;
+    /** 最后一行之后的全局字符位置 */
+    private long endChar = 0;
+
+    public LogLineRing(int capacity) {
+        this(capacity, String::length);
+    }
+
+    /**
+     * @param capacity       容量（行）
+     * @param lengthFunction 行在文档中占用的字符数（不含换行符）
+     */
+    public LogLineRing(int capacity, ToIntFunction<String> lengthFunction) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.capacity = capacity;
+        this.lengthFunction = lengthFunction;
+        this.lines = new String[capacity];
+        this.starts = new long[capacity];
+        this.attachments = new Object[capacity];
+    }
+
+    // ==================== 基本信息 ====================
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** 剩余可用行数 */
+    public int remaining() {
+        return capacity - size;
+    }
+
+    /** 第 0 行的全局行号 */
+    public int getFirstLine() {
+        return firstLine;
+    }
+
+    /** 最后一行之后的全局行号 */
+    public int getEndLine() {
+        return firstLine + size;
+    }
+
+    /** 清空并设置新的起始全局行号 */
+    public void reset(int firstLine) {
+        clearSlots(0, size);
+        head = 0;
+        size = 0;
+        this.firstLine = firstLine;
+        endChar = 0;
+    }
+
+    /** 全局行号整体平移（磁盘文件截断后重新编号），附件随之清空 */
+    public void shiftLines(int delta) {
+        firstLine += delta;
+        for (int i = 0; i < size; i++) {
+            attachments[slot(i)] = null;
+        }
+    }
+
+    // ==================== 追加 / 淘汰 ====================
+
+    /**
+     * 在末尾追加一行，已满时先淘汰第一行。
+     *
+     * @return 是否淘汰了第一行
+     */
+    public boolean addLast(String line) {
+        boolean evicted = size == capacity;
+        if (evicted) removeFirst(1);
+        int s = slot(size);
+        lines[s] = line;
+        starts[s] = endChar;
+        attachments[s] = null;
+        endChar += lengthFunction.applyAsInt(line) + 1;
+        size++;
+        return evicted;
+    }
+
+    /**
+     * 在开头插入一行（全局行号为 firstLine - 1），已满时先淘汰最后一行。
+     *
+     * @return 是否淘汰了最后一行
+     */
+    public boolean addFirst(String line) {
+        boolean evicted = size == capacity;
+        if (evicted) removeLast(1);
+        long start = (size == 0 ? endChar : starts[head]) - lengthFunction.applyAsInt(line) - 1;
+        head = (head - 1 + capacity) % capacity;
+        lines[head] = line;
+        starts[head] = start;
+        attachments[head] = null;
+        firstLine--;
+        size++;
+        return evicted;
+    }
+
+    /** 淘汰前 n 行 */
+    public void removeFirst(int n) {
+        n = Math.min(n, size);
+        clearSlots(0, n);
+        head = (head + n) % capacity;
+        size -= n;
+        firstLine += n;
+    }
+
+    /** 淘汰后 n 行 */
+    public void removeLast(int n) {
+        n = Math.min(n, size);
+        if (n == 0) return;
+        endChar = starts[slot(size - n)];
+        clearSlots(size - n, size);
+        size -= n;
+    }
+
+    // ==================== 访问 ====================
+
+    /** 第 index 行内容（相对于窗口起点） */
+    public String get(int index) {
+        checkIndex(index);
+        return lines[slot(index)];
+    }
+
+    /**
+     * 第 index 行在文档中的起始字符位置；index == size 时返回全部行的总长度（含换行符）。
+     */
+    public int charOffset(int index) {
+        if (index < 0 || index > size) throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        if (size == 0) return 0;
+        long base = starts[head];
+        long pos = index == size ? endChar : starts[slot(index)];
+        return (int) (pos - base);
+    }
+
+    @SuppressWarnings("unchecked")
+    public A getAttachment(int index) {
+        checkIndex(index);
+        return (A) attachments[slot(index)];
+    }
+
+    public void setAttachment(int index, A attachment) {
+        checkIndex(index);
+        attachments[slot(index)] = attachment;
+    }
+
+    // ==================== 内部方法 ====================
+
+    private int slot(int index) {
+        return (head + index) % capacity;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            if (size == 0) throw new NoSuchElementException("ring is empty");
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+    }
+
+    /** 释放 [from, to) 行的引用 */
+    private void clearSlots(int from, int to) {
+        for (int i = from; i < to; i++) {
+            int s = slot(i);
+            lines[s] = null;
+            attachments[s] = null;
+        }
+    }
+}
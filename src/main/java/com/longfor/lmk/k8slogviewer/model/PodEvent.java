@@ -0,0 +1,33 @@
+package com.longfor.lmk.k8slogviewer.model;
+
+/**
+ * Pod 变更事件，由 Pod 监听器产生，用于对容器树做最小化更新。
+ */
+public final class PodEvent {
+
+    /** 事件类型 */
+    public enum Type {
+        /** 新增 Pod */
+        ADDED,
+        /** 已有 Pod 的 phase 或容器列表变化 */
+        MODIFIED,
+        /** Pod 被删除 */
+        DELETED
+    }
+
+    private final Type type;
+    private final PodSummary pod;
+
+    public PodEvent(Type type, PodSummary pod) {
+        this.type = type;
+        this.pod = pod;
+    }
+
+    public Type getType() { return type; }
+    public PodSummary getPod() { return pod; }
+
+    @Override
+    public String toString() {
+        return type + " " + pod;
+    }
+}
@@ -0,0 +1,66 @@
+package com.longfor.lmk.k8slogviewer.model;
+
+import java.util.Objects;
+
+/**
+ * 下推到 API Server 的 Pod 过滤条件：标签选择器 + 状态（转换为 status.phase 字段选择器）。
+ * <p>
+ * 不可变对象，空字符串按未设置处理。
+ */
+public final class PodFilter {
+
+    /** 不过滤 */
+    public static final PodFilter NONE = new PodFilter(null, null);
+
+    private final String labelSelector;
+    private final String phase;
+
+    /**
+     * @param labelSelector 标签选择器，如 {@code app=web,tier!=db}，可为 null
+     * @param phase         Pod phase，如 {@code Running}，null 表示全部状态
+     */
+    public PodFilter(String labelSelector, String phase) {
+        this.labelSelector = normalize(labelSelector);
+        this.phase = normalize(phase);
+    }
+
+    private static String normalize(String value) {
+        if (value == null) return null;
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    public String getLabelSelector() {
+        return labelSelector;
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    /** 字段选择器，无状态条件时返回 null */
+    public String fieldSelector() {
+        return phase != null ? "status.phase=" + phase : null;
+    }
+
+    public boolean isEmpty() {
+        return labelSelector == null && phase == null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PodFilter other)) return false;
+        return Objects.equals(labelSelector, other.labelSelector) && Objects.equals(phase, other.phase);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(labelSelector, phase);
+    }
+
+    @Override
+    public String toString() {
+        return "PodFilter{label=" + labelSelector + ", phase=" + phase + "}";
+    }
+}
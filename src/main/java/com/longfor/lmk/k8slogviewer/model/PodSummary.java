@@ -0,0 +1,132 @@
+package com.longfor.lmk.k8slogviewer.model;
+
+import io.kubernetes.client.openapi.models.V1Container;
+import io.kubernetes.client.openapi.models.V1ContainerStatus;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import io.kubernetes.client.openapi.models.V1Pod;
+import io.kubernetes.client.openapi.models.V1PodSpec;
+import io.kubernetes.client.openapi.models.V1PodStatus;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * 容器树所需的 Pod 精简信息：命名空间、名称、phase、容器名列表、重启次数、节点、启动时间及 resourceVersion。
+ * <p>
+ * 服务层缓存只保存该对象而不是完整的 V1Pod（spec 中的 env、volumes 等），树节点在 FX 边界按需构建。
+ * 不可变对象，可在后台线程与 FX 线程之间安全传递。
+ */
+public final class PodSummary {
+
+    private final String namespace;
+    private final String name;
+    private final String phase;
+    /** 普通容器在前，init 容器在后 */
+    private final List<String> containerNames;
+    private final String resourceVersion;
+    /** 普通容器重启次数之和 */
+    private final int restartCount;
+    /** 调度到的节点，未调度时为 null */
+    private final String nodeName;
+    /** 启动时间，未启动时为 null */
+    private final Instant startTime;
+
+    public PodSummary(String namespace, String name, String phase,
+                      List<String> containerNames, String resourceVersion) {
+        this(namespace, name, phase, containerNames, resourceVersion, 0, null, null);
+    }
+
+    public PodSummary(String namespace, String name, String phase, List<String> containerNames,
+                      String resourceVersion, int restartCount, String nodeName, Instant startTime) {
+        this.namespace = namespace;
+        this.name = name;
+        this.phase = phase != null ? phase : PodStatus.UNKNOWN.getPhase();
+        this.containerNames = containerNames != null
+                ? Collections.unmodifiableList(new ArrayList<>(containerNames))
+                : Collections.emptyList();
+        this.resourceVersion = resourceVersion;
+        this.restartCount = restartCount;
+        this.nodeName = nodeName;
+        this.startTime = startTime;
+    }
+
+    /**
+     * 从 V1Pod 提取精简信息。
+     *
+     * @return 缺少名称时返回 null
+     */
+    public static PodSummary from(V1Pod pod) {
+        V1ObjectMeta meta = pod.getMetadata();
+        if (meta == null || meta.getName() == null) return null;
+        V1PodStatus status = pod.getStatus();
+        String phase = status != null ? status.getPhase() : null;
+        int restarts = 0;
+        Instant startTime = null;
+        if (status != null) {
+            for (V1ContainerStatus cs : Optional.ofNullable(status.getContainerStatuses()).orElse(List.of())) {
+                restarts += cs.getRestartCount() != null ? cs.getRestartCount() : 0;
+            }
+            Object start = status.getStartTime();
+            startTime = start != null ? parseTime(start.toString()) : null;
+        }
+        String nodeName = pod.getSpec() != null ? pod.getSpec().getNodeName() : null;
+        return new PodSummary(meta.getNamespace(), meta.getName(), phase,
+                containerNames(pod.getSpec()), meta.getResourceVersion(), restarts, nodeName, startTime);
+    }
+
+    /** 解析 RFC 3339 时间，格式不合法时返回 null */
+    public static Instant parseTime(String text) {
+        if (text == null || text.isEmpty()) return null;
+        try {
+            return OffsetDateTime.parse(text).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static List<String> containerNames(V1PodSpec spec) {
+        if (spec == null) return Collections.emptyList();
+        List<String> names = new ArrayList<>();
+        for (V1Container c : Optional.ofNullable(spec.getContainers()).orElse(List.of())) {
+            names.add(c.getName());
+        }
+        for (V1Container c : Optional.ofNullable(spec.getInitContainers()).orElse(List.of())) {
+            names.add(c.getName());
+        }
+        return names;
+    }
+
+    public String getNamespace() { return namespace; }
+    public String getName() { return name; }
+    public String getPhase() { return phase; }
+    public List<String> getContainerNames() { return containerNames; }
+    public String getResourceVersion() { return resourceVersion; }
+    public int getRestartCount() { return restartCount; }
+    public String getNodeName() { return nodeName; }
+    public Instant getStartTime() { return startTime; }
+
+    /** namespace/name，与树节点路径及容器缓存的 key 一致 */
+    public String getKey() {
+        return namespace + "/" + name;
+    }
+
+    /** 树上展示的内容（phase、容器列表、重启次数、节点）是否相同，忽略 resourceVersion */
+    public boolean sameDisplay(PodSummary other) {
+        return other != null
+                && Objects.equals(phase, other.phase)
+                && containerNames.equals(other.containerNames)
+                && restartCount == other.restartCount
+                && Objects.equals(nodeName, other.nodeName);
+    }
+
+    @Override
+    public String toString() {
+        return getKey() + "[" + phase + "]";
+    }
+}
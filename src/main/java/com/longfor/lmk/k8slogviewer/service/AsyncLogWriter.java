@@ -0,0 +1,241 @@
+package com.longfor.lmk.k8slogviewer.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.ToIntFunction;
+
+/**
+ * 日志异步批量写入器。
+ * <p>
+ * 流式读取线程只把待写入的数据（行或原始字节块）放入无锁队列（{@link #offer}），由独立的写盘线程把积攒的数据
+ * 合并成一批交给 {@link BatchSink} 一次写入，避免每行一次 write/flush 系统调用拖慢网络读取。
+ * 满足以下任一条件即写一批：
+ * <ul>
+ *   <li>待写字节数达到 batchBytes（由 offer 立即唤醒写盘线程）</li>
+ *   <li>距上次写盘超过 maxDelayMs</li>
+ *   <li>读取方调用 {@link #flush()}：写屏障，返回时此前 offer 的数据均已交给 sink</li>
+ * </ul>
+ * 出队与写入都在 lock 上串行执行，保证批次按入队顺序落盘；
+ * lock 由调用方提供（通常是 sink 所属对象），读取方持有同一把锁时调用 {@link #flush()} 不会死锁。
+ * <p>
+ * 待写字节数有上限（maxPendingBytes）：写盘线程拿不到 lock（如长时间的搜索、历史读取持有 lock）时，
+ * 超过上限的 {@link #offer} 会阻塞读取线程直到积压降下来，向网络读取施加背压，而不是让队列无限占用堆内存。
+ *
+ * @param <T> 队列元素类型
+ */
+public class AsyncLogWriter<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncLogWriter.class);
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger(0);
+
+    /** 默认批量阈值：待写入字节数 */
+    public static final int DEFAULT_BATCH_BYTES = 256 * 1024;
+
+    /** 默认最长延迟：行入队后最迟多久落盘 */
+    public static final long DEFAULT_MAX_DELAY_MS = 200;
+
+    /** 默认积压上限：待写入字节数超过后 offer 阻塞 */
+    public static final long DEFAULT_MAX_PENDING_BYTES = 32L * 1024 * 1024;
+
+    /** 背压等待时每次等待的最长时间，期间检查是否已关闭 */
+    private static final long BACKPRESSURE_WAIT_MS = 100;
+
+    /** 批量写入目标 */
+    @FunctionalInterface
+    public interface BatchSink<T> {
+        /** 按入队顺序写入一批数据，在 lock 内调用 */
+        void write(List<T> items) throws IOException;
+    }
+
+    private final Object lock;
+    private final BatchSink<T> sink;
+    /** 元素的字节数估算，用于批量阈值 */
+    private final ToIntFunction<T> weigher;
+    private final int batchBytes;
+    private final long maxDelayNanos;
+    private final long maxPendingBytes;
+
+    private final ConcurrentLinkedQueue<T> queue = new ConcurrentLinkedQueue<>();
+    /** 队列中待写入的近似字节数 */
+    private final AtomicLong pendingBytes = new AtomicLong();
+    /** 是否已唤醒写盘线程，避免每行都 unpark */
+    private final AtomicBoolean signalled = new AtomicBoolean();
+    /** 背压等待的监视器：出队后通知阻塞在 offer 上的读取线程 */
+    private final Object capacity = new Object();
+    /** 因积压而阻塞 offer 的次数 */
+    private final AtomicLong backpressureCount = new AtomicLong();
+
+    private volatile Thread worker;
+    private volatile boolean closed = false;
+
+    public AsyncLogWriter(Object lock, BatchSink<T> sink, ToIntFunction<T> weigher) {
+        this(lock, sink, weigher, DEFAULT_BATCH_BYTES, DEFAULT_MAX_DELAY_MS);
+    }
+
+    public AsyncLogWriter(Object lock, BatchSink<T> sink, ToIntFunction<T> weigher, int batchBytes, long maxDelayMs) {
+        this(lock, sink, weigher, batchBytes, maxDelayMs, DEFAULT_MAX_PENDING_BYTES);
+    }
+
+    /**
+     * @param maxPendingBytes 积压上限，待写入字节数超过后 offer 阻塞直到写盘线程追上
+     */
+    public AsyncLogWriter(Object lock, BatchSink<T> sink, ToIntFunction<T> weigher, int batchBytes, long maxDelayMs,
+                          long maxPendingBytes) {
+        this.lock = lock;
+        this.sink = sink;
+        this.weigher = weigher;
+        this.batchBytes = batchBytes;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+        this.maxPendingBytes = Math.max(batchBytes, maxPendingBytes);
+    }
+
+    // ==================== 入队 ====================
+
+    /**
+     * 入队一个元素，不加锁；积压未超过上限时不阻塞。写盘线程在首次入队时才启动。
+     * 积压超过上限时阻塞到写盘线程追上（调用线程持有 lock 时直接在本线程写入，避免等待自己持有的锁）；
+     * 阻塞期间被中断则恢复中断标志并返回，元素仍在队列中。
+     */
+    public void offer(T item) {
+        if (closed) return;
+        queue.offer(item);
+        Thread t = worker;
+        if (t == null) {
+            t = startWorker();
+        }
+        long pending = pendingBytes.addAndGet(weigher.applyAsInt(item));
+        if (pending >= batchBytes && signalled.compareAndSet(false, true)) {
+            LockSupport.unpark(t);
+        }
+        if (pending > maxPendingBytes) {
+            awaitCapacity(t);
+        }
+    }
+
+    /** 阻塞直到积压降到上限以下或写入器关闭 */
+    private void awaitCapacity(Thread t) {
+        if (Thread.holdsLock(lock)) {
+            drain();
+            return;
+        }
+        long count = backpressureCount.incrementAndGet();
+        if (count == 1 || count % 100 == 0) {
+            log.info("日志写盘积压 {} KB 超过上限，暂停读取等待写盘（累计 {} 次）", pendingBytes.get() / 1024, count);
+        }
+        synchronized (capacity) {
+            while (!closed && pendingBytes.get() > maxPendingBytes) {
+                LockSupport.unpark(t);
+                try {
+                    capacity.wait(BACKPRESSURE_WAIT_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /** 队列中尚未写入的元素数 */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /** 队列中尚未写入的近似字节数 */
+    public long getPendingBytes() {
+        return pendingBytes.get();
+    }
+
+    /** 因积压超过上限而阻塞 offer 的累计次数 */
+    public long getBackpressureCount() {
+        return backpressureCount.get();
+    }
+
+    // ==================== 写屏障 ====================
+
+    /**
+     * 在调用线程上把此前入队的数据全部写入 sink，返回后读取方可以看到一致的文件末尾。
+     */
+    public void flush() {
+        synchronized (lock) {
+            drain();
+        }
+    }
+
+    /**
+     * 写入剩余的数据并停止写盘线程，之后的 offer 会被忽略。
+     */
+    public void close() {
+        closed = true;
+        synchronized (capacity) {
+            capacity.notifyAll();
+        }
+        Thread t = worker;
+        if (t != null) {
+            LockSupport.unpark(t);
+            try {
+                t.join(TimeUnit.SECONDS.toMillis(2));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    // ==================== 写盘线程 ====================
+
+    private synchronized Thread startWorker() {
+        if (worker == null) {
+            Thread t = new Thread(this::runWorker, "k8s-log-writer-" + THREAD_COUNTER.incrementAndGet());
+            t.setDaemon(true);
+            worker = t;
+            t.start();
+        }
+        return worker;
+    }
+
+    private void runWorker() {
+        while (!closed) {
+            LockSupport.parkNanos(this, maxDelayNanos);
+            signalled.set(false);
+            if (!queue.isEmpty()) {
+                flush();
+            }
+        }
+    }
+
+    /** 出队全部待写入的数据并交给 sink，调用方须持有 lock */
+    private void drain() {
+        if (queue.isEmpty()) return;
+        List<T> batch = new ArrayList<>();
+        long bytes = 0;
+        T item;
+        while ((item = queue.poll()) != null) {
+            batch.add(item);
+            bytes += weigher.applyAsInt(item);
+        }
+        try {
+            sink.write(batch);
+        } catch (IOException e) {
+            log.error("批量写入日志失败（{} 项）: {}", batch.size(), e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("批量写入日志失败（{} 项）", batch.size(), e);
+        } finally {
+            // 写完再释放额度，积压统计包含正在写入的批次
+            pendingBytes.addAndGet(-bytes);
+            synchronized (capacity) {
+                capacity.notifyAll();
+            }
+        }
+    }
+}
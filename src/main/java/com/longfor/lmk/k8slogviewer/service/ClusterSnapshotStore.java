@@ -0,0 +1,218 @@
+package com.longfor.lmk.k8slogviewer.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.longfor.lmk.k8slogviewer.model.ClusterSnapshot;
+import com.longfor.lmk.k8slogviewer.model.PodSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 集群快照的本地存储，每个 KubeConfig 配置一个 JSON 文件。
+ * <p>
+ * 用 Jackson 流式读写，只保存树需要的字段；先写临时文件再原子替换，进程中途退出不会留下半个文件。
+ * 文件损坏或版本不符时视为没有快照。
+ */
+final class ClusterSnapshotStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterSnapshotStore.class);
+
+    /** 默认目录：用户主目录下 .k8s-log-viewer/cache/snapshots */
+    static final Path DEFAULT_DIR = Paths.get(System.getProperty("user.home"), ".k8s-log-viewer", "cache", "snapshots");
+
+    /** 文件格式版本，字段变化时递增，旧文件直接忽略 */
+    static final int FORMAT_VERSION = 1;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final Path dir;
+
+    ClusterSnapshotStore(Path dir) {
+        this.dir = dir;
+    }
+
+    /** 配置名对应的快照文件：非安全字符替换为下划线，附加哈希避免不同名称映射到同一文件 */
+    Path fileFor(String profileName) {
+        String safe = profileName.replaceAll("[^A-Za-z0-9._-]", "_");
+        return dir.resolve(safe + "-" + Integer.toHexString(profileName.hashCode()) + ".json");
+    }
+
+    /**
+     * 读取配置的快照。
+     *
+     * @return 文件不存在、损坏或版本不符时返回 null
+     */
+    ClusterSnapshot load(String profileName) {
+        Path file = fileFor(profileName);
+        if (!Files.isRegularFile(file)) return null;
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in);
+        } catch (IOException | RuntimeException e) {
+            log.warn("读取集群快照失败[{}]: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /** 写入配置的快照（覆盖旧文件） */
+    void save(String profileName, ClusterSnapshot snapshot) {
+        Path file = fileFor(profileName);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(dir);
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                write(out, snapshot);
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            log.warn("保存集群快照失败[{}]: {}", file, e.getMessage());
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException ignored) {
+                // 临时文件清理失败不影响下次写入
+            }
+        }
+    }
+
+    // ==================== 序列化 ====================
+
+    static void write(OutputStream out, ClusterSnapshot snapshot) throws IOException {
+        try (JsonGenerator g = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            g.writeStartObject();
+            g.writeNumberField("version", FORMAT_VERSION);
+            g.writeNumberField("savedAt", snapshot.getSavedAt().toEpochMilli());
+            g.writeArrayFieldStart("namespaces");
+            for (String ns : snapshot.getNamespaces()) {
+                g.writeString(ns);
+            }
+            g.writeEndArray();
+            g.writeObjectFieldStart("pods");
+            for (var entry : snapshot.getPods().entrySet()) {
+                g.writeArrayFieldStart(entry.getKey());
+                for (PodSummary pod : entry.getValue()) {
+                    writePod(g, pod);
+                }
+                g.writeEndArray();
+            }
+            g.writeEndObject();
+            g.writeEndObject();
+        }
+    }
+
+    private static void writePod(JsonGenerator g, PodSummary pod) throws IOException {
+        g.writeStartObject();
+        g.writeStringField("name", pod.getName());
+        g.writeStringField("phase", pod.getPhase());
+        g.writeArrayFieldStart("containers");
+        for (String c : pod.getContainerNames()) {
+            g.writeString(c);
+        }
+        g.writeEndArray();
+        if (pod.getResourceVersion() != null) g.writeStringField("resourceVersion", pod.getResourceVersion());
+        if (pod.getRestartCount() != 0) g.writeNumberField("restarts", pod.getRestartCount());
+        if (pod.getNodeName() != null) g.writeStringField("node", pod.getNodeName());
+        if (pod.getStartTime() != null) g.writeStringField("startTime", pod.getStartTime().toString());
+        g.writeEndObject();
+    }
+
+    static ClusterSnapshot read(InputStream in) throws IOException {
+        int version = -1;
+        Instant savedAt = null;
+        List<String> namespaces = new ArrayList<>();
+        Map<String, List<PodSummary>> pods = new LinkedHashMap<>();
+        try (JsonParser p = JSON_FACTORY.createParser(in)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("快照文件不是 JSON 对象");
+            }
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.getCurrentName();
+                JsonToken value = p.nextToken();
+                switch (field) {
+                    case "version" -> version = p.getIntValue();
+                    case "savedAt" -> savedAt = Instant.ofEpochMilli(p.getLongValue());
+                    case "namespaces" -> readStrings(p, namespaces);
+                    case "pods" -> {
+                        if (value != JsonToken.START_OBJECT) {
+                            p.skipChildren();
+                            continue;
+                        }
+                        while (p.nextToken() == JsonToken.FIELD_NAME) {
+                            String ns = p.getCurrentName();
+                            p.nextToken();
+                            pods.put(ns, readPods(p, ns));
+                        }
+                    }
+                    default -> p.skipChildren();
+                }
+            }
+        }
+        if (version != FORMAT_VERSION || savedAt == null) return null;
+        return new ClusterSnapshot(savedAt, namespaces, pods);
+    }
+
+    private static List<PodSummary> readPods(JsonParser p, String ns) throws IOException {
+        List<PodSummary> pods = new ArrayList<>();
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return pods;
+        }
+        while (p.nextToken() == JsonToken.START_OBJECT) {
+            String name = null;
+            String phase = null;
+            String resourceVersion = null;
+            String nodeName = null;
+            Instant startTime = null;
+            int restarts = 0;
+            List<String> containers = new ArrayList<>(2);
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String f = p.getCurrentName();
+                p.nextToken();
+                switch (f) {
+                    case "name" -> name = p.getValueAsString();
+                    case "phase" -> phase = p.getValueAsString();
+                    case "containers" -> readStrings(p, containers);
+                    case "resourceVersion" -> resourceVersion = p.getValueAsString();
+                    case "restarts" -> restarts = p.getValueAsInt();
+                    case "node" -> nodeName = p.getValueAsString();
+                    case "startTime" -> startTime = PodSummary.parseTime(p.getValueAsString());
+                    default -> p.skipChildren();
+                }
+            }
+            if (name != null) {
+                pods.add(new PodSummary(ns, name, phase, containers, resourceVersion, restarts, nodeName, startTime));
+            }
+        }
+        return pods;
+    }
+
+    private static void readStrings(JsonParser p, List<String> out) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return;
+        }
+        JsonToken t;
+        while ((t = p.nextToken()) != null && t != JsonToken.END_ARRAY) {
+            if (t == JsonToken.VALUE_STRING) {
+                out.add(p.getText());
+            } else {
+                p.skipChildren();
+            }
+        }
+    }
+}
@@ -3,32 +3,56 @@ package com.longfor.lmk.k8slogviewer.service;
 import com.longfor.lmk.k8slogviewer.config.AppPreferences;
 import com.longfor.lmk.k8slogviewer.config.K8sClientManager;
 import com.longfor.lmk.k8slogviewer.config.KubeConfigProfile;
+import com.longfor.lmk.k8slogviewer.model.ClusterSnapshot;
+import com.longfor.lmk.k8slogviewer.model.PodEvent;
+import com.longfor.lmk.k8slogviewer.model.PodFilter;
 import com.longfor.lmk.k8slogviewer.model.PodStatus;
+import com.longfor.lmk.k8slogviewer.model.PodSummary;
 import com.longfor.lmk.k8slogviewer.utils.CommonUtils;
+import com.longfor.lmk.k8slogviewer.utils.ExecutorManager;
+import io.kubernetes.client.openapi.ApiClient;
 import io.kubernetes.client.openapi.ApiException;
 import io.kubernetes.client.openapi.apis.CoreV1Api;
-import io.kubernetes.client.openapi.models.V1ObjectMeta;
-import io.kubernetes.client.openapi.models.V1Pod;
-import io.kubernetes.client.openapi.models.V1PodStatus;
 import javafx.scene.control.TreeItem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 /**
  * 集群树视图数据服务。
  *
  * - 缓存 key: profileName#namespace，避免重复 API 调用
- * - 支持全量加载和增量刷新，增量刷新只更新选中命名空间的 Pod 数据
+ * - 支持全量加载；自动刷新由 {@link PodInformer} 监听 Pod 变化，只对树做增删改的最小更新
+ * - 每个配置最近一次的命名空间与 Pod 保存为本地快照，启动时先用快照展示，再与 API Server 同步
  */
 public class ClusterTreeService {
 
     private static final Logger log = LoggerFactory.getLogger(ClusterTreeService.class);
 
-    /** 缓存 key: profileName#namespace → 该命名空间的 Pod 子节点 */
-    private final ConcurrentHashMap<String, List<TreeItem<String>>> nsCache = new ConcurrentHashMap<>();
+    /** 缓存 key: profileName#namespace → 该命名空间排好序的 Pod 精简信息（不缓存 TreeItem，树节点在交给视图前才构建） */
+    private final ConcurrentHashMap<String, List<PodSummary>> nsCache = new ConcurrentHashMap<>();
+
+    /** namespace/pod → Pod 精简信息（容器名、重启次数等），随 Pod 列表和监听事件一起刷新 */
+    private final ConcurrentHashMap<String, PodSummary> podSummaries = new ConcurrentHashMap<>();
+
+    /** 进行中的命名空间 Pod 请求：profileName#namespace → 结果 */
+    private final ConcurrentHashMap<String, CompletableFuture<List<PodSummary>>> inFlightFetches = new ConcurrentHashMap<>();
+
+    /** 全量重载的代际，较早的重载晚完成时不覆盖较新的结果 */
+    private final AtomicInteger reloadGeneration = new AtomicInteger();
+
+    /** 命名空间 Pod 请求线程池（请求会阻塞在网络上，不占用通用工作线程池），并发数由信号量控制 */
+    private static ExecutorService fetchExecutor;
 
     /** 上一次加载的树根节点 */
     private volatile TreeItem<String> lastLoadedRoot;
@@ -36,31 +60,81 @@ public class ClusterTreeService {
     /** 当前正在加载的命名空间列表 */
     private volatile List<String> lastRequestedNamespaces;
 
+    /**
+     * 选中命名空间占集群全部命名空间的比例达到该值时改用集群级请求。
+     * 集群级请求会分页拉取所有命名空间的 Pod 再在客户端丢弃未选中的，只有选中的占多数时才比逐个请求便宜。
+     */
+    static final double CLUSTER_WIDE_MIN_SHARE = 0.5;
+
+    private static final int HTTP_FORBIDDEN = 403;
+
+    /** 集群级 list 无权限的配置，之后直接按命名空间请求 */
+    private final Set<String> clusterWideForbiddenProfiles = ConcurrentHashMap.newKeySet();
+
+    /** 最近一次全量重载中请求失败、沿用旧数据的命名空间 */
+    private volatile Set<String> failedNamespaces = Set.of();
+
+    /** 下推到 API Server 的过滤条件 */
+    private volatile PodFilter podFilter = PodFilter.NONE;
+
+    /** Pod 排序：按状态权重，再按名称（忽略大小写） */
+    static final Comparator<PodSummary> POD_ORDER = Comparator
+            .comparingInt((PodSummary p) -> statusOrder(p.getPhase()))
+            .thenComparing(PodSummary::getName, String.CASE_INSENSITIVE_ORDER);
+
+    /** 快照写入延迟：合并短时间内的多次变化（加载完成、监听事件）为一次写入 */
+    static final long SNAPSHOT_SAVE_DELAY_MS = 1000;
+
+    private final ClusterSnapshotStore snapshotStore;
+
+    /** 配置名 → 最近一次读取或写入的快照，写入时未重新加载的命名空间沿用其中的 Pod */
+    private final ConcurrentHashMap<String, ClusterSnapshot> lastSnapshots = new ConcurrentHashMap<>();
+
+    /** 配置名 → 最近一次从 API 获取的全量命名空间 */
+    private final ConcurrentHashMap<String, List<String>> knownNamespaces = new ConcurrentHashMap<>();
+
+    /** 已安排写入但尚未执行的配置 */
+    private final Set<String> pendingSnapshotSaves = ConcurrentHashMap.newKeySet();
+
+    /** 快照写入线程（单线程，同一配置的写入不会交错） */
+    private static ScheduledExecutorService snapshotExecutor;
+
+    /** Pod 变化监听器，null 表示未开启自动刷新 */
+    private PodInformer podInformer;
+    private PodInformer.Listener podEventListener;
+    private long podWatchMaxBackoffMs;
+
+    public ClusterTreeService() {
+        this(new ClusterSnapshotStore(ClusterSnapshotStore.DEFAULT_DIR));
+    }
+
+    ClusterTreeService(ClusterSnapshotStore snapshotStore) {
+        this.snapshotStore = snapshotStore;
+    }
+
     /**
      * 加载命名空间树（优先使用缓存），用于初始展示和命名空间过滤。
      */
-    public synchronized TreeItem<String> loadNamespaceSkeleton(List<String> namespaces) {
+    public TreeItem<String> loadNamespaceSkeleton(List<String> namespaces) {
         if (namespaces == null || namespaces.isEmpty()) return null;
         String profileName = getActiveProfileName();
         if (profileName == null) return null;
 
         lastRequestedNamespaces = new ArrayList<>(namespaces);
-        KubeConfigProfile activeProfile = AppPreferences.getActiveProfile();
-        String rootName = activeProfile != null ? activeProfile.getName() : "集群";
-        TreeItem<String> root = new TreeItem<>(rootName);
+        restartPodWatchIfNeeded();
+        TreeItem<String> root = new TreeItem<>(getRootName());
         root.setExpanded(true);
 
         try {
-            CoreV1Api api = K8sClientManager.getCoreV1Api();
             for (String nsName : namespaces) {
                 String cacheKey = profileName + "#" + nsName;
                 // 检查是否有已缓存的 Pod 列表
-                List<TreeItem<String>> cachedChildren = nsCache.get(cacheKey);
+                List<PodSummary> cachedPods = nsCache.get(cacheKey);
                 // 无缓存且非空缓存的命名空间才加入树（无 Pod 的命名空间剔除）
-                if (cachedChildren == null || !cachedChildren.isEmpty()) {
+                if (cachedPods == null || !cachedPods.isEmpty()) {
                     TreeItem<String> nsItem = new TreeItem<>(nsName);
-                    if (cachedChildren != null) {
-                        nsItem.getChildren().addAll(cachedChildren);
+                    if (cachedPods != null) {
+                        nsItem.getChildren().addAll(buildPodItems(cachedPods));
                         nsItem.setExpanded(false);
                     }
                     root.getChildren().add(nsItem);
@@ -79,156 +153,615 @@ public class ClusterTreeService {
         return loadNamespaceSkeleton(namespaces);
     }
 
-    /** 同步获取指定命名空间的 Pod 列表 */
-    public List<TreeItem<String>> fetchPodItems(String nsName) {
+    /**
+     * 同步获取指定命名空间排好序的 Pod 列表（按当前 {@link PodFilter} 下推过滤、分页拉取，
+     * 单页请求超时见 {@link AppPreferences#getTreeFetchTimeoutSec()}）。
+     *
+     * @return 排好序的 Pod（命名空间无 Pod 时为空列表）；请求失败或超时返回 null，与"没有 Pod"区分
+     */
+    public List<PodSummary> fetchPods(String nsName) {
         try {
             CoreV1Api api = K8sClientManager.getCoreV1Api();
-            var pods = api.listNamespacedPod(
-                    nsName, null, null, null, null, null, null, null, null, null).getItems();
-            List<TreeItem<String>> items = new ArrayList<>();
-            if (pods != null) {
-                pods.stream()
-                        .sorted(Comparator
-                                .comparing((V1Pod p) -> {
-                                    String phase = Optional.ofNullable(p.getStatus())
-                                            .map(V1PodStatus::getPhase).orElse("Unknown");
-                                    return statusOrder(phase);
-                                })
-                                .thenComparing(p -> Optional.ofNullable(p.getMetadata())
-                                        .map(V1ObjectMeta::getName).orElse("zzz"), String.CASE_INSENSITIVE_ORDER))
-                        .forEach(pod -> {
-                            String name = Optional.ofNullable(pod.getMetadata())
-                                    .map(V1ObjectMeta::getName).orElse(null);
-                            if (name == null) return;
-                            String phase = Optional.ofNullable(pod.getStatus())
-                                    .map(V1PodStatus::getPhase).orElse("Unknown");
-                            TreeItem<String> podItem = new TreeItem<>(name);
-                            CommonUtils.putTreeItemData(podItem, phase);
-                            items.add(podItem);
-                        });
-            }
-            return items;
+            List<PodSummary> pods = new ArrayList<>();
+            PodLister.listNamespaced(api, nsName, podFilter, AppPreferences.getTreeFetchTimeoutSec(), pods::add);
+            return sortAndRecord(pods);
         } catch (ApiException e) {
             log.info("获取命名空间[{}] Pod 失败: code={}, message={}, body={}",
                     nsName, e.getCode(), e.getMessage(), e.getResponseBody());
-            return Collections.emptyList();
+            return null;
         } catch (Exception e) {
             log.error("获取命名空间[{}] Pod 异常: {}", nsName, e.getMessage(), e);
-            return Collections.emptyList();
+            return null;
+        }
+    }
+
+    /**
+     * 一次分页请求列出所有命名空间的 Pod，只保留选中的命名空间。
+     *
+     * @return 命名空间 → 排好序的 Pod（按选中顺序，含无 Pod 的命名空间）；无集群级权限或请求失败时返回 null，由调用方回退为按命名空间请求
+     */
+    private Map<String, List<PodSummary>> fetchAllNamespacesPods(String profileName, List<String> nsList) {
+        Set<String> wanted = new HashSet<>(nsList);
+        Map<String, List<PodSummary>> byNamespace = new HashMap<>();
+        try {
+            CoreV1Api api = K8sClientManager.getCoreV1Api();
+            PodLister.listAllNamespaces(api, podFilter, AppPreferences.getTreeFetchTimeoutSec(), pod -> {
+                if (wanted.contains(pod.getNamespace())) {
+                    byNamespace.computeIfAbsent(pod.getNamespace(), k -> new ArrayList<>()).add(pod);
+                }
+            });
+        } catch (ApiException e) {
+            if (e.getCode() == HTTP_FORBIDDEN) {
+                clusterWideForbiddenProfiles.add(profileName);
+            }
+            log.info("集群级获取 Pod 失败，改为按命名空间获取: code={}, message={}", e.getCode(), e.getMessage());
+            return null;
+        } catch (Exception e) {
+            log.info("集群级获取 Pod 异常，改为按命名空间获取: {}", e.getMessage());
+            return null;
         }
+
+        Map<String, List<PodSummary>> result = new LinkedHashMap<>();
+        for (String nsName : nsList) {
+            result.put(nsName, sortAndRecord(byNamespace.getOrDefault(nsName, List.of())));
+        }
+        return result;
+    }
+
+    /** 选中的命名空间占集群多数且有集群级权限时，用一次集群级请求代替 N 次按命名空间请求 */
+    private boolean useClusterWideList(String profileName, int namespaceCount) {
+        List<String> all = knownNamespaces.get(profileName);
+        return !clusterWideForbiddenProfiles.contains(profileName)
+                && preferClusterWideList(namespaceCount, all != null ? all.size() : 0);
+    }
+
+    /**
+     * 是否应改用集群级请求：至少选中 2 个命名空间，且占全部命名空间的比例不低于 {@link #CLUSTER_WIDE_MIN_SHARE}。
+     * 全部命名空间数未知（0）时按命名空间请求，避免在大集群上误拉全量 Pod。
+     *
+     * @param selectedCount 选中的命名空间数
+     * @param totalCount    集群中的命名空间总数，未知时为 0
+     */
+    static boolean preferClusterWideList(int selectedCount, int totalCount) {
+        if (selectedCount < 2 || totalCount <= 0) return false;
+        return selectedCount >= totalCount * CLUSTER_WIDE_MIN_SHARE;
+    }
+
+    /** 排序并记录到 Pod 信息缓存，返回不可变列表 */
+    private List<PodSummary> sortAndRecord(List<PodSummary> pods) {
+        List<PodSummary> sorted = new ArrayList<>(pods);
+        sorted.sort(POD_ORDER);
+        for (PodSummary pod : sorted) {
+            podSummaries.put(pod.getKey(), pod);
+        }
+        return Collections.unmodifiableList(sorted);
+    }
+
+    /**
+     * 获取 Pod 的容器名列表（来自最近一次加载的 Pod 列表），未加载过时返回空列表。
+     */
+    public List<String> getContainerNames(String namespace, String podName) {
+        PodSummary pod = podSummaries.get(namespace + "/" + podName);
+        return pod != null ? pod.getContainerNames() : Collections.emptyList();
+    }
+
+    /** 获取 Pod 的精简信息（来自最近一次加载的 Pod 列表或监听事件），未加载过时返回 null */
+    public PodSummary getPodSummary(String namespace, String podName) {
+        return podSummaries.get(namespace + "/" + podName);
+    }
+
+    /** 按顺序为 Pod 构建树节点（附加数据为 phase） */
+    public static List<TreeItem<String>> buildPodItems(List<PodSummary> pods) {
+        List<TreeItem<String>> items = new ArrayList<>(pods.size());
+        for (PodSummary pod : pods) {
+            items.add(newPodItem(pod));
+        }
+        return items;
+    }
+
+    private static TreeItem<String> newPodItem(PodSummary pod) {
+        TreeItem<String> podItem = new TreeItem<>(pod.getName());
+        CommonUtils.putTreeItemData(podItem, pod.getPhase());
+        return podItem;
+    }
+
+    /** 树根节点名称：当前配置名 */
+    public String getRootName() {
+        KubeConfigProfile activeProfile = AppPreferences.getActiveProfile();
+        return activeProfile != null ? activeProfile.getName() : "集群";
     }
 
     public TreeItem<String> getCachedRoot() {
         return lastLoadedRoot;
     }
 
+    public PodFilter getPodFilter() {
+        return podFilter;
+    }
+
+    /**
+     * 设置下推到 API Server 的过滤条件（标签选择器 / 状态），之后的加载与 Pod 监听都按此过滤。
+     * 条件变化时清除命名空间缓存（缓存的是旧条件下的结果），调用方需重新加载树。
+     *
+     * @return 条件是否有变化
+     */
+    public boolean setPodFilter(PodFilter filter) {
+        PodFilter next = filter != null ? filter : PodFilter.NONE;
+        if (next.equals(podFilter)) return false;
+        podFilter = next;
+        clearNsCache();
+        restartPodWatchIfNeeded();
+        return true;
+    }
+
+    /**
+     * 强制重新加载所有选中命名空间的 Pod（含子节点，用于刷新/自动刷新/删除后刷新）。
+     * 与 {@link #loadNamespaceSkeleton} 不同：此方法会同步加载每个 NS 的 Pod 数据。
+     */
+    public TreeItem<String> forceReloadFull() {
+        return forceReloadFull(null);
+    }
+
     /**
-     * 增量刷新（纯数据采集，不修改已有 TreeItem）。
+     * 强制重新加载所有选中命名空间的 Pod，全部完成后返回完整的树。
+     * <p>
+     * 选中的命名空间占全部命名空间的比例不低于 {@link #CLUSTER_WIDE_MIN_SHARE} 时用一次集群级分页请求获取；
+     * 否则（或无集群级权限时）各命名空间并发请求（并发上限见 {@link AppPreferences#getTreeFetchConcurrency()}），
+     * 同一命名空间已有进行中的请求时复用其结果，不重复请求；较早发起的重载在较新的重载之后完成时，不覆盖 lastLoadedRoot。
      * <p>
-     * 只在后台线程做 K8s API 调用并返回原始 Pod 数据，
-     * TreeItem 的变更必须由调用方在 JavaFX Application Thread 上执行。
+     * 请求失败或超时的命名空间沿用重载前缓存（或本地快照）中的 Pod，树和快照中都不会因此丢失该命名空间，
+     * 这些命名空间可由 {@link #getFailedNamespaces()} 获取，用于在视图上保留过期标记。
      *
-     * @return 每个命名空间对应的最新 Pod 子节点列表，无选中命名空间时返回 null
+     * @param onNamespaceLoaded 每个命名空间加载完成时的回调（在请求线程上执行，参数为命名空间和排好序的 Pod），可为 null
      */
-    public synchronized Map<String, List<TreeItem<String>>> incrementalFetchPods() {
+    public TreeItem<String> forceReloadFull(BiConsumer<String, List<PodSummary>> onNamespaceLoaded) {
         List<String> nsList = lastRequestedNamespaces;
         if (nsList == null || nsList.isEmpty()) return null;
         String profileName = getActiveProfileName();
         if (profileName == null) return null;
+        int generation = reloadGeneration.incrementAndGet();
 
-        try {
-            CoreV1Api api = K8sClientManager.getCoreV1Api();
+        // 记下旧数据，请求失败的命名空间沿用
+        Map<String, List<PodSummary>> previous = previousPods(profileName, nsList);
+        // 清除缓存后全量重载
+        clearNsCache();
+        TreeItem<String> root = new TreeItem<>(getRootName());
+        root.setExpanded(true);
 
-            Map<String, List<TreeItem<String>>> result = new LinkedHashMap<>();
-            for (String nsName : nsList) {
-                String cacheKey = profileName + "#" + nsName;
-                List<TreeItem<String>> children = fetchPodItems(nsName);
-                result.put(nsName, children);
-                nsCache.put(cacheKey, children);
+        Map<String, List<PodSummary>> loaded = useClusterWideList(profileName, nsList.size())
+                ? fetchAllNamespacesPods(profileName, nsList)
+                : null;
+        if (loaded != null) {
+            for (var entry : loaded.entrySet()) {
+                if (!entry.getValue().isEmpty()) {
+                    nsCache.put(profileName + "#" + entry.getKey(), entry.getValue());
+                }
+                if (onNamespaceLoaded != null) {
+                    onNamespaceLoaded.accept(entry.getKey(), entry.getValue());
+                }
             }
-            return result;
-        } catch (Exception e) {
-            log.error("增量刷新数据异常", e);
-            return null;
+        } else {
+            loaded = fetchNamespacesConcurrently(profileName, nsList, onNamespaceLoaded);
         }
+
+        // 按选中顺序组装，无 Pod 的命名空间不加入树；请求失败的沿用旧数据
+        Set<String> failed = new LinkedHashSet<>();
+        for (String nsName : nsList) {
+            List<PodSummary> pods = loaded.get(nsName);
+            if (pods == null) {
+                failed.add(nsName);
+                pods = previous.get(nsName);
+                if (pods == null) continue;
+                nsCache.putIfAbsent(profileName + "#" + nsName, pods);
+            }
+            if (pods.isEmpty()) continue;
+            TreeItem<String> nsItem = new TreeItem<>(nsName);
+            nsItem.getChildren().addAll(buildPodItems(pods));
+            root.getChildren().add(nsItem);
+        }
+
+        if (generation == reloadGeneration.get()) {
+            lastLoadedRoot = root;
+            failedNamespaces = Collections.unmodifiableSet(failed);
+            scheduleSnapshotSave(profileName);
+        }
+        if (!failed.isEmpty()) {
+            log.info("以下命名空间加载失败，沿用旧数据: {}", failed);
+        }
+        return root;
+    }
+
+    /** 最近一次全量重载中请求失败、沿用旧数据的命名空间 */
+    public Set<String> getFailedNamespaces() {
+        return failedNamespaces;
+    }
+
+    /** 重载前已知的各命名空间 Pod：优先取缓存，其次取本地快照 */
+    private Map<String, List<PodSummary>> previousPods(String profileName, List<String> nsList) {
+        ClusterSnapshot snapshot = lastSnapshots.get(profileName);
+        Map<String, List<PodSummary>> previous = new HashMap<>();
+        for (String nsName : nsList) {
+            List<PodSummary> pods = nsCache.get(profileName + "#" + nsName);
+            if (pods == null && snapshot != null) {
+                pods = snapshot.getPods().get(nsName);
+            }
+            if (pods != null) previous.put(nsName, pods);
+        }
+        return previous;
+    }
+
+    /** 按命名空间并发请求，等待全部完成；请求失败的命名空间在结果中为 null 或缺失 */
+    private Map<String, List<PodSummary>> fetchNamespacesConcurrently(
+            String profileName, List<String> nsList, BiConsumer<String, List<PodSummary>> onNamespaceLoaded) {
+        Semaphore permits = new Semaphore(AppPreferences.getTreeFetchConcurrency());
+        Map<String, CompletableFuture<List<PodSummary>>> futures = new LinkedHashMap<>();
+        for (String nsName : nsList) {
+            CompletableFuture<List<PodSummary>> future = fetchPodsAsync(profileName, nsName, permits);
+            if (onNamespaceLoaded != null) {
+                future = future.whenComplete((pods, e) -> {
+                    if (pods != null) onNamespaceLoaded.accept(nsName, pods);
+                });
+            }
+            futures.put(nsName, future);
+        }
+
+        Map<String, List<PodSummary>> loaded = new HashMap<>();
+        for (var entry : futures.entrySet()) {
+            try {
+                loaded.put(entry.getKey(), entry.getValue().join());
+            } catch (Exception e) {
+                log.error("加载命名空间[{}] Pod 异常: {}", entry.getKey(), e.getMessage());
+            }
+        }
+        return loaded;
+    }
+
+    /** 在并发上限内异步获取命名空间的 Pod，完成后写入该命名空间的缓存；请求失败时结果为 null */
+    private CompletableFuture<List<PodSummary>> fetchPodsAsync(String profileName, String nsName, Semaphore permits) {
+        String cacheKey = profileName + "#" + nsName;
+        CompletableFuture<List<PodSummary>> created = new CompletableFuture<>();
+        CompletableFuture<List<PodSummary>> existing = inFlightFetches.putIfAbsent(cacheKey, created);
+        if (existing != null) return existing;
+
+        fetchExecutor().execute(() -> {
+            try {
+                permits.acquire();
+                try {
+                    List<PodSummary> pods = fetchPods(nsName);
+                    if (pods != null && !pods.isEmpty()) {
+                        nsCache.put(cacheKey, pods);
+                    }
+                    created.complete(pods);
+                } finally {
+                    permits.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                created.completeExceptionally(e);
+            } catch (RuntimeException e) {
+                created.completeExceptionally(e);
+            } finally {
+                inFlightFetches.remove(cacheKey, created);
+            }
+        });
+        return created;
+    }
+
+    private static synchronized ExecutorService fetchExecutor() {
+        if (fetchExecutor == null || fetchExecutor.isShutdown()) {
+            fetchExecutor = ExecutorManager.newDaemonCachedPool("k8s-ns-fetch-");
+        }
+        return fetchExecutor;
+    }
+
+    // ==================== Pod 变化监听 ====================
+
+    /**
+     * 开启 Pod 变化监听（list + watch），监听当前选中的命名空间；命名空间或集群切换后自动重建。
+     *
+     * @param maxBackoffMs 断线重连的最长等待
+     * @param listener     事件回调（在监听器的调度线程上执行，修改树需切回 FX 线程并调用 {@link #applyPodEvents}）
+     */
+    public synchronized void startPodWatch(long maxBackoffMs, PodInformer.Listener listener) {
+        stopPodWatch();
+        podEventListener = listener;
+        podWatchMaxBackoffMs = maxBackoffMs;
+        restartPodWatchIfNeeded();
+    }
+
+    /** 停止 Pod 变化监听 */
+    public synchronized void stopPodWatch() {
+        podEventListener = null;
+        if (podInformer != null) {
+            podInformer.stop();
+            podInformer = null;
+        }
+    }
+
+    /** 监听的命名空间、过滤条件或客户端（集群切换后会重建）变化时重建监听器 */
+    private synchronized void restartPodWatchIfNeeded() {
+        if (podEventListener == null) return;
+        List<String> nsList = lastRequestedNamespaces;
+        if (nsList == null || nsList.isEmpty()) return;
+        ApiClient client = K8sClientManager.getApiClient();
+        if (client == null) return;
+        if (podInformer != null) {
+            if (podInformer.getApiClient() == client && podInformer.getNamespaces().equals(nsList)
+                    && podInformer.getFilter().equals(podFilter)) return;
+            podInformer.stop();
+        }
+        podInformer = new PodInformer(client, nsList, podFilter, podWatchMaxBackoffMs, podEventListener);
+        podInformer.start();
     }
 
     /**
-     * 将增量获取的 Pod 数据合并到现有树中（必须在 FX 线程调用）。
+     * 将 Pod 变化事件应用到已加载的树和缓存（必须在 FX 线程调用）。
      *
-     * @param podData   命名空间 → Pod 列表映射
-     * @return 更新后的根节点（与 lastLoadedRoot 同一对象）
+     * @return 树是否有变化；无变化时调用方无需刷新视图
      */
-    public synchronized TreeItem<String> applyIncrementalUpdate(Map<String, List<TreeItem<String>>> podData) {
-        if (podData == null || podData.isEmpty()) return lastLoadedRoot;
+    public synchronized boolean applyPodEvents(List<PodEvent> events) {
+        if (events == null || events.isEmpty()) return false;
+        // namespace → (podName → 最新信息，删除为 null)
+        Map<String, Map<String, PodSummary>> updates = new HashMap<>();
+        for (PodEvent event : events) {
+            PodSummary pod = event.getPod();
+            boolean deleted = event.getType() == PodEvent.Type.DELETED;
+            if (deleted) {
+                podSummaries.remove(pod.getKey());
+            } else {
+                podSummaries.put(pod.getKey(), pod);
+            }
+            updates.computeIfAbsent(pod.getNamespace(), k -> new HashMap<>())
+                    .put(pod.getName(), deleted ? null : pod);
+        }
+
+        // 同步已缓存的命名空间，保证后续 loadNamespaceSkeleton 拿到最新 Pod
+        String profileName = getActiveProfileName();
+        if (profileName != null) {
+            for (var entry : updates.entrySet()) {
+                String cacheKey = profileName + "#" + entry.getKey();
+                List<PodSummary> cached = nsCache.get(cacheKey);
+                if (cached == null) continue;
+                Map<String, PodSummary> merged = new HashMap<>();
+                for (PodSummary pod : cached) {
+                    merged.put(pod.getName(), pod);
+                }
+                for (var update : entry.getValue().entrySet()) {
+                    if (update.getValue() == null) {
+                        merged.remove(update.getKey());
+                    } else {
+                        merged.put(update.getKey(), update.getValue());
+                    }
+                }
+                List<PodSummary> sorted = new ArrayList<>(merged.values());
+                sorted.sort(POD_ORDER);
+                nsCache.put(cacheKey, Collections.unmodifiableList(sorted));
+            }
+            scheduleSnapshotSave(profileName);
+        }
 
         TreeItem<String> root = lastLoadedRoot;
-        if (root == null) return forceReloadFull();
+        if (root == null) return false;
+        return applyPodEvents(root, events, lastRequestedNamespaces);
+    }
+
+    /**
+     * 将 Pod 事件应用到指定的树（根 → 命名空间 → Pod 三层结构）。
+     * <p>
+     * 新增 Pod 按排序位置插入，phase 变化时只在排序位置失效时才移动节点，删除最后一个 Pod 时移除命名空间节点；
+     * 重复的新增事件（Pod 已存在且 phase 相同）不改动树。
+     *
+     * @param namespaceOrder 命名空间显示顺序，新增命名空间节点时按此顺序插入，可为 null
+     * @return 树是否有变化
+     */
+    public static boolean applyPodEvents(TreeItem<String> root, List<PodEvent> events, List<String> namespaceOrder) {
+        Map<String, TreeItem<String>> nsItems = new HashMap<>();
+        for (TreeItem<String> nsItem : root.getChildren()) {
+            nsItems.put(nsItem.getValue(), nsItem);
+        }
+        // 按需为涉及的命名空间建立 podName → 节点 索引
+        Map<String, Map<String, TreeItem<String>>> podIndex = new HashMap<>();
+
+        boolean changed = false;
+        for (PodEvent event : events) {
+            PodSummary pod = event.getPod();
+            String ns = pod.getNamespace();
+            if (namespaceOrder != null && !namespaceOrder.contains(ns)) continue;
+            TreeItem<String> nsItem = nsItems.get(ns);
+            Map<String, TreeItem<String>> pods = podIndex.get(ns);
+            if (pods == null && nsItem != null) {
+                pods = indexChildren(nsItem);
+                podIndex.put(ns, pods);
+            }
+
+            if (event.getType() == PodEvent.Type.DELETED) {
+                TreeItem<String> podItem = pods != null ? pods.remove(pod.getName()) : null;
+                if (podItem == null) continue;
+                nsItem.getChildren().remove(podItem);
+                if (nsItem.getChildren().isEmpty()) {
+                    // 无 Pod 的命名空间不显示
+                    root.getChildren().remove(nsItem);
+                    nsItems.remove(ns);
+                    podIndex.remove(ns);
+                }
+                changed = true;
+                continue;
+            }
+
+            if (nsItem == null) {
+                TreeItem<String> newNsItem = new TreeItem<>(ns);
+                root.getChildren().add(namespaceInsertIndex(root, ns, namespaceOrder), newNsItem);
+                nsItems.put(ns, newNsItem);
+                pods = new HashMap<>();
+                podIndex.put(ns, pods);
+                nsItem = newNsItem;
+            }
 
-        // 构建现有命名空间节点的 name→item 索引
-        Map<String, TreeItem<String>> nsMap = new LinkedHashMap<>();
-        for (TreeItem<String> child : root.getChildren()) {
-            nsMap.put(child.getValue(), child);
+            TreeItem<String> podItem = pods.get(pod.getName());
+            if (podItem == null) {
+                podItem = newPodItem(pod);
+                List<TreeItem<String>> children = nsItem.getChildren();
+                children.add(podInsertIndex(children, pod), podItem);
+                pods.put(pod.getName(), podItem);
+                changed = true;
+            } else if (!pod.getPhase().equals(CommonUtils.getTreeItemData(podItem))) {
+                CommonUtils.putTreeItemData(podItem, pod.getPhase());
+                List<TreeItem<String>> children = nsItem.getChildren();
+                int index = children.indexOf(podItem);
+                if (!inOrder(children, index)) {
+                    children.remove(index);
+                    children.add(podInsertIndex(children, pod), podItem);
+                }
+                changed = true;
+            }
         }
+        return changed;
+    }
 
-        List<TreeItem<String>> updatedNsChildren = new ArrayList<>();
-        for (var entry : podData.entrySet()) {
-            String nsName = entry.getKey();
-            List<TreeItem<String>> children = entry.getValue();
+    private static Map<String, TreeItem<String>> indexChildren(TreeItem<String> nsItem) {
+        Map<String, TreeItem<String>> index = new HashMap<>();
+        for (TreeItem<String> podItem : nsItem.getChildren()) {
+            index.put(podItem.getValue(), podItem);
+        }
+        return index;
+    }
 
-            if (children.isEmpty() && !nsMap.containsKey(nsName)) continue;
+    private static PodSummary summaryOf(TreeItem<String> podItem) {
+        Object phase = CommonUtils.getTreeItemData(podItem);
+        return new PodSummary(null, podItem.getValue(), phase instanceof String s ? s : null, null, null);
+    }
 
-            TreeItem<String> nsItem = nsMap.get(nsName);
-            if (nsItem != null) {
-                // 已存在的命名空间：增量替换子 Pod（保留展开状态）
-                nsItem.getChildren().setAll(children);
-                updatedNsChildren.add(nsItem);
-            } else if (!children.isEmpty()) {
-                // 新增的命名空间
-                TreeItem<String> newNsItem = new TreeItem<>(nsName);
-                newNsItem.getChildren().addAll(children);
-                updatedNsChildren.add(newNsItem);
+    /** 在已排序的子节点中二分查找插入位置 */
+    private static int podInsertIndex(List<TreeItem<String>> children, PodSummary pod) {
+        int low = 0;
+        int high = children.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (POD_ORDER.compare(summaryOf(children.get(mid)), pod) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
             }
         }
+        return low;
+    }
 
-        root.getChildren().setAll(updatedNsChildren);
-        return root;
+    /** index 处的节点与前后相邻节点是否仍满足排序 */
+    private static boolean inOrder(List<TreeItem<String>> children, int index) {
+        PodSummary self = summaryOf(children.get(index));
+        if (index > 0 && POD_ORDER.compare(summaryOf(children.get(index - 1)), self) > 0) return false;
+        return index >= children.size() - 1 || POD_ORDER.compare(self, summaryOf(children.get(index + 1))) <= 0;
+    }
+
+    /** 新命名空间节点的插入位置：排在显示顺序中位于它之前的命名空间之后 */
+    private static int namespaceInsertIndex(TreeItem<String> root, String ns, List<String> namespaceOrder) {
+        List<TreeItem<String>> children = root.getChildren();
+        if (namespaceOrder == null) return children.size();
+        int order = namespaceOrder.indexOf(ns);
+        int index = 0;
+        while (index < children.size() && namespaceOrder.indexOf(children.get(index).getValue()) < order) {
+            index++;
+        }
+        return index;
     }
 
+    // ==================== 本地快照 ====================
+
     /**
-     * 强制重新加载所有选中命名空间的 Pod（含子节点，用于刷新/自动刷新/删除后刷新）。
-     * 与 {@link #loadNamespaceSkeleton} 不同：此方法会同步加载每个 NS 的 Pod 数据。
+     * 读取当前配置的本地快照，并将其中的 Pod 填入缓存（已有缓存的命名空间不覆盖），
+     * 之后 {@link #loadNamespaceSkeleton} 无需请求 API 即可构建树。设置了服务端过滤条件时不使用快照。
+     *
+     * @return 当前配置的快照，没有时返回 null
      */
-    public synchronized TreeItem<String> forceReloadFull() {
-        List<String> nsList = lastRequestedNamespaces;
-        if (nsList == null || nsList.isEmpty()) return null;
+    public ClusterSnapshot restoreSnapshot() {
         String profileName = getActiveProfileName();
-        if (profileName == null) return null;
+        if (profileName == null || !podFilter.isEmpty()) return null;
+        ClusterSnapshot snapshot = snapshotStore.load(profileName);
+        if (snapshot == null) return null;
+        lastSnapshots.put(profileName, snapshot);
+        knownNamespaces.putIfAbsent(profileName, snapshot.getNamespaces());
+        for (var entry : snapshot.getPods().entrySet()) {
+            String cacheKey = profileName + "#" + entry.getKey();
+            if (!nsCache.containsKey(cacheKey) && !entry.getValue().isEmpty()) {
+                nsCache.put(cacheKey, sortAndRecord(entry.getValue()));
+            }
+        }
+        log.info("[快照] 已恢复配置[{}]: {}", profileName, snapshot);
+        return snapshot;
+    }
 
-        // 清除缓存后全量重载
-        clearNsCache();
-        KubeConfigProfile activeProfile = AppPreferences.getActiveProfile();
-        String rootName = activeProfile != null ? activeProfile.getName() : "集群";
-        TreeItem<String> root = new TreeItem<>(rootName);
-        root.setExpanded(true);
+    /** 记录当前配置从 API 获取的全量命名空间，并安排写入快照 */
+    public void recordNamespaces(List<String> namespaces) {
+        String profileName = getActiveProfileName();
+        if (profileName == null || namespaces == null) return;
+        knownNamespaces.put(profileName, List.copyOf(namespaces));
+        scheduleSnapshotSave(profileName);
+    }
 
-        try {
-            CoreV1Api api = K8sClientManager.getCoreV1Api();
-            for (String nsName : nsList) {
-                String cacheKey = profileName + "#" + nsName;
-                List<TreeItem<String>> children = fetchPodItems(nsName);
-                if (children.isEmpty()) continue; // 无 Pod 的命名空间不加入树
-                nsCache.put(cacheKey, children);
-                TreeItem<String> nsItem = new TreeItem<>(nsName);
-                nsItem.getChildren().addAll(children);
-                root.getChildren().add(nsItem);
+    /** 延迟写入快照，延迟期间的多次调用只写一次 */
+    private void scheduleSnapshotSave(String profileName) {
+        if (profileName == null || !podFilter.isEmpty()) return;
+        if (!pendingSnapshotSaves.add(profileName)) return;
+        snapshotExecutor().schedule(() -> {
+            pendingSnapshotSaves.remove(profileName);
+            try {
+                saveSnapshot(profileName);
+            } catch (Exception e) {
+                log.warn("[快照] 保存配置[{}]失败: {}", profileName, e.getMessage());
             }
-        } catch (Exception e) {
-            log.error("强制重新加载数据异常", e);
+        }, SNAPSHOT_SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 由缓存生成快照并写入：当前选中的命名空间取缓存中的最新 Pod（无缓存即无 Pod），
+     * 其余命名空间沿用上一份快照，已不存在的命名空间被剔除。过滤条件下的结果不完整，不写入。
+     */
+    void saveSnapshot(String profileName) {
+        if (!podFilter.isEmpty()) return;
+        ClusterSnapshot previous = lastSnapshots.get(profileName);
+        List<String> namespaces = knownNamespaces.get(profileName);
+        if (namespaces == null) {
+            namespaces = previous != null ? previous.getNamespaces() : List.of();
         }
 
-        lastLoadedRoot = root;
-        return root;
+        Map<String, List<PodSummary>> pods = new HashMap<>();
+        if (previous != null) {
+            pods.putAll(previous.getPods());
+        }
+        boolean profileActive = profileName.equals(getActiveProfileName());
+        List<String> selected = lastRequestedNamespaces;
+        if (profileActive && selected != null) {
+            for (String ns : selected) {
+                pods.remove(ns);
+            }
+        }
+        String prefix = profileName + "#";
+        for (var entry : nsCache.entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                pods.put(entry.getKey().substring(prefix.length()), entry.getValue());
+            }
+        }
+
+        List<String> order = namespaces.isEmpty() ? new ArrayList<>(pods.keySet()) : namespaces;
+        if (namespaces.isEmpty()) order.sort(String.CASE_INSENSITIVE_ORDER);
+        Map<String, List<PodSummary>> ordered = new LinkedHashMap<>();
+        for (String ns : order) {
+            List<PodSummary> list = pods.get(ns);
+            if (list != null && !list.isEmpty()) ordered.put(ns, list);
+        }
+        if (order.isEmpty()) return;
+
+        ClusterSnapshot snapshot = new ClusterSnapshot(Instant.now(), order, ordered);
+        snapshotStore.save(profileName, snapshot);
+        lastSnapshots.put(profileName, snapshot);
+        log.debug("[快照] 已保存配置[{}]: {}", profileName, snapshot);
+    }
+
+    private static synchronized ScheduledExecutorService snapshotExecutor() {
+        if (snapshotExecutor == null || snapshotExecutor.isShutdown()) {
+            snapshotExecutor = ExecutorManager.newSingleThreadScheduled("k8s-snapshot-");
+        }
+        return snapshotExecutor;
     }
 
     /** 仅清除 Pod 缓存（不重建树），配合 forceReloadFull 使用 */
@@ -0,0 +1,314 @@
+package com.longfor.lmk.k8slogviewer.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 日志文件的行偏移索引（稀疏索引），以旁路文件 {@code xxx.log.idx} 持久化。
+ * <p>
+ * 每 {@link #STRIDE} 行记录一次该行起始字节偏移（第 0 行偏移固定为 0，不写入文件），
+ * 旁路文件内容即为连续的 long 数组。随机读取第 n 行时，先定位到
+ * {@code n / STRIDE} 号检查点，再向后跳过不足 STRIDE 的行，代价为 O(STRIDE + count) 而非 O(文件)。
+ * <p>
+ * 写入中的文件由 {@link #onLineWritten(long)} 实时维护；旧文件首次访问时按需重建，
+ * 之后只需从最后一个检查点向后扫描新增部分（{@link #catchUp()}）。
+ * <p>
+ * 非线程安全，由 {@link PodLogFileManager} 的对象锁保护。
+ */
+public class LineOffsetIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(LineOffsetIndex.class);
+
+    /** 索引步长：每多少行记录一个检查点 */
+    static final int STRIDE = 1024;
+
+    /** 旁路索引文件后缀 */
+    public static final String INDEX_SUFFIX = ".idx";
+
+    /** 顺序扫描缓冲区大小 */
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    private final Path logFile;
+    private final Path indexFile;
+
+    /** 检查点偏移：checkpoints[i] 为第 (i + 1) * STRIDE 行的起始字节偏移 */
+    private long[] checkpoints = new long[16];
+    private int checkpointCount = 0;
+
+    /** 已索引的完整行数（以 '\n' 结尾的行） */
+    private long lineCount = 0;
+    /** 已索引字节数，即最后一个完整行之后的偏移 */
+    private long indexedBytes = 0;
+
+    /** 已持久化到旁路文件的检查点个数 */
+    private int persistedCount = 0;
+
+    private LineOffsetIndex(Path logFile) {
+        this.logFile = logFile;
+        this.indexFile = indexFileOf(logFile);
+    }
+
+    /** 获取日志文件对应的旁路索引文件路径 */
+    public static Path indexFileOf(Path logFile) {
+        return logFile.resolveSibling(logFile.getFileName() + INDEX_SUFFIX);
+    }
+
+    /**
+     * 为新建（空）的日志文件创建索引，删除可能残留的旧索引文件。
+     */
+    public static LineOffsetIndex createEmpty(Path logFile) {
+        LineOffsetIndex index = new LineOffsetIndex(logFile);
+        try {
+            Files.deleteIfExists(index.indexFile);
+        } catch (IOException e) {
+            log.debug("删除旧索引文件失败: {}", index.indexFile, e);
+        }
+        return index;
+    }
+
+    /**
+     * 打开已有日志文件的索引：加载并校验旁路文件，然后扫描追平文件末尾。
+     * 旁路文件缺失或与日志文件不一致时从头重建。
+     */
+    public static LineOffsetIndex open(Path logFile) throws IOException {
+        LineOffsetIndex index = new LineOffsetIndex(logFile);
+        if (!index.loadSidecar()) {
+            index.reset();
+        }
+        index.catchUp();
+        return index;
+    }
+
+    // ==================== 写入维护 ====================
+
+    /**
+     * 写入一个完整行（含换行符）后调用。
+     *
+     * @param bytesWithNewline 该行写入的字节数（含 '\n'）
+     */
+    public void onLineWritten(long bytesWithNewline) {
+        indexedBytes += bytesWithNewline;
+        lineCount++;
+        if (lineCount % STRIDE == 0) {
+            addCheckpoint(indexedBytes);
+        }
+    }
+
+    /** 将尚未持久化的检查点追加到旁路文件 */
+    public void persist() {
+        if (persistedCount == checkpointCount) return;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(indexFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND)))) {
+            for (int i = persistedCount; i < checkpointCount; i++) {
+                out.writeLong(checkpoints[i]);
+            }
+            persistedCount = checkpointCount;
+        } catch (IOException e) {
+            log.debug("写入行索引失败: {}", indexFile, e);
+        }
+    }
+
+    /** 清空索引（文件被重写后调用），同时删除旁路文件 */
+    public void reset() {
+        checkpointCount = 0;
+        persistedCount = 0;
+        lineCount = 0;
+        indexedBytes = 0;
+        try {
+            Files.deleteIfExists(indexFile);
+        } catch (IOException e) {
+            log.debug("删除行索引失败: {}", indexFile, e);
+        }
+    }
+
+    /**
+     * 从最后一个已索引位置向后扫描到文件末尾，补齐行数和检查点。
+     * 文件变短（被外部截断/重写）时自动重建。
+     */
+    public void catchUp() throws IOException {
+        long size = Files.size(logFile);
+        if (size < indexedBytes) {
+            log.info("日志文件变短，重建行索引: {}", logFile.getFileName());
+            reset();
+        }
+        if (size == indexedBytes) return;
+
+        try (FileChannel ch = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+            long pos = indexedBytes;
+            while (pos < size) {
+                buf.clear();
+                int n = ch.read(buf, pos);
+                if (n <= 0) break;
+                byte[] arr = buf.array();
+                for (int i = 0; i < n; i++) {
+                    if (arr[i] == '\n') {
+                        onLineWritten(pos + i + 1 - indexedBytes);
+                    }
+                }
+                pos += n;
+            }
+        }
+        persist();
+    }
+
+    // ==================== 查询 ====================
+
+    /**
+     * 文件总行数。末尾未以换行结束的残行也计为一行，与 {@link BufferedReader#lines()} 一致。
+     */
+    public long getLineCount() throws IOException {
+        return lineCount + (Files.size(logFile) > indexedBytes ? 1 : 0);
+    }
+
+    /** 已索引的完整行数 */
+    public long getIndexedLineCount() {
+        return lineCount;
+    }
+
+    /** 已索引的字节数（最后一个完整行结束后的偏移） */
+    public long getIndexedBytes() {
+        return indexedBytes;
+    }
+
+    /**
+     * 获取不大于 line 的最近检查点行号对应的起始偏移。
+     *
+     * @return [检查点行号, 字节偏移]
+     */
+    long[] floorCheckpoint(long line) {
+        int cp = (int) Math.min(line / STRIDE, checkpointCount);
+        if (cp == 0) return new long[]{0, 0};
+        return new long[]{(long) cp * STRIDE, checkpoints[cp - 1]};
+    }
+
+    /**
+     * 计算指定行的起始字节偏移。行号超出文件范围时返回 -1。
+     */
+    public long offsetOfLine(long line) throws IOException {
+        if (line < 0) return -1;
+        if (line == lineCount) return indexedBytes;
+        if (line > lineCount) return -1;
+        long[] cp = floorCheckpoint(line);
+        long skip = line - cp[0];
+        if (skip == 0) return cp[1];
+        try (FileChannel ch = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            return skipLines(ch, cp[1], skip);
+        }
+    }
+
+    /**
+     * 随机读取 [startLine, startLine + count) 范围的行。
+     */
+    public List<String> readLines(long startLine, int count) throws IOException {
+        if (count <= 0 || startLine < 0) return Collections.emptyList();
+        long total = getLineCount();
+        if (startLine >= total) return Collections.emptyList();
+
+        long[] cp = floorCheckpoint(startLine);
+        try (FileChannel ch = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            long offset = skipLines(ch, cp[1], startLine - cp[0]);
+            if (offset < 0) return Collections.emptyList();
+            ch.position(offset);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    java.nio.channels.Channels.newInputStream(ch),
+                    StandardCharsets.UTF_8.newDecoder()
+                            .onMalformedInput(CodingErrorAction.REPLACE)
+                            .onUnmappableCharacter(CodingErrorAction.REPLACE)));
+            int limit = (int) Math.min(count, total - startLine);
+            List<String> result = new ArrayList<>(limit);
+            String line;
+            while (result.size() < limit && (line = reader.readLine()) != null) {
+                result.add(line);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 从 offset 开始跳过 lines 行，返回跳过后的字节偏移；文件提前结束返回 -1。
+     */
+    private long skipLines(FileChannel ch, long offset, long lines) throws IOException {
+        if (lines <= 0) return offset;
+        ByteBuffer buf = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long pos = offset;
+        long remaining = lines;
+        while (true) {
+            buf.clear();
+            int n = ch.read(buf, pos);
+            if (n <= 0) return -1;
+            byte[] arr = buf.array();
+            for (int i = 0; i < n; i++) {
+                if (arr[i] == '\n' && --remaining == 0) {
+                    return pos + i + 1;
+                }
+            }
+            pos += n;
+        }
+    }
+
+    // ==================== 内部方法 ====================
+
+    private void addCheckpoint(long offset) {
+        if (checkpointCount == checkpoints.length) {
+            checkpoints = Arrays.copyOf(checkpoints, checkpointCount * 2);
+        }
+        checkpoints[checkpointCount++] = offset;
+    }
+
+    /**
+     * 加载旁路索引文件并校验：每个检查点必须位于文件范围内且紧跟在 '\n' 之后。
+     * 只抽查最后一个检查点，避免加载时读遍文件。
+     *
+     * @return 校验通过返回 true
+     */
+    private boolean loadSidecar() {
+        if (!Files.exists(indexFile)) return false;
+        try {
+            long logSize = Files.size(logFile);
+            long idxSize = Files.size(indexFile);
+            if (idxSize % Long.BYTES != 0) return false;
+            int count = (int) (idxSize / Long.BYTES);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+                long prev = 0;
+                for (int i = 0; i < count; i++) {
+                    long offset = in.readLong();
+                    if (offset <= prev || offset > logSize) return false;
+                    addCheckpoint(offset);
+                    prev = offset;
+                }
+            }
+            if (checkpointCount > 0 && !endsWithNewline(checkpoints[checkpointCount - 1])) {
+                return false;
+            }
+            persistedCount = checkpointCount;
+            lineCount = (long) checkpointCount * STRIDE;
+            indexedBytes = checkpointCount > 0 ? checkpoints[checkpointCount - 1] : 0;
+            return true;
+        } catch (IOException e) {
+            log.debug("加载行索引失败，将重建: {}", indexFile, e);
+            checkpointCount = 0;
+            return false;
+        }
+    }
+
+    private boolean endsWithNewline(long offset) throws IOException {
+        try (FileChannel ch = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            return ch.read(one, offset - 1) == 1 && one.get(0) == '\n';
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.longfor.lmk.k8slogviewer.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 从日志流中切分出的一段原始字节，只包含完整的行（每行以 '\n' 结尾）。
+ * <p>
+ * 写盘时整段原样写入，不做任何解码；只有真正显示到界面的行才通过 {@link #decodeLine} 解码为字符串。
+ * 切片块（{@link #slice}）与原块共用同一个字节数组，每行只引用其中的一段（如去掉行首时间戳后的部分），
+ * 写出时按 {@link #writeTo} 逐段写入。
+ * 实例不可变，可在流式线程、写盘线程与 UI 线程之间共享。
+ */
+public final class LogChunk {
+
+    private final byte[] data;
+    /** 每行结尾 '\n' 在 data 中的偏移 */
+    private final int[] lineEnds;
+    /** 切片块每行的起始偏移；null 表示各行在 data 中首尾相接 */
+    private final int[] lineStarts;
+    /** 各行（含换行符）的字节数之和 */
+    private final int byteLength;
+    /** 是否为头部信息（命令、命名空间等），头部只显示不写盘 */
+    private final boolean header;
+    /** 占位的跳过行数（只在 UI 队列中出现，表示已写盘但未进入 UI 的行），普通块为 0 */
+    private final int gapLines;
+
+    LogChunk(byte[] data, int[] lineEnds, boolean header) {
+        this(data, lineEnds, null, data.length, header, 0);
+    }
+
+    private LogChunk(byte[] data, int[] lineEnds, int[] lineStarts, int byteLength, boolean header, int gapLines) {
+        this.data = data;
+        this.lineEnds = lineEnds;
+        this.lineStarts = lineStarts;
+        this.byteLength = byteLength;
+        this.header = header;
+        this.gapLines = gapLines;
+    }
+
+    /**
+     * 引用 data 中若干段构造切片块，不复制字节。第 i 行为 [starts[i], ends[i])，ends[i] 处须为 '\n'。
+     *
+     * @param count 使用 starts / ends 的前 count 项
+     */
+    static LogChunk slice(byte[] data, int[] starts, int[] ends, int count) {
+        int bytes = 0;
+        for (int i = 0; i < count; i++) bytes += ends[i] + 1 - starts[i];
+        return new LogChunk(data, Arrays.copyOf(ends, count), Arrays.copyOf(starts, count), bytes, false, 0);
+    }
+
+    /** 由单行文本构造头部信息块 */
+    public static LogChunk header(String line) {
+        byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+        return new LogChunk(bytes, new int[]{bytes.length - 1}, true);
+    }
+
+    /** 由若干行（不含换行符）的字节拼接成块 */
+    static LogChunk ofLines(List<byte[]> lines) {
+        int size = 0;
+        for (byte[] line : lines) size += line.length + 1;
+        byte[] data = new byte[size];
+        int[] ends = new int[lines.size()];
+        int pos = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            byte[] line = lines.get(i);
+            System.arraycopy(line, 0, data, pos, line.length);
+            pos += line.length;
+            ends[i] = pos;
+            data[pos++] = '\n';
+        }
+        return new LogChunk(data, ends, false);
+    }
+
+    /**
+     * 构造占位块：代表 lines 行已写盘、但因 UI 队列溢出被丢弃的日志，只参与行号计数，不可解码。
+     */
+    public static LogChunk gap(int lines) {
+        if (lines <= 0) throw new IllegalArgumentException("gap lines must be positive: " + lines);
+        return new LogChunk(new byte[0], new int[0], null, 0, false, lines);
+    }
+
+    public boolean isHeader() {
+        return header;
+    }
+
+    public boolean isGap() {
+        return gapLines > 0;
+    }
+
+    public int lineCount() {
+        return lineEnds.length + gapLines;
+    }
+
+    /** 字节数（含换行符） */
+    public int byteLength() {
+        return byteLength;
+    }
+
+    /** 第 i 行的起始偏移 */
+    int lineStart(int i) {
+        if (lineStarts != null) return lineStarts[i];
+        return i == 0 ? 0 : lineEnds[i - 1] + 1;
+    }
+
+    /**
+     * 写出所有行（含换行符）：普通块一次写入整个数组，切片块把首尾相接的行合并成段后逐段写入。
+     */
+    void writeTo(OutputStream out) throws IOException {
+        if (lineStarts == null) {
+            out.write(data, 0, data.length);
+            return;
+        }
+        int n = lineEnds.length;
+        int i = 0;
+        while (i < n) {
+            int from = lineStarts[i];
+            int to = lineEnds[i] + 1;
+            while (i + 1 < n && lineStarts[i + 1] == to) {
+                to = lineEnds[++i] + 1;
+            }
+            out.write(data, from, to - from);
+            i++;
+        }
+    }
+
+    /** 第 i 行的结束偏移（'\n' 所在位置，不含） */
+    int lineEnd(int i) {
+        return lineEnds[i];
+    }
+
+    /** 原始字节，仅供同包使用，不得修改；切片块只有 lineStart / lineEnd 描述的范围有效 */
+    byte[] data() {
+        return data;
+    }
+
+    /**
+     * 将第 i 行解码为字符串，去掉行尾的 '\r'（与 {@link java.io.BufferedReader#readLine()} 一致）。
+     */
+    public String decodeLine(int i) {
+        if (gapLines > 0) throw new IllegalStateException("gap chunk has no content");
+        int start = lineStart(i);
+        int end = lineEnds[i];
+        if (end > start && data[end - 1] == '\r') end--;
+        return new String(data, start, end - start, StandardCharsets.UTF_8);
+    }
+}
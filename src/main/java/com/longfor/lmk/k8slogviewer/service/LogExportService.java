@@ -0,0 +1,301 @@
+package com.longfor.lmk.k8slogviewer.service;
+
+import com.longfor.lmk.k8slogviewer.config.K8sClientManager;
+import com.longfor.lmk.k8slogviewer.utils.LineMatcher;
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.apis.CoreV1Api;
+import okhttp3.Call;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.function.BooleanSupplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 日志导出服务：把 Pod 日志响应体按块直接写入用户选择的文件，不在内存中缓冲完整日志。
+ * <p>
+ * 可选 gzip 压缩、limitBytes / sinceSeconds 限制，以及按搜索栏条件边读边过滤（只解码需要判断的行）。
+ * 先写入同目录的临时文件，成功后再替换目标文件；失败或取消时删除临时文件。
+ */
+public final class LogExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(LogExportService.class);
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int WRITE_BUFFER_SIZE = 256 * 1024;
+
+    /** 进度回调的最小间隔 */
+    private static final long PROGRESS_INTERVAL_NANOS = 200_000_000L;
+
+    private LogExportService() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    // ==================== 导出参数 ====================
+
+    /**
+     * 导出参数，使用 Builder 模式创建。
+     */
+    public static final class ExportOptions {
+        private final String namespace;
+        private final String podName;
+        private final String container;
+        private final boolean previous;
+        private final boolean gzip;
+        private final Integer limitBytes;
+        private final Integer sinceSeconds;
+        private final LineMatcher filter;
+        private final boolean andMode;
+
+        private ExportOptions(Builder builder) {
+            this.namespace = builder.namespace;
+            this.podName = builder.podName;
+            this.container = builder.container;
+            this.previous = builder.previous;
+            this.gzip = builder.gzip;
+            this.limitBytes = builder.limitBytes;
+            this.sinceSeconds = builder.sinceSeconds;
+            this.filter = builder.filter;
+            this.andMode = builder.andMode;
+        }
+
+        public static Builder builder(String namespace, String podName) {
+            return new Builder(namespace, podName);
+        }
+
+        public String getNamespace() { return namespace; }
+        public String getPodName() { return podName; }
+        public boolean isGzip() { return gzip; }
+        /** 服务端返回的最大字节数，null 表示不限 */
+        public Integer getLimitBytes() { return limitBytes; }
+
+        public static class Builder {
+            private final String namespace;
+            private final String podName;
+            private String container;
+            private boolean previous;
+            private boolean gzip;
+            private Integer limitBytes;
+            private Integer sinceSeconds;
+            private LineMatcher filter;
+            private boolean andMode;
+
+            private Builder(String namespace, String podName) {
+                this.namespace = namespace;
+                this.podName = podName;
+            }
+
+            /** 容器名，null 表示默认容器 */
+            public Builder container(String container) {
+                this.container = container;
+                return this;
+            }
+
+            public Builder previous(boolean previous) {
+                this.previous = previous;
+                return this;
+            }
+
+            public Builder gzip(boolean gzip) {
+                this.gzip = gzip;
+                return this;
+            }
+
+            /** 小于等于 0 表示不限 */
+            public Builder limitBytes(long limitBytes) {
+                this.limitBytes = limitBytes > 0 ? (int) Math.min(limitBytes, Integer.MAX_VALUE) : null;
+                return this;
+            }
+
+            /** 小于等于 0 表示不限 */
+            public Builder sinceSeconds(long sinceSeconds) {
+                this.sinceSeconds = sinceSeconds > 0 ? (int) Math.min(sinceSeconds, Integer.MAX_VALUE) : null;
+                return this;
+            }
+
+            /**
+             * 只导出满足条件的行，matcher 为 null 或为空时不过滤。
+             *
+             * @param andMode true=须满足全部关键字
+             */
+            public Builder filter(LineMatcher matcher, boolean andMode) {
+                this.filter = matcher != null && !matcher.isEmpty() ? matcher : null;
+                this.andMode = andMode;
+                return this;
+            }
+
+            public ExportOptions build() {
+                return new ExportOptions(this);
+            }
+        }
+    }
+
+    // ==================== 进度 ====================
+
+    /** 导出进度回调（在导出线程上调用，UI 需自行切换线程） */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * @param bytesRead    已从服务端读取的字节数
+         * @param linesWritten 已写入文件的行数
+         * @param elapsedNanos 已用时间
+         */
+        void onProgress(long bytesRead, long linesWritten, long elapsedNanos);
+    }
+
+    /** 导出结果 */
+    public static final class ExportResult {
+        public final long bytesRead;
+        public final long linesRead;
+        public final long linesWritten;
+        public final long elapsedNanos;
+
+        ExportResult(long bytesRead, long linesRead, long linesWritten, long elapsedNanos) {
+            this.bytesRead = bytesRead;
+            this.linesRead = linesRead;
+            this.linesWritten = linesWritten;
+            this.elapsedNanos = elapsedNanos;
+        }
+    }
+
+    // ==================== 导出 ====================
+
+    /**
+     * 导出日志到 target，阻塞直到完成、失败或被取消。
+     *
+     * @param cancelled 返回 true 时中止导出（已写入的临时文件会被删除）
+     * @throws InterruptedIOException 被取消时抛出
+     */
+    public static ExportResult export(ExportOptions options, Path target, ProgressListener listener,
+                                      BooleanSupplier cancelled) throws IOException {
+        CoreV1Api api = K8sClientManager.getCoreV1Api();
+        Call call;
+        try {
+            call = api.readNamespacedPodLogCall(
+                    options.podName, options.namespace,
+                    options.container,      // container
+                    false,                  // follow — 导出为一次性读取
+                    null,                   // insecureSkipTLSVerifyBackend
+                    options.limitBytes,     // limitBytes
+                    null,                   // pretty
+                    options.previous ? Boolean.TRUE : null, // previous
+                    options.sinceSeconds,   // sinceSeconds
+                    null,                   // tailLines
+                    null,                   // timestamps
+                    null                    // _callback
+            );
+        } catch (ApiException e) {
+            throw new IOException("K8s API 调用失败: " + e.getResponseBody(), e);
+        }
+
+        Path dir = target.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(dir, target.getFileName().toString(), ".part");
+        log.info("导出 Pod {}/{} 日志到 {}（gzip={}）", options.namespace, options.podName, target, options.gzip);
+        try (Response response = call.execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                String errMsg = body != null ? body.string() : "未知错误";
+                throw new IOException("K8s API 调用失败: " + errMsg);
+            }
+            ExportResult result;
+            try (InputStream in = body.byteStream();
+                 OutputStream out = openOutput(temp, options.gzip)) {
+                result = copyLines(in, out, options.filter, options.andMode, listener, () -> {
+                    if (!cancelled.getAsBoolean()) return false;
+                    call.cancel();
+                    return true;
+                });
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            log.info("导出完成: 读取 {} 字节 / {} 行，写入 {} 行，耗时 {} ms",
+                    result.bytesRead, result.linesRead, result.linesWritten, result.elapsedNanos / 1_000_000);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            if (cancelled.getAsBoolean()) {
+                throw new InterruptedIOException("导出已取消");
+            }
+            throw e;
+        }
+    }
+
+    private static OutputStream openOutput(Path file, boolean gzip) throws IOException {
+        OutputStream out = Files.newOutputStream(file);
+        if (gzip) {
+            out = new GZIPOutputStream(out, WRITE_BUFFER_SIZE);
+        }
+        return new BufferedOutputStream(out, WRITE_BUFFER_SIZE);
+    }
+
+    /**
+     * 按块把 in 复制到 out：不过滤时整块原样写入，过滤时只写满足条件的完整行。
+     *
+     * @throws InterruptedIOException cancelled 返回 true 时抛出
+     */
+    static ExportResult copyLines(InputStream in, OutputStream out, LineMatcher filter, boolean andMode,
+                                  ProgressListener listener, BooleanSupplier cancelled) throws IOException {
+        long startNanos = System.nanoTime();
+        long lastReport = startNanos;
+        long bytesRead = 0;
+        long linesRead = 0;
+        long linesWritten = 0;
+        LogLineFramer framer = new LogLineFramer();
+        byte[] buf = new byte[READ_BUFFER_SIZE];
+        int n;
+        while ((n = in.read(buf)) != -1) {
+            if (cancelled.getAsBoolean()) {
+                throw new InterruptedIOException("导出已取消");
+            }
+            bytesRead += n;
+            LogChunk chunk = framer.feed(buf, 0, n);
+            if (chunk != null) {
+                linesRead += chunk.lineCount();
+                linesWritten += writeChunk(chunk, out, filter, andMode);
+            }
+            long now = System.nanoTime();
+            if (listener != null && now - lastReport >= PROGRESS_INTERVAL_NANOS) {
+                lastReport = now;
+                listener.onProgress(bytesRead, linesWritten, now - startNanos);
+            }
+        }
+        LogChunk tail = framer.finish();
+        if (tail != null) {
+            linesRead += tail.lineCount();
+            linesWritten += writeChunk(tail, out, filter, andMode);
+        }
+        out.flush();
+        long elapsed = System.nanoTime() - startNanos;
+        if (listener != null) {
+            listener.onProgress(bytesRead, linesWritten, elapsed);
+        }
+        return new ExportResult(bytesRead, linesRead, linesWritten, elapsed);
+    }
+
+    private static int writeChunk(LogChunk chunk, OutputStream out, LineMatcher filter, boolean andMode)
+            throws IOException {
+        if (filter == null) {
+            chunk.writeTo(out);
+            return chunk.lineCount();
+        }
+        int written = 0;
+        byte[] data = chunk.data();
+        for (int i = 0; i < chunk.lineCount(); i++) {
+            if (filter.matches(chunk.decodeLine(i), andMode)) {
+                int start = chunk.lineStart(i);
+                out.write(data, start, chunk.lineEnd(i) + 1 - start);
+                written++;
+            }
+        }
+        return written;
+    }
+}
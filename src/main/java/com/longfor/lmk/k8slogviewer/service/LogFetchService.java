@@ -6,16 +6,19 @@ import com.longfor.lmk.k8slogviewer.config.K8sQuery;
 import io.kubernetes.client.openapi.ApiException;
 import io.kubernetes.client.openapi.apis.CoreV1Api;
 import okhttp3.Call;
+import okhttp3.HttpUrl;
+import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
-import java.util.function.Consumer;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * 日志获取服务，统一通过 K8s Java Client 获取日志。
@@ -25,25 +28,55 @@ public final class LogFetchService {
     private static final Logger log = LoggerFactory.getLogger(LogFetchService.class);
     private static volatile Call currentCall;
 
+    /** 当前的多 Pod 合并流及其各 Pod 请求 */
+    private static volatile MergedLogStreamer currentMerge;
+    private static volatile List<Call> mergedCalls = new CopyOnWriteArrayList<>();
+
+    /** 单 Pod 流的续传状态，首次连接时重建，重连时沿用 */
+    private static volatile LogResumeState resumeState = new LogResumeState();
+    /** 合并流各 Pod 的续传状态 */
+    private static volatile Map<String, LogResumeState> mergedResumeStates = new ConcurrentHashMap<>();
+
+    /** 流式读取缓冲区大小 */
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /** 获取容器上一个实例日志时的最大行数（上一个实例已终止，一次性拉取后缓存到本地搜索） */
+    static final int PREVIOUS_TAIL_LINES = 100_000;
+
     private LogFetchService() {
         throw new IllegalStateException("Utility class");
     }
 
     // ==================== 流式获取（K8s Java SDK） ====================
 
+    /**
+     * 日志流接收方：头部信息与日志数据分开回调，日志数据是未解码的完整行字节块。
+     */
+    public interface StreamSink {
+        /** 头部信息行（命名空间、Pod、命令、分割线），只用于展示 */
+        void onHeader(String line);
+
+        /** 一块完整行的原始字节 */
+        void onChunk(LogChunk chunk);
+    }
+
     /**
      * 流式获取日志（含头部信息），兼容旧调用。
      */
-    public static void fetchStreaming(Consumer<String> logLineConsumer) throws IOException {
-        fetchStreaming(logLineConsumer, true);
+    public static void fetchStreaming(StreamSink sink) throws IOException {
+        fetchStreaming(sink, true);
     }
 
     /**
-     * 通过 K8s Java SDK 流式获取日志，每行通过 logLineConsumer 回调。
-     * @param logLineConsumer 日志行消费者
-     * @param emitHeader 是否输出头部信息（首次连接输出，重连不输出）
+     * 通过 K8s Java SDK 流式获取日志。响应按 {@link LogLineFramer} 切成完整行，经 {@link LogResumeState} 去掉时间戳后交给 sink。
+     * <p>
+     * 首次连接按 tailLines / sinceSeconds 请求；重连时从最后收到的行时间戳续传（sinceTime），
+     * 重叠部分按内容去重，缓存文件在任意次重连后都保持有序且不重复。
+     *
+     * @param sink 日志流接收方
+     * @param emitHeader 是否输出头部信息；true 表示首次连接（重新开始），false 表示重连（续传）
      */
-    public static void fetchStreaming(Consumer<String> logLineConsumer, boolean emitHeader) throws IOException {
+    public static void fetchStreaming(StreamSink sink, boolean emitHeader) throws IOException {
         K8sQuery query = AppConfig.getK8sQuery();
 
         // 构建等价 kubectl 命令字符串（仅用于日志展示）
@@ -52,51 +85,37 @@ public final class LogFetchService {
 
         // 输出头部信息 + 分割线，复用现有 headerArea 机制
         if (emitHeader) {
-            emitHeaderInfo(query, logLineConsumer);
+            emitHeaderInfo(query, sink);
         }
 
         CoreV1Api api = K8sClientManager.getCoreV1Api();
-        Integer sinceSeconds = query.getSinceSeconds() > 0 ? (int) query.getSinceSeconds() : null;
-        Integer tailLines = query.getTailLines() > 0 ? query.getTailLines() : null;
 
         cancelCurrentCall();
 
-        Call call;
-        try {
-            call = api.readNamespacedPodLogCall(
-                    query.getPodName(), query.getNamespace(),
-                    null,                   // container
-                    query.isFollow(),       // follow
-                    null,                   // insecureSkipTLSVerifyBackend
-                    null,                   // limitBytes
-                    null,                   // pretty
-                    null,                   // previous
-                    sinceSeconds,           // sinceSeconds
-                    tailLines,              // tailLines
-                    null,                   // timestamps
-                    null                    // _callback
-            );
-        } catch (ApiException e) {
-            throw new IOException("K8s API 调用失败: " + e.getResponseBody(), e);
+        if (emitHeader) {
+            resumeState = new LogResumeState();
         }
+        LogResumeState resume = resumeState;
+        Call call = newLogCall(api, query, query.getPodName(), query.getContainer(), query.isPrevious(), resume);
         currentCall = call;
 
         try {
-            Response response = call.execute();
-            ResponseBody body = response.body();
-            if (!response.isSuccessful() || body == null) {
-                String errMsg = body != null ? body.string() : "未知错误";
-                throw new IOException("K8s API 调用失败: " + errMsg);
-            }
-
-            // 逐行流式读取
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(body.byteStream(), StandardCharsets.UTF_8))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    logLineConsumer.accept(line);
+            // 按块流式读取原始字节，切出完整行后整块交给 sink
+            LogLineFramer framer = new LogLineFramer();
+            byte[] buf = new byte[READ_BUFFER_SIZE];
+            try (InputStream in = openBody(call)) {
+                int n;
+                while ((n = in.read(buf)) != -1) {
+                    LogChunk chunk = framer.feed(buf, 0, n);
+                    if (chunk != null) {
+                        emitFiltered(resume, chunk, sink);
+                    }
                 }
             }
+            LogChunk tail = framer.finish();
+            if (tail != null) {
+                emitFiltered(resume, tail, sink);
+            }
         } catch (IOException e) {
             // 用本方法创建的 call 引用判断，而非 currentCall（切换容器时 currentCall 已指向新请求）
             if (call.isCanceled()) {
@@ -111,8 +130,74 @@ public final class LogFetchService {
         }
     }
 
+    private static void emitFiltered(LogResumeState resume, LogChunk chunk, StreamSink sink) {
+        LogChunk filtered = resume.filter(chunk);
+        if (filtered != null) {
+            sink.onChunk(filtered);
+        }
+    }
+
     /**
-     * 取消当前正在进行的日志流请求。
+     * 同时跟踪多个 Pod 的日志（timestamps=true），按时间戳交错合并为一条流，每行带 {@code [pod名]} 前缀。
+     * 阻塞直到所有 Pod 的日志流结束或被 {@link #cancelCurrentCall()} 取消。重连时各 Pod 分别续传。
+     *
+     * @param podNames   同一命名空间下的 Pod 列表
+     * @param emitHeader 是否输出头部信息；true 表示首次连接（重新开始），false 表示重连（续传）
+     * @throws IOException 所有 Pod 的日志流都失败时抛出
+     */
+    public static void fetchMergedStreaming(List<String> podNames, StreamSink sink, boolean emitHeader) throws IOException {
+        K8sQuery query = AppConfig.getK8sQuery();
+        log.info("合并跟踪 {} 个 Pod 的日志: {}", podNames.size(), podNames);
+
+        if (emitHeader) {
+            sink.onHeader("[Info] 命名空间: " + query.getNamespace());
+            sink.onHeader("[Info] 合并 Pod(" + podNames.size() + "): " + String.join(", ", podNames));
+            sink.onHeader("[Info] 命令: " + buildCommandString(query, podNames.get(0)) + " --timestamps  # 每个 Pod 一条流");
+            sink.onHeader("=================================分割线=================================");
+        }
+
+        cancelCurrentCall();
+
+        if (emitHeader) {
+            mergedResumeStates = new ConcurrentHashMap<>();
+        }
+        CoreV1Api api = K8sClientManager.getCoreV1Api();
+        List<Call> calls = new CopyOnWriteArrayList<>();
+        MergedLogStreamer merger = new MergedLogStreamer(podNames, mergedResumeStates, (podName, resume) -> {
+            Call call = newLogCall(api, query, podName, null, false, resume);
+            calls.add(call);
+            // 读取线程启动前合并流已被取消或替换
+            if (mergedCalls != calls || currentMerge == null) {
+                call.cancel();
+            }
+            return openBody(call);
+        }, sink::onChunk);
+        mergedCalls = calls;
+        currentMerge = merger;
+
+        try {
+            merger.run();
+        } finally {
+            if (currentMerge == merger) {
+                currentMerge = null;
+            }
+            calls.forEach(Call::cancel);
+        }
+    }
+
+    /**
+     * 当前日志流最后收到的行时间戳（纳秒，合并流取各 Pod 的最大值），用于判断重连是否取得进展。
+     */
+    public static long getLastLogTimestamp() {
+        long last = resumeState.getLastTimestamp();
+        for (LogResumeState state : mergedResumeStates.values()) {
+            last = Math.max(last, state.getLastTimestamp());
+        }
+        return last;
+    }
+
+    /**
+     * 取消当前正在进行的日志流请求（单 Pod 流或多 Pod 合并流）。
      */
     public static void cancelCurrentCall() {
         Call call = currentCall;
@@ -121,23 +206,96 @@ public final class LogFetchService {
             log.info("已取消当前日志流请求");
         }
         currentCall = null;
+
+        MergedLogStreamer merger = currentMerge;
+        if (merger != null) {
+            merger.cancel();
+            mergedCalls.forEach(Call::cancel);
+            currentMerge = null;
+            log.info("已取消多 Pod 合并日志流");
+        }
+    }
+
+    /**
+     * 创建单个 Pod 的日志流请求（timestamps=true）。
+     *
+     * @param container 容器名，null 表示默认容器
+     * @param previous  是否获取容器上一个实例的日志（不跟随，最多 {@link #PREVIOUS_TAIL_LINES} 行）
+     * @param resume    续传状态，已收到过日志时从其 sinceTime 续传，不再使用 tailLines / sinceSeconds
+     */
+    private static Call newLogCall(CoreV1Api api, K8sQuery query, String podName, String container,
+                                   boolean previous, LogResumeState resume) throws IOException {
+        String sinceTime = !previous ? resume.beginResume() : null;
+        Integer sinceSeconds = query.getSinceSeconds() > 0 && !previous && sinceTime == null
+                ? (int) query.getSinceSeconds() : null;
+        Integer tailLines = previous ? Integer.valueOf(PREVIOUS_TAIL_LINES)
+                : query.getTailLines() > 0 && sinceTime == null ? query.getTailLines() : null;
+        Call call;
+        try {
+            call = api.readNamespacedPodLogCall(
+                    podName, query.getNamespace(),
+                    container,              // container
+                    query.isFollow() && !previous, // follow
+                    null,                   // insecureSkipTLSVerifyBackend
+                    null,                   // limitBytes
+                    null,                   // pretty
+                    previous ? Boolean.TRUE : null, // previous
+                    sinceSeconds,           // sinceSeconds
+                    tailLines,              // tailLines
+                    Boolean.TRUE,           // timestamps — 用于续传与合并排序，读取时去掉
+                    null                    // _callback
+            );
+        } catch (ApiException e) {
+            throw new IOException("K8s API 调用失败: " + e.getResponseBody(), e);
+        }
+        if (sinceTime == null) {
+            return call;
+        }
+        // 当前 SDK 版本的 readNamespacedPodLogCall 没有 sinceTime 参数，直接追加到请求 URL
+        log.info("Pod {} 从 {} 续传日志", podName, sinceTime);
+        Request request = call.request();
+        HttpUrl url = request.url().newBuilder().addQueryParameter("sinceTime", sinceTime).build();
+        return api.getApiClient().getHttpClient().newCall(request.newBuilder().url(url).build());
+    }
+
+    /** 执行请求并返回响应体字节流，失败时抛出带响应内容的异常 */
+    private static InputStream openBody(Call call) throws IOException {
+        Response response = call.execute();
+        ResponseBody body = response.body();
+        if (!response.isSuccessful() || body == null) {
+            String errMsg = body != null ? body.string() : "未知错误";
+            throw new IOException("K8s API 调用失败: " + errMsg);
+        }
+        return body.byteStream();
     }
 
     // ==================== 一次性获取（K8s Java Client） ====================
 
     /**
-     * 通过 K8s Java Client 获取完整日志文本（用于下载等场景）。
+     * 通过 K8s Java Client 获取完整日志文本。整个日志会读入内存，只适合小日志；
+     * 导出大日志请使用 {@link LogExportService#export}，按块流式写入文件。
      */
     public static String fetchFullLogs(String namespace, String podName) throws ApiException, IOException {
+        return fetchFullLogs(namespace, podName, null, false);
+    }
+
+    /**
+     * 获取指定容器（或其上一个实例）的完整日志文本。
+     *
+     * @param container 容器名，null 表示默认容器
+     * @param previous  是否获取上一个实例的日志
+     */
+    public static String fetchFullLogs(String namespace, String podName, String container, boolean previous)
+            throws ApiException, IOException {
         CoreV1Api api = K8sClientManager.getCoreV1Api();
         return api.readNamespacedPodLog(
                 podName, namespace,
-                null,                   // container
+                container,              // container
                 false,                  // follow — 一次性获取，不跟随
                 null,                   // insecureSkipTLSVerifyBackend
                 null,                   // limitBytes
                 null,                   // pretty
-                null,                   // previous
+                previous ? Boolean.TRUE : null, // previous
                 null,                   // sinceSeconds
                 null,                   // tailLines
                 null                    // timestamps
@@ -150,10 +308,21 @@ public final class LogFetchService {
      * 构建等价的 kubectl 命令字符串（仅用于日志展示，不执行）。
      */
     private static String buildCommandString(K8sQuery query) {
+        return buildCommandString(query, query.getPodName());
+    }
+
+    private static String buildCommandString(K8sQuery query, String podName) {
         StringBuilder cmd = new StringBuilder();
-        cmd.append("kubectl logs \"").append(query.getPodName()).append("\"");
+        cmd.append("kubectl logs \"").append(podName).append("\"");
         cmd.append(" -n \"").append(query.getNamespace()).append("\"");
+        if (query.getContainer() != null) {
+            cmd.append(" -c \"").append(query.getContainer()).append("\"");
+        }
 
+        if (query.isPrevious()) {
+            cmd.append(" --previous --tail=").append(PREVIOUS_TAIL_LINES);
+            return cmd.toString();
+        }
         if (query.getTailLines() > 0) {
             cmd.append(" --tail=").append(query.getTailLines());
         }
@@ -170,12 +339,12 @@ public final class LogFetchService {
     /**
      * 输出头部信息行和分割线，让现有的 headerArea 机制继续生效。
      */
-    private static void emitHeaderInfo(K8sQuery query, Consumer<String> logLineConsumer) {
+    private static void emitHeaderInfo(K8sQuery query, StreamSink sink) {
         String cmdStr = buildCommandString(query);
-        logLineConsumer.accept("[Info] 命名空间: " + query.getNamespace());
-        logLineConsumer.accept("[Info] Pod: " + query.getPodName());
-        logLineConsumer.accept("[Info] 命令: " + cmdStr);
-        logLineConsumer.accept("=================================分割线=================================");
+        sink.onHeader("[Info] 命名空间: " + query.getNamespace());
+        sink.onHeader("[Info] Pod: " + query.getPodName());
+        sink.onHeader("[Info] 命令: " + cmdStr);
+        sink.onHeader("=================================分割线=================================");
     }
 
     // JVM 退出时取消当前请求
@@ -0,0 +1,84 @@
+package com.longfor.lmk.k8slogviewer.service;
+
+import java.util.Arrays;
+
+/**
+ * 日志流分帧器：把网络读到的原始字节块切成只含完整行的 {@link LogChunk}。
+ * <p>
+ * 只查找 '\n' 的位置，不做字符解码；末尾不完整的行暂存，等下一块数据到达后拼接。
+ * 非线程安全，每条日志流使用一个实例。
+ */
+public final class LogLineFramer {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    /** 上一块末尾未完成的行 */
+    private byte[] carry = EMPTY;
+    private int carryLen = 0;
+
+    /**
+     * 输入一块原始字节。
+     *
+     * @return 本次凑齐的完整行组成的块；没有完整行时返回 null
+     */
+    public LogChunk feed(byte[] buf, int off, int len) {
+        int last = -1;
+        for (int i = off + len - 1; i >= off; i--) {
+            if (buf[i] == '\n') {
+                last = i;
+                break;
+            }
+        }
+        if (last < 0) {
+            stash(buf, off, len);
+            return null;
+        }
+
+        int head = last + 1 - off;
+        byte[] data = new byte[carryLen + head];
+        System.arraycopy(carry, 0, data, 0, carryLen);
+        System.arraycopy(buf, off, data, carryLen, head);
+        carryLen = 0;
+        stash(buf, last + 1, off + len - last - 1);
+        return new LogChunk(data, lineEnds(data), false);
+    }
+
+    /**
+     * 流结束时输出最后一个没有换行结尾的残行（补上换行符）。
+     *
+     * @return 残行块，没有残行时返回 null
+     */
+    public LogChunk finish() {
+        if (carryLen == 0) return null;
+        byte[] data = Arrays.copyOf(carry, carryLen + 1);
+        data[carryLen] = '\n';
+        carryLen = 0;
+        return new LogChunk(data, new int[]{data.length - 1}, false);
+    }
+
+    /** 暂存的残行字节数 */
+    public int pendingBytes() {
+        return carryLen;
+    }
+
+    private void stash(byte[] buf, int off, int len) {
+        if (len <= 0) return;
+        if (carryLen + len > carry.length) {
+            carry = Arrays.copyOf(carry, Math.max(carryLen + len, carry.length * 2));
+        }
+        System.arraycopy(buf, off, carry, carryLen, len);
+        carryLen += len;
+    }
+
+    private static int[] lineEnds(byte[] data) {
+        int count = 0;
+        for (byte b : data) {
+            if (b == '\n') count++;
+        }
+        int[] ends = new int[count];
+        for (int i = 0, n = 0; n < count; i++) {
+            if (data[i] == '\n') ends[n++] = i;
+        }
+        return ends;
+    }
+}
@@ -0,0 +1,292 @@
+package com.longfor.lmk.k8slogviewer.service;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个 Pod 日志流的续传状态。
+ * <p>
+ * 日志流以 timestamps=true 请求，每行带 RFC3339 时间戳。本类记录最后收到的时间戳，
+ * 重连时从 {@code 最后时间戳 - 重叠窗口} 开始续传（sinceTime），而不是重新拉取 tailLines：
+ * 断线期间产生的行不会丢失，已收到的行也不会重复写入缓存。
+ * <p>
+ * 正常读取时每块只解析最后一个带时间戳的行以推进最后时间戳，去掉行首时间戳只是调整切片偏移，不复制、不哈希。
+ * 重叠窗口内的原始块只保留引用，续传开始时才为窗口内的行计算内容哈希（时间戳 + 行内容）：
+ * 续传开始后，时间戳早于窗口的行直接丢弃，窗口内已收到过的行丢弃，第一次出现比最后时间戳更新的行后退出去重阶段。
+ * 实例不是线程安全的，只在读取该 Pod 流的线程上使用。
+ */
+public final class LogResumeState {
+
+    /** 时间戳无法解析时使用的值（排在所有有效时间戳之前） */
+    static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    /** 续传重叠窗口：sinceTime 只精确到秒，窗口需大于 1 秒 */
+    static final long OVERLAP_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    /** 最后收到的行时间戳（纳秒） */
+    private long lastTimestamp = NO_TIMESTAMP;
+    /** 重叠窗口内收到的原始块 {块, 收到该块后的最后时间戳}，只保留引用，续传时才计算哈希 */
+    private final ArrayDeque<Object[]> recentChunks = new ArrayDeque<>();
+    /** 去重阶段使用的窗口内行 {时间戳, 哈希}，按时间戳递增 */
+    private final ArrayDeque<long[]> recent = new ArrayDeque<>();
+    private final Set<Long> recentHashes = new HashSet<>();
+    /** 是否处于续传后的去重阶段 */
+    private boolean resuming = false;
+    /** 上一个带时间戳的行是否被丢弃（决定其后的续行是否丢弃） */
+    private boolean lastDropped = false;
+
+    // ==================== 续传 ====================
+
+    /** 是否已收到过带时间戳的行（可以续传） */
+    public boolean canResume() {
+        return lastTimestamp != NO_TIMESTAMP;
+    }
+
+    /**
+     * 准备续传：由保留的原始块计算窗口内行的哈希并进入去重阶段，
+     * 返回请求使用的 sinceTime（向下取整到秒），没有可续传位置时返回 null。
+     */
+    public String beginResume() {
+        if (!canResume()) return null;
+        resuming = true;
+        lastDropped = false;
+        rebuildRecentHashes();
+        long since = Math.floorDiv(lastTimestamp - OVERLAP_NANOS, 1_000_000_000L);
+        return Instant.ofEpochSecond(since).toString();
+    }
+
+    public long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    // ==================== 逐行过滤 ====================
+
+    /**
+     * 判断 [start, end) 范围的一行是否保留。去重阶段计算并记录其哈希，其余时候只推进最后时间戳。
+     *
+     * @param ts 该行的时间戳，{@link #NO_TIMESTAMP} 表示续行（跟随上一行保留或丢弃）
+     */
+    public boolean accept(long ts, byte[] data, int start, int end) {
+        if (ts == NO_TIMESTAMP) {
+            return !lastDropped;
+        }
+        lastDropped = false;
+        if (!resuming) {
+            if (ts > lastTimestamp) lastTimestamp = ts;
+            return true;
+        }
+        long hash = hash(ts, data, start, end);
+        if (ts > lastTimestamp) {
+            resuming = false;
+        } else if (ts < lastTimestamp - OVERLAP_NANOS || recentHashes.contains(hash)) {
+            lastDropped = true;
+            return false;
+        }
+        record(ts, hash);
+        return true;
+    }
+
+    /**
+     * 过滤一块带时间戳的行：去掉行首时间戳，丢弃重叠窗口内的重复行，全部丢弃时返回 null。
+     * 返回的块是原块的切片，与原块共用字节数组。
+     */
+    public LogChunk filter(LogChunk chunk) {
+        byte[] data = chunk.data();
+        int n = chunk.lineCount();
+        int[] starts = new int[n];
+        int[] ends = new int[n];
+        int kept = 0;
+        if (!resuming) {
+            // 正常读取：只调整偏移跳过时间戳，不解析、不哈希
+            for (int i = 0; i < n; i++) {
+                int start = chunk.lineStart(i);
+                int end = chunk.lineEnd(i);
+                int sp = timestampEnd(data, start, contentEnd(data, start, end));
+                starts[i] = sp > 0 ? sp + 1 : start;
+                ends[i] = end;
+            }
+            kept = n;
+            lastDropped = false;
+            advanceToLastTimestamp(chunk);
+        } else {
+            for (int i = 0; i < n; i++) {
+                int start = chunk.lineStart(i);
+                int end = chunk.lineEnd(i);
+                int contentEnd = contentEnd(data, start, end);
+                int sp = timestampEnd(data, start, contentEnd);
+                long ts = sp > 0 ? parseTimestamp(data, start, sp) : NO_TIMESTAMP;
+                if (!accept(ts, data, start, contentEnd)) continue;
+                starts[kept] = ts != NO_TIMESTAMP ? sp + 1 : start;
+                ends[kept] = end;
+                kept++;
+            }
+        }
+        retain(chunk);
+        return kept == 0 ? null : LogChunk.slice(data, starts, ends, kept);
+    }
+
+    /**
+     * 保留一块已处理的原始块的引用，供续传时计算窗口内行的哈希；同时丢弃已完全落在窗口之外的旧块。
+     * 逐行调用 {@link #accept} 的读取方（如合并跟踪）在处理完每块后调用。
+     */
+    public void retain(LogChunk chunk) {
+        if (lastTimestamp == NO_TIMESTAMP) return;
+        recentChunks.addLast(new Object[]{chunk, lastTimestamp});
+        long windowStart = lastTimestamp - OVERLAP_NANOS;
+        while (!recentChunks.isEmpty() && (long) recentChunks.peekFirst()[1] < windowStart) {
+            recentChunks.pollFirst();
+        }
+    }
+
+    /** 从块尾向前找到第一个可解析的时间戳，推进最后时间戳 */
+    private void advanceToLastTimestamp(LogChunk chunk) {
+        byte[] data = chunk.data();
+        for (int i = chunk.lineCount() - 1; i >= 0; i--) {
+            int start = chunk.lineStart(i);
+            int sp = timestampEnd(data, start, contentEnd(data, start, chunk.lineEnd(i)));
+            if (sp < 0) continue;
+            long ts = parseTimestamp(data, start, sp);
+            if (ts == NO_TIMESTAMP) continue;
+            if (ts > lastTimestamp) lastTimestamp = ts;
+            return;
+        }
+    }
+
+    /** 由保留的原始块重建窗口内行的哈希 */
+    private void rebuildRecentHashes() {
+        recent.clear();
+        recentHashes.clear();
+        long windowStart = lastTimestamp - OVERLAP_NANOS;
+        for (Object[] entry : recentChunks) {
+            LogChunk chunk = (LogChunk) entry[0];
+            byte[] data = chunk.data();
+            for (int i = 0; i < chunk.lineCount(); i++) {
+                int start = chunk.lineStart(i);
+                int end = contentEnd(data, start, chunk.lineEnd(i));
+                int sp = timestampEnd(data, start, end);
+                long ts = sp > 0 ? parseTimestamp(data, start, sp) : NO_TIMESTAMP;
+                if (ts == NO_TIMESTAMP || ts < windowStart) continue;
+                long hash = hash(ts, data, start, end);
+                if (recentHashes.add(hash)) {
+                    recent.addLast(new long[]{ts, hash});
+                }
+            }
+        }
+    }
+
+    private void record(long ts, long hash) {
+        if (ts > lastTimestamp) lastTimestamp = ts;
+        recent.addLast(new long[]{ts, hash});
+        recentHashes.add(hash);
+        long windowStart = lastTimestamp - OVERLAP_NANOS;
+        while (!recent.isEmpty() && recent.peekFirst()[0] < windowStart) {
+            recentHashes.remove(recent.pollFirst()[1]);
+        }
+    }
+
+    /** 行内容结束位置：去掉行尾的 '\r' */
+    private static int contentEnd(byte[] data, int start, int end) {
+        return end > start && data[end - 1] == '\r' ? end - 1 : end;
+    }
+
+    /** 时间戳与行内容（含时间戳文本）的 64 位 FNV-1a 哈希 */
+    private static long hash(long ts, byte[] data, int start, int end) {
+        long h = 0xcbf29ce484222325L ^ ts;
+        for (int i = start; i < end; i++) {
+            h ^= data[i] & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // ==================== 时间戳 ====================
+
+    /**
+     * 行首 RFC3339 时间戳（如 {@code 2024-01-02T03:04:05.123456789Z}）之后空格的位置，不是时间戳返回 -1。
+     */
+    static int timestampEnd(byte[] data, int start, int end) {
+        if (end - start < 20 || data[start + 4] != '-' || data[start + 10] != 'T') return -1;
+        int limit = Math.min(end, start + 40);
+        for (int i = start + 19; i < limit; i++) {
+            if (data[i] == ' ') return i;
+        }
+        return -1;
+    }
+
+    /**
+     * 直接按字节解析 [start, end) 范围的 RFC3339 时间戳为纳秒时间，失败返回 {@link #NO_TIMESTAMP}。
+     * <p>
+     * 格式固定为 {@code yyyy-MM-ddTHH:mm:ss[.f{1,9}](Z|±HH:mm)}，逐位取数字换算，不创建字符串和 Instant。
+     * 不能直接按字节比较大小：K8s 输出的小数部分会去掉末尾的 0，长度不固定。
+     */
+    static long parseTimestamp(byte[] data, int start, int end) {
+        if (end - start < 20
+                || data[start + 4] != '-' || data[start + 7] != '-' || (data[start + 10] | 0x20) != 't'
+                || data[start + 13] != ':' || data[start + 16] != ':') {
+            return NO_TIMESTAMP;
+        }
+        int year = digits(data, start, 4);
+        int month = digits(data, start + 5, 2);
+        int day = digits(data, start + 8, 2);
+        int hour = digits(data, start + 11, 2);
+        int minute = digits(data, start + 14, 2);
+        int second = digits(data, start + 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return NO_TIMESTAMP;
+        }
+
+        int i = start + 19;
+        long nanos = 0;
+        if (data[i] == '.') {
+            int fractionDigits = 0;
+            i++;
+            while (i < end && data[i] >= '0' && data[i] <= '9') {
+                if (fractionDigits < 9) nanos = nanos * 10 + (data[i] - '0');
+                fractionDigits++;
+                i++;
+            }
+            if (fractionDigits == 0) return NO_TIMESTAMP;
+            for (int k = fractionDigits; k < 9; k++) nanos *= 10;
+        }
+
+        long offsetSeconds;
+        if (i == end - 1 && (data[i] | 0x20) == 'z') {
+            offsetSeconds = 0;
+        } else if (end - i == 6 && (data[i] == '+' || data[i] == '-') && data[i + 3] == ':') {
+            int oh = digits(data, i + 1, 2);
+            int om = digits(data, i + 4, 2);
+            if (oh < 0 || om < 0) return NO_TIMESTAMP;
+            offsetSeconds = (oh * 3600L + om * 60L) * (data[i] == '-' ? -1 : 1);
+        } else {
+            return NO_TIMESTAMP;
+        }
+
+        long seconds = epochDay(year, month, day) * 86_400L + hour * 3600L + minute * 60L + second - offsetSeconds;
+        return seconds * 1_000_000_000L + nanos;
+    }
+
+    /** 读取 count 位十进制数字，含非数字时返回 -1 */
+    private static int digits(byte[] data, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int d = data[i] - '0';
+            if (d < 0 || d > 9) return -1;
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    /** 公历日期距 1970-01-01 的天数 */
+    private static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+}
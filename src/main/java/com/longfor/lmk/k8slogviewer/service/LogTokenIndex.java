@@ -0,0 +1,694 @@
+package com.longfor.lmk.k8slogviewer.service;
+
+import com.longfor.lmk.k8slogviewer.utils.KeywordMatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 日志文件的倒排词索引：词 → 行号倒排表，以旁路文件 {@code xxx.log.tidx} 持久化。
+ * <p>
+ * 词（token）为连续的 ASCII 字母、数字或下划线，统一转小写；同一行中重复出现的词只记录一次。
+ * 倒排表以行号差值的 varint 编码存储，追加写入时由 {@link #addLine(byte[], int, int)} 增量维护。
+ * <p>
+ * 子串查询：只由词字符组成的关键字在行中出现时必然落在某个完整词内部，
+ * 因此其匹配行 = 词典中所有包含该关键字的词的倒排表并集，无需扫描日志文件。
+ * 含空格、标点或非 ASCII 字符的关键字无法由词对齐，{@link #query} 返回 null，由调用方退回扫描，
+ * {@link #queryPartial} 则只把这些关键字留给调用方（且查询只需校验其余关键字的候选行）；
+ * 过短的关键字（如 {@code id}、{@code 5}）命中的词超过 {@link #MAX_LOOKUP_TOKENS} 时同样返回 null，
+ * 此时合并倒排表不比顺序扫描便宜。
+ * <p>
+ * 词典达到容量上限或遇到超长词后不再收录新词（已有词继续维护），此后索引结果可能不完整，
+ * 所有查询均返回 null 退回扫描。
+ * <p>
+ * 写入时另按顺序记录最近若干次"词在某行首次出现"（即各倒排表的末尾），
+ * 续搜只查询新增行时直接遍历这段记录，代价与新增行数成正比，与词典大小无关。
+ * <p>
+ * 非线程安全，由 {@link PodLogFileManager} 的对象锁保护；不再写入（所属分段已封存）后可并发查询。
+ */
+public class LogTokenIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(LogTokenIndex.class);
+
+    /** 旁路索引文件后缀 */
+    public static final String INDEX_SUFFIX = ".tidx";
+
+    /** 词典词数上限，超过后不再收录新词 */
+    static final int MAX_TOKENS = 500_000;
+
+    /** 词典中所有词的总字节数上限 */
+    static final long MAX_DICTIONARY_BYTES = 32L * 1024 * 1024;
+
+    /** 单个词最大长度，超长的词不收录，按词典溢出处理 */
+    static final int MAX_TOKEN_LENGTH = 1024;
+
+    /** 单个关键字命中的词数上限，超过后退回扫描 */
+    static final int MAX_LOOKUP_TOKENS = 4096;
+
+    /** 最近词出现记录的容量（条），写满后覆盖最旧的记录 */
+    static final int RECENT_CAPACITY = 1 << 15;
+
+    /** 遍历词典时每隔多少个词检查一次取消标志 */
+    private static final int CANCEL_CHECK_INTERVAL = 4096;
+
+    private static final int FILE_MAGIC = 0x4B4C5449; // "KLTI"
+    private static final int FILE_VERSION = 1;
+
+    /** 顺序扫描缓冲区大小 */
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    private final Path logFile;
+    private final Path indexFile;
+
+    private final Map<String, Postings> dictionary = new HashMap<>();
+    /** 是否有词未被收录（词典已满或词过长），为 true 时索引不再用于查询 */
+    private boolean incomplete = false;
+    /** 词典中所有词的总字节数 */
+    private long dictionaryBytes = 0;
+
+    /** 已索引的完整行数 */
+    private int lineCount = 0;
+    /** 已索引字节数，即最后一个完整行之后的偏移 */
+    private long indexedBytes = 0;
+
+    /** 单行分词时复用的小写缓冲区 */
+    private byte[] tokenBuf = new byte[MAX_TOKEN_LENGTH];
+
+    // ==================== 最近词出现（倒排表末尾） ====================
+
+    /** 环形记录：词及其所在行号，行号非递减；首次写入时分配 */
+    private String[] recentTokens;
+    private int[] recentLines;
+    /** 下一条记录的写入位置 */
+    private int recentHead = 0;
+    private int recentSize = 0;
+    /** 行号不小于该值的行，其全部词出现都在记录中 */
+    private int recentFloor = 0;
+
+    private LogTokenIndex(Path logFile) {
+        this.logFile = logFile;
+        this.indexFile = indexFileOf(logFile);
+    }
+
+    /** 获取日志文件对应的旁路词索引文件路径 */
+    public static Path indexFileOf(Path logFile) {
+        return logFile.resolveSibling(logFile.getFileName() + INDEX_SUFFIX);
+    }
+
+    /**
+     * 为新建（空）的日志文件创建词索引，删除可能残留的旧索引文件。
+     */
+    public static LogTokenIndex createEmpty(Path logFile) {
+        LogTokenIndex index = new LogTokenIndex(logFile);
+        index.deleteSidecar();
+        return index;
+    }
+
+    /**
+     * 打开已有日志文件的词索引：加载旁路文件并扫描追平新增部分。
+     * 旁路文件缺失、损坏或与行偏移索引不一致时从头重建。
+     *
+     * @param lineIndex 同一日志文件的行偏移索引，用于校验旁路文件记录的位置
+     */
+    public static LogTokenIndex open(Path logFile, LineOffsetIndex lineIndex) throws IOException {
+        LogTokenIndex index = new LogTokenIndex(logFile);
+        if (!index.loadSidecar(lineIndex)) {
+            index.clear();
+        }
+        index.catchUp();
+        return index;
+    }
+
+    // ==================== 写入维护 ====================
+
+    /**
+     * 追加一行（不含换行符）到索引，行号为当前已索引行数。
+     */
+    public void addLine(byte[] bytes, int off, int len) {
+        int line = lineCount;
+        int end = off + len;
+        int i = off;
+        while (i < end) {
+            if (!isTokenByte(bytes[i])) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < end && isTokenByte(bytes[i])) i++;
+            addToken(bytes, start, i - start, line);
+        }
+        lineCount++;
+        indexedBytes += len + 1L;
+    }
+
+    /**
+     * 从最后一个已索引位置向后扫描到文件末尾，补齐完整行。
+     * 文件变短（被重写）时从头重建。
+     */
+    public void catchUp() throws IOException {
+        long size = Files.size(logFile);
+        if (size < indexedBytes) {
+            log.info("日志文件变短，重建词索引: {}", logFile.getFileName());
+            clear();
+        }
+        if (size == indexedBytes) return;
+
+        try (FileChannel ch = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+            byte[] carry = new byte[0];
+            long pos = indexedBytes;
+            while (pos < size) {
+                buf.clear();
+                int n = ch.read(buf, pos);
+                if (n <= 0) break;
+                byte[] arr = buf.array();
+                int lineStart = 0;
+                for (int i = 0; i < n; i++) {
+                    if (arr[i] != '\n') continue;
+                    if (carry.length > 0) {
+                        byte[] joined = Arrays.copyOf(carry, carry.length + i - lineStart);
+                        System.arraycopy(arr, lineStart, joined, carry.length, i - lineStart);
+                        addLine(joined, 0, joined.length);
+                        carry = new byte[0];
+                    } else {
+                        addLine(arr, lineStart, i - lineStart);
+                    }
+                    lineStart = i + 1;
+                }
+                if (lineStart < n) {
+                    // 跨缓冲区的半行暂存，等待后续换行
+                    int oldLen = carry.length;
+                    carry = Arrays.copyOf(carry, oldLen + n - lineStart);
+                    System.arraycopy(arr, lineStart, carry, oldLen, n - lineStart);
+                }
+                pos += n;
+            }
+        }
+    }
+
+    /** 清空索引（文件被重写后调用），同时删除旁路文件 */
+    public void reset() {
+        clear();
+        deleteSidecar();
+    }
+
+    /**
+     * 将完整索引写入旁路文件（先写临时文件再原子替换）。
+     */
+    public void persist() {
+        Path tmp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeInt(lineCount);
+            out.writeLong(indexedBytes);
+            out.writeBoolean(incomplete);
+            out.writeInt(dictionary.size());
+            for (Map.Entry<String, Postings> e : dictionary.entrySet()) {
+                byte[] token = e.getKey().getBytes(StandardCharsets.US_ASCII);
+                Postings p = e.getValue();
+                out.writeShort(token.length);
+                out.write(token);
+                out.writeInt(p.count);
+                out.writeInt(p.lastLine);
+                out.writeInt(p.size);
+                out.write(p.data, 0, p.size);
+            }
+        } catch (IOException e) {
+            log.debug("写入词索引失败: {}", indexFile, e);
+            return;
+        }
+        try {
+            Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.debug("替换词索引文件失败: {}", indexFile, e);
+        }
+    }
+
+    // ==================== 查询 ====================
+
+    /** 已索引的完整行数 */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /** 已索引的字节数（最后一个完整行结束后的偏移） */
+    public long getIndexedBytes() {
+        return indexedBytes;
+    }
+
+    /** 词典中的词数 */
+    public int getTokenCount() {
+        return dictionary.size();
+    }
+
+    /** 索引是否完整可用（未发生词典溢出） */
+    public boolean isComplete() {
+        return !incomplete;
+    }
+
+    /**
+     * 关键字是否可由词索引回答：非空且只含词字符。
+     */
+    public static boolean isIndexable(String keyword) {
+        if (keyword == null || keyword.isEmpty() || keyword.length() > MAX_TOKEN_LENGTH) return false;
+        for (int i = 0; i < keyword.length(); i++) {
+            char c = keyword.charAt(i);
+            if (c >= 0x80 || !isTokenByte((byte) c)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 多关键字查询。
+     *
+     * @param keywords 关键字列表（大小写不敏感）
+     * @param andMode  true=求交集，false=求并集
+     * @return 升序匹配行号；索引不完整或存在无法由索引回答的关键字时返回 null
+     */
+    public int[] query(List<String> keywords, boolean andMode) {
+        return query(keywords, andMode, () -> false);
+    }
+
+    /**
+     * 多关键字查询，可取消。
+     *
+     * @param cancelled 取消标志，返回 true 时中止查询并返回 null（调用方退回的扫描会同样感知取消）
+     * @return 升序匹配行号；索引不完整、存在无法由索引回答的关键字或已取消时返回 null
+     */
+    public int[] query(List<String> keywords, boolean andMode, BooleanSupplier cancelled) {
+        return query(keywords, andMode, 0, cancelled);
+    }
+
+    /**
+     * 只查询行号不小于 fromLine 的新增行，用于续搜。
+     * fromLine 之后的词出现仍在最近记录中时只遍历这段记录；否则查询完整倒排表后截取。
+     *
+     * @return 升序匹配行号（均不小于 fromLine）；存在无法由索引回答的关键字或已取消时返回 null
+     */
+    public int[] query(List<String> keywords, boolean andMode, int fromLine, BooleanSupplier cancelled) {
+        if (incomplete) return null;
+        if (keywords.isEmpty()) return new int[0];
+        Partial partial = queryPartial(keywords, andMode, fromLine, cancelled);
+        return partial != null && partial.isComplete() ? partial.lines : null;
+    }
+
+    /**
+     * 部分由索引回答的查询：能由索引回答的关键字按且/或合并，其余关键字（含非词字符，
+     * 或命中词超过 {@link #MAX_LOOKUP_TOKENS}）留给调用方处理。
+     * 且模式下结果为候选行，只需对其校验其余关键字；或模式下结果为已确定的匹配行，其余关键字须另行扫描后合并。
+     *
+     * @return 索引不完整、已取消或没有任何关键字能由索引回答时返回 null
+     */
+    public Partial queryPartial(List<String> keywords, boolean andMode, int fromLine, BooleanSupplier cancelled) {
+        if (incomplete || keywords.isEmpty()) return null;
+        List<String> indexable = new ArrayList<>(keywords.size());
+        List<String> remaining = new ArrayList<>();
+        for (String kw : keywords) {
+            (isIndexable(kw) ? indexable : remaining).add(kw);
+        }
+        if (indexable.isEmpty()) return null;
+
+        int[] result;
+        if (fromLine > 0 && fromLine >= recentFloor && indexable.size() <= Long.SIZE) {
+            result = queryRecent(indexable, andMode, fromLine);
+        } else {
+            result = null;
+            for (String kw : indexable) {
+                int[] lines = lookup(kw, cancelled);
+                if (lines == null) {
+                    if (cancelled.getAsBoolean()) return null;
+                    remaining.add(kw);
+                    continue;
+                }
+                result = result == null ? lines : andMode ? intersect(result, lines) : union(result, lines);
+            }
+            if (result == null) return null;
+            if (fromLine > 0) {
+                int from = Arrays.binarySearch(result, fromLine);
+                if (from < 0) from = -from - 1;
+                result = Arrays.copyOfRange(result, from, result.length);
+            }
+        }
+        return new Partial(result, remaining);
+    }
+
+    /**
+     * {@link #queryPartial} 的结果：索引回答部分的行号与仍须由调用方处理的关键字。不可变对象。
+     */
+    public static final class Partial {
+        private final int[] lines;
+        private final List<String> remaining;
+
+        Partial(int[] lines, List<String> remaining) {
+            this.lines = lines;
+            this.remaining = List.copyOf(remaining);
+        }
+
+        /** 索引回答部分的升序行号：且模式下为候选行，或模式下为已确定的匹配行 */
+        public int[] getLines() { return lines; }
+
+        /** 索引无法回答的关键字 */
+        public List<String> getRemaining() { return remaining; }
+
+        /** 全部关键字都由索引回答 */
+        public boolean isComplete() { return remaining.isEmpty(); }
+    }
+
+    /**
+     * 按最近词出现记录回答 fromLine 及之后的行：同一个词只判断一次包含哪些关键字，
+     * 记录按行号有序，各关键字的匹配行直接按序收集。
+     */
+    private int[] queryRecent(List<String> keywords, boolean andMode, int fromLine) {
+        int k = keywords.size();
+        String[] needles = new String[k];
+        for (int j = 0; j < k; j++) {
+            needles[j] = keywords.get(j).toLowerCase(Locale.ROOT);
+        }
+        int[][] lines = new int[k][];
+        int[] counts = new int[k];
+        for (int j = 0; j < k; j++) lines[j] = new int[16];
+
+        Map<String, Long> masks = new HashMap<>();
+        int oldest = (recentHead - recentSize + RECENT_CAPACITY) % RECENT_CAPACITY;
+        int i = firstRecentAtOrAfter(oldest, fromLine);
+        for (; i < recentSize; i++) {
+            int pos = (oldest + i) % RECENT_CAPACITY;
+            String token = recentTokens[pos];
+            int line = recentLines[pos];
+            long mask = masks.computeIfAbsent(token, t -> {
+                long m = 0;
+                for (int j = 0; j < k; j++) {
+                    if (t.contains(needles[j])) m |= 1L << j;
+                }
+                return m;
+            });
+            while (mask != 0) {
+                int j = Long.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+                int n = counts[j];
+                if (n > 0 && lines[j][n - 1] == line) continue;
+                if (n == lines[j].length) lines[j] = Arrays.copyOf(lines[j], n * 2);
+                lines[j][n] = line;
+                counts[j] = n + 1;
+            }
+        }
+
+        int[] result = Arrays.copyOf(lines[0], counts[0]);
+        for (int j = 1; j < k; j++) {
+            int[] next = Arrays.copyOf(lines[j], counts[j]);
+            result = andMode ? intersect(result, next) : union(result, next);
+        }
+        return result;
+    }
+
+    /** 记录中第一条行号不小于 line 的位置（相对最旧记录），没有时返回 recentSize */
+    private int firstRecentAtOrAfter(int oldest, int line) {
+        int lo = 0;
+        int hi = recentSize;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (recentLines[(oldest + mid) % RECENT_CAPACITY] < line) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * 单关键字查询：词典中所有包含该关键字的词的倒排表并集。
+     *
+     * @return 升序匹配行号；无法由索引回答时返回 null
+     */
+    public int[] lookup(String keyword) {
+        return lookup(keyword, () -> false);
+    }
+
+    /**
+     * 单关键字查询，可取消。先收集所有命中词的倒排表，再一次性合并：
+     * 只有一个倒排表时直接解码，多个时按行号写入位图后按序取出，避免逐个两两合并的平方级复制。
+     *
+     * @return 升序匹配行号；无法由索引回答、命中词超过 {@link #MAX_LOOKUP_TOKENS} 或已取消时返回 null
+     */
+    public int[] lookup(String keyword, BooleanSupplier cancelled) {
+        if (incomplete || !isIndexable(keyword)) return null;
+        String needle = keyword.toLowerCase(Locale.ROOT);
+
+        List<Postings> hits = new ArrayList<>();
+        Postings exact = dictionary.get(needle);
+        if (exact != null) hits.add(exact);
+        int visited = 0;
+        for (Map.Entry<String, Postings> e : dictionary.entrySet()) {
+            if (++visited % CANCEL_CHECK_INTERVAL == 0 && cancelled.getAsBoolean()) return null;
+            String token = e.getKey();
+            if (token.length() <= needle.length() || !token.contains(needle)) continue;
+            hits.add(e.getValue());
+            if (hits.size() > MAX_LOOKUP_TOKENS) return null;
+        }
+
+        if (hits.isEmpty()) return new int[0];
+        if (hits.size() == 1) return hits.get(0).decode();
+
+        long[] bits = new long[(lineCount + 63) >>> 6];
+        for (Postings p : hits) {
+            if (cancelled.getAsBoolean()) return null;
+            p.decodeInto(bits);
+        }
+        return toLines(bits);
+    }
+
+    /** 位图中置位的行号，升序 */
+    private static int[] toLines(long[] bits) {
+        int total = 0;
+        for (long word : bits) total += Long.bitCount(word);
+        int[] lines = new int[total];
+        int n = 0;
+        for (int w = 0; w < bits.length; w++) {
+            long word = bits[w];
+            while (word != 0) {
+                lines[n++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return lines;
+    }
+
+    // ==================== 内部方法 ====================
+
+    private void addToken(byte[] bytes, int start, int len, int line) {
+        if (incomplete) return;
+        if (len > MAX_TOKEN_LENGTH) {
+            incomplete = true;
+            return;
+        }
+        for (int i = 0; i < len; i++) {
+            tokenBuf[i] = KeywordMatcher.fold(bytes[start + i]);
+        }
+        String token = new String(tokenBuf, 0, len, StandardCharsets.US_ASCII);
+        Postings p = dictionary.get(token);
+        if (p == null) {
+            if (dictionary.size() >= MAX_TOKENS || dictionaryBytes + len > MAX_DICTIONARY_BYTES) {
+                if (!incomplete) {
+                    log.info("词索引容量已满，停止用于查询: {}", logFile.getFileName());
+                }
+                incomplete = true;
+                return;
+            }
+            p = new Postings();
+            dictionary.put(token, p);
+            dictionaryBytes += len;
+        }
+        if (p.add(line)) {
+            recordRecent(token, line);
+        }
+    }
+
+    /** 记录词在某行首次出现，写满时覆盖最旧的记录并抬高完整覆盖的起始行 */
+    private void recordRecent(String token, int line) {
+        if (recentTokens == null) {
+            recentTokens = new String[RECENT_CAPACITY];
+            recentLines = new int[RECENT_CAPACITY];
+        }
+        if (recentSize == RECENT_CAPACITY) {
+            recentFloor = recentLines[recentHead] + 1;
+        } else {
+            recentSize++;
+        }
+        recentTokens[recentHead] = token;
+        recentLines[recentHead] = line;
+        recentHead = (recentHead + 1) % RECENT_CAPACITY;
+    }
+
+    static boolean isTokenByte(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '_';
+    }
+
+    private void clear() {
+        dictionary.clear();
+        dictionaryBytes = 0;
+        incomplete = false;
+        lineCount = 0;
+        indexedBytes = 0;
+        recentHead = 0;
+        recentSize = 0;
+        recentFloor = 0;
+    }
+
+    private void deleteSidecar() {
+        try {
+            Files.deleteIfExists(indexFile);
+        } catch (IOException e) {
+            log.debug("删除词索引失败: {}", indexFile, e);
+        }
+    }
+
+    /**
+     * 加载旁路文件；记录的行数与字节偏移须与行偏移索引一致，否则视为过期。
+     */
+    private boolean loadSidecar(LineOffsetIndex lineIndex) {
+        if (!Files.exists(indexFile)) return false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) return false;
+            int lines = in.readInt();
+            long bytes = in.readLong();
+            if (bytes > Files.size(logFile) || lineIndex.offsetOfLine(lines) != bytes) return false;
+            boolean partial = in.readBoolean();
+            int tokens = in.readInt();
+            for (int i = 0; i < tokens; i++) {
+                byte[] token = new byte[in.readUnsignedShort()];
+                in.readFully(token);
+                Postings p = new Postings();
+                p.count = in.readInt();
+                p.lastLine = in.readInt();
+                p.size = in.readInt();
+                p.data = new byte[Math.max(8, p.size)];
+                in.readFully(p.data, 0, p.size);
+                dictionary.put(new String(token, StandardCharsets.US_ASCII), p);
+                dictionaryBytes += token.length;
+            }
+            incomplete = partial;
+            lineCount = lines;
+            indexedBytes = bytes;
+            // 旁路文件不含最近词出现记录，只有此后追加的行可按记录查询
+            recentFloor = lines;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.debug("加载词索引失败，将重建: {}", indexFile, e);
+            return false;
+        }
+    }
+
+    /** 有序 int 数组求交集 */
+    static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /** 有序 int 数组求并集（去重） */
+    static int[] union(int[] a, int[] b) {
+        int[] out = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length || j < b.length) {
+            int v;
+            if (j >= b.length || (i < a.length && a[i] < b[j])) v = a[i++];
+            else if (i >= a.length || b[j] < a[i]) v = b[j++];
+            else {
+                v = a[i++];
+                j++;
+            }
+            out[n++] = v;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /**
+     * 单个词的倒排表：行号升序，以与上一行号的差值 varint 编码。
+     */
+    static final class Postings {
+        private byte[] data = new byte[8];
+        private int size;
+        private int count;
+        private int lastLine = -1;
+
+        /** 追加行号，同一行重复出现时忽略；返回是否为新行 */
+        boolean add(int line) {
+            if (line == lastLine) return false;
+            int delta = lastLine < 0 ? line : line - lastLine;
+            if (size + 5 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            while ((delta & ~0x7F) != 0) {
+                data[size++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            data[size++] = (byte) delta;
+            lastLine = line;
+            count++;
+            return true;
+        }
+
+        /** 将行号写入位图（位图长度须覆盖所有行号） */
+        void decodeInto(long[] bits) {
+            int pos = 0;
+            int line = 0;
+            for (int n = 0; n < count; n++) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[pos++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                line = n == 0 ? delta : line + delta;
+                bits[line >>> 6] |= 1L << line;
+            }
+        }
+
+        int[] decode() {
+            int[] lines = new int[count];
+            int pos = 0;
+            int line = 0;
+            for (int n = 0; n < count; n++) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[pos++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                line = n == 0 ? delta : line + delta;
+                lines[n] = line;
+            }
+            return lines;
+        }
+    }
+}
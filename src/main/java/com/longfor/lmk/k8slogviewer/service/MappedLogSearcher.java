@@ -0,0 +1,519 @@
+package com.longfor.lmk.k8slogviewer.service;
+
+import com.longfor.lmk.k8slogviewer.utils.ExecutorManager;
+import com.longfor.lmk.k8slogviewer.utils.KeywordMatcher;
+import com.longfor.lmk.k8slogviewer.utils.LogQuery;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+/**
+ * 基于内存映射的字节级日志搜索。
+ * <p>
+ * 通过 {@link FileChannel#map} 映射日志文件，用 {@link KeywordMatcher.ByteAutomaton} 在 UTF-8 原始字节上
+ * 做大小写折叠的多关键字匹配（每字节一次查表，与关键字个数无关），
+ * 仅通过统计换行符得到行号，扫描过程中不解码字符串、不产生逐行对象。
+ * <p>
+ * 关键字与文件内容的大小写折叠都只作用于 ASCII 字母（A-Z ↔ a-z）；非 ASCII 字符（如中文，
+ * 以及 Ä、П 等带大小写的字母）按字节精确匹配，即与关键字大小写完全一致时才命中。
+ * <p>
+ * 大文件按换行对齐切分为若干字节块，在 {@link ExecutorManager#getSearchPool()} 上并行扫描，
+ * 各块的匹配行号再按前序块行数累加换算为绝对行号。
+ * <p>
+ * 查询模式（{@link LogQuery}）下自动机只负责按预筛字面量筛出候选行，候选行再解码为字符串交给查询校验；
+ * 无法推导预筛字面量时逐行校验。
+ */
+public final class MappedLogSearcher {
+
+    /** 单次映射窗口大小，超过该大小的文件分窗口映射（MappedByteBuffer 上限为 2GB） */
+    static final long MAP_WINDOW_SIZE = 512L * 1024 * 1024;
+
+    /** 分块最小字节数，小于两块的文件直接在调用线程上单线程扫描 */
+    static final long MIN_CHUNK_SIZE = 4L * 1024 * 1024;
+
+    /** 每个工作线程分到的块数，略多于 1 以便 work-stealing 平衡负载 */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /** 扫描过程中检查取消标志的间隔（字节数，须为 2 的幂） */
+    private static final int CANCEL_CHECK_INTERVAL = 1 << 20;
+
+    /** 校验候选行时检查取消标志的间隔（行数，须为 2 的幂） */
+    private static final int CANCEL_CHECK_LINES = 1 << 12;
+
+    /** 查找块边界时的读取缓冲区大小 */
+    private static final int BOUNDARY_PROBE_SIZE = 64 * 1024;
+
+    private MappedLogSearcher() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * 在日志文件中搜索关键字，返回匹配行号（0-based）与总行数。
+     *
+     * @param file     日志文件
+     * @param keywords 关键字列表（原样，内部做大小写折叠）
+     * @param andMode  true=行中须包含全部关键字，false=包含任一即可
+     */
+    public static PodLogFileManager.DiskSearchResult search(Path file, List<String> keywords, boolean andMode)
+            throws IOException {
+        return search(file, keywords, andMode, () -> false);
+    }
+
+    /**
+     * 在日志文件中搜索关键字，支持中途取消。
+     *
+     * @param cancelled 取消标志，返回 true 时所有进行中的分块尽快退出
+     * @throws CancellationException 搜索被取消
+     */
+    public static PodLogFileManager.DiskSearchResult search(Path file, List<String> keywords, boolean andMode,
+                                                            BooleanSupplier cancelled) throws IOException {
+        return searchFile(file, KeywordMatcher.of(keywords).bytes(), andMode, null, cancelled);
+    }
+
+    /**
+     * 按查询表达式搜索日志文件，支持中途取消。
+     *
+     * @param andMode 多个标签之间 true=且，false=或
+     * @throws CancellationException 搜索被取消
+     */
+    public static PodLogFileManager.DiskSearchResult search(Path file, LogQuery query, boolean andMode,
+                                                            BooleanSupplier cancelled) throws IOException {
+        return searchFile(file, prefilterAutomaton(query, andMode), false, verifier(query, andMode), cancelled);
+    }
+
+    private static PodLogFileManager.DiskSearchResult searchFile(Path file, KeywordMatcher.ByteAutomaton dfa,
+                                                                 boolean andMode, Predicate<String> verifier,
+                                                                 BooleanSupplier cancelled) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ChunkResult r = searchRange(ch, 0, ch.size(), dfa, andMode, verifier, cancelled);
+            return new PodLogFileManager.DiskSearchResult(r.matches.toList(), r.lines);
+        }
+    }
+
+    /**
+     * 从 fromOffset（须位于行首）开始搜索到最后一个完整行为止，用于增量续搜。
+     * 末尾尚未写完换行的残行不参与本次扫描，留待下次续搜。
+     *
+     * @param fromOffset 起始字节偏移
+     * @param fromLine   fromOffset 对应的行号，结果行号在此基础上累加
+     * @return 匹配行号为绝对行号；totalLines 为已扫描到的完整行数；endOffset 为下次续搜的起点
+     */
+    public static PodLogFileManager.DiskSearchResult searchFrom(Path file, List<String> keywords, boolean andMode,
+                                                                long fromOffset, int fromLine,
+                                                                BooleanSupplier cancelled) throws IOException {
+        return searchFrom(file, keywords, andMode, fromOffset, Long.MAX_VALUE, fromLine, cancelled);
+    }
+
+    /**
+     * 在 [fromOffset, toOffset) 区间内续搜，只扫描到 toOffset 之前的最后一个完整行。
+     * 用于锁外扫描仍在追加的文件：toOffset 之后新写入的字节不参与本次扫描。
+     *
+     * @param toOffset 扫描上限（不含），超出文件大小时以文件大小为准
+     */
+    public static PodLogFileManager.DiskSearchResult searchFrom(Path file, List<String> keywords, boolean andMode,
+                                                                long fromOffset, long toOffset, int fromLine,
+                                                                BooleanSupplier cancelled) throws IOException {
+        return searchFileFrom(file, KeywordMatcher.of(keywords).bytes(), andMode, null,
+                fromOffset, toOffset, fromLine, cancelled);
+    }
+
+    /**
+     * 按查询表达式从 fromOffset 开始续搜，语义同 {@link #searchFrom(Path, List, boolean, long, int, BooleanSupplier)}。
+     */
+    public static PodLogFileManager.DiskSearchResult searchFrom(Path file, LogQuery query, boolean andMode,
+                                                                long fromOffset, int fromLine,
+                                                                BooleanSupplier cancelled) throws IOException {
+        return searchFrom(file, query, andMode, fromOffset, Long.MAX_VALUE, fromLine, cancelled);
+    }
+
+    /**
+     * 按查询表达式在 [fromOffset, toOffset) 区间内续搜，语义同
+     * {@link #searchFrom(Path, List, boolean, long, long, int, BooleanSupplier)}。
+     */
+    public static PodLogFileManager.DiskSearchResult searchFrom(Path file, LogQuery query, boolean andMode,
+                                                                long fromOffset, long toOffset, int fromLine,
+                                                                BooleanSupplier cancelled) throws IOException {
+        return searchFileFrom(file, prefilterAutomaton(query, andMode), false, verifier(query, andMode),
+                fromOffset, toOffset, fromLine, cancelled);
+    }
+
+    private static PodLogFileManager.DiskSearchResult searchFileFrom(Path file, KeywordMatcher.ByteAutomaton dfa,
+                                                                     boolean andMode, Predicate<String> verifier,
+                                                                     long fromOffset, long toOffset, int fromLine,
+                                                                     BooleanSupplier cancelled) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long end = lastLineEnd(ch, fromOffset, Math.min(toOffset, ch.size()));
+            ChunkResult r = searchRange(ch, fromOffset, end, dfa, andMode, verifier, cancelled);
+            List<Integer> matches = new ArrayList<>(r.matches.size());
+            for (int i = 0; i < r.matches.size(); i++) {
+                matches.add(fromLine + r.matches.get(i));
+            }
+            return new PodLogFileManager.DiskSearchResult(matches, fromLine + r.lines, file, end);
+        }
+    }
+
+    /**
+     * 查询的预筛自动机：按预筛字面量任一匹配筛选候选行；无预筛字面量时为空自动机，每行都是候选行。
+     */
+    private static KeywordMatcher.ByteAutomaton prefilterAutomaton(LogQuery query, boolean andMode) {
+        List<String> literals = query.prefilter(andMode);
+        return KeywordMatcher.of(literals != null ? literals : List.of()).bytes();
+    }
+
+    private static Predicate<String> verifier(LogQuery query, boolean andMode) {
+        return line -> query.matches(line, andMode);
+    }
+
+    /**
+     * 扫描 [from, to) 字节区间：区间足够大时分块并行，否则在调用线程上单线程扫描。
+     *
+     * @param verifier 候选行校验（查询模式），为 null 时自动机匹配即为最终结果
+     */
+    static ChunkResult searchRange(FileChannel ch, long from, long to, KeywordMatcher.ByteAutomaton dfa, boolean andMode,
+                                   Predicate<String> verifier, BooleanSupplier cancelled) throws IOException {
+        ForkJoinPool pool = ExecutorManager.getSearchPool();
+        long[] bounds = chunkBoundaries(ch, from, to, pool.getParallelism());
+        if (bounds.length <= 2) {
+            IntList matches = new IntList();
+            int lines = scan(ch, from, to, dfa, andMode, verifier, matches, cancelled);
+            return new ChunkResult(matches, lines);
+        }
+
+        ChunkResult[] results = new ChunkResult[bounds.length - 1];
+        try {
+            pool.invoke(new ChunkTask(ch, bounds, 0, results.length, dfa, andMode, verifier, cancelled, results));
+        } catch (UncheckedIOException e) {
+            // 跨线程抛出时 ForkJoin 可能包一层同类型异常，沿 cause 链取出原始 IOException
+            Throwable t = e;
+            while (t != null && !(t instanceof IOException)) t = t.getCause();
+            throw t != null ? (IOException) t : new IOException(e);
+        }
+        return merge(results);
+    }
+
+    /**
+     * 合并各块结果：块内行号加上前序块的行数之和。
+     */
+    static ChunkResult merge(ChunkResult[] results) {
+        IntList merged = new IntList();
+        int lineBase = 0;
+        for (ChunkResult r : results) {
+            for (int i = 0; i < r.matches.size(); i++) {
+                merged.add(lineBase + r.matches.get(i));
+            }
+            lineBase += r.lines;
+        }
+        return new ChunkResult(merged, lineBase);
+    }
+
+    /**
+     * 从 size 向前查找最后一个 '\n'（不早于 from），返回其后一个字节的偏移；找不到返回 from。
+     */
+    static long lastLineEnd(FileChannel ch, long from, long size) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(BOUNDARY_PROBE_SIZE);
+        long end = size;
+        while (end > from) {
+            long start = Math.max(from, end - BOUNDARY_PROBE_SIZE);
+            probe.clear();
+            probe.limit((int) (end - start));
+            int n = ch.read(probe, start);
+            if (n <= 0) break;
+            byte[] arr = probe.array();
+            for (int i = n - 1; i >= 0; i--) {
+                if (arr[i] == '\n') return start + i + 1;
+            }
+            end = start;
+        }
+        return from;
+    }
+
+    /**
+     * 计算 [from, to) 区间按换行对齐的分块边界：返回 [from, b1, b2, ..., to]，每个 bi 紧跟在某个 '\n' 之后。
+     * 区间较小时返回 [from, to]，即不分块。
+     */
+    static long[] chunkBoundaries(FileChannel ch, long from, long to, int parallelism) throws IOException {
+        long length = to - from;
+        int chunks = (int) Math.min((long) parallelism * CHUNKS_PER_THREAD, length / MIN_CHUNK_SIZE);
+        if (chunks < 2) return new long[]{from, to};
+
+        long nominal = length / chunks;
+        long[] bounds = new long[chunks + 1];
+        bounds[0] = from;
+        int count = 1;
+        ByteBuffer probe = ByteBuffer.allocate(BOUNDARY_PROBE_SIZE);
+        for (int i = 1; i < chunks; i++) {
+            long probeFrom = Math.max(from + i * nominal, bounds[count - 1]);
+            long boundary = nextLineStart(ch, probeFrom, to, probe);
+            if (boundary >= to) break;
+            if (boundary > bounds[count - 1]) {
+                bounds[count++] = boundary;
+            }
+        }
+        bounds[count++] = to;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    /** 从 from 开始查找下一个 '\n'，返回其后一个字节的偏移；找不到返回 size */
+    private static long nextLineStart(FileChannel ch, long from, long size, ByteBuffer probe) throws IOException {
+        long pos = from;
+        while (pos < size) {
+            probe.clear();
+            int n = ch.read(probe, pos);
+            if (n <= 0) break;
+            byte[] arr = probe.array();
+            for (int i = 0; i < n; i++) {
+                if (arr[i] == '\n') return pos + i + 1;
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    /**
+     * 扫描 [from, to) 字节区间，from 必须位于行首。
+     * 末尾不以换行结束的残行同样计为一行。
+     * <p>
+     * 每行从自动机起始状态开始逐字节转移，行内一旦满足条件即跳过余下字节直到换行。
+     * 给定 verifier 时自动机命中（或自动机为空）的行只是候选行，行尾解码后交给 verifier 确认。
+     *
+     * @param verifier  候选行校验，为 null 时不校验
+     * @param matches   匹配行号输出（相对 from 所在行，从 0 开始）
+     * @param cancelled 取消标志，每扫描 {@link #CANCEL_CHECK_INTERVAL} 字节检查一次
+     * @return 区间内的行数
+     */
+    static int scan(FileChannel ch, long from, long to, KeywordMatcher.ByteAutomaton dfa, boolean andMode,
+                    Predicate<String> verifier, IntList matches, BooleanSupplier cancelled) throws IOException {
+        boolean all = andMode && dfa.keywordCount() > 1;
+        // 空自动机：无校验时不匹配任何行，有校验时每行都是候选行
+        boolean everyLine = dfa.keywordCount() == 0;
+        boolean none = everyLine && verifier == null;
+        long[] seen = all ? dfa.newSeenMask() : null;
+        int line = 0;
+        long windowStart = from;
+        while (windowStart < to) {
+            long windowEnd = Math.min(to, windowStart + MAP_WINDOW_SIZE);
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart);
+            int limit = buf.limit();
+            boolean lastWindow = windowEnd == to;
+
+            int lineStart = 0;
+            int state = dfa.start();
+            boolean matched = everyLine;
+            if (all) Arrays.fill(seen, 0L);
+            for (int pos = 0; pos < limit; pos++) {
+                if ((pos & (CANCEL_CHECK_INTERVAL - 1)) == 0 && cancelled.getAsBoolean()) {
+                    throw new CancellationException("搜索已取消");
+                }
+                byte b = buf.get(pos);
+                if (b == '\n') {
+                    if (matched && !none && verify(buf, lineStart, pos, verifier)) {
+                        matches.add(line);
+                    }
+                    line++;
+                    lineStart = pos + 1;
+                    state = dfa.start();
+                    matched = everyLine;
+                    if (all) Arrays.fill(seen, 0L);
+                    continue;
+                }
+                if (matched) continue;
+                state = dfa.next(state, b);
+                if (dfa.isAccepting(state)) {
+                    matched = !all || dfa.accumulate(state, seen);
+                }
+            }
+
+            if (lineStart < limit) {
+                if (lastWindow || lineStart == 0) {
+                    // 文件末尾残行，或单行超过整个窗口（按窗口边界截断处理）
+                    if (matched && !none && verify(buf, lineStart, limit, verifier)) {
+                        matches.add(line);
+                    }
+                    line++;
+                    lineStart = limit;
+                }
+            }
+            windowStart += lineStart;
+        }
+        return line;
+    }
+
+    /** 解码 [start, end) 字节为一行文本并交给 verifier 校验 */
+    private static boolean verify(MappedByteBuffer buf, int start, int end, Predicate<String> verifier) {
+        if (verifier == null) return true;
+        byte[] bytes = new byte[end - start];
+        buf.get(start, bytes);
+        int len = bytes.length;
+        if (len > 0 && bytes[len - 1] == '\r') len--;
+        return verifier.test(new String(bytes, 0, len, StandardCharsets.UTF_8));
+    }
+
+    // ==================== 候选行校验 ====================
+
+    /**
+     * 只校验候选行：从 fromOffset（第 fromLine 行行首）起顺序数换行，只对候选行运行自动机，
+     * 最后一个候选行之后不再读取。用于词索引已求出部分关键字的交集、其余关键字只能逐行校验的且查询。
+     *
+     * @param candidates 升序候选行号，与 fromLine 同一编号且不小于 fromLine
+     * @param toOffset   校验上限（不含），须位于行首
+     * @param keywords   候选行还须满足的关键字
+     * @param andMode    true=须包含全部 keywords，false=包含任一即可
+     * @return 通过校验的候选行号，升序
+     * @throws CancellationException 搜索被取消
+     */
+    public static List<Integer> matchCandidates(Path file, int[] candidates, long fromOffset, int fromLine,
+                                                long toOffset, List<String> keywords, boolean andMode,
+                                                BooleanSupplier cancelled) throws IOException {
+        KeywordMatcher.ByteAutomaton dfa = KeywordMatcher.of(keywords).bytes();
+        boolean all = andMode && dfa.keywordCount() > 1;
+        long[] seen = all ? dfa.newSeenMask() : null;
+        IntList matches = new IntList();
+        int next = 0;
+        int line = fromLine;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long end = Math.min(toOffset, ch.size());
+            long windowStart = fromOffset;
+            while (next < candidates.length && windowStart < end) {
+                long windowEnd = Math.min(end, windowStart + MAP_WINDOW_SIZE);
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart);
+                int limit = buf.limit();
+                int lineStart = 0;
+                while (lineStart < limit && next < candidates.length) {
+                    if ((line & (CANCEL_CHECK_LINES - 1)) == 0 && cancelled.getAsBoolean()) {
+                        throw new CancellationException("搜索已取消");
+                    }
+                    while (next < candidates.length && candidates[next] < line) next++;
+                    boolean candidate = next < candidates.length && candidates[next] == line;
+                    int state = dfa.start();
+                    boolean matched = false;
+                    if (all) Arrays.fill(seen, 0L);
+                    int pos = lineStart;
+                    byte b;
+                    while (pos < limit && (b = buf.get(pos)) != '\n') {
+                        if (candidate && !matched) {
+                            state = dfa.next(state, b);
+                            if (dfa.isAccepting(state)) {
+                                matched = !all || dfa.accumulate(state, seen);
+                            }
+                        }
+                        pos++;
+                    }
+                    // 行跨越窗口边界时从行首重新映射；单行超过整个窗口时按窗口边界截断处理
+                    if (pos == limit && windowEnd < end && lineStart > 0) break;
+                    if (candidate) {
+                        if (matched) matches.add(line);
+                        next++;
+                    }
+                    line++;
+                    lineStart = pos + 1;
+                }
+                windowStart += Math.min(lineStart, limit);
+            }
+        }
+        return matches.toList();
+    }
+
+    // ==================== 并行分块 ====================
+
+    /** 单个分块的扫描结果：块内相对行号与块内行数 */
+    static final class ChunkResult {
+        final IntList matches;
+        final int lines;
+
+        ChunkResult(IntList matches, int lines) {
+            this.matches = matches;
+            this.lines = lines;
+        }
+    }
+
+    /**
+     * 对 [lo, hi) 号分块二分递归，叶子节点扫描单个分块，结果写入 results 对应下标。
+     */
+    private static final class ChunkTask extends RecursiveTask<Void> {
+        private final FileChannel ch;
+        private final long[] bounds;
+        private final int lo;
+        private final int hi;
+        private final KeywordMatcher.ByteAutomaton dfa;
+        private final boolean andMode;
+        private final Predicate<String> verifier;
+        private final BooleanSupplier cancelled;
+        private final ChunkResult[] results;
+
+        ChunkTask(FileChannel ch, long[] bounds, int lo, int hi, KeywordMatcher.ByteAutomaton dfa, boolean andMode,
+                  Predicate<String> verifier, BooleanSupplier cancelled, ChunkResult[] results) {
+            this.ch = ch;
+            this.bounds = bounds;
+            this.lo = lo;
+            this.hi = hi;
+            this.dfa = dfa;
+            this.andMode = andMode;
+            this.verifier = verifier;
+            this.cancelled = cancelled;
+            this.results = results;
+        }
+
+        @Override
+        protected Void compute() {
+            if (hi - lo == 1) {
+                IntList matches = new IntList();
+                try {
+                    int lines = scan(ch, bounds[lo], bounds[lo + 1], dfa, andMode, verifier, matches, cancelled);
+                    results[lo] = new ChunkResult(matches, lines);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new ChunkTask(ch, bounds, lo, mid, dfa, andMode, verifier, cancelled, results),
+                    new ChunkTask(ch, bounds, mid, hi, dfa, andMode, verifier, cancelled, results));
+            return null;
+        }
+    }
+
+    /**
+     * 轻量 int 列表，避免扫描过程中装箱。
+     */
+    static final class IntList {
+        private int[] data = new int[64];
+        private int size;
+
+        void add(int v) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = v;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int get(int i) {
+            return data[i];
+        }
+
+        List<Integer> toList() {
+            List<Integer> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                list.add(data[i]);
+            }
+            return list;
+        }
+    }
+}
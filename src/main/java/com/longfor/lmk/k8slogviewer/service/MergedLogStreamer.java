@@ -0,0 +1,315 @@
+package com.longfor.lmk.k8slogviewer.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 多 Pod 合并实时日志流。
+ * <p>
+ * 每个 Pod 的日志流（带 timestamps=true）在各自的守护线程上读取，按行解析时间戳后放入该 Pod 自己的有界队列：
+ * 队列写满时只阻塞该 Pod 的读取线程（TCP 背压），一个刷屏的副本不会拖慢其他副本。
+ * <p>
+ * 合并线程对各队列的队首做 k 路归并，按时间戳从小到大输出。某个 Pod 暂时没有数据时，
+ * 只有当它最后一行的时间戳早于候选行时才需要等待，且最多等待重排窗口 {@link #REORDER_WINDOW_MS}，
+ * 安静的 Pod 不会让其他 Pod 的日志停住。
+ * <p>
+ * 输出行去掉时间戳，加上 {@code [pod名] } 前缀，按块交给 consumer。
+ * <p>
+ * 每个 Pod 的 {@link LogResumeState} 由调用方在多次运行间保留：重连时按各 Pod 自己的最后时间戳续传，
+ * 重叠部分的重复行在入队前丢弃。
+ */
+public final class MergedLogStreamer {
+
+    private static final Logger log = LoggerFactory.getLogger(MergedLogStreamer.class);
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger(0);
+
+    /** 重排窗口：等待较慢 Pod 的最长时间 */
+    static final long REORDER_WINDOW_MS = 300;
+
+    /** 每个 Pod 队列的最大行数，超过后阻塞该 Pod 的读取线程 */
+    static final int STREAM_QUEUE_CAPACITY = 4096;
+
+    /** 单个输出块的最大行数 */
+    private static final int MAX_CHUNK_LINES = 1024;
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private static final long NO_TIMESTAMP = LogResumeState.NO_TIMESTAMP;
+
+    /** 按 Pod 打开带时间戳的日志流 */
+    @FunctionalInterface
+    public interface StreamOpener {
+        /**
+         * @param resume 该 Pod 的续传状态，{@link LogResumeState#canResume()} 为 true 时应从其 sinceTime 开始请求
+         */
+        InputStream open(String podName, LogResumeState resume) throws IOException;
+    }
+
+    private final List<PodStream> streams = new ArrayList<>();
+    private final StreamOpener opener;
+    private final Consumer<LogChunk> consumer;
+    private final long windowNanos;
+
+    private volatile boolean cancelled = false;
+    private volatile Thread mergeThread;
+
+    public MergedLogStreamer(List<String> podNames, StreamOpener opener, Consumer<LogChunk> consumer) {
+        this(podNames, new HashMap<>(), opener, consumer);
+    }
+
+    /**
+     * @param resumeStates Pod 名 → 续传状态，缺少的自动创建；同一组 Pod 重连时传入同一个 Map
+     */
+    public MergedLogStreamer(List<String> podNames, Map<String, LogResumeState> resumeStates,
+                             StreamOpener opener, Consumer<LogChunk> consumer) {
+        this(podNames, resumeStates, opener, consumer, REORDER_WINDOW_MS);
+    }
+
+    MergedLogStreamer(List<String> podNames, Map<String, LogResumeState> resumeStates,
+                      StreamOpener opener, Consumer<LogChunk> consumer, long windowMs) {
+        for (int i = 0; i < podNames.size(); i++) {
+            String podName = podNames.get(i);
+            streams.add(new PodStream(i, podName, resumeStates.computeIfAbsent(podName, k -> new LogResumeState())));
+        }
+        this.opener = opener;
+        this.consumer = consumer;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+    }
+
+    // ==================== 单个 Pod 流 ====================
+
+    /** 一行带时间戳的日志 */
+    private static final class TimedLine {
+        final PodStream stream;
+        final long timestamp;
+        final long seq;
+        /** 入队时刻（System.nanoTime），用于重排窗口 */
+        final long arrival;
+        /** 已加前缀、去掉时间戳的行内容（不含换行） */
+        final byte[] bytes;
+
+        TimedLine(PodStream stream, long timestamp, long seq, long arrival, byte[] bytes) {
+            this.stream = stream;
+            this.timestamp = timestamp;
+            this.seq = seq;
+            this.arrival = arrival;
+            this.bytes = bytes;
+        }
+    }
+
+    /** 时间戳相同时按 Pod 顺序、再按行序，保证同一 Pod 内顺序不变 */
+    private static final Comparator<TimedLine> ORDER = Comparator
+            .comparingLong((TimedLine l) -> l.timestamp)
+            .thenComparingInt(l -> l.stream.index)
+            .thenComparingLong(l -> l.seq);
+
+    private final class PodStream {
+        final int index;
+        final String podName;
+        final byte[] prefix;
+        final BlockingQueue<TimedLine> queue = new ArrayBlockingQueue<>(STREAM_QUEUE_CAPACITY);
+        /** 续传状态，只在读取线程访问 */
+        final LogResumeState resume;
+        /** 读取线程已结束（正常结束或出错） */
+        volatile boolean finished = false;
+        volatile IOException error;
+        Thread reader;
+
+        // 以下字段只在合并线程访问
+        /** 当前位于归并堆中的队首行 */
+        TimedLine head;
+        /** 已交给合并线程的最后一行时间戳（同一 Pod 内单调递增） */
+        long lastTimestamp = NO_TIMESTAMP;
+
+        PodStream(int index, String podName, LogResumeState resume) {
+            this.index = index;
+            this.podName = podName;
+            this.resume = resume;
+            this.prefix = ("[" + podName + "] ").getBytes(StandardCharsets.UTF_8);
+        }
+
+        void read() {
+            LogLineFramer framer = new LogLineFramer();
+            long[] lastTs = {NO_TIMESTAMP};
+            long[] seq = {0};
+            byte[] buf = new byte[READ_BUFFER_SIZE];
+            try (InputStream in = opener.open(podName, resume)) {
+                int n;
+                while (!cancelled && (n = in.read(buf)) != -1) {
+                    LogChunk chunk = framer.feed(buf, 0, n);
+                    if (chunk != null) enqueue(chunk, lastTs, seq);
+                }
+                LogChunk tail = framer.finish();
+                if (tail != null && !cancelled) enqueue(tail, lastTs, seq);
+            } catch (IOException e) {
+                if (!cancelled) {
+                    log.warn("Pod {} 日志流读取失败: {}", podName, e.getMessage());
+                    error = e;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                finished = true;
+                wakeMerger();
+            }
+        }
+
+        private void enqueue(LogChunk chunk, long[] lastTs, long[] seq) throws InterruptedException {
+            byte[] data = chunk.data();
+            for (int i = 0; i < chunk.lineCount(); i++) {
+                int start = chunk.lineStart(i);
+                int end = chunk.lineEnd(i);
+                if (end > start && data[end - 1] == '\r') end--;
+                int sp = LogResumeState.timestampEnd(data, start, end);
+                long ts = sp > 0 ? LogResumeState.parseTimestamp(data, start, sp) : NO_TIMESTAMP;
+                // 续传重叠窗口内已收到过的行
+                if (!resume.accept(ts, data, start, end)) continue;
+                if (ts != NO_TIMESTAMP) {
+                    lastTs[0] = ts;
+                    start = Math.min(sp + 1, end);
+                } else {
+                    // 续行（如异常堆栈）沿用上一行的时间戳，保持与上一行相邻
+                    ts = lastTs[0];
+                }
+                byte[] line = new byte[prefix.length + end - start];
+                System.arraycopy(prefix, 0, line, 0, prefix.length);
+                System.arraycopy(data, start, line, prefix.length, end - start);
+                // 队列满时阻塞，只影响本 Pod
+                queue.put(new TimedLine(this, ts, seq[0]++, System.nanoTime(), line));
+                wakeMerger();
+            }
+            // 保留原始块引用，重连时用于重叠窗口去重
+            resume.retain(chunk);
+        }
+    }
+
+    // ==================== 运行 / 取消 ====================
+
+    /**
+     * 启动各 Pod 的读取线程，并在调用线程上执行合并，直到所有流结束或被取消。
+     *
+     * @throws IOException 所有 Pod 的日志流都读取失败时抛出第一个错误
+     */
+    public void run() throws IOException {
+        mergeThread = Thread.currentThread();
+        for (PodStream s : streams) {
+            Thread t = new Thread(s::read, "k8s-merge-" + s.podName + "-" + THREAD_COUNTER.incrementAndGet());
+            t.setDaemon(true);
+            s.reader = t;
+            t.start();
+        }
+        try {
+            merge();
+        } finally {
+            mergeThread = null;
+        }
+        if (cancelled) return;
+        IOException first = null;
+        for (PodStream s : streams) {
+            if (s.error == null) return;
+            if (first == null) first = s.error;
+        }
+        if (first != null) throw first;
+    }
+
+    /** 取消合并：停止合并线程并中断所有读取线程（调用方还应取消对应的 HTTP 请求） */
+    public void cancel() {
+        cancelled = true;
+        for (PodStream s : streams) {
+            Thread t = s.reader;
+            if (t != null) t.interrupt();
+        }
+        wakeMerger();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    private void wakeMerger() {
+        Thread t = mergeThread;
+        if (t != null) LockSupport.unpark(t);
+    }
+
+    // ==================== k 路归并 ====================
+
+    private void merge() {
+        PriorityQueue<TimedLine> heap = new PriorityQueue<>(Math.max(1, streams.size()), ORDER);
+        List<byte[]> out = new ArrayList<>();
+        while (!cancelled) {
+            boolean live = false;
+            for (PodStream s : streams) {
+                if (s.head != null) {
+                    live = true;
+                    continue;
+                }
+                boolean finished = s.finished;
+                TimedLine line = s.queue.poll();
+                if (line != null) {
+                    s.head = line;
+                    heap.add(line);
+                    live = true;
+                } else if (!finished) {
+                    live = true;
+                }
+            }
+            if (!live) break;
+
+            TimedLine head = heap.peek();
+            long wait = head == null ? windowNanos : mustWait(head);
+            if (wait > 0) {
+                // 先把已确定顺序的行交出去，再等待慢的 Pod
+                emit(out);
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            heap.poll();
+            head.stream.head = null;
+            head.stream.lastTimestamp = head.timestamp;
+            out.add(head.bytes);
+            if (out.size() >= MAX_CHUNK_LINES) {
+                emit(out);
+            }
+        }
+        if (!cancelled) emit(out);
+    }
+
+    /**
+     * 候选行还需等待的纳秒数：仍在运行、暂时没有数据、且最后时间戳早于候选行的 Pod 可能还会送来更早的行，
+     * 等到候选行入队满一个重排窗口为止。
+     */
+    private long mustWait(TimedLine head) {
+        boolean blocked = false;
+        for (PodStream s : streams) {
+            if (s.head == null && !s.finished && s.lastTimestamp < head.timestamp) {
+                blocked = true;
+                break;
+            }
+        }
+        if (!blocked) return 0;
+        return head.arrival + windowNanos - System.nanoTime();
+    }
+
+    private void emit(List<byte[]> out) {
+        if (out.isEmpty()) return;
+        consumer.accept(LogChunk.ofLines(out));
+        out.clear();
+    }
+}
@@ -0,0 +1,301 @@
+package com.longfor.lmk.k8slogviewer.service;
+
+import com.google.gson.reflect.TypeToken;
+import com.longfor.lmk.k8slogviewer.config.AppPreferences;
+import com.longfor.lmk.k8slogviewer.model.PodEvent;
+import com.longfor.lmk.k8slogviewer.model.PodFilter;
+import com.longfor.lmk.k8slogviewer.model.PodSummary;
+import com.longfor.lmk.k8slogviewer.utils.ExecutorManager;
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.apis.CoreV1Api;
+import io.kubernetes.client.openapi.models.V1Pod;
+import io.kubernetes.client.openapi.models.V1Status;
+import io.kubernetes.client.util.Watch;
+import okhttp3.Call;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按命名空间监听 Pod 变化的 informer（list + watch）。
+ * <p>
+ * 每个命名空间一个后台循环：先 list 一次得到全量 Pod 与 resourceVersion，与本地缓存比对产生差异事件，
+ * 再从该 resourceVersion 开始 watch，持续接收 ADDED / MODIFIED / DELETED（以及 BOOKMARK 推进版本）。
+ * 连接超时或断开后从最近的 resourceVersion 续接；版本过期（410 Gone）时重新 list。
+ * <p>
+ * 只有 phase 或容器列表真正变化时才产生 MODIFIED 事件，状态无变化的 Pod 更新（如 annotation、心跳）被吞掉。
+ * 事件先进入待发队列，由调度线程每 {@link #DISPATCH_INTERVAL_MS} 毫秒合并后一次性交给 listener
+ * （同一个 Pod 只保留最后一个事件），listener 在调度线程上被调用。
+ */
+public class PodInformer {
+
+    private static final Logger log = LoggerFactory.getLogger(PodInformer.class);
+
+    /** 事件合并下发的间隔 */
+    static final long DISPATCH_INTERVAL_MS = 200;
+
+    /** 单次 watch 请求的服务端超时，到期后从当前 resourceVersion 续接 */
+    private static final int WATCH_TIMEOUT_SECONDS = 300;
+
+    /** 首次重连等待时长，之后按失败次数翻倍 */
+    private static final long INITIAL_BACKOFF_MS = 1000;
+
+    private static final int HTTP_GONE = 410;
+
+    private static final Type WATCH_TYPE = new TypeToken<Watch.Response<V1Pod>>() {}.getType();
+
+    /** Pod 事件回调，在 informer 的调度线程上执行 */
+    @FunctionalInterface
+    public interface Listener {
+        void onPodEvents(List<PodEvent> events);
+    }
+
+    private final ApiClient apiClient;
+    private final CoreV1Api api;
+    private final List<String> namespaces;
+    private final PodFilter filter;
+    private final long maxBackoffMs;
+    private final Listener listener;
+
+    /** namespace → (podName → 最近一次看到的 Pod)，每个命名空间只由自己的循环线程写入 */
+    private final Map<String, Map<String, PodSummary>> store = new ConcurrentHashMap<>();
+
+    private final Queue<PodEvent> pending = new ConcurrentLinkedQueue<>();
+
+    /** 正在进行的 watch，停止时关闭以中断阻塞读取 */
+    private final Map<String, Watch<V1Pod>> activeWatches = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private ExecutorService watchExecutor;
+    private ScheduledExecutorService dispatcher;
+
+    /**
+     * @param apiClient    K8s 客户端（需禁用读取超时）
+     * @param namespaces   监听的命名空间
+     * @param filter       下推到 API Server 的过滤条件（list 与 watch 使用相同的选择器）
+     * @param maxBackoffMs 断线重连的最长等待
+     * @param listener     事件回调
+     */
+    public PodInformer(ApiClient apiClient, List<String> namespaces, PodFilter filter,
+                       long maxBackoffMs, Listener listener) {
+        this.apiClient = apiClient;
+        this.api = apiClient != null ? new CoreV1Api(apiClient) : null;
+        this.namespaces = List.copyOf(namespaces);
+        this.filter = filter != null ? filter : PodFilter.NONE;
+        this.maxBackoffMs = Math.max(INITIAL_BACKOFF_MS, maxBackoffMs);
+        this.listener = listener;
+    }
+
+    public ApiClient getApiClient() {
+        return apiClient;
+    }
+
+    public List<String> getNamespaces() {
+        return namespaces;
+    }
+
+    public PodFilter getFilter() {
+        return filter;
+    }
+
+    // ==================== 生命周期 ====================
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        watchExecutor = ExecutorManager.newDaemonCachedPool("k8s-pod-watch-");
+        for (String ns : namespaces) {
+            watchExecutor.submit(() -> watchLoop(ns));
+        }
+        dispatcher = ExecutorManager.newSingleThreadScheduled("k8s-pod-informer-");
+        dispatcher.scheduleWithFixedDelay(this::dispatch,
+                DISPATCH_INTERVAL_MS, DISPATCH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        log.debug("[Pod 监听] 启动，命名空间={}", namespaces);
+    }
+
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+        for (Watch<V1Pod> watch : activeWatches.values()) {
+            closeQuietly(watch);
+        }
+        activeWatches.clear();
+        if (watchExecutor != null) watchExecutor.shutdownNow();
+        if (dispatcher != null) dispatcher.shutdownNow();
+        watchExecutor = null;
+        dispatcher = null;
+        pending.clear();
+        log.debug("[Pod 监听] 停止，命名空间={}", namespaces);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    // ==================== list + watch 循环 ====================
+
+    private void watchLoop(String ns) {
+        String resourceVersion = null;
+        int failures = 0;
+        while (running) {
+            try {
+                if (resourceVersion == null) {
+                    resourceVersion = relist(ns);
+                }
+                resourceVersion = watch(ns, resourceVersion);
+                failures = 0;
+            } catch (ApiException e) {
+                if (!running) return;
+                if (e.getCode() == HTTP_GONE) {
+                    resourceVersion = null;
+                    continue;
+                }
+                log.info("[Pod 监听] 命名空间[{}] 请求失败: code={}, message={}", ns, e.getCode(), e.getMessage());
+                if (!backoff(++failures)) return;
+            } catch (Exception e) {
+                // 连接断开时 watch 迭代会抛出包装了 IOException 的 RuntimeException
+                if (!running) return;
+                log.debug("[Pod 监听] 命名空间[{}] 连接中断: {}", ns, e.getMessage());
+                if (!backoff(++failures)) return;
+            }
+        }
+    }
+
+    /** 全量分页 list 并与缓存比对，返回列表的 resourceVersion */
+    private String relist(String ns) throws ApiException {
+        List<PodSummary> pods = new ArrayList<>();
+        String resourceVersion = PodLister.listNamespaced(api, ns, filter, AppPreferences.getTreeFetchTimeoutSec(), pods::add);
+        replaceNamespace(ns, pods);
+        return resourceVersion;
+    }
+
+    /**
+     * 从 resourceVersion 开始 watch，直到服务端超时或连接断开。
+     *
+     * @return 最近收到的 resourceVersion；版本过期需要重新 list 时返回 null
+     */
+    private String watch(String ns, String resourceVersion) throws ApiException {
+        Call call = api.listNamespacedPodCall(ns, null, true, null, filter.fieldSelector(), filter.getLabelSelector(),
+                null, resourceVersion, WATCH_TIMEOUT_SECONDS, true, null);
+        Watch<V1Pod> watch = Watch.createWatch(apiClient, call, WATCH_TYPE);
+        activeWatches.put(ns, watch);
+        try {
+            if (!running) return resourceVersion;
+            for (Watch.Response<V1Pod> event : watch) {
+                if (!running) break;
+                if ("ERROR".equals(event.type)) {
+                    V1Status status = event.status;
+                    if (status != null && status.getCode() != null && status.getCode() == HTTP_GONE) {
+                        return null;
+                    }
+                    throw new IllegalStateException("watch error: "
+                            + (status != null ? status.getMessage() : "unknown"));
+                }
+                V1Pod pod = event.object;
+                if (pod == null || pod.getMetadata() == null) continue;
+                String rv = pod.getMetadata().getResourceVersion();
+                if (rv != null) resourceVersion = rv;
+                if ("BOOKMARK".equals(event.type)) continue;
+                PodSummary summary = PodSummary.from(pod);
+                if (summary != null) {
+                    applyWatchEvent(ns, event.type, summary);
+                }
+            }
+        } finally {
+            activeWatches.remove(ns, watch);
+            closeQuietly(watch);
+        }
+        return resourceVersion;
+    }
+
+    /** 按失败次数指数退避，被中断或已停止时返回 false */
+    private boolean backoff(int failures) {
+        long delay = Math.min(maxBackoffMs, INITIAL_BACKOFF_MS << Math.min(failures - 1, 16));
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return running;
+    }
+
+    private static void closeQuietly(Watch<V1Pod> watch) {
+        try {
+            watch.close();
+        } catch (IOException | RuntimeException ignored) {
+            // 关闭已断开的连接可能抛异常，忽略
+        }
+    }
+
+    // ==================== 缓存与差异 ====================
+
+    /** 用一次 list 的结果替换命名空间缓存，产生新增 / 变化 / 删除事件 */
+    void replaceNamespace(String ns, List<PodSummary> pods) {
+        Map<String, PodSummary> previous = store.getOrDefault(ns, Collections.emptyMap());
+        Map<String, PodSummary> next = new HashMap<>(pods.size() * 2);
+        for (PodSummary pod : pods) {
+            next.put(pod.getName(), pod);
+            PodSummary old = previous.get(pod.getName());
+            if (old == null) {
+                pending.add(new PodEvent(PodEvent.Type.ADDED, pod));
+            } else if (!old.sameDisplay(pod)) {
+                pending.add(new PodEvent(PodEvent.Type.MODIFIED, pod));
+            }
+        }
+        for (PodSummary old : previous.values()) {
+            if (!next.containsKey(old.getName())) {
+                pending.add(new PodEvent(PodEvent.Type.DELETED, old));
+            }
+        }
+        store.put(ns, next);
+    }
+
+    /** 应用一个 watch 事件，展示内容无变化时不产生事件 */
+    void applyWatchEvent(String ns, String type, PodSummary pod) {
+        Map<String, PodSummary> pods = store.computeIfAbsent(ns, k -> new HashMap<>());
+        if ("DELETED".equals(type)) {
+            PodSummary removed = pods.remove(pod.getName());
+            if (removed != null) {
+                pending.add(new PodEvent(PodEvent.Type.DELETED, pod));
+            }
+            return;
+        }
+        PodSummary old = pods.put(pod.getName(), pod);
+        if (old == null) {
+            pending.add(new PodEvent(PodEvent.Type.ADDED, pod));
+        } else if (!old.sameDisplay(pod)) {
+            pending.add(new PodEvent(PodEvent.Type.MODIFIED, pod));
+        }
+    }
+
+    /** 取出待发事件，同一个 Pod 只保留最后一个，保持首次出现的顺序 */
+    List<PodEvent> drainPending() {
+        Map<String, PodEvent> latest = new LinkedHashMap<>();
+        PodEvent event;
+        while ((event = pending.poll()) != null) {
+            latest.put(event.getPod().getKey(), event);
+        }
+        return new ArrayList<>(latest.values());
+    }
+
+    private void dispatch() {
+        if (pending.isEmpty()) return;
+        List<PodEvent> events = drainPending();
+        if (events.isEmpty() || !running) return;
+        try {
+            listener.onPodEvents(events);
+        } catch (Exception e) {
+            log.error("[Pod 监听] 事件处理异常", e);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.longfor.lmk.k8slogviewer.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.longfor.lmk.k8slogviewer.model.PodSummary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 流式解析 PodList JSON，只提取 {@link PodSummary} 需要的字段。
+ * <p>
+ * 边读边产出，每个 Pod 解析完立即交给 sink；spec 中的 env、volumes、资源配额等不需要的字段整段跳过，
+ * 不构建 V1Pod 对象树，也不把整页响应读入内存。
+ */
+final class PodListJsonReader {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /** 一页列表的元信息 */
+    static final class ListMeta {
+        private final String resourceVersion;
+        private final String continueToken;
+
+        ListMeta(String resourceVersion, String continueToken) {
+            this.resourceVersion = resourceVersion;
+            this.continueToken = continueToken;
+        }
+
+        String getResourceVersion() {
+            return resourceVersion;
+        }
+
+        /** 下一页的 continue 令牌，最后一页为 null 或空 */
+        String getContinueToken() {
+            return continueToken;
+        }
+    }
+
+    private PodListJsonReader() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * 解析一页 PodList。
+     *
+     * @param in   响应体（由调用方关闭）
+     * @param sink 每解析出一个 Pod 调用一次
+     */
+    static ListMeta read(InputStream in, Consumer<PodSummary> sink) throws IOException {
+        String resourceVersion = null;
+        String continueToken = null;
+        try (JsonParser p = JSON_FACTORY.createParser(in)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("PodList 响应不是 JSON 对象");
+            }
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.getCurrentName();
+                JsonToken value = p.nextToken();
+                if ("metadata".equals(field) && value == JsonToken.START_OBJECT) {
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        String metaField = p.getCurrentName();
+                        p.nextToken();
+                        switch (metaField) {
+                            case "resourceVersion" -> resourceVersion = text(p);
+                            case "continue" -> continueToken = text(p);
+                            default -> p.skipChildren();
+                        }
+                    }
+                } else if ("items".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (p.nextToken() == JsonToken.START_OBJECT) {
+                        PodSummary pod = readPod(p);
+                        if (pod != null) sink.accept(pod);
+                    }
+                } else {
+                    p.skipChildren();
+                }
+            }
+        }
+        return new ListMeta(resourceVersion, continueToken);
+    }
+
+    /** 从当前 START_OBJECT 开始解析一个 Pod，结束于对应的 END_OBJECT */
+    private static PodSummary readPod(JsonParser p) throws IOException {
+        String namespace = null;
+        String name = null;
+        String resourceVersion = null;
+        String phase = null;
+        String nodeName = null;
+        Instant startTime = null;
+        int restartCount = 0;
+        List<String> containers = new ArrayList<>(2);
+        List<String> initContainers = null;
+
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.getCurrentName();
+            JsonToken value = p.nextToken();
+            if (value != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                continue;
+            }
+            switch (field) {
+                case "metadata" -> {
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        String f = p.getCurrentName();
+                        p.nextToken();
+                        switch (f) {
+                            case "name" -> name = text(p);
+                            case "namespace" -> namespace = text(p);
+                            case "resourceVersion" -> resourceVersion = text(p);
+                            default -> p.skipChildren();
+                        }
+                    }
+                }
+                case "spec" -> {
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        String f = p.getCurrentName();
+                        p.nextToken();
+                        switch (f) {
+                            case "nodeName" -> nodeName = text(p);
+                            case "containers" -> readNames(p, containers);
+                            case "initContainers" -> {
+                                initContainers = new ArrayList<>(1);
+                                readNames(p, initContainers);
+                            }
+                            default -> p.skipChildren();
+                        }
+                    }
+                }
+                case "status" -> {
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        String f = p.getCurrentName();
+                        p.nextToken();
+                        switch (f) {
+                            case "phase" -> phase = text(p);
+                            case "startTime" -> startTime = PodSummary.parseTime(text(p));
+                            case "containerStatuses" -> restartCount = sumRestartCounts(p);
+                            default -> p.skipChildren();
+                        }
+                    }
+                }
+                default -> p.skipChildren();
+            }
+        }
+
+        if (name == null) return null;
+        // 普通容器在前，init 容器在后
+        if (initContainers != null) containers.addAll(initContainers);
+        return new PodSummary(namespace, name, phase, containers, resourceVersion, restartCount, nodeName, startTime);
+    }
+
+    /** 读取对象数组中每个元素的 name 字段 */
+    private static void readNames(JsonParser p, List<String> out) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return;
+        }
+        while (p.nextToken() == JsonToken.START_OBJECT) {
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String f = p.getCurrentName();
+                p.nextToken();
+                if ("name".equals(f)) {
+                    String n = text(p);
+                    if (n != null) out.add(n);
+                } else {
+                    p.skipChildren();
+                }
+            }
+        }
+    }
+
+    /** 累加 containerStatuses 中的 restartCount */
+    private static int sumRestartCounts(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return 0;
+        }
+        int total = 0;
+        while (p.nextToken() == JsonToken.START_OBJECT) {
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String f = p.getCurrentName();
+                p.nextToken();
+                if ("restartCount".equals(f) && p.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+                    total += p.getIntValue();
+                } else {
+                    p.skipChildren();
+                }
+            }
+        }
+        return total;
+    }
+
+    private static String text(JsonParser p) throws IOException {
+        return p.currentToken() == JsonToken.VALUE_STRING ? p.getText() : null;
+    }
+}
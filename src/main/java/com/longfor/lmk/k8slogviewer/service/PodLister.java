@@ -0,0 +1,92 @@
+package com.longfor.lmk.k8slogviewer.service;
+
+import com.longfor.lmk.k8slogviewer.model.PodFilter;
+import com.longfor.lmk.k8slogviewer.model.PodSummary;
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.apis.CoreV1Api;
+import okhttp3.Call;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 分页拉取 Pod 列表（limit / continue），过滤条件以标签选择器和字段选择器下推到 API Server。
+ * <p>
+ * 每页响应由 {@link PodListJsonReader} 流式解析为 {@link PodSummary} 交给 sink，不构建 V1Pod 对象，
+ * 内存占用取决于单页大小而不是 Pod 总数。
+ */
+final class PodLister {
+
+    /** 每页 Pod 数 */
+    static final int PAGE_SIZE = 500;
+
+    private PodLister() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * 分页列出单个命名空间的 Pod。
+     *
+     * @param timeoutSec 每页请求的超时，0 表示不限制
+     * @return 列表的 resourceVersion（可用于从该版本开始 watch），服务端未返回时为 null
+     */
+    static String listNamespaced(CoreV1Api api, String namespace, PodFilter filter, int timeoutSec,
+                                 Consumer<PodSummary> sink) throws ApiException {
+        String resourceVersion = null;
+        String cont = null;
+        do {
+            Call call = api.listNamespacedPodCall(namespace, null, null, cont,
+                    filter.fieldSelector(), filter.getLabelSelector(), PAGE_SIZE, null, null, null, null);
+            PodListJsonReader.ListMeta meta = execute(call, timeoutSec, sink);
+            resourceVersion = meta.getResourceVersion();
+            cont = meta.getContinueToken();
+        } while (cont != null && !cont.isEmpty());
+        return resourceVersion;
+    }
+
+    /**
+     * 分页列出所有命名空间的 Pod（一次请求代替 N 次按命名空间请求，需要集群级 list 权限）。
+     *
+     * @param timeoutSec 每页请求的超时，0 表示不限制
+     * @return 列表的 resourceVersion，服务端未返回时为 null
+     */
+    static String listAllNamespaces(CoreV1Api api, PodFilter filter, int timeoutSec,
+                                    Consumer<PodSummary> sink) throws ApiException {
+        String resourceVersion = null;
+        String cont = null;
+        do {
+            Call call = api.listPodForAllNamespacesCall(null, cont, filter.fieldSelector(),
+                    filter.getLabelSelector(), PAGE_SIZE, null, null, null, null, null);
+            PodListJsonReader.ListMeta meta = execute(call, timeoutSec, sink);
+            resourceVersion = meta.getResourceVersion();
+            cont = meta.getContinueToken();
+        } while (cont != null && !cont.isEmpty());
+        return resourceVersion;
+    }
+
+    /** 执行一页请求，响应体边读边解析，不经过 V1PodList 反序列化 */
+    private static PodListJsonReader.ListMeta execute(Call call, int timeoutSec, Consumer<PodSummary> sink)
+            throws ApiException {
+        // 客户端禁用了读取超时（日志长连接需要），列表请求单独设置整体超时
+        if (timeoutSec > 0) {
+            call.timeout().timeout(timeoutSec, TimeUnit.SECONDS);
+        }
+        try (Response response = call.execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful()) {
+                String bodyText = body != null ? body.string() : null;
+                throw new ApiException(response.message(), response.code(),
+                        response.headers().toMultimap(), bodyText);
+            }
+            if (body == null) {
+                throw new ApiException("Pod 列表响应为空");
+            }
+            return PodListJsonReader.read(body.byteStream(), sink);
+        } catch (IOException e) {
+            throw new ApiException(e);
+        }
+    }
+}
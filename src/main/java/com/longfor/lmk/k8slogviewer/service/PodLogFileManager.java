@@ -1,11 +1,11 @@
 package com.longfor.lmk.k8slogviewer.service;
 
 import com.longfor.lmk.k8slogviewer.config.AppPreferences;
+import com.longfor.lmk.k8slogviewer.utils.LogQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.*;
-import java.nio.charset.CodingErrorAction;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.time.Duration;
@@ -14,9 +14,11 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
 import java.util.function.IntConsumer;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static com.longfor.lmk.k8slogviewer.utils.CommonUtils.parseSearchKeywords;
@@ -29,14 +31,21 @@ public class PodLogFileManager {
     // 单例引用，供 LogCleaner 判断当前正在写入的文件
     private static volatile PodLogFileManager instance;
 
-    private BufferedWriter writer;
-    private Path currentLogFile;
+    /** 当前写入的分段会话 */
+    private SegmentedLogStore currentStore;
+    /** 当前会话目录，供 LogCleaner 跨线程判断 */
+    private volatile Path currentSessionDir;
+    /** 最近一次读取的非当前会话（历史会话按需打开，避免重复加载索引） */
+    private SegmentedLogStore cachedReadStore;
     private long lastSizeCheckTime = 0;
     private static final long SIZE_CHECK_INTERVAL_MS = 5000; // 5秒检查一次
 
+    /** 异步批量写入器：流式线程只入队原始字节块，写盘线程在本对象锁内成批写入当前会话 */
+    private final AsyncLogWriter<LogChunk> asyncWriter = new AsyncLogWriter<>(this, this::writeBatch, LogChunk::byteLength);
+
     /**
-     * 文件截断回调：当 checkAndCleanSizeLimit 截断文件后通知监听者。
-     * 参数为被截断的行数（从文件开头删除的行数）。
+     * 文件截断回调：当 checkAndCleanSizeLimit 删除最旧分段后通知监听者。
+     * 参数为被删除的行数（逻辑行号整体前移的行数）。
      */
     private volatile IntConsumer onFileTruncated;
 
@@ -49,8 +58,8 @@ public class PodLogFileManager {
     }
 
     /**
-     * 关闭时清理所有 Pod 的历史日志文件，每个 Pod 只保留最新的一份。
-     * 同时截断保留文件的内容，仅保留最新的 1000 行。
+     * 关闭时清理所有 Pod 的历史日志，每个 Pod 只保留最新的一个会话。
+     * 保留的会话只留下包含最新 1000 行的若干分段（整段删除，不重写数据）。
      * 清理完成后删除所有空目录。
      */
     public void cleanAllButLatest() {
@@ -61,27 +70,28 @@ public class PodLogFileManager {
 
         try (Stream<Path> podDirs = Files.list(podLogRoot)) {
             podDirs.filter(Files::isDirectory).forEach(podDir -> {
-                try (Stream<Path> logFiles = Files.list(podDir)
-                        .filter(p -> p.toString().endsWith(".log"))) {
-
-                    List<Path> files = logFiles.sorted((a, b) ->
-                            Long.compare(b.toFile().lastModified(), a.toFile().lastModified())
-                    ).toList();
+                try {
+                    // 旧版本遗留的单文件日志直接删除
+                    try (Stream<Path> legacy = Files.list(podDir)) {
+                        for (Path file : legacy.filter(p -> p.toString().endsWith(".log")).toList()) {
+                            Files.deleteIfExists(file);
+                            deleteIndexFiles(file);
+                            log.info("关闭清理：删除旧日志 {}", file.getFileName());
+                        }
+                    }
 
-                    // 保留最新的文件，删除其余
-                    for (int i = 1; i < files.size(); i++) {
-                        Files.deleteIfExists(files.get(i));
-                        log.info("关闭清理：删除旧日志 {}", files.get(i).getFileName());
+                    // 保留最新的会话，删除其余
+                    List<Path> sessions = listSessions(podDir);
+                    for (int i = 0; i < sessions.size() - 1; i++) {
+                        SegmentedLogStore.deleteSession(sessions.get(i));
+                        log.info("关闭清理：删除旧日志会话 {}", sessions.get(i).getFileName());
                     }
 
-                    // 截断保留文件，仅保留最新 1000 行
-                    if (!files.isEmpty()) {
-                        Path latestFile = files.get(0);
-                        List<String> allLines = readAllLinesSafe(latestFile);
-                        if (allLines.size() > 1000) {
-                            List<String> recentLines = allLines.subList(allLines.size() - 1000, allLines.size());
-                            Files.write(latestFile, recentLines, StandardOpenOption.TRUNCATE_EXISTING);
-                            log.info("关闭清理：截断 {} 保留最新 1000 行", latestFile.getFileName());
+                    if (!sessions.isEmpty()) {
+                        Path latest = sessions.get(sessions.size() - 1);
+                        SegmentedLogStore store = SegmentedLogStore.open(latest);
+                        if (store != null && store.retainLastLines(1000) > 0) {
+                            log.info("关闭清理：{} 仅保留包含最新 1000 行的分段", latest.getFileName());
                         }
                     }
                 } catch (IOException e) {
@@ -131,127 +141,189 @@ public class PodLogFileManager {
     }
 
     public synchronized void switchPod(String podName) throws IOException {
-        close();
+        closeStore();
 
-        String fileName = String.format("%s_%s.log",
+        String sessionName = String.format("%s_%s",
                 podName,
                 LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")));
 
         Path dir = Paths.get(LOG_ROOT, podName);
         Files.createDirectories(dir);
 
-        this.currentLogFile = dir.resolve(fileName);
-        this.writer = new BufferedWriter(new FileWriter(currentLogFile.toFile(), StandardCharsets.UTF_8, true));
+        long maxBytes = (long) AppPreferences.getMaxLogSizeMB() * 1024 * 1024;
+        this.currentStore = SegmentedLogStore.openWritable(dir.resolve(sessionName),
+                SegmentedLogStore.segmentBytesFor(maxBytes), AppPreferences.isSearchTokenIndexEnabled());
+        this.currentSessionDir = currentStore.getDir();
         this.lastSizeCheckTime = System.currentTimeMillis();
 
         // 切换 Pod 时清理旧文件（按时间）
         cleanOldFiles(dir, Duration.ofDays(2));
     }
 
-    public synchronized void append(String line) {
-        if (writer == null) return;
-        try {
-            writer.write(line);
-            writer.newLine();
-            writer.flush();
-
-            // 定期检查目录总大小
-            long now = System.currentTimeMillis();
-            if (now - lastSizeCheckTime > SIZE_CHECK_INTERVAL_MS) {
-                checkAndCleanSizeLimit();
-                lastSizeCheckTime = now;
-            }
-        } catch (IOException e) {
-            log.error("写入日志失败: {}", e.getMessage());
+    /**
+     * 追加一块日志原始字节：只放入异步写入队列，不加锁、不解码、不做磁盘 IO，由写盘线程成批原样写入。
+     * 头部信息块不写盘。读取、搜索前会先经过 {@link #flush()} 写屏障，保证能读到此前追加的所有行。
+     */
+    public void append(LogChunk chunk) {
+        if (chunk.isHeader()) return;
+        asyncWriter.offer(chunk);
+    }
+
+    /**
+     * 写屏障：把已追加但尚未写盘的行全部写入当前会话。
+     */
+    public void flush() {
+        asyncWriter.flush();
+    }
+
+    /** 在对象锁内写入一批字节块，整批只刷盘一次 */
+    private void writeBatch(List<LogChunk> chunks) throws IOException {
+        if (currentStore == null) return;
+        for (LogChunk chunk : chunks) {
+            currentStore.append(chunk);
+        }
+        currentStore.flush();
+
+        // 定期检查目录总大小
+        long now = System.currentTimeMillis();
+        if (now - lastSizeCheckTime > SIZE_CHECK_INTERVAL_MS) {
+            checkAndCleanSizeLimit();
+            lastSizeCheckTime = now;
         }
     }
 
-    public synchronized void close() {
-        if (writer != null) {
-            try {
-                writer.close();
-            } catch (IOException e) {
-                log.debug("关闭日志写入器时出错", e);
-            }
+    /**
+     * 写完队列并关闭当前会话，然后停止异步写入器的写盘线程（之后追加的日志被忽略）。
+     * 停止写盘线程在对象锁外进行：写盘线程可能正等待这把锁，持锁等待它退出只会白等到超时。
+     */
+    public void close() {
+        synchronized (this) {
+            closeStore();
         }
-        writer = null;
-        currentLogFile = null;
+        asyncWriter.close();
     }
 
-    public Path getCurrentLogFile() {
-        return currentLogFile;
+    /** 写完队列中属于当前会话的行后关闭会话 */
+    private void closeStore() {
+        asyncWriter.flush();
+        if (currentStore != null) {
+            currentStore.close();
+        }
+        currentStore = null;
+        currentSessionDir = null;
+        cachedReadStore = null;
     }
 
     /**
-     * 获取当前正在写入的日志文件路径（静态访问，供 LogCleaner 使用）。
+     * 退出前写完当前实例队列中的日志并关闭会话（静态访问，供应用关闭流程调用）。
      */
-    public static Path getCurrentActiveLogFile() {
-        return instance != null ? instance.currentLogFile : null;
+    public static void closeCurrent() {
+        PodLogFileManager current = instance;
+        if (current != null) {
+            current.close();
+        }
     }
 
     /**
-     * 获取当前 Pod 最近的日志文件路径（按修改时间排序，取最新的）。
+     * 获取当前正在写入的会话目录（静态访问，供 LogCleaner 跳过正在使用的分段）。
      */
-    public Path getLatestLogFile(String podName) {
-        Path dir = Paths.get(LOG_ROOT, podName);
-        if (!Files.exists(dir)) return null;
+    public static Path getCurrentSessionDir() {
+        return instance != null ? instance.currentSessionDir : null;
+    }
 
-        try (Stream<Path> paths = Files.list(dir)) {
-            return paths
-                    .filter(p -> p.toString().endsWith(".log"))
-                    .max((a, b) -> Long.compare(a.toFile().lastModified(), b.toFile().lastModified()))
-                    .orElse(null);
+    /**
+     * 获取 Pod 最新会话的目录（会话目录名带时间戳，按名称排序即按时间排序）。
+     */
+    public Path getLatestSessionDir(String podName) {
+        List<Path> sessions = listSessions(Paths.get(LOG_ROOT, podName));
+        return sessions.isEmpty() ? null : sessions.get(sessions.size() - 1);
+    }
+
+    /**
+     * 获取当前 Pod 最新会话中正在写入（最后一个）的分段文件，供"打开日志文件"使用。
+     */
+    public synchronized Path getLatestLogFile(String podName) {
+        try {
+            SegmentedLogStore store = storeFor(podName);
+            return store != null ? store.getActiveFile() : null;
         } catch (IOException e) {
-            log.warn("列出日志目录失败: {}", dir, e);
+            log.warn("打开日志会话失败: {}", podName, e);
             return null;
         }
     }
 
+    /** 列出 Pod 目录下的分段会话目录，按时间从旧到新排列 */
+    private static List<Path> listSessions(Path podDir) {
+        if (!Files.isDirectory(podDir)) return Collections.emptyList();
+        try (Stream<Path> paths = Files.list(podDir)) {
+            return paths.filter(SegmentedLogStore::isSessionDir)
+                    .sorted(Comparator.comparing(p -> p.getFileName().toString()))
+                    .toList();
+        } catch (IOException e) {
+            log.warn("列出日志目录失败: {}", podDir, e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 获取 Pod 最新会话的存储。当前写入的会话直接使用；历史会话只读打开并缓存，再次访问时追平新增内容。
+     */
+    private SegmentedLogStore storeFor(String podName) throws IOException {
+        asyncWriter.flush();
+        Path dir = getLatestSessionDir(podName);
+        if (dir == null) return null;
+        if (currentStore != null && dir.equals(currentStore.getDir())) {
+            return currentStore;
+        }
+        if (cachedReadStore != null && dir.equals(cachedReadStore.getDir())) {
+            cachedReadStore.refresh();
+            return cachedReadStore;
+        }
+        cachedReadStore = SegmentedLogStore.open(dir);
+        return cachedReadStore;
+    }
+
     /**
-     * 从磁盘日志文件中读取指定行范围的日志（从后往前加载历史）。
+     * 从磁盘日志中读取指定行范围的日志（从后往前加载历史）。
      *
      * @param podName   Pod 名称
-     * @param fromEnd   从文件末尾倒数第几行开始读取（0=最后一行）
+     * @param fromEnd   从末尾倒数第几行开始读取（0=最后一行）
      * @param count     读取的行数
-     * @return          日志行列表，按文件中的顺序（从旧到新）
+     * @return          日志行列表，按写入顺序（从旧到新）
      */
     public synchronized List<String> readLogLinesFromEnd(String podName, int fromEnd, int count) {
-        Path logFile = getLatestLogFile(podName);
-        if (logFile == null) return Collections.emptyList();
-
-        try (Stream<String> lines = linesSafe(logFile)) {
-            List<String> allLines = lines.collect(Collectors.toList());
-            int total = allLines.size();
-            int start = Math.max(0, total - fromEnd - count);
-            int end = total - fromEnd;
+        try {
+            SegmentedLogStore store = storeFor(podName);
+            if (store == null) return Collections.emptyList();
+            long total = store.getLineCount();
+            long start = Math.max(0, total - fromEnd - count);
+            long end = total - fromEnd;
             if (end <= 0 || start >= total) return Collections.emptyList();
-            return new ArrayList<>(allLines.subList(start, end));
+            return store.readLines(start, (int) (end - start));
         } catch (IOException e) {
-            log.warn("读取日志文件失败: {}", logFile, e);
+            log.warn("读取日志文件失败: {}", podName, e);
             return Collections.emptyList();
         }
     }
 
     /**
-     * 获取当前 Pod 最新日志文件的总行数。
+     * 获取当前 Pod 最新会话保留的总行数。
      *
      * @param podName Pod 名称
-     * @return 总行数，文件不存在或读取失败返回 0
+     * @return 总行数，会话不存在或读取失败返回 0
      */
     public synchronized int getLineCount(String podName) {
-        Path logFile = getLatestLogFile(podName);
-        if (logFile == null) return 0;
-
-        try (Stream<String> lines = linesSafe(logFile)) {
-            return (int) lines.count();
+        try {
+            SegmentedLogStore store = storeFor(podName);
+            return store != null ? (int) store.getLineCount() : 0;
         } catch (IOException e) {
-            log.warn("统计日志行数失败: {}", logFile, e);
+            log.warn("统计日志行数失败: {}", podName, e);
             return 0;
         }
     }
 
     /**
-     * 从磁盘日志文件中按行号范围读取日志。
+     * 从磁盘日志中按逻辑行号范围读取日志，可跨越多个分段。
      *
      * @param podName   Pod 名称
      * @param startLine 起始行号（0-based，包含）
@@ -259,76 +331,89 @@ public class PodLogFileManager {
      * @return          日志行列表
      */
     public synchronized List<String> readLogLines(String podName, int startLine, int count) {
-        Path logFile = getLatestLogFile(podName);
-        if (logFile == null) return Collections.emptyList();
-
-        try (Stream<String> lines = linesSafe(logFile)) {
-            List<String> result = lines.skip(startLine).limit(count).collect(Collectors.toList());
-            return result;
+        try {
+            SegmentedLogStore store = storeFor(podName);
+            return store != null ? store.readLines(startLine, count) : Collections.emptyList();
         } catch (IOException e) {
-            log.warn("读取日志文件失败: {}", logFile, e);
+            log.warn("读取日志文件失败: {}", podName, e);
             return Collections.emptyList();
         }
     }
 
     /**
-     * 在磁盘日志文件中搜索关键字，返回所有匹配的行号（0-based）。
+     * 在磁盘日志中搜索关键字，返回所有匹配的行号（0-based）。
      *
      * @param podName Pod 名称
      * @param keyword 搜索关键字
-     * @return 匹配的行号列表，以及文件总行数
+     * @return 匹配的行号列表，以及总行数
+     */
+    public DiskSearchResult searchInLogFile(String podName, String keyword, boolean andMode) {
+        return searchInLogFile(podName, keyword, andMode, () -> false);
+    }
+
+    /**
+     * 在磁盘日志中搜索关键字，支持取消（逐个分段分块并行扫描）。
+     *
+     * @param cancelled 取消标志，返回 true 时中止扫描并返回空结果
+     */
+    public DiskSearchResult searchInLogFile(String podName, String keyword, boolean andMode,
+                                            BooleanSupplier cancelled) {
+        DiskSearchResult result = searchInLogFileFrom(podName, keyword, andMode, null, 0, 0, cancelled);
+        return result != null ? result : new DiskSearchResult(Collections.emptyList(), 0);
+    }
+
+    /**
+     * 从上次搜索到达的位置续搜，只扫描新追加的完整行。
+     * <p>
+     * 续搜起点所在分段已被删除、会话已切换或起点与行索引不一致时返回 null，调用方应改为全量搜索。
+     * 传入 fromFile=null、fromOffset=0、fromLine=0 即为可续搜的全量搜索。
+     * <p>
+     * 对象锁只在刷盘并复制分段区间时持有（{@link SegmentedLogStore#prepareSearch}），扫描在锁外进行，
+     * 长时间的搜索不会阻塞写盘线程，进而不会因写入队列积压反压到日志流读取。
+     *
+     * @param fromFile   上次搜索到达的分段文件
+     * @param fromOffset 上次搜索到达的字节偏移（分段内）
+     * @param fromLine   上次搜索到达的行号
+     * @return 新增部分的匹配行号（绝对行号），结果中 logFile/endOffset/totalLines 为新的续搜起点
      */
-    public synchronized DiskSearchResult searchInLogFile(String podName, String keyword, boolean andMode) {
-        Path logFile = getLatestLogFile(podName);
-        if (logFile == null || keyword == null || keyword.isBlank()) {
+    public DiskSearchResult searchInLogFileFrom(String podName, String keyword, boolean andMode,
+                                                Path fromFile, long fromOffset, int fromLine,
+                                                BooleanSupplier cancelled) {
+        if (keyword == null || keyword.isBlank()) {
             return new DiskSearchResult(Collections.emptyList(), 0);
         }
-
         // 支持多关键字搜索：支持引号语法
         List<String> keywords = parseSearchKeywords(keyword);
-        List<String> lowerKeywords = new ArrayList<>();
-        for (String kw : keywords) {
-            lowerKeywords.add(kw.toLowerCase());
-        }
-        if (lowerKeywords.isEmpty()) {
+        if (keywords.isEmpty()) {
             return new DiskSearchResult(Collections.emptyList(), 0);
         }
+        LogQuery query = LogQuery.isQuery(keyword) ? LogQuery.forSearchKeyword(keyword) : null;
 
-        List<Integer> matchedLines = new ArrayList<>();
-        int totalLines = 0;
-
-        try (Stream<String> lines = linesSafe(logFile)) {
-            Iterable<String> iterable = lines::iterator;
-            for (String line : iterable) {
-                String lowerLine = line.toLowerCase();
-                if (andMode && lowerKeywords.size() > 1) {
-                    // 且模式：行中必须包含所有关键字
-                    boolean allMatch = true;
-                    for (String lowerKw : lowerKeywords) {
-                        if (!lowerLine.contains(lowerKw)) {
-                            allMatch = false;
-                            break;
-                        }
-                    }
-                    if (allMatch) {
-                        matchedLines.add(totalLines);
-                    }
-                } else {
-                    // 或模式：行中包含任一关键字即为匹配
-                    for (String lowerKw : lowerKeywords) {
-                        if (lowerLine.contains(lowerKw)) {
-                            matchedLines.add(totalLines);
-                            break;
-                        }
-                    }
+        try {
+            SegmentedLogStore.PreparedSearch prepared;
+            synchronized (this) {
+                SegmentedLogStore store = storeFor(podName);
+                if (store == null) {
+                    return new DiskSearchResult(Collections.emptyList(), 0);
                 }
-                totalLines++;
+                prepared = store.prepareSearch(keywords, query, andMode, fromFile, fromOffset, fromLine, cancelled);
             }
+            return prepared != null ? prepared.run() : null;
+        } catch (CancellationException e) {
+            log.debug("磁盘搜索已取消: {}", keyword);
+            return new DiskSearchResult(Collections.emptyList(), 0);
         } catch (IOException e) {
-            log.warn("搜索日志文件失败: {}", logFile, e);
+            log.warn("搜索日志文件失败: {}", podName, e);
+            return new DiskSearchResult(Collections.emptyList(), 0);
         }
+    }
 
-        return new DiskSearchResult(matchedLines, totalLines);
+    /**
+     * 删除日志文件的旁路索引（行偏移索引、词索引）。
+     */
+    public static void deleteIndexFiles(Path logFile) throws IOException {
+        Files.deleteIfExists(LineOffsetIndex.indexFileOf(logFile));
+        Files.deleteIfExists(LogTokenIndex.indexFileOf(logFile));
     }
 
     /**
@@ -337,53 +422,45 @@ public class PodLogFileManager {
     public static class DiskSearchResult {
         public final List<Integer> matchedLineNumbers;
         public final int totalLines;
+        /** 被搜索的日志文件，用于续搜时校验文件未切换；不可续搜时为 null */
+        public final Path logFile;
+        /** 本次扫描到达的字节偏移（最后一个完整行之后），下次从此处续搜；不可续搜时为 -1 */
+        public final long endOffset;
 
         public DiskSearchResult(List<Integer> matchedLineNumbers, int totalLines) {
+            this(matchedLineNumbers, totalLines, null, -1);
+        }
+
+        public DiskSearchResult(List<Integer> matchedLineNumbers, int totalLines, Path logFile, long endOffset) {
             this.matchedLineNumbers = matchedLineNumbers;
             this.totalLines = totalLines;
+            this.logFile = logFile;
+            this.endOffset = endOffset;
+        }
+
+        /** 是否可以作为续搜起点 */
+        public boolean isResumable() {
+            return logFile != null && endOffset >= 0;
         }
     }
 
     /**
-     * 检查当前日志文件大小是否超限，超限则清除历史日志，保留最新部分
+     * 检查当前会话总大小是否超限，超限则整段删除最旧的分段
      */
     private void checkAndCleanSizeLimit() {
-        if (currentLogFile == null || writer == null) {
+        if (currentStore == null) {
             return;
         }
 
         try {
-            File file = currentLogFile.toFile();
-            long currentSize = file.length();
             int maxMB = AppPreferences.getMaxLogSizeMB();
             long maxBytes = (long) maxMB * 1024 * 1024;
+            int removedLines = currentStore.trimToSize(maxBytes);
+            if (removedLines > 0) {
+                log.info("日志会话超过 {} MB，已删除最旧分段共 {} 行，剩余 {} 个分段",
+                        maxMB, removedLines, currentStore.getSegmentCount());
 
-            if (currentSize > maxBytes) {
-                log.info("当前日志文件超过 {} MB ({} MB)，清除历史日志: {}", maxMB, currentSize / 1024 / 1024, currentLogFile.getFileName());
-                
-                // 关闭当前 writer
-                writer.close();
-                writer = null;
-                
-                // 读取文件所有行
-                List<String> allLines = readAllLinesSafe(currentLogFile);
-                
-                // 计算需要保留的行数（保留最新的，目标是控制在最大容量的50%左右）
-                int linesToKeep = Math.max(100, allLines.size() / 2);
-                List<String> recentLines = allLines.stream()
-                        .skip(Math.max(0, allLines.size() - linesToKeep))
-                        .toList();
-                
-                // 重新写入文件，只保留最新的日志
-                Files.write(currentLogFile, recentLines, StandardOpenOption.TRUNCATE_EXISTING);
-                
-                // 重新打开 writer
-                writer = new BufferedWriter(new FileWriter(currentLogFile.toFile(), StandardCharsets.UTF_8, true));
-                
-                log.info("已清除历史日志，保留最新 {} 行，当前大小约 {} MB", recentLines.size(), file.length() / 1024 / 1024);
-                
-                // 通知监听者文件已被截断
-                int removedLines = allLines.size() - linesToKeep;
+                // 通知监听者逻辑行号已前移
                 if (onFileTruncated != null) {
                     onFileTruncated.accept(removedLines);
                 }
@@ -394,17 +471,21 @@ public class PodLogFileManager {
     }
 
     /**
-     * 删除超过 retention 的旧文件
+     * 删除超过 retention 的旧会话与旧文件（当前会话除外）
      */
     private void cleanOldFiles(Path dir, Duration retention) {
-        try {
-            Files.list(dir).forEach(path -> {
+        try (Stream<Path> paths = Files.list(dir)) {
+            Instant cutoff = Instant.now().minus(retention);
+            paths.filter(path -> !path.equals(currentSessionDir)).forEach(path -> {
                 try {
-                    File file = path.toFile();
-                    Instant lastModified = Instant.ofEpochMilli(file.lastModified());
-                    Instant cutoff = Instant.now().minus(retention);
-                    if (lastModified.isBefore(cutoff)) {
-                        Files.deleteIfExists(path);
+                    boolean session = Files.isDirectory(path);
+                    long modified = session ? SegmentedLogStore.lastModified(path) : path.toFile().lastModified();
+                    if (Instant.ofEpochMilli(modified).isBefore(cutoff)) {
+                        if (session) {
+                            SegmentedLogStore.deleteSession(path);
+                        } else {
+                            Files.deleteIfExists(path);
+                        }
                     }
                 } catch (IOException e) {
                     log.debug("删除旧文件失败: {}", path, e);
@@ -414,31 +495,4 @@ public class PodLogFileManager {
             log.debug("列出目录失败: {}", dir, e);
         }
     }
-
-    /**
-     * 安全读取文件所有行，遇到非 UTF-8 字节用 � 替代而非抛异常。
-     */
-    private static List<String> readAllLinesSafe(Path file) throws IOException {
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(Files.newInputStream(file),
-                        StandardCharsets.UTF_8.newDecoder()
-                                .onMalformedInput(CodingErrorAction.REPLACE)
-                                .onUnmappableCharacter(CodingErrorAction.REPLACE)))) {
-            return reader.lines().collect(Collectors.toList());
-        }
-    }
-
-    /**
-     * 安全创建按行读取的 Stream，遇到非 UTF-8 字节用 � 替代而非抛异常。
-     */
-    private static Stream<String> linesSafe(Path file) throws IOException {
-        BufferedReader reader = new BufferedReader(
-                new InputStreamReader(Files.newInputStream(file),
-                        StandardCharsets.UTF_8.newDecoder()
-                                .onMalformedInput(CodingErrorAction.REPLACE)
-                                .onUnmappableCharacter(CodingErrorAction.REPLACE)));
-        return reader.lines().onClose(() -> {
-            try { reader.close(); } catch (IOException ignored) {}
-        });
-    }
 }
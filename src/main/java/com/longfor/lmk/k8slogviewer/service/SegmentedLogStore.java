@@ -0,0 +1,676 @@
+package com.longfor.lmk.k8slogviewer.service;
+
+import com.longfor.lmk.k8slogviewer.utils.LogQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Pod 日志会话的分段存储。
+ * <p>
+ * 一个会话对应一个目录，目录下按序号存放分段文件 {@code segment-000000.log}、{@code segment-000001.log} ……，
+ * 清单文件 {@link #MANIFEST_NAME} 记录每个分段的序号与首行的全局行号（自会话开始累计）。
+ * 写入只追加到最后一个分段（活动分段），达到分段大小后封存并滚动到新分段；
+ * 总大小超限时直接删除最旧的分段，不读取也不重写任何日志数据。
+ * <p>
+ * 对外的行号均为<b>逻辑行号</b>：以最旧的保留分段首行为 0。删除最旧分段后逻辑行号整体前移该分段的行数，
+ * 与原先"从文件开头截掉若干行"的语义一致，{@link PodLogFileManager#setOnFileTruncated} 的回调照常生效。
+ * <p>
+ * 每个分段各自维护行偏移索引（{@code .idx}）和可选的词索引（{@code .tidx}）。
+ * 非线程安全，由 {@link PodLogFileManager} 的对象锁保护；只有 {@link PreparedSearch} 可在锁外执行。
+ */
+public class SegmentedLogStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentedLogStore.class);
+
+    /** 清单文件名 */
+    public static final String MANIFEST_NAME = "manifest";
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    /** 按总容量上限划分的目标分段数：超限时每删除一个分段约释放 1/TARGET_SEGMENTS 的空间 */
+    static final int TARGET_SEGMENTS = 8;
+
+    /** 分段最小字节数 */
+    static final long MIN_SEGMENT_BYTES = 1024L * 1024;
+
+    /** 活动分段写入缓冲区大小：批量写入的行在缓冲区内合并，写满或 {@link #flush()} 时才落盘 */
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final Path dir;
+    private final long segmentBytes;
+    private final boolean tokenIndexEnabled;
+    private final List<Segment> segments = new ArrayList<>();
+
+    /** 活动分段的输出流，只读打开的会话为 null */
+    private OutputStream writer;
+    /** 活动分段的词索引，未启用词索引或只读打开时为 null */
+    private LogTokenIndex activeTokenIndex;
+
+    private SegmentedLogStore(Path dir, long segmentBytes, boolean tokenIndexEnabled) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.tokenIndexEnabled = tokenIndexEnabled;
+    }
+
+    /** 单个分段：序号、文件与首行的全局行号 */
+    private static final class Segment {
+        final int seq;
+        final Path file;
+        final long startLine;
+        /** 行偏移索引，封存的分段首次访问时才加载 */
+        LineOffsetIndex index;
+        /** 封存分段的词索引：滚动时由活动分段的索引直接转入，或首次搜索时从旁路文件加载；封存后不再变化 */
+        private LogTokenIndex tokenIndex;
+
+        Segment(int seq, Path file, long startLine) {
+            this.seq = seq;
+            this.file = file;
+            this.startLine = startLine;
+        }
+
+        /** 封存分段的词索引，未缓存时从旁路文件加载（可在存储的锁外调用，index 须已加载） */
+        synchronized LogTokenIndex sealedTokenIndex() throws IOException {
+            if (tokenIndex == null) {
+                tokenIndex = LogTokenIndex.open(file, index);
+            }
+            return tokenIndex;
+        }
+
+        synchronized void setTokenIndex(LogTokenIndex tokenIndex) {
+            this.tokenIndex = tokenIndex;
+        }
+
+        synchronized boolean hasTokenIndex() {
+            return tokenIndex != null;
+        }
+    }
+
+    // ==================== 打开 / 关闭 ====================
+
+    /** 按总容量上限计算分段大小 */
+    public static long segmentBytesFor(long maxBytes) {
+        return Math.max(MIN_SEGMENT_BYTES, maxBytes / TARGET_SEGMENTS);
+    }
+
+    /** 目录是否为分段会话目录（含清单文件） */
+    public static boolean isSessionDir(Path dir) {
+        return Files.isRegularFile(dir.resolve(MANIFEST_NAME));
+    }
+
+    /**
+     * 以写入方式打开会话：目录已有清单时继续追加到最后一个分段，否则新建第一个分段。
+     *
+     * @param segmentBytes      分段大小，活动分段写满后滚动
+     * @param tokenIndexEnabled 是否为新写入的行维护词索引
+     */
+    public static SegmentedLogStore openWritable(Path dir, long segmentBytes, boolean tokenIndexEnabled)
+            throws IOException {
+        Files.createDirectories(dir);
+        SegmentedLogStore store = new SegmentedLogStore(dir, segmentBytes, tokenIndexEnabled);
+        store.loadManifest();
+        if (store.segments.isEmpty()) {
+            store.startSegment(0, 0);
+        } else {
+            store.openActive();
+        }
+        return store;
+    }
+
+    /**
+     * 只读打开已有会话，用于查看非当前写入的历史会话。
+     *
+     * @return 会话不存在或没有任何分段时返回 null
+     */
+    public static SegmentedLogStore open(Path dir) throws IOException {
+        if (!isSessionDir(dir)) return null;
+        SegmentedLogStore store = new SegmentedLogStore(dir, Long.MAX_VALUE, false);
+        store.loadManifest();
+        return store.segments.isEmpty() ? null : store;
+    }
+
+    /** 关闭写入流并持久化活动分段的索引 */
+    public void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.debug("关闭日志写入器时出错", e);
+            }
+            writer = null;
+        }
+        if (!segments.isEmpty() && active().index != null) {
+            active().index.persist();
+        }
+        if (activeTokenIndex != null) {
+            activeTokenIndex.persist();
+            activeTokenIndex = null;
+        }
+    }
+
+    /** 只读会话追平最后一个分段的新增内容 */
+    public void refresh() throws IOException {
+        if (writer == null && !segments.isEmpty() && active().index != null) {
+            active().index.catchUp();
+        }
+    }
+
+    // ==================== 写入 ====================
+
+    /**
+     * 追加一行（不含换行符）到活动分段的写入缓冲区，分段写满后滚动到新分段。
+     * <p>
+     * 不会逐行刷盘：调用方写完一批后调用 {@link #flush()}；读取与搜索前也会自动刷盘。
+     */
+    public void append(byte[] bytes) throws IOException {
+        if (writer == null) return;
+        Segment active = active();
+        writer.write(bytes);
+        writer.write('\n');
+        active.index.onLineWritten(bytes.length + 1L);
+        if (activeTokenIndex != null) {
+            activeTokenIndex.addLine(bytes, 0, bytes.length);
+        }
+        if (active.index.getIndexedBytes() >= segmentBytes) {
+            roll();
+        }
+    }
+
+    /**
+     * 原样追加一块完整行的原始字节到活动分段（整块写入，不解码），按行更新索引，分段写满后滚动。
+     * 一块不会跨分段拆分，分段可能略超出分段大小。
+     */
+    public void append(LogChunk chunk) throws IOException {
+        if (writer == null || chunk.lineCount() == 0) return;
+        Segment active = active();
+        byte[] data = chunk.data();
+        chunk.writeTo(writer);
+        for (int i = 0; i < chunk.lineCount(); i++) {
+            int start = chunk.lineStart(i);
+            int end = chunk.lineEnd(i);
+            active.index.onLineWritten(end - start + 1L);
+            if (activeTokenIndex != null) {
+                activeTokenIndex.addLine(data, start, end - start);
+            }
+        }
+        if (active.index.getIndexedBytes() >= segmentBytes) {
+            roll();
+        }
+    }
+
+    /**
+     * 将缓冲区中的行写入活动分段，并持久化新增的行索引检查点（数据先于索引落盘）。
+     */
+    public void flush() throws IOException {
+        if (writer == null) return;
+        writer.flush();
+        active().index.persist();
+    }
+
+    /** 封存活动分段并开始新分段 */
+    private void roll() throws IOException {
+        Segment sealed = active();
+        writer.close();
+        writer = null;
+        sealed.index.persist();
+        if (activeTokenIndex != null) {
+            activeTokenIndex.persist();
+            // 封存后不再写入，直接作为该分段的缓存索引，无需再从磁盘加载
+            sealed.setTokenIndex(activeTokenIndex);
+            activeTokenIndex = null;
+        }
+        startSegment(sealed.seq + 1, sealed.startLine + sealed.index.getIndexedLineCount());
+        log.debug("日志分段滚动: {} -> {}", sealed.file.getFileName(), active().file.getFileName());
+    }
+
+    private void startSegment(int seq, long startLine) throws IOException {
+        segments.add(new Segment(seq, dir.resolve(segmentName(seq)), startLine));
+        writeManifest();
+        openActive();
+    }
+
+    /** 打开活动分段的写入流与索引 */
+    private void openActive() throws IOException {
+        Segment active = active();
+        boolean hasData = Files.exists(active.file) && Files.size(active.file) > 0;
+        active.index = hasData ? LineOffsetIndex.open(active.file) : LineOffsetIndex.createEmpty(active.file);
+        if (tokenIndexEnabled) {
+            activeTokenIndex = hasData
+                    ? LogTokenIndex.open(active.file, active.index)
+                    : LogTokenIndex.createEmpty(active.file);
+        }
+        writer = new BufferedOutputStream(Files.newOutputStream(active.file,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), WRITE_BUFFER_SIZE);
+    }
+
+    // ==================== 保留策略 ====================
+
+    /**
+     * 总大小超过 maxBytes 时从最旧的分段开始整段删除，最后一个分段始终保留。
+     *
+     * @return 删除的行数，即逻辑行号的前移量；未删除返回 0
+     */
+    public int trimToSize(long maxBytes) throws IOException {
+        flush();
+        long total = 0;
+        for (Segment s : segments) {
+            total += Files.size(s.file);
+        }
+        int removed = 0;
+        while (segments.size() > 1 && total > maxBytes) {
+            Segment oldest = segments.get(0);
+            total -= Files.size(oldest.file);
+            removed += dropOldest();
+        }
+        if (removed > 0) writeManifest();
+        return removed;
+    }
+
+    /**
+     * 删除最旧的分段，直到再删就不足 minLines 行为止（以整段为单位，保留的行数不少于 minLines）。
+     *
+     * @return 删除的行数
+     */
+    public int retainLastLines(long minLines) throws IOException {
+        int removed = 0;
+        while (segments.size() > 1 && getLineCount() - sealedLineCount(0) >= minLines) {
+            removed += dropOldest();
+        }
+        if (removed > 0) writeManifest();
+        return removed;
+    }
+
+    /** 删除最旧的分段文件及其索引，返回其行数 */
+    private int dropOldest() throws IOException {
+        int lines = (int) sealedLineCount(0);
+        Segment oldest = segments.remove(0);
+        oldest.setTokenIndex(null);
+        Files.deleteIfExists(oldest.file);
+        PodLogFileManager.deleteIndexFiles(oldest.file);
+        log.info("删除最旧日志分段 {}（{} 行）", oldest.file.getFileName(), lines);
+        return lines;
+    }
+
+    // ==================== 读取 ====================
+
+    public Path getDir() {
+        return dir;
+    }
+
+    /** 最后一个（活动）分段文件 */
+    public Path getActiveFile() {
+        return segments.isEmpty() ? null : active().file;
+    }
+
+    /** 当前保留的分段数 */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * 保留分段的总行数。最后一个分段末尾未以换行结束的残行也计为一行。
+     */
+    public long getLineCount() throws IOException {
+        if (segments.isEmpty()) return 0;
+        Segment last = active();
+        return last.startLine - baseLine() + index(last).getLineCount();
+    }
+
+    /**
+     * 按逻辑行号读取 [startLine, startLine + count) 范围的行，可跨越多个分段。
+     */
+    public List<String> readLines(long startLine, int count) throws IOException {
+        if (count <= 0 || startLine < 0 || segments.isEmpty()) return Collections.emptyList();
+        flush();
+        long global = baseLine() + startLine;
+        int i = segmentOf(global);
+        if (i < 0) return Collections.emptyList();
+
+        List<String> result = new ArrayList<>(Math.min(count, 4096));
+        for (; i < segments.size() && result.size() < count; i++) {
+            Segment s = segments.get(i);
+            long local = global + result.size() - s.startLine;
+            result.addAll(index(s).readLines(local, count - result.size()));
+        }
+        return result;
+    }
+
+    // ==================== 搜索 ====================
+
+    /**
+     * 搜索全部分段，或从上次到达的位置续搜到最后一个完整行。
+     * 等价于 {@link #prepareSearch} 后立即 {@link PreparedSearch#run()}。
+     *
+     * @param keywords   已解析的关键字（查询模式下为各标签表达式）
+     * @param query      查询模式的查询，普通关键字模式为 null
+     * @param fromFile   续搜起点所在的分段文件，为 null 时搜索全部分段
+     * @param fromOffset 续搜起点在该分段内的字节偏移
+     * @param fromLine   续搜起点的逻辑行号
+     * @return 匹配的逻辑行号，logFile/endOffset 为新的续搜起点；
+     *         续搜起点所在分段已被删除或与行索引不一致时返回 null，调用方应改为全量搜索
+     */
+    public PodLogFileManager.DiskSearchResult search(List<String> keywords, LogQuery query, boolean andMode,
+                                                     Path fromFile, long fromOffset, int fromLine,
+                                                     BooleanSupplier cancelled) throws IOException {
+        PreparedSearch prepared = prepareSearch(keywords, query, andMode, fromFile, fromOffset, fromLine, cancelled);
+        return prepared != null ? prepared.run() : null;
+    }
+
+    /**
+     * 准备一次搜索：刷盘，校验续搜起点，复制要扫描的分段文件、逻辑行号与扫描区间；
+     * 活动分段的词索引仍在随写入变化，在此直接查询（续搜只查新增行）。不扫描任何日志文件。
+     * 封存分段的词索引加载一次后缓存在分段上，分段被保留策略删除时一并丢弃。
+     * <p>
+     * 须在保护本对象的锁内调用，返回的 {@link PreparedSearch} 在锁外执行：
+     * 分段只追加或整段删除，复制时已写入的字节区间之后不会再变化，扫描期间写入可以继续。
+     *
+     * @return 续搜起点所在分段已被删除或与行索引不一致时返回 null，调用方应改为全量搜索
+     */
+    public PreparedSearch prepareSearch(List<String> keywords, LogQuery query, boolean andMode,
+                                        Path fromFile, long fromOffset, int fromLine,
+                                        BooleanSupplier cancelled) throws IOException {
+        if (segments.isEmpty()) {
+            return new PreparedSearch(keywords, query, andMode, cancelled, List.of());
+        }
+        flush();
+        long base = baseLine();
+        int first = 0;
+        long localFrom = 0;
+        long offset = 0;
+        if (fromFile != null) {
+            first = indexOfFile(fromFile);
+            if (first < 0) return null;
+            Segment s = segments.get(first);
+            localFrom = fromLine - (s.startLine - base);
+            if (localFrom < 0 || index(s).offsetOfLine(localFrom) != fromOffset) return null;
+            offset = fromOffset;
+        }
+
+        boolean indexAnd = andMode && keywords.size() > 1;
+        List<SegmentRange> ranges = new ArrayList<>(segments.size() - first);
+        for (int i = first; i < segments.size(); i++) {
+            Segment s = segments.get(i);
+            int lineBase = (int) (s.startLine - base);
+            LineOffsetIndex lineIndex = index(s);
+            SegmentRange range = new SegmentRange(s.file, lineBase, localFrom, offset,
+                    lineIndex.getIndexedBytes(), lineIndex.getIndexedLineCount());
+            if (query == null && s == active() && writer != null && activeTokenIndex != null) {
+                // 续搜时只查询新增行，不遍历整个词典
+                range.partial = activeTokenIndex.queryPartial(keywords, indexAnd, (int) localFrom, cancelled);
+                if (needsCandidateOffset(range.partial, indexAnd)) {
+                    range.candidateOffset = lineIndex.offsetOfLine(range.partial.getLines()[0]);
+                }
+            } else if (query == null && tokenIndexEnabled
+                    && (s.hasTokenIndex() || Files.exists(LogTokenIndex.indexFileOf(s.file)))) {
+                range.sealed = s;
+            }
+            ranges.add(range);
+            offset = 0;
+            localFrom = 0;
+        }
+        return new PreparedSearch(keywords, query, andMode, cancelled, ranges);
+    }
+
+    /** 一个分段在搜索准备时的扫描区间 */
+    private static final class SegmentRange {
+        final Path file;
+        /** 分段首行的逻辑行号 */
+        final int lineBase;
+        /** 分段内从第几行开始计入结果 */
+        final long localFrom;
+        final long fromOffset;
+        /** 准备时已写入的完整行末尾，扫描不越过此处 */
+        final long endOffset;
+        final long lineCount;
+        /** 活动分段词索引的查询结果（分段内行号），没有关键字可由词索引回答时为 null */
+        LogTokenIndex.Partial partial;
+        /** 且查询须逐行校验候选行时，第一个候选行的字节偏移 */
+        long candidateOffset;
+        /** 有词索引的封存分段，在锁外取其缓存的词索引；否则为 null */
+        Segment sealed;
+
+        SegmentRange(Path file, int lineBase, long localFrom, long fromOffset, long endOffset, long lineCount) {
+            this.file = file;
+            this.lineBase = lineBase;
+            this.localFrom = localFrom;
+            this.fromOffset = fromOffset;
+            this.endOffset = endOffset;
+            this.lineCount = lineCount;
+        }
+    }
+
+    /**
+     * 已准备好的搜索，只访问准备时复制的分段区间，可在存储的锁外执行。
+     */
+    public static final class PreparedSearch {
+        private final List<String> keywords;
+        private final LogQuery query;
+        private final boolean andMode;
+        private final BooleanSupplier cancelled;
+        private final List<SegmentRange> ranges;
+
+        private PreparedSearch(List<String> keywords, LogQuery query, boolean andMode,
+                               BooleanSupplier cancelled, List<SegmentRange> ranges) {
+            this.keywords = keywords;
+            this.query = query;
+            this.andMode = andMode;
+            this.cancelled = cancelled;
+            this.ranges = ranges;
+        }
+
+        /**
+         * 逐个分段查询词索引或扫描文件。扫描期间被保留策略删除的分段跳过。
+         *
+         * @return 匹配的逻辑行号，logFile/endOffset 为新的续搜起点
+         * @throws java.util.concurrent.CancellationException 搜索被取消
+         */
+        public PodLogFileManager.DiskSearchResult run() throws IOException {
+            if (ranges.isEmpty()) {
+                return new PodLogFileManager.DiskSearchResult(Collections.emptyList(), 0);
+            }
+            boolean indexAnd = andMode && keywords.size() > 1;
+            List<Integer> matches = new ArrayList<>();
+            SegmentRange last = ranges.get(ranges.size() - 1);
+            long endOffset = last.fromOffset;
+            int endLine = (int) (last.lineBase + last.localFrom);
+            for (SegmentRange r : ranges) {
+                try {
+                    LogTokenIndex.Partial partial = r.partial;
+                    long candidateOffset = r.candidateOffset;
+                    if (partial == null && r.sealed != null) {
+                        partial = r.sealed.sealedTokenIndex()
+                                .queryPartial(keywords, indexAnd, (int) r.localFrom, cancelled);
+                        if (needsCandidateOffset(partial, indexAnd)) {
+                            candidateOffset = r.sealed.index.offsetOfLine(partial.getLines()[0]);
+                        }
+                    }
+                    if (partial != null) {
+                        // 词索引可回答（部分）关键字时只处理其余关键字
+                        for (int line : answer(r, partial, indexAnd, candidateOffset)) {
+                            if (line >= r.localFrom && line < r.lineCount) matches.add(r.lineBase + line);
+                        }
+                        endOffset = r.endOffset;
+                        endLine = (int) (r.lineBase + r.lineCount);
+                    } else {
+                        int scanFromLine = (int) (r.lineBase + r.localFrom);
+                        PodLogFileManager.DiskSearchResult found = query != null
+                                ? MappedLogSearcher.searchFrom(r.file, query, andMode,
+                                        r.fromOffset, r.endOffset, scanFromLine, cancelled)
+                                : MappedLogSearcher.searchFrom(r.file, keywords, andMode,
+                                        r.fromOffset, r.endOffset, scanFromLine, cancelled);
+                        matches.addAll(found.matchedLineNumbers);
+                        endOffset = found.endOffset;
+                        endLine = found.totalLines;
+                    }
+                } catch (NoSuchFileException e) {
+                    log.debug("搜索期间分段已被删除，跳过: {}", r.file.getFileName());
+                }
+            }
+            return new PodLogFileManager.DiskSearchResult(matches, endLine, last.file, endOffset);
+        }
+
+        /**
+         * 合并词索引的部分回答与其余关键字（分段内行号）：
+         * 且查询只对候选行校验其余关键字；或查询扫描其余关键字后与索引结果求并集。
+         */
+        private int[] answer(SegmentRange r, LogTokenIndex.Partial partial, boolean indexAnd,
+                             long candidateOffset) throws IOException {
+            int[] lines = partial.getLines();
+            if (partial.isComplete()) return lines;
+            if (indexAnd) {
+                if (lines.length == 0) return lines;
+                return toArray(MappedLogSearcher.matchCandidates(r.file, lines, candidateOffset, lines[0],
+                        r.endOffset, partial.getRemaining(), true, cancelled));
+            }
+            PodLogFileManager.DiskSearchResult scanned = MappedLogSearcher.searchFrom(r.file, partial.getRemaining(),
+                    false, r.fromOffset, r.endOffset, (int) r.localFrom, cancelled);
+            return LogTokenIndex.union(lines, toArray(scanned.matchedLineNumbers));
+        }
+
+        private static int[] toArray(List<Integer> lines) {
+            int[] out = new int[lines.size()];
+            for (int i = 0; i < out.length; i++) out[i] = lines.get(i);
+            return out;
+        }
+    }
+
+    /** 且查询的部分回答是否还需逐行校验候选行（此时要预先取得第一个候选行的偏移） */
+    private static boolean needsCandidateOffset(LogTokenIndex.Partial partial, boolean indexAnd) {
+        return partial != null && indexAnd && !partial.isComplete() && partial.getLines().length > 0;
+    }
+
+    // ==================== 内部 ====================
+
+    private Segment active() {
+        return segments.get(segments.size() - 1);
+    }
+
+    /** 最旧保留分段首行的全局行号，即逻辑行号 0 */
+    private long baseLine() {
+        return segments.get(0).startLine;
+    }
+
+    /** 第 i 个分段（非最后一个）的行数，由下一个分段的起始行号推得 */
+    private long sealedLineCount(int i) {
+        return segments.get(i + 1).startLine - segments.get(i).startLine;
+    }
+
+    private LineOffsetIndex index(Segment s) throws IOException {
+        if (s.index == null) {
+            s.index = LineOffsetIndex.open(s.file);
+        }
+        return s.index;
+    }
+
+    /** 查找包含全局行号 global 的分段下标，早于最旧分段时返回 -1 */
+    private int segmentOf(long global) {
+        int lo = 0;
+        int hi = segments.size() - 1;
+        if (global < segments.get(0).startLine) return -1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (segments.get(mid).startLine <= global) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    private int indexOfFile(Path file) {
+        for (int i = 0; i < segments.size(); i++) {
+            if (segments.get(i).file.equals(file)) return i;
+        }
+        return -1;
+    }
+
+    private static String segmentName(int seq) {
+        return String.format("%s%06d%s", SEGMENT_PREFIX, seq, SEGMENT_SUFFIX);
+    }
+
+    // ==================== 清单 ====================
+
+    /**
+     * 读取清单。分段文件缺失（被外部清理）时只保留缺失位置之后的连续分段。
+     */
+    private void loadManifest() throws IOException {
+        segments.clear();
+        Path manifest = dir.resolve(MANIFEST_NAME);
+        if (!Files.exists(manifest)) return;
+        for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] parts = line.split("\\s+");
+            try {
+                int seq = Integer.parseInt(parts[0]);
+                long startLine = Long.parseLong(parts[1]);
+                Segment s = new Segment(seq, dir.resolve(segmentName(seq)), startLine);
+                if (Files.exists(s.file)) {
+                    segments.add(s);
+                } else {
+                    segments.clear();
+                }
+            } catch (RuntimeException e) {
+                log.warn("忽略无法解析的分段清单行: {} ({})", line, manifest);
+            }
+        }
+    }
+
+    /** 写入清单（先写临时文件再原子替换） */
+    private void writeManifest() throws IOException {
+        Path manifest = dir.resolve(MANIFEST_NAME);
+        Path tmp = dir.resolve(MANIFEST_NAME + ".tmp");
+        StringBuilder sb = new StringBuilder("# segment startLine\n");
+        for (Segment s : segments) {
+            sb.append(s.seq).append(' ').append(s.startLine).append('\n');
+        }
+        Files.writeString(tmp, sb.toString(), StandardCharsets.UTF_8);
+        Files.move(tmp, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 删除整个会话目录（分段、索引与清单）。
+     */
+    public static void deleteSession(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            for (Path p : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    /**
+     * 会话的最后修改时间：目录下各文件修改时间的最大值（写入分段不会更新目录本身的修改时间）。
+     */
+    public static long lastModified(Path dir) {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.mapToLong(p -> p.toFile().lastModified()).max().orElse(dir.toFile().lastModified());
+        } catch (IOException e) {
+            return dir.toFile().lastModified();
+        }
+    }
+
+    /** 会话目录中是否还有分段文件 */
+    public static boolean hasSegments(Path dir) {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.anyMatch(p -> {
+                String name = p.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            });
+        } catch (IOException e) {
+            return true;
+        }
+    }
+}
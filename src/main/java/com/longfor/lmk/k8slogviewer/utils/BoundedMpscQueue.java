@@ -0,0 +1,215 @@
+package com.longfor.lmk.k8slogviewer.utils;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * 有界的多生产者 / 单消费者无锁队列。
+ * <p>
+ * 容量按"权重"计算（如日志行数），由 weigher 给出每个元素的权重。生产者先 CAS 预占权重再入队，
+ * 入队与出队都不加锁；队满时按 {@link OverflowPolicy} 处理：
+ * <ul>
+ *   <li>{@link OverflowPolicy#BLOCK}：生产者短暂休眠重试，直到消费者腾出空间（被中断时放弃本元素）</li>
+ *   <li>{@link OverflowPolicy#DROP_OLDEST}：生产者从队头淘汰最旧的元素</li>
+ *   <li>{@link OverflowPolicy#DROP_NEWEST}：丢弃本次入队的元素</li>
+ * </ul>
+ * 被丢弃的元素交给 onDrop 回调（在生产者线程执行），并计入丢弃计数。
+ * 单个元素权重超过容量时，只要队列为空仍允许入队，避免永远无法放入。
+ * <p>
+ * 只允许一个消费者线程调用 {@link #drainTo}（多个消费者需由调用方自行互斥）。
+ *
+ * @param <T> 元素类型
+ */
+public final class BoundedMpscQueue<T> {
+
+    /** 队满时的处理策略 */
+    public enum OverflowPolicy {
+        /** 阻塞生产者，直到有空间 */
+        BLOCK,
+        /** 淘汰最旧的元素 */
+        DROP_OLDEST,
+        /** 丢弃新元素 */
+        DROP_NEWEST;
+
+        /** 按名称解析，无法识别时返回 defaultPolicy */
+        public static OverflowPolicy parse(String name, OverflowPolicy defaultPolicy) {
+            if (name == null) return defaultPolicy;
+            try {
+                return valueOf(name.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return defaultPolicy;
+            }
+        }
+    }
+
+    /** BLOCK 策略下生产者每次等待的时长 */
+    private static final long BLOCK_PARK_NANOS = 1_000_000L;
+
+    private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+    private final int capacity;
+    private final ToIntFunction<? super T> weigher;
+    private final Consumer<? super T> onDrop;
+    private volatile OverflowPolicy policy;
+
+    /** 已预占的权重（含已预占但尚未入队的元素） */
+    private final AtomicInteger weight = new AtomicInteger();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong droppedWeight = new AtomicLong();
+    private final AtomicLong blockedCount = new AtomicLong();
+
+    /**
+     * @param capacity 权重容量
+     * @param weigher  元素权重（非负）
+     * @param policy   队满策略
+     * @param onDrop   元素被丢弃时的回调，可为 null
+     */
+    public BoundedMpscQueue(int capacity, ToIntFunction<? super T> weigher,
+                            OverflowPolicy policy, Consumer<? super T> onDrop) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.capacity = capacity;
+        this.weigher = weigher;
+        this.policy = policy;
+        this.onDrop = onDrop;
+    }
+
+    // ==================== 生产者 ====================
+
+    /**
+     * 入队一个元素，队满时按当前策略处理。
+     *
+     * @return 元素是否已入队（DROP_NEWEST 丢弃或 BLOCK 等待被中断时返回 false）
+     */
+    public boolean offer(T element) {
+        int w = Math.max(0, weigher.applyAsInt(element));
+        boolean blocked = false;
+        while (true) {
+            int current = weight.get();
+            if (current == 0 || current + w <= capacity) {
+                if (weight.compareAndSet(current, current + w)) {
+                    queue.offer(element);
+                    return true;
+                }
+                continue;
+            }
+            switch (policy) {
+                case BLOCK -> {
+                    if (!blocked) {
+                        blocked = true;
+                        blockedCount.incrementAndGet();
+                    }
+                    LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+                    if (Thread.currentThread().isInterrupted()) {
+                        drop(element, w);
+                        return false;
+                    }
+                }
+                case DROP_OLDEST -> {
+                    T oldest = queue.poll();
+                    if (oldest != null) {
+                        int ow = Math.max(0, weigher.applyAsInt(oldest));
+                        weight.addAndGet(-ow);
+                        drop(oldest, ow);
+                    } else {
+                        // 权重已被其他生产者预占但元素尚未入队
+                        Thread.onSpinWait();
+                    }
+                }
+                case DROP_NEWEST -> {
+                    drop(element, w);
+                    return false;
+                }
+            }
+        }
+    }
+
+    private void drop(T element, int w) {
+        droppedCount.incrementAndGet();
+        droppedWeight.addAndGet(w);
+        if (onDrop != null) {
+            onDrop.accept(element);
+        }
+    }
+
+    // ==================== 消费者 ====================
+
+    /**
+     * 按入队顺序批量取出最多 maxElements 个元素追加到 out（可复用的缓冲列表），一次性释放权重。
+     *
+     * @return 取出的元素个数
+     */
+    public int drainTo(List<? super T> out, int maxElements) {
+        int n = 0;
+        int drainedWeight = 0;
+        T element;
+        while (n < maxElements && (element = queue.poll()) != null) {
+            out.add(element);
+            drainedWeight += Math.max(0, weigher.applyAsInt(element));
+            n++;
+        }
+        if (drainedWeight > 0) {
+            weight.addAndGet(-drainedWeight);
+        }
+        return n;
+    }
+
+    /** 取出全部元素 */
+    public int drainTo(List<? super T> out) {
+        return drainTo(out, Integer.MAX_VALUE);
+    }
+
+    /** 清空队列（不计入丢弃） */
+    public void clear() {
+        T element;
+        int clearedWeight = 0;
+        while ((element = queue.poll()) != null) {
+            clearedWeight += Math.max(0, weigher.applyAsInt(element));
+        }
+        if (clearedWeight > 0) {
+            weight.addAndGet(-clearedWeight);
+        }
+    }
+
+    // ==================== 配置与统计 ====================
+
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    public void setPolicy(OverflowPolicy policy) {
+        this.policy = policy;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /** 当前队列深度（权重） */
+    public int depth() {
+        return weight.get();
+    }
+
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    /** 累计丢弃的元素个数 */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /** 累计丢弃的权重 */
+    public long getDroppedWeight() {
+        return droppedWeight.get();
+    }
+
+    /** 累计因队满而阻塞过的入队次数 */
+    public long getBlockedCount() {
+        return blockedCount.get();
+    }
+}
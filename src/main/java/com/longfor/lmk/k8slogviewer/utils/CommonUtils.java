@@ -44,12 +44,14 @@ public class CommonUtils {
      *   <li>{@code \0}（标签式 UI 传入，每个标签作为一个完整关键字）</li>
      *   <li>空格（兼容直接输入的简单场景）</li>
      * </ul>
+     * 查询模式（{@link LogQuery#QUERY_MODE_PREFIX} 开头）下返回各标签的原始表达式。
      *
      * @param input 搜索字符串
      * @return 解析后的关键字列表
      */
     public static List<String> parseSearchKeywords(String input) {
         List<String> keywords = new ArrayList<>();
+        if (LogQuery.isQuery(input)) input = input.substring(1);
         if (input == null || input.isBlank()) return keywords;
 
         // 优先按 \0 分隔（标签式 UI）
@@ -20,6 +20,9 @@ public final class ExecutorManager {
     // 通用异步任务线程池（CPU 核数，用于文件下载、树加载等一次性任务）
     private static ExecutorService workerExecutor;
 
+    // 并行搜索 Fork/Join 池（CPU 核数，用于磁盘日志分块并行搜索）
+    private static ForkJoinPool searchPool;
+
     private ExecutorManager() {
         throw new IllegalStateException("Utility class");
     }
@@ -79,6 +82,16 @@ public final class ExecutorManager {
         return workerExecutor;
     }
 
+    /**
+     * 获取并行搜索 Fork/Join 池
+     */
+    public static ForkJoinPool getSearchPool() {
+        if (searchPool == null || searchPool.isShutdown()) {
+            searchPool = newSearchPool();
+        }
+        return searchPool;
+    }
+
     /**
      * 提交异步任务到工作线程池
      */
@@ -117,9 +130,11 @@ public final class ExecutorManager {
         shutdownExecutor(debounceExecutor);
         shutdownExecutor(logFlushExecutor);
         shutdownExecutor(workerExecutor);
+        shutdownExecutor(searchPool);
         debounceExecutor = null;
         logFlushExecutor = null;
         workerExecutor = null;
+        searchPool = null;
     }
 
     private static void shutdownExecutor(ExecutorService executor) {
@@ -149,6 +164,17 @@ public final class ExecutorManager {
         });
     }
 
+    /**
+     * 创建按需扩容的守护线程池（公开，供长连接等会长期占用线程的任务使用，避免占满通用工作线程池）。
+     */
+    public static ExecutorService newDaemonCachedPool(String prefix) {
+        return Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, prefix + POOL_COUNTER.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
     private static ExecutorService newWorkerPool() {
         int cores = Runtime.getRuntime().availableProcessors();
         return Executors.newFixedThreadPool(cores, r -> {
@@ -157,4 +183,14 @@ public final class ExecutorManager {
             return t;
         });
     }
+
+    private static ForkJoinPool newSearchPool() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return new ForkJoinPool(cores, pool -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            t.setName("k8s-search-" + POOL_COUNTER.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, null, false);
+    }
 }
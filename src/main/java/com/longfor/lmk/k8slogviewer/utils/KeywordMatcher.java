@@ -0,0 +1,377 @@
+package com.longfor.lmk.k8slogviewer.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static com.longfor.lmk.k8slogviewer.utils.CommonUtils.parseSearchKeywords;
+
+/**
+ * 大小写不敏感的多关键字匹配器（Aho-Corasick 自动机）。
+ * <p>
+ * 一组关键字编译一次，之后每行只需扫描一遍即可得到所有关键字的全部匹配，
+ * 与关键字个数无关。同一关键字串的匹配器按 LRU 缓存，磁盘搜索与高亮共用。
+ * <ul>
+ *   <li>字符自动机：逐字符 {@link Character#toLowerCase(char)} 折叠，用于高亮与内存中的行匹配，位置与原文一致</li>
+ *   <li>字节自动机（{@link #bytes()}）：在 UTF-8 原始字节上运行的完整 DFA，ASCII 字母大小写折叠，用于磁盘扫描</li>
+ * </ul>
+ * 实例不可变，可在多线程间共享。
+ */
+public final class KeywordMatcher implements LineMatcher {
+
+    /** 匹配器缓存容量 */
+    private static final int CACHE_SIZE = 64;
+
+    private static final Map<String, KeywordMatcher> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, KeywordMatcher> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private static final KeywordMatcher EMPTY = new KeywordMatcher(Collections.emptyList());
+
+    private final List<String> keywords;
+    private final int[] keywordLengths;
+
+    // ==================== 字符自动机 ====================
+
+    /** 每个状态的出边标签（升序）与目标状态 */
+    private final char[][] edgeLabels;
+    private final int[][] edgeTargets;
+    private final int[] fail;
+    /** 每个状态结束的关键字下标（已沿失败链合并） */
+    private final int[][] outputs;
+
+    /** 字节自动机，首次用于磁盘扫描时构建 */
+    private volatile ByteAutomaton byteAutomaton;
+
+    private KeywordMatcher(List<String> keywords) {
+        this.keywords = List.copyOf(keywords);
+        this.keywordLengths = new int[keywords.size()];
+
+        // 1. 构建 trie
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<List<Integer>> out = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        out.add(new ArrayList<>());
+        for (int k = 0; k < keywords.size(); k++) {
+            String kw = keywords.get(k);
+            keywordLengths[k] = kw.length();
+            int state = 0;
+            for (int i = 0; i < kw.length(); i++) {
+                char c = Character.toLowerCase(kw.charAt(i));
+                Integer next = trie.get(state).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    out.add(new ArrayList<>());
+                    trie.get(state).put(c, next);
+                }
+                state = next;
+            }
+            out.get(state).add(k);
+        }
+
+        int n = trie.size();
+        edgeLabels = new char[n][];
+        edgeTargets = new int[n][];
+        for (int s = 0; s < n; s++) {
+            TreeMap<Character, Integer> edges = trie.get(s);
+            edgeLabels[s] = new char[edges.size()];
+            edgeTargets[s] = new int[edges.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> e : edges.entrySet()) {
+                edgeLabels[s][i] = e.getKey();
+                edgeTargets[s][i] = e.getValue();
+                i++;
+            }
+        }
+
+        // 2. BFS 计算失败链并合并输出
+        fail = new int[n];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int t : edgeTargets[0]) {
+            queue.add(t);
+        }
+        while (!queue.isEmpty()) {
+            int s = queue.poll();
+            for (int i = 0; i < edgeLabels[s].length; i++) {
+                char c = edgeLabels[s][i];
+                int t = edgeTargets[s][i];
+                int f = fail[s];
+                int g;
+                while ((g = gotoState(f, c)) < 0 && f != 0) {
+                    f = fail[f];
+                }
+                fail[t] = g >= 0 && g != t ? g : 0;
+                out.get(t).addAll(out.get(fail[t]));
+                queue.add(t);
+            }
+        }
+        outputs = new int[n][];
+        for (int s = 0; s < n; s++) {
+            outputs[s] = out.get(s).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    // ==================== 获取实例 ====================
+
+    /**
+     * 获取搜索栏关键字串（'\0' 分隔或引号语法，见 {@link CommonUtils#parseSearchKeywords}）对应的匹配器。
+     */
+    public static KeywordMatcher forSearchKeyword(String searchKeyword) {
+        if (searchKeyword == null || searchKeyword.isBlank()) return EMPTY;
+        synchronized (CACHE) {
+            KeywordMatcher cached = CACHE.get(searchKeyword);
+            if (cached != null) return cached;
+        }
+        return cache(searchKeyword, parseSearchKeywords(searchKeyword));
+    }
+
+    /**
+     * 获取已解析关键字列表对应的匹配器，空关键字会被忽略。
+     */
+    public static KeywordMatcher of(List<String> keywords) {
+        List<String> filtered = new ArrayList<>(keywords.size());
+        for (String kw : keywords) {
+            if (kw != null && !kw.isEmpty()) filtered.add(kw);
+        }
+        if (filtered.isEmpty()) return EMPTY;
+        String key = String.join("\0", filtered);
+        synchronized (CACHE) {
+            KeywordMatcher cached = CACHE.get(key);
+            if (cached != null) return cached;
+        }
+        return cache(key, filtered);
+    }
+
+    private static KeywordMatcher cache(String key, List<String> keywords) {
+        // 编译放在锁外，重复编译的代价远小于阻塞其他线程
+        KeywordMatcher matcher = keywords.isEmpty() ? EMPTY : new KeywordMatcher(keywords);
+        synchronized (CACHE) {
+            CACHE.putIfAbsent(key, matcher);
+            return CACHE.get(key);
+        }
+    }
+
+    // ==================== 字符匹配 ====================
+
+    public List<String> getKeywords() {
+        return keywords;
+    }
+
+    @Override
+    public int size() {
+        return keywords.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return keywords.isEmpty();
+    }
+
+    /**
+     * 扫描文本，按结束位置顺序回调所有关键字的所有匹配（含重叠匹配）。
+     */
+    @Override
+    public void forEachMatch(CharSequence text, MatchConsumer consumer) {
+        if (keywords.isEmpty()) return;
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = step(state, Character.toLowerCase(text.charAt(i)));
+            for (int k : outputs[state]) {
+                consumer.accept(i + 1 - keywordLengths[k], i + 1, k);
+            }
+        }
+    }
+
+    /**
+     * 判断文本是否满足关键字条件。
+     *
+     * @param andMode true=须包含全部关键字，false=包含任一即可
+     */
+    @Override
+    public boolean matches(CharSequence text, boolean andMode) {
+        if (keywords.isEmpty()) return false;
+        boolean all = andMode && keywords.size() > 1;
+        boolean[] seen = all ? new boolean[keywords.size()] : null;
+        int remaining = keywords.size();
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = step(state, Character.toLowerCase(text.charAt(i)));
+            int[] hit = outputs[state];
+            if (hit.length == 0) continue;
+            if (!all) return true;
+            for (int k : hit) {
+                if (!seen[k]) {
+                    seen[k] = true;
+                    if (--remaining == 0) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private int step(int state, char c) {
+        while (true) {
+            int next = gotoState(state, c);
+            if (next >= 0) return next;
+            if (state == 0) return 0;
+            state = fail[state];
+        }
+    }
+
+    private int gotoState(int state, char c) {
+        int idx = Arrays.binarySearch(edgeLabels[state], c);
+        return idx >= 0 ? edgeTargets[state][idx] : -1;
+    }
+
+    // ==================== 字节匹配 ====================
+
+    /**
+     * 获取在 UTF-8 字节上运行的自动机（首次调用时构建）。
+     */
+    public ByteAutomaton bytes() {
+        ByteAutomaton automaton = byteAutomaton;
+        if (automaton == null) {
+            automaton = new ByteAutomaton(keywords);
+            byteAutomaton = automaton;
+        }
+        return automaton;
+    }
+
+    /** ASCII 大写字母转小写，其余字节原样返回 */
+    public static byte fold(byte b) {
+        return (b >= 'A' && b <= 'Z') ? (byte) (b | 0x20) : b;
+    }
+
+    /**
+     * 字节级完整 DFA：每个状态对 256 个字节值都有确定转移，扫描时每字节一次查表。
+     * 每个状态的输出以关键字位图表示（每 64 个关键字一个 long）。
+     * 关键字与输入都只经 {@link #fold(byte)} 折叠 ASCII 字母，两侧规则一致；
+     * 非 ASCII 字符（含 Ä、П 等带大小写的字母）按 UTF-8 字节精确匹配。
+     */
+    public static final class ByteAutomaton {
+        private final int keywordCount;
+        private final int words;
+        /** 转移表：delta[state * 256 + (b & 0xFF)] */
+        private final int[] delta;
+        /** 输出位图：outMask[state * words + w] */
+        private final long[] outMask;
+        private final boolean[] accepting;
+
+        ByteAutomaton(List<String> keywords) {
+            this.keywordCount = keywords.size();
+            this.words = Math.max(1, (keywordCount + 63) >>> 6);
+
+            List<int[]> gotoTable = new ArrayList<>();
+            gotoTable.add(newRow());
+            List<long[]> masks = new ArrayList<>();
+            masks.add(new long[words]);
+            for (int k = 0; k < keywordCount; k++) {
+                byte[] bytes = keywords.get(k).getBytes(StandardCharsets.UTF_8);
+                int state = 0;
+                for (byte raw : bytes) {
+                    int b = fold(raw) & 0xFF;
+                    if (gotoTable.get(state)[b] < 0) {
+                        gotoTable.get(state)[b] = gotoTable.size();
+                        gotoTable.add(newRow());
+                        masks.add(new long[words]);
+                    }
+                    state = gotoTable.get(state)[b];
+                }
+                masks.get(state)[k >>> 6] |= 1L << (k & 63);
+            }
+
+            int n = gotoTable.size();
+            delta = new int[n * 256];
+            outMask = new long[n * words];
+            accepting = new boolean[n];
+            int[] failLink = new int[n];
+
+            // BFS：未定义的转移取失败状态的转移，得到完整 DFA
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            for (int b = 0; b < 256; b++) {
+                int t = gotoTable.get(0)[b];
+                if (t > 0) {
+                    delta[b] = t;
+                    queue.add(t);
+                }
+            }
+            copyMask(masks.get(0), 0);
+            while (!queue.isEmpty()) {
+                int s = queue.poll();
+                long[] mask = masks.get(s);
+                long[] failMask = masks.get(failLink[s]);
+                for (int w = 0; w < words; w++) mask[w] |= failMask[w];
+                copyMask(mask, s);
+                for (int b = 0; b < 256; b++) {
+                    int t = gotoTable.get(s)[b];
+                    if (t > 0) {
+                        failLink[t] = delta[failLink[s] * 256 + b];
+                        delta[s * 256 + b] = t;
+                        queue.add(t);
+                    } else {
+                        delta[s * 256 + b] = delta[failLink[s] * 256 + b];
+                    }
+                }
+            }
+        }
+
+        private static int[] newRow() {
+            int[] row = new int[256];
+            Arrays.fill(row, -1);
+            return row;
+        }
+
+        private void copyMask(long[] mask, int state) {
+            boolean any = false;
+            for (int w = 0; w < words; w++) {
+                outMask[state * words + w] = mask[w];
+                any |= mask[w] != 0;
+            }
+            accepting[state] = any;
+        }
+
+        /** 起始状态 */
+        public int start() {
+            return 0;
+        }
+
+        /** 读入一个字节后的状态（调用方无需预先折叠大小写） */
+        public int next(int state, byte b) {
+            return delta[(state << 8) | (fold(b) & 0xFF)];
+        }
+
+        /** 该状态是否有关键字结束 */
+        public boolean isAccepting(int state) {
+            return accepting[state];
+        }
+
+        public int keywordCount() {
+            return keywordCount;
+        }
+
+        /** 创建与 {@link #accumulate} 配合使用的已见关键字位图 */
+        public long[] newSeenMask() {
+            return new long[words];
+        }
+
+        /**
+         * 将状态的输出并入 seen 位图。
+         *
+         * @return 是否已见到全部关键字
+         */
+        public boolean accumulate(int state, long[] seen) {
+            boolean all = true;
+            int base = state * words;
+            for (int w = 0; w < words; w++) {
+                seen[w] |= outMask[base + w];
+                long full = w == words - 1 && (keywordCount & 63) != 0
+                        ? (1L << (keywordCount & 63)) - 1 : -1L;
+                if (seen[w] != full) all = false;
+            }
+            return all;
+        }
+    }
+}
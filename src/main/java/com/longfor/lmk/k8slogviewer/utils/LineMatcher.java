@@ -0,0 +1,50 @@
+package com.longfor.lmk.k8slogviewer.utils;
+
+/**
+ * 搜索栏条件的行匹配器，磁盘搜索、增量搜索与高亮共用。
+ * <ul>
+ *   <li>{@link KeywordMatcher}：普通模式，多关键字子串匹配</li>
+ *   <li>{@link LogQuery}：正则/查询模式，每个标签是一条查询表达式</li>
+ * </ul>
+ * 实现均不可变，可在多线程间共享。
+ */
+public interface LineMatcher {
+
+    /** 匹配回调 */
+    @FunctionalInterface
+    interface MatchConsumer {
+        /**
+         * @param start        匹配起始位置（含）
+         * @param end          匹配结束位置（不含）
+         * @param keywordIndex 关键字（标签）下标，用于分配高亮颜色
+         */
+        void accept(int start, int end, int keywordIndex);
+    }
+
+    /**
+     * 获取搜索栏关键字串对应的匹配器：以 {@link LogQuery#QUERY_MODE_PREFIX} 开头时为查询模式，否则为普通关键字模式。
+     */
+    static LineMatcher forSearchKeyword(String searchKeyword) {
+        if (LogQuery.isQuery(searchKeyword)) {
+            return LogQuery.forSearchKeyword(searchKeyword);
+        }
+        return KeywordMatcher.forSearchKeyword(searchKeyword);
+    }
+
+    /** 关键字（标签）个数 */
+    int size();
+
+    boolean isEmpty();
+
+    /**
+     * 判断一行文本是否满足条件。
+     *
+     * @param andMode true=须满足全部关键字（标签），false=满足任一即可
+     */
+    boolean matches(CharSequence text, boolean andMode);
+
+    /**
+     * 回调文本中所有可高亮的匹配区间。
+     */
+    void forEachMatch(CharSequence text, MatchConsumer consumer);
+}
@@ -0,0 +1,86 @@
+package com.longfor.lmk.k8slogviewer.utils;
+
+import org.fxmisc.richtext.model.StyleSpans;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 单行高亮结果的缓存，键为行字符串实例（身份）+ 当前关键字与且/或模式。
+ * <p>
+ * 视图中的行字符串由行模型持有，同一行在多次重算高亮时是同一个实例，命中后直接复用上次的 StyleSpans，
+ * 只有新进入视图的行才需要计算。关键字或模式变化时整体失效。
+ * 容量按两代淘汰：当前代满了就丢弃上一代，近期访问过的行会被提升到当前代。
+ * <p>
+ * 只在 JavaFX 线程访问，不是线程安全的。
+ */
+public final class LineSpanCache {
+
+    private final int generationSize;
+
+    private Map<String, StyleSpans<Collection<String>>> current = new IdentityHashMap<>();
+    private Map<String, StyleSpans<Collection<String>>> previous = new IdentityHashMap<>();
+    private String keyword;
+    private boolean andMode;
+
+    private long hits;
+    private long misses;
+
+    /**
+     * @param generationSize 每一代最多缓存的行数（建议不小于视图窗口行数）
+     */
+    public LineSpanCache(int generationSize) {
+        if (generationSize <= 0) throw new IllegalArgumentException("generationSize must be positive: " + generationSize);
+        this.generationSize = generationSize;
+    }
+
+    /**
+     * 获取一行的高亮样式，未命中时计算并缓存。
+     *
+     * @param line          行内容（不含换行符），按实例身份缓存
+     * @param searchKeyword 搜索关键字
+     * @param andMode       且/或模式
+     */
+    public StyleSpans<Collection<String>> get(String line, String searchKeyword, boolean andMode) {
+        if (!Objects.equals(keyword, searchKeyword) || this.andMode != andMode) {
+            invalidate();
+            keyword = searchKeyword;
+            this.andMode = andMode;
+        }
+
+        StyleSpans<Collection<String>> spans = current.get(line);
+        if (spans == null) {
+            spans = previous.remove(line);
+            if (spans == null) {
+                misses++;
+                spans = LogStyleUtil.computeHighlighting(false, line, searchKeyword, andMode);
+            } else {
+                hits++;
+            }
+            if (current.size() >= generationSize) {
+                previous = current;
+                current = new IdentityHashMap<>();
+            }
+            current.put(line, spans);
+        } else {
+            hits++;
+        }
+        return spans;
+    }
+
+    /** 清空缓存 */
+    public void invalidate() {
+        current.clear();
+        previous.clear();
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+}
@@ -2,6 +2,7 @@ package com.longfor.lmk.k8slogviewer.utils;
 
 import com.longfor.lmk.k8slogviewer.config.AppPreferences;
 import com.longfor.lmk.k8slogviewer.service.PodLogFileManager;
+import com.longfor.lmk.k8slogviewer.service.SegmentedLogStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -93,6 +94,7 @@ public final class LogCleaner {
                                 Instant lastModified = Instant.ofEpochMilli(f.lastModified());
                                 if (lastModified.isBefore(cutoffInstant)) {
                                     Files.deleteIfExists(logFile);
+                                    PodLogFileManager.deleteIndexFiles(logFile);
                                     log.info("删除过期 Pod 日志: {}", logFile.getFileName());
                                 }
                             } catch (IOException e) {
@@ -101,6 +103,20 @@ public final class LogCleaner {
                         });
             }
 
+            // 分段全部过期的会话只剩清单文件，一并删除以便清理空目录
+            try (Stream<Path> walk = Files.walk(podLogRoot)) {
+                walk.filter(p -> p.getFileName().toString().equals(SegmentedLogStore.MANIFEST_NAME))
+                        .filter(p -> !isActiveLogFile(p))
+                        .filter(p -> !SegmentedLogStore.hasSegments(p.getParent()))
+                        .forEach(manifest -> {
+                            try {
+                                Files.deleteIfExists(manifest);
+                            } catch (IOException e) {
+                                log.warn("删除分段清单失败: {}", manifest);
+                            }
+                        });
+            }
+
             // 删除空目录：按深度逆序（深层先删），确保嵌套空目录能删干净
             try (Stream<Path> walk = Files.walk(podLogRoot)) {
                 walk.filter(Files::isDirectory)
@@ -121,9 +137,10 @@ public final class LogCleaner {
         }
     }
 
+    /** 是否属于当前正在写入的日志会话 */
     private static boolean isActiveLogFile(Path path) {
-        Path activeFile = PodLogFileManager.getCurrentActiveLogFile();
-        return activeFile != null && path.toAbsolutePath().equals(activeFile.toAbsolutePath());
+        Path sessionDir = PodLogFileManager.getCurrentSessionDir();
+        return sessionDir != null && path.toAbsolutePath().startsWith(sessionDir.toAbsolutePath());
     }
 
     private static boolean isEmptyDir(Path dir) {
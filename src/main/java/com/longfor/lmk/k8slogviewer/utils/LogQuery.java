@@ -0,0 +1,665 @@
+package com.longfor.lmk.k8slogviewer.utils;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 正则/查询模式的行匹配器。
+ * <p>
+ * 搜索栏开启正则模式后，每个标签是一条查询表达式，编译一次为匹配树并按 LRU 缓存：
+ * <pre>
+ *   took \d{4,}ms                          裸词按正则处理，空格分隔的多个词隐式 AND
+ *   "connection reset"                     引号内为字面量
+ *   /took \d{4,}ms/                        斜杠内为完整正则，可包含空格
+ *   status=5\d\d   level:ERROR             字段匹配 key[:=]value；level 字段同时匹配独立的级别单词
+ *   level:ERROR AND "timeout" NOT healthcheck
+ *                                          AND / OR / NOT 与括号，优先级 NOT > AND > OR
+ * </pre>
+ * 匹配均为大小写不敏感（仅 ASCII 字母折叠，与磁盘扫描的字节自动机一致）。标签之间按搜索栏的且/或模式组合。
+ * <p>
+ * 编译时为每条表达式推导"匹配行必然包含其一"的字面量集合（见 {@link #prefilter(boolean)}），
+ * 磁盘扫描先用多关键字字节自动机筛出候选行，只对候选行解码并运行正则。
+ */
+public final class LogQuery implements LineMatcher {
+
+    /** 查询模式标记：搜索关键字串以此字符开头时按查询表达式解析 */
+    public static final char QUERY_MODE_PREFIX = '\u0001';
+
+    /** 查询缓存容量 */
+    private static final int CACHE_SIZE = 64;
+
+    /** 从正则中提取的字面量最短长度，过短的字面量几乎筛不掉行 */
+    private static final int MIN_REGEX_LITERAL = 3;
+
+    private static final int FLAGS = Pattern.CASE_INSENSITIVE;
+
+    /** 正则元字符，不含这些字符的裸词直接按字面量处理 */
+    private static final String REGEX_META = "\\.[]{}()*+?^$|";
+
+    /** 字段匹配 key:value / key=value */
+    private static final Pattern FIELD = Pattern.compile("([A-Za-z_][\\w.\\-]*)[:=](.+)");
+
+    private static final Map<String, LogQuery> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, LogQuery> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private static final LogQuery EMPTY = new LogQuery(Collections.emptyList());
+
+    private final List<String> expressions;
+    private final List<Node> tags;
+
+    private LogQuery(List<String> expressions) {
+        this.expressions = List.copyOf(expressions);
+        List<Node> nodes = new ArrayList<>(expressions.size());
+        for (String expr : expressions) {
+            nodes.add(new Parser(expr).parse());
+        }
+        this.tags = nodes;
+    }
+
+    // ==================== 获取实例 ====================
+
+    /** 判断搜索关键字串是否为查询模式 */
+    public static boolean isQuery(String searchKeyword) {
+        return searchKeyword != null && !searchKeyword.isEmpty() && searchKeyword.charAt(0) == QUERY_MODE_PREFIX;
+    }
+
+    /**
+     * 获取搜索关键字串对应的查询（'\0' 分隔多个标签，开头的查询模式标记可有可无）。
+     */
+    public static LogQuery forSearchKeyword(String searchKeyword) {
+        if (searchKeyword == null || searchKeyword.isBlank()) return EMPTY;
+        synchronized (CACHE) {
+            LogQuery cached = CACHE.get(searchKeyword);
+            if (cached != null) return cached;
+        }
+        String body = isQuery(searchKeyword) ? searchKeyword.substring(1) : searchKeyword;
+        List<String> expressions = new ArrayList<>();
+        for (String part : body.split("\0")) {
+            if (!part.isBlank()) expressions.add(part.trim());
+        }
+        // 编译放在锁外，重复编译的代价远小于阻塞其他线程
+        LogQuery query = expressions.isEmpty() ? EMPTY : new LogQuery(expressions);
+        synchronized (CACHE) {
+            CACHE.putIfAbsent(searchKeyword, query);
+            return CACHE.get(searchKeyword);
+        }
+    }
+
+    // ==================== 匹配 ====================
+
+    public List<String> getExpressions() {
+        return expressions;
+    }
+
+    @Override
+    public int size() {
+        return tags.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return tags.isEmpty();
+    }
+
+    @Override
+    public boolean matches(CharSequence text, boolean andMode) {
+        if (tags.isEmpty()) return false;
+        for (Node tag : tags) {
+            boolean matched = tag.matches(text);
+            if (andMode && !matched) return false;
+            if (!andMode && matched) return true;
+        }
+        return andMode;
+    }
+
+    /**
+     * 回调满足条件的标签中各正向条件（不在 NOT 之下）的匹配区间，keywordIndex 为标签下标。
+     */
+    @Override
+    public void forEachMatch(CharSequence text, MatchConsumer consumer) {
+        for (int i = 0; i < tags.size(); i++) {
+            Node tag = tags.get(i);
+            if (tag.matches(text)) {
+                tag.collect(text, i, consumer);
+            }
+        }
+    }
+
+    /**
+     * 预筛字面量：满足条件的行必然包含（大小写不敏感）其中至少一个。
+     *
+     * @return 字面量列表；无法推导时返回 null，调用方须逐行校验
+     */
+    public List<String> prefilter(boolean andMode) {
+        if (tags.isEmpty()) return null;
+        List<List<String>> sets = new ArrayList<>(tags.size());
+        for (Node tag : tags) {
+            sets.add(tag.literals());
+        }
+        return andMode ? allOf(sets) : anyOf(sets);
+    }
+
+    // ==================== 匹配树 ====================
+
+    private interface Node {
+        boolean matches(CharSequence text);
+
+        /** 回调正向条件的匹配区间 */
+        void collect(CharSequence text, int tagIndex, MatchConsumer consumer);
+
+        /** 匹配行必然包含其一的字面量集合，无法推导时返回 null */
+        List<String> literals();
+    }
+
+    /** 单个正则条件（字面量、正则与字段条件最终都编译为正则） */
+    private static final class Term implements Node {
+        private final Pattern pattern;
+        private final List<String> literals;
+
+        Term(Pattern pattern, List<String> literals) {
+            this.pattern = pattern;
+            this.literals = literals;
+        }
+
+        @Override
+        public boolean matches(CharSequence text) {
+            return pattern.matcher(text).find();
+        }
+
+        @Override
+        public void collect(CharSequence text, int tagIndex, MatchConsumer consumer) {
+            Matcher m = pattern.matcher(text);
+            while (m.find()) {
+                if (m.end() > m.start()) {
+                    consumer.accept(m.start(), m.end(), tagIndex);
+                }
+            }
+        }
+
+        @Override
+        public List<String> literals() {
+            return literals;
+        }
+    }
+
+    private static final class Not implements Node {
+        private final Node child;
+
+        Not(Node child) {
+            this.child = child;
+        }
+
+        @Override
+        public boolean matches(CharSequence text) {
+            return !child.matches(text);
+        }
+
+        @Override
+        public void collect(CharSequence text, int tagIndex, MatchConsumer consumer) {
+            // 排除条件不高亮
+        }
+
+        @Override
+        public List<String> literals() {
+            return null;
+        }
+    }
+
+    private static final class And implements Node {
+        private final List<Node> children;
+
+        And(List<Node> children) {
+            this.children = children;
+        }
+
+        @Override
+        public boolean matches(CharSequence text) {
+            for (Node child : children) {
+                if (!child.matches(text)) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public void collect(CharSequence text, int tagIndex, MatchConsumer consumer) {
+            for (Node child : children) {
+                child.collect(text, tagIndex, consumer);
+            }
+        }
+
+        @Override
+        public List<String> literals() {
+            List<List<String>> sets = new ArrayList<>(children.size());
+            for (Node child : children) {
+                sets.add(child.literals());
+            }
+            return allOf(sets);
+        }
+    }
+
+    private static final class Or implements Node {
+        private final List<Node> children;
+
+        Or(List<Node> children) {
+            this.children = children;
+        }
+
+        @Override
+        public boolean matches(CharSequence text) {
+            for (Node child : children) {
+                if (child.matches(text)) return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void collect(CharSequence text, int tagIndex, MatchConsumer consumer) {
+            // 只高亮实际满足的分支
+            for (Node child : children) {
+                if (child.matches(text)) {
+                    child.collect(text, tagIndex, consumer);
+                }
+            }
+        }
+
+        @Override
+        public List<String> literals() {
+            List<List<String>> sets = new ArrayList<>(children.size());
+            for (Node child : children) {
+                sets.add(child.literals());
+            }
+            return anyOf(sets);
+        }
+    }
+
+    /** 各条件须同时满足：任取其一的字面量集合即可，选最短字面量最长（筛选性最好）的一个 */
+    private static List<String> allOf(List<List<String>> sets) {
+        List<String> best = null;
+        for (List<String> set : sets) {
+            if (set != null && (best == null || minLength(set) > minLength(best))) {
+                best = set;
+            }
+        }
+        return best;
+    }
+
+    /** 满足任一条件即可：须合并全部集合，任一无法推导则整体无法推导 */
+    private static List<String> anyOf(List<List<String>> sets) {
+        Set<String> union = new LinkedHashSet<>();
+        for (List<String> set : sets) {
+            if (set == null) return null;
+            union.addAll(set);
+        }
+        return List.copyOf(union);
+    }
+
+    private static int minLength(List<String> set) {
+        int min = Integer.MAX_VALUE;
+        for (String s : set) {
+            min = Math.min(min, s.length());
+        }
+        return min;
+    }
+
+    // ==================== 条件编译 ====================
+
+    private static Node literal(String text) {
+        if (text.isEmpty()) return null;
+        return new Term(Pattern.compile(Pattern.quote(text), FLAGS), List.of(text));
+    }
+
+    /** 裸词：无元字符或正则非法时按字面量，否则按正则 */
+    private static Node bareTerm(String word) {
+        if (isQuoted(word)) {
+            return literal(unquote(word));
+        }
+        Matcher field = FIELD.matcher(word);
+        if (field.matches()) {
+            return fieldTerm(field.group(1), field.group(2));
+        }
+        return regexTerm(word);
+    }
+
+    private static Node regexTerm(String regex) {
+        if (!hasMeta(regex)) {
+            return literal(regex);
+        }
+        try {
+            String lit = requiredLiteral(regex);
+            return new Term(Pattern.compile(regex, FLAGS), lit != null ? List.of(lit) : null);
+        } catch (PatternSyntaxException e) {
+            return literal(regex);
+        }
+    }
+
+    /**
+     * 字段条件 key[:=]value，兼容 key=value、key: value、"key":"value" 等写法；
+     * level 字段同时匹配独立的级别单词（如 "2024-01-01 ERROR ..."）。
+     */
+    private static Node fieldTerm(String key, String value) {
+        String valueRegex;
+        List<String> valueLiterals;
+        if (isQuoted(value)) {
+            String text = unquote(value);
+            valueRegex = Pattern.quote(text);
+            valueLiterals = text.isEmpty() ? null : List.of(text);
+        } else if (!hasMeta(value)) {
+            valueRegex = Pattern.quote(value);
+            valueLiterals = List.of(value);
+        } else {
+            try {
+                Pattern.compile(value);
+                valueRegex = value;
+                String lit = requiredLiteral(value);
+                valueLiterals = lit != null ? List.of(lit) : null;
+            } catch (PatternSyntaxException e) {
+                valueRegex = Pattern.quote(value);
+                valueLiterals = List.of(value);
+            }
+        }
+
+        String regex = "\\b" + Pattern.quote(key) + "[\"']?\\s*[:=]\\s*[\"']?(?:" + valueRegex + ")";
+        List<String> literals;
+        if ("level".equalsIgnoreCase(key)) {
+            regex += "|\\b(?:" + valueRegex + ")\\b";
+            literals = valueLiterals;
+        } else {
+            literals = allOf(Arrays.asList(valueLiterals, List.of(key)));
+        }
+        return new Term(Pattern.compile(regex, FLAGS), literals);
+    }
+
+    private static boolean hasMeta(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (REGEX_META.indexOf(s.charAt(i)) >= 0) return true;
+        }
+        return false;
+    }
+
+    private static boolean isQuoted(String s) {
+        return s.length() >= 2 && s.charAt(0) == '"' && s.charAt(s.length() - 1) == '"';
+    }
+
+    private static String unquote(String s) {
+        return s.substring(1, s.length() - 1).replace("\\\"", "\"");
+    }
+
+    /**
+     * 提取正则中必然出现的最长字面量片段（仅看顶层，忽略分组与字符类）。
+     * 顶层含 '|' 时无法保证任一片段必然出现，返回 null。
+     */
+    static String requiredLiteral(String regex) {
+        String best = null;
+        StringBuilder run = new StringBuilder();
+        int depth = 0;
+        int n = regex.length();
+        for (int i = 0; i < n; i++) {
+            char c = regex.charAt(i);
+            int lit = -1;
+            if (c == '\\') {
+                if (i + 1 >= n) break;
+                char e = regex.charAt(++i);
+                if (e == 'Q') return null;
+                // \d \w \s \b 等为字符类或断言，只有转义的标点才是字面量
+                if (!Character.isLetterOrDigit(e)) lit = e;
+            } else if (c == '[') {
+                i = skipCharClass(regex, i);
+            } else if (c == '{') {
+                int close = regex.indexOf('}', i);
+                i = close < 0 ? n : close;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '|') {
+                if (depth == 0) return null;
+            } else if (".^$?*+".indexOf(c) < 0) {
+                lit = c;
+            }
+
+            if (lit < 0 || depth != 0) {
+                best = longer(best, run);
+                run.setLength(0);
+                continue;
+            }
+            char q = i + 1 < n ? regex.charAt(i + 1) : 0;
+            if (q == '?' || q == '*' || q == '{') {
+                // 该字符可选（{n,m} 可能为 0 次，保守处理）
+                best = longer(best, run);
+                run.setLength(0);
+                continue;
+            }
+            run.append((char) lit);
+            if (q == '+') {
+                best = longer(best, run);
+                run.setLength(0);
+            }
+        }
+        best = longer(best, run);
+        return best != null && best.length() >= MIN_REGEX_LITERAL ? best : null;
+    }
+
+    /** 跳过字符类 [...]，返回右方括号的下标 */
+    private static int skipCharClass(String regex, int open) {
+        int i = open + 1;
+        if (i < regex.length() && regex.charAt(i) == '^') i++;
+        if (i < regex.length() && regex.charAt(i) == ']') i++;
+        int nested = 0;
+        for (; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                nested++;
+            } else if (c == ']') {
+                if (nested-- == 0) return i;
+            }
+        }
+        return regex.length();
+    }
+
+    private static String longer(String best, StringBuilder run) {
+        return run.length() > (best == null ? 0 : best.length()) ? run.toString() : best;
+    }
+
+    // ==================== 解析 ====================
+
+    private enum Kind { LPAREN, RPAREN, AND, OR, NOT, WORD, REGEX }
+
+    private static final class Token {
+        final Kind kind;
+        final String text;
+
+        Token(Kind kind, String text) {
+            this.kind = kind;
+            this.text = text;
+        }
+    }
+
+    /**
+     * 递归下降解析：
+     * <pre>
+     *   or    := and (OR and)*
+     *   and   := unary ((AND)? unary)*
+     *   unary := NOT unary | '(' or ')' | term
+     * </pre>
+     * 对不完整的输入宽容处理：缺失的右括号自动补齐，多余的右括号与悬空的运算符忽略；
+     * 整条表达式解析不出任何条件时按字面量匹配。
+     */
+    private static final class Parser {
+        private final String source;
+        private final List<Token> tokens;
+        private int pos;
+
+        Parser(String source) {
+            this.source = source;
+            this.tokens = tokenize(source);
+        }
+
+        Node parse() {
+            List<Node> parts = new ArrayList<>();
+            while (pos < tokens.size()) {
+                Node node = parseOr();
+                if (node != null) parts.add(node);
+                // 跳过多余的右括号或悬空的运算符
+                if (pos < tokens.size()) pos++;
+            }
+            if (parts.isEmpty()) {
+                Node fallback = literal(source);
+                return fallback != null ? fallback : new Or(List.of());
+            }
+            return parts.size() == 1 ? parts.get(0) : new And(parts);
+        }
+
+        private Node parseOr() {
+            List<Node> children = new ArrayList<>();
+            Node first = parseAnd();
+            if (first != null) children.add(first);
+            while (peek() == Kind.OR) {
+                pos++;
+                Node next = parseAnd();
+                if (next != null) children.add(next);
+            }
+            if (children.isEmpty()) return null;
+            return children.size() == 1 ? children.get(0) : new Or(children);
+        }
+
+        private Node parseAnd() {
+            List<Node> children = new ArrayList<>();
+            Node first = parseUnary();
+            if (first != null) children.add(first);
+            while (true) {
+                Kind k = peek();
+                if (k == Kind.AND) {
+                    pos++;
+                } else if (k != Kind.NOT && k != Kind.LPAREN && k != Kind.WORD && k != Kind.REGEX) {
+                    break;
+                }
+                Node next = parseUnary();
+                if (next != null) children.add(next);
+            }
+            if (children.isEmpty()) return null;
+            return children.size() == 1 ? children.get(0) : new And(children);
+        }
+
+        private Node parseUnary() {
+            Kind k = peek();
+            if (k == Kind.NOT) {
+                pos++;
+                Node child = parseUnary();
+                return child != null ? new Not(child) : null;
+            }
+            if (k == Kind.LPAREN) {
+                pos++;
+                Node inner = parseOr();
+                if (peek() == Kind.RPAREN) pos++;
+                return inner;
+            }
+            if (k == Kind.WORD) {
+                return bareTerm(tokens.get(pos++).text);
+            }
+            if (k == Kind.REGEX) {
+                return regexTerm(tokens.get(pos++).text);
+            }
+            return null;
+        }
+
+        private Kind peek() {
+            return pos < tokens.size() ? tokens.get(pos).kind : null;
+        }
+
+        /**
+         * 词法切分：空白分隔；词首的 '(' 与 ')' 为括号（'(?' 开头的正则分组除外）；词尾多出的 ')' 拆为右括号（平衡的括号留给正则）；
+         * 引号内可含空白；以 '/' 开头的词读到下一个未转义的 '/' 为止。
+         */
+        private static List<Token> tokenize(String s) {
+            List<Token> tokens = new ArrayList<>();
+            int n = s.length();
+            int i = 0;
+            while (i < n) {
+                char c = s.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                } else if (c == '(' && (i + 1 >= n || s.charAt(i + 1) != '?')) {
+                    tokens.add(new Token(Kind.LPAREN, "("));
+                    i++;
+                } else if (c == ')') {
+                    tokens.add(new Token(Kind.RPAREN, ")"));
+                    i++;
+                } else if (c == '/' && regexEnd(s, i) > 0) {
+                    int end = regexEnd(s, i);
+                    tokens.add(new Token(Kind.REGEX, s.substring(i + 1, end).replace("\\/", "/")));
+                    i = end + 1;
+                } else {
+                    int j = i;
+                    while (j < n && !Character.isWhitespace(s.charAt(j))) {
+                        if (s.charAt(j) == '"') {
+                            int close = j + 1;
+                            while (close < n && (s.charAt(close) != '"' || s.charAt(close - 1) == '\\')) close++;
+                            j = Math.min(close + 1, n);
+                        } else {
+                            j++;
+                        }
+                    }
+                    addWord(tokens, s.substring(i, j));
+                    i = j;
+                }
+            }
+            return tokens;
+        }
+
+        /**
+         * 查找 /regex/ 的结束斜杠：须未转义，且其后为空白、右括号或结尾（避免把 /api/v1 这类路径当作正则）。
+         *
+         * @return 结束斜杠下标，不构成正则时返回 -1
+         */
+        private static int regexEnd(String s, int open) {
+            for (int j = open + 1; j < s.length(); j++) {
+                char c = s.charAt(j);
+                if (c == '\\') {
+                    j++;
+                } else if (c == '/') {
+                    if (j == open + 1) return -1;
+                    boolean boundary = j + 1 == s.length() || Character.isWhitespace(s.charAt(j + 1)) || s.charAt(j + 1) == ')';
+                    return boundary ? j : -1;
+                }
+            }
+            return -1;
+        }
+
+        private static void addWord(List<Token> tokens, String word) {
+            switch (word) {
+                case "AND" -> tokens.add(new Token(Kind.AND, word));
+                case "OR" -> tokens.add(new Token(Kind.OR, word));
+                case "NOT" -> tokens.add(new Token(Kind.NOT, word));
+                default -> {
+                    int surplus = 0;
+                    if (!isQuoted(word)) {
+                        for (int k = 0; k < word.length(); k++) {
+                            char c = word.charAt(k);
+                            if (c == '\\') k++;
+                            else if (c == '(') surplus--;
+                            else if (c == ')') surplus++;
+                        }
+                    }
+                    int end = word.length();
+                    int peeled = 0;
+                    while (peeled < surplus && end > 0 && word.charAt(end - 1) == ')') {
+                        end--;
+                        peeled++;
+                    }
+                    if (end > 0) tokens.add(new Token(Kind.WORD, word.substring(0, end)));
+                    for (int k = 0; k < peeled; k++) {
+                        tokens.add(new Token(Kind.RPAREN, ")"));
+                    }
+                }
+            }
+        }
+    }
+}
@@ -4,10 +4,9 @@ import org.fxmisc.richtext.CodeArea;
 import org.fxmisc.richtext.model.StyleSpans;
 import org.fxmisc.richtext.model.StyleSpansBuilder;
 
+import java.nio.CharBuffer;
 import java.util.*;
 
-import static com.longfor.lmk.k8slogviewer.utils.CommonUtils.parseSearchKeywords;
-
 public class LogStyleUtil {
 
     public static final String PLAIN_TEXT = "plain-text";
@@ -18,11 +17,54 @@ public class LogStyleUtil {
     /** 多关键字搜索高亮颜色数量 */
     public static final int SEARCH_HIGHLIGHT_COLORS = 5;
 
+    // ==================== 词法标记 ====================
+
+    static final int TOKEN_NONE = 0;
+    static final int TOKEN_TIMESTAMP = 1;
+    static final int TOKEN_LEVEL_ERROR = 2;
+    static final int TOKEN_LEVEL_WARN = 3;
+    static final int TOKEN_LEVEL_INFO = 4;
+    static final int TOKEN_LEVEL_DEBUG = 5;
+    static final int TOKEN_EXCEPTION = 6;
+
+    private static final String[] TOKEN_STYLES = {
+            null, "log-timestamp", "log-level-error", "log-level-warn", "log-level-info", "log-level-debug", "log-exception"
+    };
+
+    // ==================== 样式键 ====================
+
+    /*
+     * 一个 span 的全部样式压缩为一个 int 键：
+     * bit 0-4 搜索高亮颜色位掩码，bit 5 header，bit 6-8 词法标记，bit 9-13 ANSI 前景色（0 = 默认，1-16），bit 14 ANSI 粗体。
+     */
+    private static final int HEADER_BIT = 1 << SEARCH_HIGHLIGHT_COLORS;
+    private static final int TOKEN_SHIFT = 6;
+    private static final int ANSI_FG_SHIFT = 9;
+    private static final int ANSI_FG_MASK = 0x1F << ANSI_FG_SHIFT;
+    private static final int ANSI_BOLD_BIT = 1 << 14;
+
+    /**
+     * 驻留的样式集合，按样式键懒加载：每种组合只创建一个不可变集合，
+     * 所有 span 共享同一实例，避免每个 span 新建 HashSet 和拼接样式名。
+     * 并发填充时可能重复创建，但集合内容相同且不可变，不影响正确性。
+     */
+    @SuppressWarnings("unchecked")
+    private static final Set<String>[] STYLE_TABLE = new Set[1 << 15];
+
+    /** 事件编码：pos << EVENT_POS_SHIFT | color << 1 | isStart（颜色占 3 位） */
+    private static final int EVENT_POS_SHIFT = 4;
+
+    private static final char ESC = '\u001B';
+
+    /** 每个线程复用一个词法分析器，分析过程中不分配对象 */
+    private static final ThreadLocal<LineLexer> LEXER = ThreadLocal.withInitial(LineLexer::new);
+
     private LogStyleUtil() {
     }
 
     /**
      * 批量追加多行日志到 CodeArea，仅触发一次 appendText + 一次 setStyleSpans。
+     * 每行只做一次词法分析：去掉 ANSI 转义序列后的文本写入文档，颜色、级别等转为样式。
      *
      * @param logArea        目标 CodeArea
      * @param lines          原始行内容（不含换行符）
@@ -37,15 +79,10 @@ public class LogStyleUtil {
 
         int start = logArea.getLength();
 
-        // 一次性拼接全部文本
+        // 一次性拼接全部文本、计算全部样式
         StringBuilder sb = new StringBuilder(lines.size() * 128);
-        for (String line : lines) {
-            sb.append(line).append('\n');
-        }
+        StyleSpans<Collection<String>> spans = lexBatch(lines, searchKeyword, andMode, sb);
         logArea.appendText(sb.toString());
-
-        // 一次性计算全部样式
-        StyleSpans<Collection<String>> spans = computeBatchHighlighting(lines, searchKeyword, andMode);
         logArea.setStyleSpans(start, spans);
     }
 
@@ -63,15 +100,12 @@ public class LogStyleUtil {
     public static void prependBatch(CodeArea logArea, List<String> lines, String searchKeyword, boolean andMode) {
         if (lines.isEmpty()) return;
 
-        // 一次性拼接全部文本
+        // 一次性拼接全部文本、计算全部样式
         StringBuilder sb = new StringBuilder(lines.size() * 128);
-        for (String line : lines) {
-            sb.append(line).append('\n');
-        }
+        StyleSpans<Collection<String>> spans = lexBatch(lines, searchKeyword, andMode, sb);
         logArea.insertText(0, sb.toString());
 
         // insertText 后原有样式偏移已自动调整，只需为新插入部分设置样式
-        StyleSpans<Collection<String>> spans = computeBatchHighlighting(lines, searchKeyword, andMode);
         logArea.setStyleSpans(0, spans);
     }
 
@@ -79,11 +113,13 @@ public class LogStyleUtil {
      * 追加单行到 headerArea（仅用于 header，量少，无需批量优化）。
      */
     public static void appendHeaderLine(CodeArea headerArea, String line) {
-        String lineWithNewline = line + "\n";
+        LineLexer lexer = LEXER.get();
+        lexer.lex(line);
         int start = headerArea.getLength();
-        headerArea.appendText(lineWithNewline);
-        StyleSpans<Collection<String>> spans = computeHighlighting(true, line, null, false);
-        headerArea.setStyleSpans(start, spans);
+        headerArea.appendText(lexer.displayText(line) + "\n");
+        StyleSpansBuilder<Collection<String>> spans = new StyleSpansBuilder<>();
+        lexer.addSpans(spans, true, null, false);
+        headerArea.setStyleSpans(start, spans.create());
     }
 
     /**
@@ -91,142 +127,507 @@ public class LogStyleUtil {
      */
     public static StyleSpans<Collection<String>> computeBatchHighlighting(
             List<String> lines, String searchKeyword, boolean andMode) {
-        boolean hasSearchKw = searchKeyword != null && !searchKeyword.isBlank();
-
-        // 无关键字时，整块用 plain-text
-        if (!hasSearchKw) {
-            StyleSpansBuilder<Collection<String>> builder = new StyleSpansBuilder<>();
-            int totalLen = 0;
-            for (int i = 0; i < lines.size(); i++) {
-                totalLen += lines.get(i).length();
-                if (i < lines.size() - 1) totalLen++; // +1 for \n (最后一行无换行符)
-            }
-            builder.add(Collections.singleton(PLAIN_TEXT), totalLen);
-            return builder.create();
-        }
+        return lexBatch(lines, searchKeyword, andMode, null);
+    }
 
-        // 按段落逐行计算样式再拼接，避免全文 indexOf 在大文本上的开销
+    /** 逐行词法分析并拼接样式；text 不为 null 时同时输出去掉转义序列后的文本（每行以 \n 结尾） */
+    private static StyleSpans<Collection<String>> lexBatch(
+            List<String> lines, String searchKeyword, boolean andMode, StringBuilder text) {
+        LineLexer lexer = LEXER.get();
         StyleSpansBuilder<Collection<String>> builder = new StyleSpansBuilder<>();
         for (int i = 0; i < lines.size(); i++) {
-            StyleSpans<Collection<String>> lineSpans = computeHighlighting(false, lines.get(i), searchKeyword, andMode);
-            for (var span : lineSpans) {
-                builder.add(span.getStyle(), span.getLength());
+            String line = lines.get(i);
+            lexer.lex(line);
+            lexer.addSpans(builder, false, searchKeyword, andMode);
+            if (text != null) {
+                lexer.appendDisplayText(text, line);
+                text.append('\n');
             }
             // \n 样式节点（最后一行没有换行符，不需要追加）
             if (i < lines.size() - 1) {
-                builder.add(Collections.singleton(PLAIN_TEXT), 1);
+                builder.add(style(false, 0), 1);
             }
         }
         return builder.create();
     }
 
     /**
-     * 单行高亮计算。支持空格分隔的多关键字搜索，每个关键字使用不同颜色。
+     * 单行高亮计算，样式长度对应去掉 ANSI 转义序列后的文本（{@link #displayText}）。
+     * 一次扫描完成 ANSI 颜色、时间戳、日志级别与异常栈的标记，再与搜索匹配在同一次合并中生成 span。
+     * 支持空格分隔的多关键字搜索，每个关键字使用不同颜色。
      * @param andMode true=且(所有关键字都在行中才高亮), false=或(任一关键字匹配即高亮)
      */
     public static StyleSpans<Collection<String>> computeHighlighting(boolean header, String text, String searchKeyword, Boolean andMode) {
-        String baseStyle = header ? LOG_HEADER : PLAIN_TEXT;
+        LineLexer lexer = LEXER.get();
+        lexer.lex(text);
         StyleSpansBuilder<Collection<String>> spansBuilder = new StyleSpansBuilder<>();
+        lexer.addSpans(spansBuilder, header, searchKeyword, Boolean.TRUE.equals(andMode));
+        return spansBuilder.create();
+    }
+
+    /** 去掉 ANSI 转义序列后的显示文本；不含转义序列时原样返回同一实例 */
+    public static String displayText(String line) {
+        if (line.indexOf(ESC) < 0) return line;
+        LineLexer lexer = LEXER.get();
+        lexer.lex(line);
+        return lexer.displayText(line);
+    }
+
+    /** 显示文本的长度，即该行在文档中占用的字符数（不含换行符） */
+    public static int displayLength(String line) {
+        if (line.indexOf(ESC) < 0) return line.length();
+        LineLexer lexer = LEXER.get();
+        lexer.lex(line);
+        return lexer.length;
+    }
+
+    /** 无高亮的 plain-text 样式（驻留实例） */
+    public static Set<String> plainStyle() {
+        return style(false, 0);
+    }
+
+    /** 第 kwIndex 个关键字的搜索高亮样式（驻留实例） */
+    public static Set<String> searchStyle(int kwIndex) {
+        return style(false, 1 << (kwIndex % SEARCH_HIGHLIGHT_COLORS));
+    }
+
+    /** 驻留的样式集合：基础样式 + 位掩码中各颜色的搜索高亮样式 */
+    static Set<String> style(boolean header, int colorMask) {
+        return styleOf(colorMask | (header ? HEADER_BIT : 0));
+    }
+
+    /** 按样式键取驻留的样式集合 */
+    static Set<String> styleOf(int key) {
+        Set<String> styles = STYLE_TABLE[key];
+        if (styles == null) {
+            styles = buildStyle(key);
+            STYLE_TABLE[key] = styles;
+        }
+        return styles;
+    }
 
-        // 如果无关键字，直接返回baseStyle
-        if (searchKeyword == null || searchKeyword.isBlank()) {
-            spansBuilder.add(Collections.singleton(baseStyle), text.length());
-            return spansBuilder.create();
+    private static Set<String> buildStyle(int key) {
+        List<String> styles = new ArrayList<>(4);
+        styles.add((key & HEADER_BIT) != 0 ? LOG_HEADER : PLAIN_TEXT);
+        int token = (key >> TOKEN_SHIFT) & 0x7;
+        if (token != TOKEN_NONE) {
+            styles.add(TOKEN_STYLES[token]);
+        }
+        int fg = (key & ANSI_FG_MASK) >> ANSI_FG_SHIFT;
+        if (fg != 0) {
+            styles.add("ansi-fg-" + (fg - 1));
         }
+        if ((key & ANSI_BOLD_BIT) != 0) {
+            styles.add("ansi-bold");
+        }
+        for (int c = 0; c < SEARCH_HIGHLIGHT_COLORS; c++) {
+            if ((key & 1 << c) != 0) {
+                styles.add("search-highlight-" + c);
+            }
+        }
+        return Set.copyOf(styles);
+    }
 
-        // 多关键字搜索：支持引号语法，每个关键字分配不同颜色
-        List<String> keywords = parseSearchKeywords(searchKeyword);
+    // ==================== 单遍词法分析 ====================
 
-        // 且模式：检查行中是否包含所有关键字
-        if (andMode && keywords.size() > 1) {
-            String lowerText = text.toLowerCase();
-            for (String kw : keywords) {
-                if (!lowerText.contains(kw.toLowerCase())) {
-                    // 缺少某个关键字，不高亮此行
-                    spansBuilder.add(Collections.singleton(baseStyle), text.length());
-                    return spansBuilder.create();
+    /**
+     * 单行日志的词法分析器，实例按线程复用，内部缓冲区只增不减，分析过程中不分配对象。
+     * <p>
+     * 一次扫描原始行：
+     * <ul>
+     *   <li>ANSI CSI 序列从文本中去掉，其中的 SGR（ESC[...m）前景色 / 粗体转为样式区段</li>
+     *   <li>行首（可带一个 '['）的时间戳：yyyy-MM-dd / yyyy/MM/dd 日期 + 时间，或单独的 HH:mm:ss，可带小数秒与时区</li>
+     *   <li>第一个大写的日志级别词：ERROR / FATAL / WARN / WARNING / INFO / DEBUG / TRACE</li>
+     *   <li>异常：以 Exception / Error 结尾的类名，以及整行的栈帧（"at ..."、"Caused by: ..."、"... N more"）</li>
+     * </ul>
+     * 之后搜索匹配事件与上述区段在 {@link #addSpans} 中一次归并生成 span，不再额外扫描。
+     */
+    private static final class LineLexer {
+
+        /** lex 的原始行，未去转义时直接复用原字符串 */
+        String currentRaw;
+        /** 去掉转义序列后的文本（仅 stripped 为 true 时与原文不同） */
+        char[] text = new char[256];
+        int length;
+        boolean stripped;
+
+        /** ANSI 状态区段：从 runPos[i] 开始使用 runState[i]（已按样式键移位） */
+        int[] runPos = new int[8];
+        int[] runState = new int[8];
+        int runCount;
+        int ansiState;
+
+        /** 词法标记区段，按位置有序且互不重叠 */
+        int[] tokStart = new int[8];
+        int[] tokEnd = new int[8];
+        int[] tokType = new int[8];
+        int tokCount;
+        boolean levelFound;
+        boolean wholeLineException;
+        /** 第一个非空白字符在 text 中的位置，-1 表示还没有 */
+        int firstNonSpace;
+
+        /** 搜索匹配事件 */
+        int[] events = new int[16];
+        int eventCount;
+        final int[] activeCount = new int[SEARCH_HIGHLIGHT_COLORS];
+
+        void lex(String raw) {
+            int n = raw.length();
+            if (text.length < n) {
+                text = new char[Math.max(n, text.length * 2)];
+            }
+            currentRaw = raw;
+            length = 0;
+            stripped = false;
+            runCount = 0;
+            ansiState = 0;
+            tokCount = 0;
+            levelFound = false;
+            wholeLineException = false;
+            firstNonSpace = -1;
+
+            int wordStart = -1;
+            boolean timestampChecked = false;
+            int i = 0;
+            while (i < n) {
+                char c = raw.charAt(i);
+                if (c == ESC) {
+                    stripped = true;
+                    i = skipEscape(raw, i);
+                    continue;
+                }
+                if (!timestampChecked && !Character.isWhitespace(c)) {
+                    timestampChecked = true;
+                    int tsFrom = c == '[' ? i + 1 : i;
+                    int tsEnd = matchTimestamp(raw, tsFrom);
+                    if (tsEnd > 0) {
+                        firstNonSpace = length;
+                        int outStart = length + (tsFrom - i);
+                        for (int k = i; k < tsEnd; k++) {
+                            text[length++] = raw.charAt(k);
+                        }
+                        addToken(outStart, length, TOKEN_TIMESTAMP);
+                        i = tsEnd;
+                        continue;
+                    }
+                }
+                if (isWordChar(c)) {
+                    if (wordStart < 0) wordStart = length;
+                } else if (wordStart >= 0) {
+                    endWord(raw, wordStart, length, i);
+                    wordStart = -1;
                 }
+                if (firstNonSpace < 0 && !Character.isWhitespace(c)) {
+                    firstNonSpace = length;
+                    if (c == '.' && raw.startsWith("...", i)) {
+                        // "... 12 more"
+                        wholeLineException = raw.endsWith(" more");
+                    }
+                }
+                text[length++] = c;
+                i++;
+            }
+            if (wordStart >= 0) {
+                endWord(raw, wordStart, length, n);
+            }
+            if (wholeLineException) {
+                tokCount = 0;
+                addToken(0, length, TOKEN_EXCEPTION);
             }
         }
 
-        // 收集所有匹配：使用indexOf（忽略大小写），更快
-        List<Match> matches = new ArrayList<>();
-        String lowerText = text.toLowerCase();
+        /** 跳过从 i 开始的转义序列，SGR 序列更新 ANSI 状态，返回序列之后的位置 */
+        private int skipEscape(String raw, int i) {
+            int n = raw.length();
+            if (i + 1 >= n || raw.charAt(i + 1) != '[') {
+                // 非 CSI：ESC 加一个字符
+                return Math.min(n, i + 2);
+            }
+            int j = i + 2;
+            while (j < n && raw.charAt(j) >= 0x20 && raw.charAt(j) <= 0x3F) {
+                j++;
+            }
+            if (j >= n) return n;
+            if (raw.charAt(j) == 'm') {
+                applySgr(raw, i + 2, j);
+            }
+            return j + 1;
+        }
 
-        for (int i = 0; i < keywords.size(); i++) {
-            String kw = keywords.get(i);
-            String lowerKw = kw.toLowerCase();
-            String styleClass = "search-highlight-" + (i % SEARCH_HIGHLIGHT_COLORS);
-            int idx = 0;
-            while ((idx = lowerText.indexOf(lowerKw, idx)) != -1) {
-                matches.add(new Match(idx, idx + lowerKw.length(), styleClass));
-                idx += lowerKw.length();
+        /** 解析 SGR 参数（raw[from, to)，以 ';' 分隔，空参数视为 0），更新前景色与粗体 */
+        private void applySgr(String raw, int from, int to) {
+            int state = ansiState;
+            if (from == to) {
+                state = 0;
             }
+            int p = from;
+            while (p < to) {
+                int code = 0;
+                while (p < to && Character.isDigit(raw.charAt(p))) {
+                    code = code * 10 + (raw.charAt(p) - '0');
+                    p++;
+                }
+                if (code == 0) {
+                    state = 0;
+                } else if (code == 1) {
+                    state |= ANSI_BOLD_BIT;
+                } else if (code == 22) {
+                    state &= ~ANSI_BOLD_BIT;
+                } else if (code >= 30 && code <= 37) {
+                    state = (state & ~ANSI_FG_MASK) | (code - 30 + 1) << ANSI_FG_SHIFT;
+                } else if (code >= 90 && code <= 97) {
+                    state = (state & ~ANSI_FG_MASK) | (code - 90 + 9) << ANSI_FG_SHIFT;
+                } else if (code == 39) {
+                    state &= ~ANSI_FG_MASK;
+                } else if (code == 38 || code == 48) {
+                    // 256 色 / 真彩色：不支持，忽略其余参数，前景色回到默认
+                    if (code == 38) state &= ~ANSI_FG_MASK;
+                    break;
+                }
+                p++; // 跳过 ';'
+            }
+            setAnsiState(state);
         }
 
-        // 如果无匹配，直接baseStyle
-        if (matches.isEmpty()) {
-            spansBuilder.add(Collections.singleton(baseStyle), text.length());
-            return spansBuilder.create();
+        private void setAnsiState(int state) {
+            if (state == ansiState) return;
+            ansiState = state;
+            if (runCount > 0 && runPos[runCount - 1] == length) {
+                runState[runCount - 1] = state;
+                return;
+            }
+            if (runCount == runPos.length) {
+                runPos = Arrays.copyOf(runPos, runCount * 2);
+                runState = Arrays.copyOf(runState, runCount * 2);
+            }
+            runPos[runCount] = length;
+            runState[runCount] = state;
+            runCount++;
+        }
+
+        /** 一个单词 text[start, end) 结束，rawNext 为原文中单词之后的位置 */
+        private void endWord(String raw, int start, int end, int rawNext) {
+            while (end > start && text[end - 1] == '.') end--;
+            int len = end - start;
+            if (len == 0 || wholeLineException) return;
+
+            if (start == firstNonSpace) {
+                if (len == 2 && text[start] == 'a' && text[start + 1] == 't'
+                        && raw.startsWith(" ", rawNext) && raw.indexOf('(', rawNext) > 0) {
+                    wholeLineException = true;
+                    return;
+                }
+                if (regionEquals(start, len, "Caused") && raw.startsWith(" by:", rawNext)) {
+                    wholeLineException = true;
+                    return;
+                }
+            }
+            if (!levelFound) {
+                int level = levelToken(start, len);
+                if (level != TOKEN_NONE) {
+                    levelFound = true;
+                    addToken(start, end, level);
+                    return;
+                }
+            }
+            if ((endsWith(start, len, "Exception") && len > 9) || (endsWith(start, len, "Error") && len > 5)) {
+                if (Character.isUpperCase(text[start]) || indexOf(start, end, '.') >= 0) {
+                    addToken(start, end, TOKEN_EXCEPTION);
+                }
+            }
         }
 
-        // 排序事件：start (+style), end (-style)
-        List<Event> events = new ArrayList<>();
-        for (Match m : matches) {
-            events.add(new Event(m.start, m.style, true));  // start
-            events.add(new Event(m.end, m.style, false));   // end
+        private int levelToken(int start, int len) {
+            switch (len) {
+                case 4:
+                    if (regionEquals(start, len, "WARN")) return TOKEN_LEVEL_WARN;
+                    if (regionEquals(start, len, "INFO")) return TOKEN_LEVEL_INFO;
+                    return TOKEN_NONE;
+                case 5:
+                    if (regionEquals(start, len, "ERROR") || regionEquals(start, len, "FATAL")) return TOKEN_LEVEL_ERROR;
+                    if (regionEquals(start, len, "DEBUG") || regionEquals(start, len, "TRACE")) return TOKEN_LEVEL_DEBUG;
+                    return TOKEN_NONE;
+                case 7:
+                    return regionEquals(start, len, "WARNING") ? TOKEN_LEVEL_WARN : TOKEN_NONE;
+                default:
+                    return TOKEN_NONE;
+            }
         }
-        events.sort(Comparator.comparingInt(e -> e.pos));
 
-        // 构建spans
-        int lastPos = 0;
-        Set<String> currentStyles = new HashSet<>();
-        for (Event e : events) {
-            if (e.pos > lastPos) {
-                Set<String> styles = new HashSet<>(currentStyles);
-                styles.add(baseStyle);
-                spansBuilder.add(styles, e.pos - lastPos);
-                lastPos = e.pos;
+        private void addToken(int start, int end, int type) {
+            if (end <= start) return;
+            if (tokCount == tokStart.length) {
+                tokStart = Arrays.copyOf(tokStart, tokCount * 2);
+                tokEnd = Arrays.copyOf(tokEnd, tokCount * 2);
+                tokType = Arrays.copyOf(tokType, tokCount * 2);
             }
-            if (e.isStart) {
-                currentStyles.add(e.style);
+            tokStart[tokCount] = start;
+            tokEnd[tokCount] = end;
+            tokType[tokCount] = type;
+            tokCount++;
+        }
+
+        private boolean regionEquals(int start, int len, String s) {
+            if (len != s.length()) return false;
+            for (int k = 0; k < len; k++) {
+                if (text[start + k] != s.charAt(k)) return false;
+            }
+            return true;
+        }
+
+        private boolean endsWith(int start, int len, String s) {
+            int sl = s.length();
+            if (len < sl) return false;
+            return regionEquals(start + len - sl, sl, s);
+        }
+
+        private int indexOf(int start, int end, char c) {
+            for (int k = start; k < end; k++) {
+                if (text[k] == c) return k;
+            }
+            return -1;
+        }
+
+        // ==================== 输出 ====================
+
+        String displayText(String raw) {
+            return stripped ? new String(text, 0, length) : raw;
+        }
+
+        void appendDisplayText(StringBuilder sb, String raw) {
+            if (stripped) {
+                sb.append(text, 0, length);
             } else {
-                currentStyles.remove(e.style);
+                sb.append(raw);
             }
         }
-        // 剩余部分
-        if (lastPos < text.length()) {
-            Set<String> styles = new HashSet<>(currentStyles);
-            styles.add(baseStyle);
-            spansBuilder.add(styles, text.length() - lastPos);
+
+        private CharSequence displaySequence() {
+            return stripped ? CharBuffer.wrap(text, 0, length) : currentRaw;
         }
 
-        return spansBuilder.create();
-    }
+        /**
+         * 收集搜索匹配事件，与 ANSI 区段、词法标记归并，按位置依次输出 span。
+         * 三路输入都有序，只有搜索事件需要排序。
+         */
+        void addSpans(StyleSpansBuilder<Collection<String>> builder, boolean header,
+                      String searchKeyword, boolean andMode) {
+            eventCount = 0;
+            if (searchKeyword != null && !searchKeyword.isBlank() && length > 0) {
+                // 多关键字搜索：支持引号语法，每个关键字分配不同颜色；同一关键字串的自动机只编译一次
+                LineMatcher matcher = LineMatcher.forSearchKeyword(searchKeyword);
+                CharSequence display = displaySequence();
+                // 且模式：缺少某个关键字时不高亮此行
+                if (!(andMode && matcher.size() > 1 && !matcher.matches(display, true))) {
+                    matcher.forEachMatch(display, (start, end, kwIndex) -> {
+                        int color = kwIndex % SEARCH_HIGHLIGHT_COLORS;
+                        addEvent(start << EVENT_POS_SHIFT | color << 1 | 1);
+                        addEvent(end << EVENT_POS_SHIFT | color << 1);
+                    });
+                    // 按位置排序（同一位置的开始/结束先后不影响结果：只在位置前进时输出 span）
+                    Arrays.sort(events, 0, eventCount);
+                }
+            }
+
+            int base = header ? HEADER_BIT : 0;
+            if (length == 0) {
+                builder.add(styleOf(base), 0);
+                return;
+            }
+
+            // 按颜色计数，同色匹配重叠时直到最后一个结束才移除样式
+            Arrays.fill(activeCount, 0);
+            int searchMask = 0;
+            int ansi = 0;
+            int ri = 0, ti = 0, ei = 0;
+            int pos = 0;
+            while (pos < length) {
+                while (ri < runCount && runPos[ri] <= pos) {
+                    ansi = runState[ri++];
+                }
+                while (ei < eventCount && (events[ei] >>> EVENT_POS_SHIFT) <= pos) {
+                    int e = events[ei++];
+                    int color = (e >> 1) & 0x7;
+                    activeCount[color] += (e & 1) != 0 ? 1 : -1;
+                    searchMask = activeCount[color] > 0 ? searchMask | 1 << color : searchMask & ~(1 << color);
+                }
+                while (ti < tokCount && tokEnd[ti] <= pos) {
+                    ti++;
+                }
+                boolean inToken = ti < tokCount && tokStart[ti] <= pos;
+                int token = inToken ? tokType[ti] : TOKEN_NONE;
+
+                int next = length;
+                if (ri < runCount) next = Math.min(next, runPos[ri]);
+                if (ei < eventCount) next = Math.min(next, events[ei] >>> EVENT_POS_SHIFT);
+                if (ti < tokCount) next = Math.min(next, inToken ? tokEnd[ti] : tokStart[ti]);
+
+                builder.add(styleOf(base | searchMask | token << TOKEN_SHIFT | ansi), next - pos);
+                pos = next;
+            }
+        }
 
-    // 辅助类：匹配
-    private static class Match {
-        int start, end;
-        String style;
+        private void addEvent(int event) {
+            if (eventCount == events.length) {
+                events = Arrays.copyOf(events, eventCount * 2);
+            }
+            events[eventCount++] = event;
+        }
 
-        Match(int start, int end, String style) {
-            this.start = start;
-            this.end = end;
-            this.style = style;
+        private static boolean isWordChar(char c) {
+            return Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '$';
         }
     }
 
-    // 辅助类：事件
-    private static class Event {
-        int pos;
-        String style;
-        boolean isStart;
+    // ==================== 时间戳识别 ====================
 
-        Event(int pos, String style, boolean isStart) {
-            this.pos = pos;
-            this.style = style;
-            this.isStart = isStart;
+    /**
+     * 从 raw[i] 开始匹配时间戳，返回结束位置，不匹配返回 -1。
+     * 支持 yyyy-MM-dd[T ]HH:mm:ss、yyyy/MM/dd HH:mm:ss 与单独的 HH:mm:ss，秒后可带 [.,]小数与 Z / ±HH[:]mm 时区。
+     */
+    static int matchTimestamp(String raw, int i) {
+        int n = raw.length();
+        int p = i;
+        if (digits(raw, p, 4) && p + 4 < n && (raw.charAt(p + 4) == '-' || raw.charAt(p + 4) == '/')) {
+            char sep = raw.charAt(p + 4);
+            if (!digits(raw, p + 5, 2) || !charAt(raw, p + 7, sep) || !digits(raw, p + 8, 2)) return -1;
+            p += 10;
+            if (p >= n || (raw.charAt(p) != 'T' && raw.charAt(p) != ' ')) return -1;
+            p++;
+        }
+        if (!digits(raw, p, 2) || !charAt(raw, p + 2, ':') || !digits(raw, p + 3, 2)
+                || !charAt(raw, p + 5, ':') || !digits(raw, p + 6, 2)) {
+            return -1;
+        }
+        p += 8;
+        if (p < n && (raw.charAt(p) == '.' || raw.charAt(p) == ',') && digits(raw, p + 1, 1)) {
+            p++;
+            while (p < n && Character.isDigit(raw.charAt(p))) p++;
         }
+        if (p < n && raw.charAt(p) == 'Z') {
+            p++;
+        } else if (p < n && (raw.charAt(p) == '+' || raw.charAt(p) == '-') && digits(raw, p + 1, 2)) {
+            int q = p + 3;
+            if (charAt(raw, q, ':')) q++;
+            if (digits(raw, q, 2)) p = q + 2;
+        }
+        // 时间戳之后须是分隔符，避免把长数字串的一部分当成时间
+        if (p < n && Character.isLetterOrDigit(raw.charAt(p))) return -1;
+        return p;
+    }
+
+    private static boolean digits(String s, int from, int count) {
+        if (from < 0 || from + count > s.length()) return false;
+        for (int k = from; k < from + count; k++) {
+            char c = s.charAt(k);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+
+    private static boolean charAt(String s, int index, char c) {
+        return index < s.length() && s.charAt(index) == c;
     }
 
     public static void clear(CodeArea codeArea) {
@@ -15,6 +15,7 @@ module com.longfor.lmk.k8slogviewer {
     requires reactfx;
     requires java.desktop;
     requires okhttp3;
+    requires okio;
 
     opens com.longfor.lmk.k8slogviewer to javafx.fxml;
     exports com.longfor.lmk.k8slogviewer;
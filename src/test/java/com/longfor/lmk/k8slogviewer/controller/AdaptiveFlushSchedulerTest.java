@@ -0,0 +1,58 @@
+package com.longfor.lmk.k8slogviewer.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveFlushSchedulerTest {
+
+    @Test
+    void tryBeginPulse_shouldCoalesceUntilPreviousPulseEnds() {
+        AdaptiveFlushScheduler scheduler = new AdaptiveFlushScheduler(50, 500);
+
+        assertTrue(scheduler.tryBeginPulse());
+        assertFalse(scheduler.tryBeginPulse());
+
+        scheduler.endPulse(10, 1_000_000);
+        assertTrue(scheduler.tryBeginPulse());
+        scheduler.cancelPulse();
+        assertTrue(scheduler.tryBeginPulse());
+    }
+
+    @Test
+    void renderLimit_shouldShrinkWhenLinesAreSlowAndStayWithinBounds() {
+        AdaptiveFlushScheduler scheduler = new AdaptiveFlushScheduler(50, 500);
+        assertEquals(400, scheduler.renderLimit());
+
+        // 每行 1ms：帧预算内只能渲染 8 行，但不低于下限
+        for (int i = 0; i < 20; i++) {
+            scheduler.tryBeginPulse();
+            scheduler.endPulse(100, 100_000_000L);
+        }
+        assertEquals(AdaptiveFlushScheduler.MIN_RENDER_LINES, scheduler.renderLimit());
+
+        // 每行 1µs：受窗口大小限制
+        for (int i = 0; i < 40; i++) {
+            scheduler.tryBeginPulse();
+            scheduler.endPulse(500, 500_000L);
+        }
+        assertEquals(500, scheduler.renderLimit());
+    }
+
+    @Test
+    void endPulse_shouldBackOffIntervalWhenOverBudgetAndRecover() {
+        AdaptiveFlushScheduler scheduler = new AdaptiveFlushScheduler(50, 500);
+
+        scheduler.endPulse(100, 20_000_000L);
+        assertEquals(100, scheduler.nextDelayMs());
+        for (int i = 0; i < 10; i++) {
+            scheduler.endPulse(100, 20_000_000L);
+        }
+        assertEquals(AdaptiveFlushScheduler.MAX_INTERVAL_MS, scheduler.nextDelayMs());
+
+        for (int i = 0; i < 20; i++) {
+            scheduler.endPulse(100, 1_000_000L);
+        }
+        assertEquals(50, scheduler.nextDelayMs());
+    }
+}
@@ -0,0 +1,92 @@
+package com.longfor.lmk.k8slogviewer.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogLineRingTest {
+
+    @Test
+    void addLast_shouldEvictOldestWhenFullAndKeepGlobalLineNumbers() {
+        LogLineRing<String> ring = new LogLineRing<>(3);
+        ring.reset(10);
+
+        assertFalse(ring.addLast("a"));
+        assertFalse(ring.addLast("bb"));
+        assertFalse(ring.addLast("ccc"));
+        assertTrue(ring.addLast("dddd"));
+
+        assertEquals(3, ring.size());
+        assertEquals(11, ring.getFirstLine());
+        assertEquals(14, ring.getEndLine());
+        assertEquals("bb", ring.get(0));
+        assertEquals("dddd", ring.get(2));
+    }
+
+    @Test
+    void charOffset_shouldMatchDocumentPositionsAfterWrapAround() {
+        LogLineRing<String> ring = new LogLineRing<>(4);
+        for (String line : new String[]{"x", "yy", "zzz", "w", "vv", "uuu"}) {
+            ring.addLast(line);
+        }
+        // 文档内容为 "zzz\nw\nvv\nuuu\n"
+        assertEquals(0, ring.charOffset(0));
+        assertEquals(4, ring.charOffset(1));
+        assertEquals(6, ring.charOffset(2));
+        assertEquals(9, ring.charOffset(3));
+        assertEquals(13, ring.charOffset(4));
+
+        ring.removeFirst(2);
+        assertEquals(0, ring.charOffset(0));
+        assertEquals(7, ring.charOffset(2));
+    }
+
+    @Test
+    void addFirst_shouldPrependAndEvictFromEnd() {
+        LogLineRing<String> ring = new LogLineRing<>(3);
+        ring.reset(5);
+        ring.addLast("c");
+        ring.addLast("dd");
+
+        assertFalse(ring.addFirst("bb"));
+        assertTrue(ring.addFirst("a"));
+
+        assertEquals(3, ring.getFirstLine());
+        assertEquals("a", ring.get(0));
+        assertEquals("c", ring.get(2));
+        // 文档内容为 "a\nbb\nc\n"
+        assertEquals(2, ring.charOffset(1));
+        assertEquals(7, ring.charOffset(3));
+
+        ring.removeLast(1);
+        assertEquals(5, ring.charOffset(2));
+        assertEquals(5, ring.getEndLine());
+    }
+
+    @Test
+    void attachments_shouldFollowLinesAndClearOnEviction() {
+        LogLineRing<String> ring = new LogLineRing<>(2);
+        ring.addLast("a");
+        ring.addLast("b");
+        ring.setAttachment(1, "label-b");
+
+        ring.addLast("c");
+
+        assertEquals("label-b", ring.getAttachment(0));
+        assertNull(ring.getAttachment(1));
+        ring.shiftLines(-1);
+        assertNull(ring.getAttachment(0));
+        assertEquals(0, ring.getFirstLine());
+    }
+
+    @Test
+    void charOffset_shouldUseLengthFunctionForDisplayedText() {
+        LogLineRing<String> ring = new LogLineRing<>(4, line -> line.replace("#", "").length());
+        ring.addLast("##ab");
+        ring.addLast("c#");
+        // 文档内容为 "ab\nc\n"
+        assertEquals(3, ring.charOffset(1));
+        assertEquals(5, ring.charOffset(2));
+        assertEquals("##ab", ring.get(0));
+    }
+}
@@ -0,0 +1,21 @@
+package com.longfor.lmk.k8slogviewer.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PodFilterTest {
+
+    @Test
+    void fieldSelector_shouldMapPhaseAndTreatBlankAsUnset() {
+        PodFilter filter = new PodFilter("  app=web ", "Running");
+        assertEquals("app=web", filter.getLabelSelector());
+        assertEquals("status.phase=Running", filter.fieldSelector());
+
+        PodFilter blank = new PodFilter(" ", "");
+        assertTrue(blank.isEmpty());
+        assertNull(blank.fieldSelector());
+        assertEquals(PodFilter.NONE, blank);
+        assertNotEquals(PodFilter.NONE, filter);
+    }
+}
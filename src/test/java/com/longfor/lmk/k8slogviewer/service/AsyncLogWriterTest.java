@@ -0,0 +1,156 @@
+package com.longfor.lmk.k8slogviewer.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncLogWriterTest {
+
+    @Test
+    void flush_shouldWriteAllOfferedLinesInOrderOnCallerThread() {
+        Object lock = new Object();
+        List<List<String>> batches = new ArrayList<>();
+        // 批量阈值和延迟都很大，只能由写屏障写入
+        AsyncLogWriter<String> writer = new AsyncLogWriter<>(lock, batches::add, String::length, Integer.MAX_VALUE, 60_000);
+
+        writer.offer("a");
+        writer.offer("b");
+        writer.offer("c");
+        assertTrue(batches.isEmpty());
+        assertEquals(3, writer.getPendingCount());
+
+        synchronized (lock) {
+            writer.flush();
+        }
+
+        assertEquals(List.of(List.of("a", "b", "c")), batches);
+        assertEquals(0, writer.getPendingCount());
+        writer.close();
+    }
+
+    @Test
+    void offer_shouldWakeWriterWhenBatchBytesReached() throws InterruptedException {
+        List<String> written = new CopyOnWriteArrayList<>();
+        AsyncLogWriter<String> writer = new AsyncLogWriter<>(new Object(), written::addAll, String::length, 10, 60_000);
+
+        writer.offer("0123456789");
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (written.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of("0123456789"), written);
+        writer.close();
+    }
+
+    @Test
+    void close_shouldWriteRemainingAndIgnoreLaterLines() {
+        List<String> written = new ArrayList<>();
+        AsyncLogWriter<String> writer = new AsyncLogWriter<>(new Object(), written::addAll, String::length, Integer.MAX_VALUE, 60_000);
+
+        writer.offer("x");
+        writer.close();
+        writer.offer("y");
+        writer.flush();
+
+        assertEquals(List.of("x"), written);
+    }
+
+    @Test
+    void close_shouldStopWriterThread() {
+        Set<Thread> before = writerThreads();
+        AsyncLogWriter<String> writer = new AsyncLogWriter<>(new Object(), lines -> { }, String::length);
+        writer.offer("x");
+        Set<Thread> started = writerThreads();
+        started.removeAll(before);
+        assertEquals(1, started.size());
+
+        writer.close();
+
+        assertFalse(started.iterator().next().isAlive());
+    }
+
+    @Test
+    void podLogFileManagerClose_shouldStopItsWriterThread() {
+        Set<Thread> before = writerThreads();
+        PodLogFileManager manager = new PodLogFileManager();
+        manager.append(LogChunk.ofLines(List.of("line".getBytes(StandardCharsets.UTF_8))));
+        Set<Thread> started = writerThreads();
+        started.removeAll(before);
+        assertEquals(1, started.size());
+
+        manager.close();
+
+        assertFalse(started.iterator().next().isAlive());
+    }
+
+    /** 当前存活的写盘线程 */
+    private static Set<Thread> writerThreads() {
+        Set<Thread> threads = new HashSet<>();
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.getName().startsWith("k8s-log-writer-") && t.isAlive()) threads.add(t);
+        }
+        return threads;
+    }
+
+    @Test
+    void offer_shouldBlockProducerWhenSinkStallsBeyondPendingLimit() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> written = new CopyOnWriteArrayList<>();
+        // 模拟写盘线程拿到锁后被长时间阻塞（如搜索持有文件锁）
+        AsyncLogWriter<String> writer = new AsyncLogWriter<>(new Object(), items -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            written.addAll(items);
+        }, String::length, 4, 60_000, 8);
+
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 5; i++) {
+                writer.offer("line" + i);
+            }
+        });
+        producer.start();
+        producer.join(500);
+
+        assertTrue(producer.isAlive(), "积压超过上限时读取线程应被阻塞");
+        assertTrue(writer.getBackpressureCount() >= 1);
+        assertTrue(writer.getPendingBytes() <= 8 + 5);
+
+        release.countDown();
+        producer.join(5000);
+        assertFalse(producer.isAlive());
+        writer.close();
+        assertEquals(List.of("line0", "line1", "line2", "line3", "line4"), written);
+        assertEquals(0, writer.getPendingBytes());
+    }
+
+    @Test
+    void offer_shouldWriteInlineWhenCallerHoldsLockBeyondPendingLimit() {
+        Object lock = new Object();
+        List<String> written = new ArrayList<>();
+        AsyncLogWriter<String> writer = new AsyncLogWriter<>(lock, written::addAll, String::length,
+                4, 60_000, 8);
+
+        synchronized (lock) {
+            for (int i = 0; i < 5; i++) {
+                writer.offer("line" + i);
+            }
+            // 持锁时不能等待写盘线程，超限部分在本线程写入
+            assertTrue(writer.getPendingBytes() <= 8);
+        }
+        writer.close();
+        assertEquals(List.of("line0", "line1", "line2", "line3", "line4"), written);
+    }
+}
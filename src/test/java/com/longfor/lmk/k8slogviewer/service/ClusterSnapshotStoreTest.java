@@ -0,0 +1,96 @@
+package com.longfor.lmk.k8slogviewer.service;
+
+import com.longfor.lmk.k8slogviewer.model.ClusterSnapshot;
+import com.longfor.lmk.k8slogviewer.model.PodSummary;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterSnapshotStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private static ClusterSnapshot sample() {
+        Map<String, List<PodSummary>> pods = new LinkedHashMap<>();
+        pods.put("prod", List.of(
+                new PodSummary("prod", "web-1", "Running", List.of("app", "init"), "120",
+                        3, "node-a", Instant.parse("2024-05-01T08:00:00Z")),
+                new PodSummary("prod", "job-1", "Succeeded", List.of(), null)));
+        return new ClusterSnapshot(Instant.ofEpochMilli(1_700_000_000_000L), List.of("default", "prod"), pods);
+    }
+
+    @Test
+    void saveAndLoad_shouldRoundTripNamespacesAndPods() {
+        ClusterSnapshotStore store = new ClusterSnapshotStore(dir);
+        store.save("dev/cluster", sample());
+
+        ClusterSnapshot loaded = store.load("dev/cluster");
+        assertNotNull(loaded);
+        assertEquals(Instant.ofEpochMilli(1_700_000_000_000L), loaded.getSavedAt());
+        assertEquals(List.of("default", "prod"), loaded.getNamespaces());
+        assertEquals(List.of("prod"), List.copyOf(loaded.getPods().keySet()));
+
+        List<PodSummary> pods = loaded.getPods().get("prod");
+        assertEquals(2, pods.size());
+        PodSummary web = pods.get(0);
+        assertEquals("prod/web-1", web.getKey());
+        assertEquals("Running", web.getPhase());
+        assertEquals(List.of("app", "init"), web.getContainerNames());
+        assertEquals("120", web.getResourceVersion());
+        assertEquals(3, web.getRestartCount());
+        assertEquals("node-a", web.getNodeName());
+        assertEquals(Instant.parse("2024-05-01T08:00:00Z"), web.getStartTime());
+
+        PodSummary job = pods.get(1);
+        assertEquals("Succeeded", job.getPhase());
+        assertEquals(0, job.getRestartCount());
+        assertNull(job.getNodeName());
+        assertNull(job.getStartTime());
+        assertEquals("prod", loaded.firstNamespaceWithPods());
+    }
+
+    @Test
+    void load_shouldReturnNullWhenMissingCorruptOrOtherVersion() throws IOException {
+        ClusterSnapshotStore store = new ClusterSnapshotStore(dir);
+        assertNull(store.load("absent"));
+
+        Files.writeString(store.fileFor("corrupt"), "{\"version\":1,\"namespaces\":[\"a\"", StandardCharsets.UTF_8);
+        assertNull(store.load("corrupt"));
+
+        Files.writeString(store.fileFor("old"), "{\"version\":0,\"savedAt\":1,\"namespaces\":[\"a\"]}", StandardCharsets.UTF_8);
+        assertNull(store.load("old"));
+    }
+
+    @Test
+    void save_shouldReplaceExistingSnapshotWithoutLeavingTempFiles() throws IOException {
+        ClusterSnapshotStore store = new ClusterSnapshotStore(dir);
+        store.save("p", sample());
+        store.save("p", new ClusterSnapshot(Instant.ofEpochMilli(1), List.of("only"), Map.of()));
+
+        ClusterSnapshot loaded = store.load("p");
+        assertEquals(List.of("only"), loaded.getNamespaces());
+        assertTrue(loaded.getPods().isEmpty());
+        assertNull(loaded.firstNamespaceWithPods());
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void fileFor_shouldKeepSimilarProfileNamesApart() {
+        ClusterSnapshotStore store = new ClusterSnapshotStore(dir);
+        assertNotEquals(store.fileFor("a/b"), store.fileFor("a:b"));
+        assertEquals(dir, store.fileFor("../../etc").getParent());
+    }
+}
@@ -0,0 +1,75 @@
+package com.longfor.lmk.k8slogviewer.service;
+
+import com.longfor.lmk.k8slogviewer.model.PodEvent;
+import com.longfor.lmk.k8slogviewer.model.PodSummary;
+import com.longfor.lmk.k8slogviewer.utils.CommonUtils;
+import javafx.scene.control.TreeItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterTreeServiceTest {
+
+    private static PodEvent event(PodEvent.Type type, String ns, String name, String phase) {
+        return new PodEvent(type, new PodSummary(ns, name, phase, List.of("app"), "1"));
+    }
+
+    private static List<String> names(TreeItem<String> item) {
+        return item.getChildren().stream().map(TreeItem::getValue).toList();
+    }
+
+    @Test
+    void applyPodEvents_shouldInsertSortedCreateNamespaceAndReorderOnPhaseChange() {
+        TreeItem<String> root = new TreeItem<>("cluster");
+        List<String> order = List.of("ns-a", "ns-b");
+
+        boolean changed = ClusterTreeService.applyPodEvents(root, List.of(
+                event(PodEvent.Type.ADDED, "ns-b", "web", "Running"),
+                event(PodEvent.Type.ADDED, "ns-b", "api", "Pending"),
+                event(PodEvent.Type.ADDED, "ns-b", "db", "Running"),
+                event(PodEvent.Type.ADDED, "ns-a", "job", "Succeeded"),
+                event(PodEvent.Type.ADDED, "other", "x", "Running")), order);
+
+        assertTrue(changed);
+        assertEquals(List.of("ns-a", "ns-b"), names(root));
+        TreeItem<String> nsB = root.getChildren().get(1);
+        assertEquals(List.of("db", "web", "api"), names(nsB));
+
+        assertTrue(ClusterTreeService.applyPodEvents(root, List.of(
+                event(PodEvent.Type.MODIFIED, "ns-b", "api", "Running")), order));
+        assertEquals(List.of("api", "db", "web"), names(nsB));
+        assertEquals("Running", CommonUtils.getTreeItemData(nsB.getChildren().get(0)));
+    }
+
+    @Test
+    void applyPodEvents_shouldIgnoreDuplicatesAndDropEmptyNamespace() {
+        TreeItem<String> root = new TreeItem<>("cluster");
+        ClusterTreeService.applyPodEvents(root, List.of(
+                event(PodEvent.Type.ADDED, "ns", "a", "Running")), null);
+        TreeItem<String> podItem = root.getChildren().get(0).getChildren().get(0);
+
+        assertFalse(ClusterTreeService.applyPodEvents(root, List.of(
+                event(PodEvent.Type.ADDED, "ns", "a", "Running"),
+                event(PodEvent.Type.DELETED, "ns", "missing", "Running")), null));
+        assertSame(podItem, root.getChildren().get(0).getChildren().get(0));
+
+        assertTrue(ClusterTreeService.applyPodEvents(root, List.of(
+                event(PodEvent.Type.DELETED, "ns", "a", "Running")), null));
+        assertTrue(root.getChildren().isEmpty());
+    }
+
+    @Test
+    void preferClusterWideList_shouldDependOnShareOfAllNamespaces() {
+        // 300 个命名空间中选 8 个：逐个请求更便宜
+        assertFalse(ClusterTreeService.preferClusterWideList(8, 300));
+        // 选中占多数：一次集群级请求
+        assertTrue(ClusterTreeService.preferClusterWideList(150, 300));
+        assertTrue(ClusterTreeService.preferClusterWideList(3, 4));
+        assertFalse(ClusterTreeService.preferClusterWideList(149, 300));
+        // 单个命名空间或总数未知时始终按命名空间请求
+        assertFalse(ClusterTreeService.preferClusterWideList(1, 1));
+        assertFalse(ClusterTreeService.preferClusterWideList(20, 0));
+    }
+}
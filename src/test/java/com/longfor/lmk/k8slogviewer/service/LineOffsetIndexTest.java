@@ -0,0 +1,105 @@
+package com.longfor.lmk.k8slogviewer.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineOffsetIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static List<String> sampleLines(int count) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // 混入多字节字符，验证按字节偏移定位
+            lines.add("line-" + i + (i % 7 == 0 ? " 中文内容" : ""));
+        }
+        return lines;
+    }
+
+    private Path writeLog(List<String> lines) throws IOException {
+        Path file = tempDir.resolve("pod.log");
+        Files.write(file, lines, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    @Test
+    void open_shouldCountLinesAndReadRandomRanges() throws IOException {
+        List<String> lines = sampleLines(5000);
+        Path file = writeLog(lines);
+
+        LineOffsetIndex index = LineOffsetIndex.open(file);
+        assertEquals(5000, index.getLineCount());
+        assertEquals(lines.subList(0, 10), index.readLines(0, 10));
+        assertEquals(lines.subList(1023, 1030), index.readLines(1023, 7));
+        assertEquals(lines.subList(4990, 5000), index.readLines(4990, 50));
+        assertTrue(index.readLines(5000, 10).isEmpty());
+    }
+
+    @Test
+    void open_shouldPersistSidecarAndReuseIt() throws IOException {
+        Path file = writeLog(sampleLines(3000));
+        LineOffsetIndex.open(file);
+
+        Path sidecar = LineOffsetIndex.indexFileOf(file);
+        assertTrue(Files.exists(sidecar));
+        // 3000 行 → 2 个检查点（1024、2048）
+        assertEquals(2L * Long.BYTES, Files.size(sidecar));
+
+        LineOffsetIndex reopened = LineOffsetIndex.open(file);
+        assertEquals(3000, reopened.getLineCount());
+        assertEquals("line-2048", reopened.readLines(2048, 1).get(0));
+    }
+
+    @Test
+    void open_shouldRebuildCorruptedSidecar() throws IOException {
+        List<String> lines = sampleLines(2100);
+        Path file = writeLog(lines);
+        Files.write(LineOffsetIndex.indexFileOf(file), new byte[]{0, 0, 0, 0, 0, 0, 0, 5});
+
+        LineOffsetIndex index = LineOffsetIndex.open(file);
+        assertEquals(2100, index.getLineCount());
+        assertEquals(lines.subList(2000, 2010), index.readLines(2000, 10));
+    }
+
+    @Test
+    void onLineWritten_shouldMatchRebuiltIndex() throws IOException {
+        Path file = tempDir.resolve("live.log");
+        LineOffsetIndex live = LineOffsetIndex.createEmpty(file);
+        List<String> lines = sampleLines(2500);
+        for (String line : lines) {
+            byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+            Files.write(file, bytes, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            live.onLineWritten(bytes.length);
+        }
+        live.persist();
+
+        LineOffsetIndex rebuilt = LineOffsetIndex.open(file);
+        assertEquals(live.getLineCount(), rebuilt.getLineCount());
+        assertEquals(live.offsetOfLine(2049), rebuilt.offsetOfLine(2049));
+        assertEquals(lines.get(2049), live.readLines(2049, 1).get(0));
+    }
+
+    @Test
+    void catchUp_shouldIndexAppendedLinesAndTrailingPartialLine() throws IOException {
+        Path file = writeLog(sampleLines(1500));
+        LineOffsetIndex index = LineOffsetIndex.open(file);
+
+        Files.write(file, "tail-1\ntail-2".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        index.catchUp();
+
+        // 末尾无换行的残行也计为一行
+        assertEquals(1502, index.getLineCount());
+        assertEquals(List.of("tail-1", "tail-2"), index.readLines(1500, 5));
+    }
+}
@@ -0,0 +1,53 @@
+package com.longfor.lmk.k8slogviewer.service;
+
+import com.longfor.lmk.k8slogviewer.utils.LineMatcher;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogExportServiceTest {
+
+    private static ByteArrayInputStream input(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void copyLines_withoutFilter_shouldCopyBytesUnchanged() throws IOException {
+        String text = "line 1\r\nline 2\nlast line without newline";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        LogExportService.ExportResult result = LogExportService.copyLines(input(text), out, null, false, null, () -> false);
+
+        assertEquals(text + "\n", out.toString(StandardCharsets.UTF_8));
+        assertEquals(3, result.linesRead);
+        assertEquals(3, result.linesWritten);
+        assertEquals(text.length(), result.bytesRead);
+    }
+
+    @Test
+    void copyLines_withFilter_shouldWriteOnlyMatchingLines() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LineMatcher matcher = LineMatcher.forSearchKeyword("error\0");
+
+        LogExportService.ExportResult result = LogExportService.copyLines(
+                input("INFO start\nERROR 失败\ninfo ok\nan error here\n"), out, matcher, false, null, () -> false);
+
+        assertEquals("ERROR 失败\nan error here\n", out.toString(StandardCharsets.UTF_8));
+        assertEquals(4, result.linesRead);
+        assertEquals(2, result.linesWritten);
+    }
+
+    @Test
+    void copyLines_shouldStopWhenCancelled() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThrows(InterruptedIOException.class,
+                () -> LogExportService.copyLines(input("a\nb\n"), out, null, false, null, () -> true));
+    }
+}
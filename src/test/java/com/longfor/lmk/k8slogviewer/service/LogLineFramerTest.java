@@ -0,0 +1,75 @@
+package com.longfor.lmk.k8slogviewer.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogLineFramerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static LogChunk feed(LogLineFramer framer, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        return framer.feed(bytes, 0, bytes.length);
+    }
+
+    private static List<String> lines(LogChunk chunk) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < chunk.lineCount(); i++) {
+            lines.add(chunk.decodeLine(i));
+        }
+        return lines;
+    }
+
+    @Test
+    void feed_shouldEmitOnlyCompleteLinesAndCarryPartialTail() {
+        LogLineFramer framer = new LogLineFramer();
+
+        LogChunk first = feed(framer, "alpha\nbe");
+        assertEquals(List.of("alpha"), lines(first));
+        assertEquals(2, framer.pendingBytes());
+
+        assertNull(feed(framer, "ta"));
+
+        LogChunk second = feed(framer, "\r\ngamma\ndel");
+        assertEquals(List.of("beta", "gamma"), lines(second));
+        assertEquals(12, second.byteLength());
+
+        LogChunk tail = framer.finish();
+        assertEquals(List.of("del"), lines(tail));
+        assertNull(framer.finish());
+    }
+
+    @Test
+    void feed_shouldNotSplitMultiByteCharactersAcrossChunks() {
+        LogLineFramer framer = new LogLineFramer();
+        byte[] bytes = "日志\n".getBytes(StandardCharsets.UTF_8);
+
+        assertNull(framer.feed(bytes, 0, 2));
+        LogChunk chunk = framer.feed(bytes, 2, bytes.length - 2);
+
+        assertEquals(List.of("日志"), lines(chunk));
+    }
+
+    @Test
+    void chunk_shouldBeWrittenToStoreAsRawBytes() throws Exception {
+        SegmentedLogStore store = SegmentedLogStore.openWritable(tempDir.resolve("s"), 1024, false);
+        LogLineFramer framer = new LogLineFramer();
+
+        store.append(feed(framer, "one\ntwo\nthr"));
+        store.append(feed(framer, "ee\n"));
+        store.flush();
+
+        assertEquals(3, store.getLineCount());
+        assertEquals(List.of("two", "three"), store.readLines(1, 5));
+        assertEquals("one\ntwo\nthree\n", Files.readString(store.getActiveFile()));
+    }
+}
@@ -0,0 +1,114 @@
+package com.longfor.lmk.k8slogviewer.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogResumeStateTest {
+
+    private static List<String> filter(LogResumeState state, String text) {
+        LogLineFramer framer = new LogLineFramer();
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        LogChunk chunk = framer.feed(bytes, 0, bytes.length);
+        List<String> lines = new ArrayList<>();
+        LogChunk filtered = chunk == null ? null : state.filter(chunk);
+        if (filtered != null) {
+            for (int i = 0; i < filtered.lineCount(); i++) lines.add(filtered.decodeLine(i));
+        }
+        return lines;
+    }
+
+    @Test
+    void filter_shouldStripTimestampsAndKeepPlainLines() {
+        LogResumeState state = new LogResumeState();
+
+        List<String> lines = filter(state, "2024-01-01T00:00:01.5Z hello\nno timestamp\n");
+
+        assertEquals(List.of("hello", "no timestamp"), lines);
+        assertTrue(state.canResume());
+    }
+
+    @Test
+    void beginResume_shouldStartBeforeLastLineAndDropOverlap() {
+        LogResumeState state = new LogResumeState();
+        filter(state, "2024-01-01T00:00:09Z a\n2024-01-01T00:00:10.2Z b\n2024-01-01T00:00:10.2Z c\n");
+
+        // 最后时间戳 10.2s，减去 2s 重叠后向下取整到秒
+        assertEquals("2024-01-01T00:00:08Z", state.beginResume());
+
+        List<String> lines = filter(state, "2024-01-01T00:00:08Z old\n"
+                + "2024-01-01T00:00:09Z a\n"
+                + "\tat continuation of a\n"
+                + "2024-01-01T00:00:10.2Z b\n"
+                + "2024-01-01T00:00:10.2Z c2\n"
+                + "2024-01-01T00:00:10.2Z c\n"
+                + "2024-01-01T00:00:11Z d\n"
+                + "2024-01-01T00:00:11Z d\n");
+
+        // c2 与 c 同一时刻但内容不同，是断线期间漏掉的行；d 之后退出去重，重复内容照常保留
+        assertEquals(List.of("c2", "d", "d"), lines);
+    }
+
+    @Test
+    void beginResume_shouldReturnNullWithoutTimestamps() {
+        LogResumeState state = new LogResumeState();
+        filter(state, "plain\n");
+
+        assertFalse(state.canResume());
+        assertNull(state.beginResume());
+    }
+
+    @Test
+    void filter_shouldSliceOriginalBufferInsteadOfCopyingLines() throws IOException {
+        LogResumeState state = new LogResumeState();
+        byte[] bytes = "2024-01-01T00:00:01Z a\r\ncontinued\n2024-01-01T00:00:02.25Z b\n".getBytes(StandardCharsets.UTF_8);
+        LogChunk chunk = new LogLineFramer().feed(bytes, 0, bytes.length);
+
+        LogChunk filtered = state.filter(chunk);
+
+        assertSame(chunk.data(), filtered.data());
+        assertEquals(List.of("a", "continued", "b"),
+                List.of(filtered.decodeLine(0), filtered.decodeLine(1), filtered.decodeLine(2)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        filtered.writeTo(out);
+        assertEquals("a\r\ncontinued\nb\n", out.toString(StandardCharsets.UTF_8));
+        assertEquals(out.size(), filtered.byteLength());
+        assertEquals(Instant.parse("2024-01-01T00:00:02.25Z"), Instant.ofEpochSecond(0, state.getLastTimestamp()));
+    }
+
+    @Test
+    void beginResume_shouldDeduplicateAgainAfterRepeatedReconnects() {
+        LogResumeState state = new LogResumeState();
+        filter(state, "2024-01-01T00:00:10Z a\n2024-01-01T00:00:11Z b\n");
+
+        state.beginResume();
+        assertEquals(List.of("c"), filter(state, "2024-01-01T00:00:10Z a\n2024-01-01T00:00:11Z b\n2024-01-01T00:00:12Z c\n"));
+
+        // 第二次断线：窗口内的 b、c 由保留的原始块重建哈希后去重
+        state.beginResume();
+        assertEquals(List.of("d"), filter(state, "2024-01-01T00:00:11Z b\n2024-01-01T00:00:12Z c\n2024-01-01T00:00:13Z d\n"));
+    }
+
+    @Test
+    void parseTimestamp_shouldMatchInstantParseForRfc3339Variants() {
+        for (String text : List.of("2024-01-01T00:00:01Z", "2024-02-29T23:59:59.5Z", "1999-12-31T12:34:56.123456789Z",
+                "2024-03-10T08:00:00.120Z", "2024-03-10T08:00:00+08:00", "2024-03-10T08:00:00.75-05:30")) {
+            byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+            Instant expected = OffsetDateTime.parse(text).toInstant();
+            long nanos = expected.getEpochSecond() * 1_000_000_000L + expected.getNano();
+            assertEquals(nanos, LogResumeState.parseTimestamp(bytes, 0, bytes.length), text);
+        }
+        for (String bad : List.of("2024-13-01T00:00:00Z", "2024-01-01T00:00:00", "2024-01-01T00:00:00.Z", "not-a-timestamp-at-all")) {
+            byte[] bytes = bad.getBytes(StandardCharsets.US_ASCII);
+            assertEquals(LogResumeState.NO_TIMESTAMP, LogResumeState.parseTimestamp(bytes, 0, bytes.length), bad);
+        }
+    }
+}
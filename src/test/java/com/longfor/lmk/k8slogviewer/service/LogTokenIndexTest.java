@@ -0,0 +1,185 @@
+package com.longfor.lmk.k8slogviewer.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogTokenIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final List<String> LINES = List.of(
+            "2024-01-01 INFO  request traceId=abc123 user_id=42 ok",
+            "2024-01-01 ERROR request traceId=def456 Timeout after 3000ms",
+            "2024-01-01 WARN  slow query user_id=42",
+            "2024-01-01 ERROR db connection reset traceId=abc123",
+            "2024-01-01 INFO  中文日志 healthcheck"
+    );
+
+    private LogTokenIndex liveIndex(Path file) throws IOException {
+        LogTokenIndex index = LogTokenIndex.createEmpty(file);
+        for (String line : LINES) {
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            Files.write(file, (line + "\n").getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            index.addLine(bytes, 0, bytes.length);
+        }
+        return index;
+    }
+
+    @Test
+    void lookup_shouldAnswerCaseInsensitiveSubstringsWithinTokens() throws IOException {
+        LogTokenIndex index = liveIndex(tempDir.resolve("pod.log"));
+
+        assertArrayEquals(new int[]{1, 3}, index.lookup("error"));
+        assertArrayEquals(new int[]{0, 3}, index.lookup("ABC123"));
+        // 子串落在词内部：timeout / 3000ms
+        assertArrayEquals(new int[]{1}, index.lookup("imeou"));
+        assertArrayEquals(new int[]{1}, index.lookup("000ms"));
+        assertArrayEquals(new int[]{0, 2}, index.lookup("user_id"));
+        assertArrayEquals(new int[0], index.lookup("missing"));
+    }
+
+    @Test
+    void lookup_shouldMergeManyPostingsOnceAndFallBackBeyondTokenCap() throws IOException {
+        LogTokenIndex index = LogTokenIndex.createEmpty(tempDir.resolve("pod.log"));
+        int tokens = LogTokenIndex.MAX_LOOKUP_TOKENS + 1;
+        for (int i = 0; i < tokens; i++) {
+            byte[] bytes = ("req" + i + " done").getBytes(StandardCharsets.UTF_8);
+            index.addLine(bytes, 0, bytes.length);
+        }
+
+        // 命中 req7、req70..req79、req700..req799 共 111 个词，合并结果升序
+        int[] lines = index.lookup("req7");
+        assertNotNull(lines);
+        assertEquals(1 + 10 + 100, lines.length);
+        for (int i = 1; i < lines.length; i++) {
+            assertTrue(lines[i - 1] < lines[i]);
+        }
+        assertNull(index.lookup("req"));
+        assertNull(index.query(List.of("done", "req"), true));
+    }
+
+    @Test
+    void lookup_shouldReturnNullWhenCancelled() throws IOException {
+        LogTokenIndex index = liveIndex(tempDir.resolve("pod.log"));
+
+        assertNull(index.lookup("0", () -> true));
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4}, index.lookup("0", () -> false));
+    }
+
+    @Test
+    void query_shouldIntersectAndUnionPostings() throws IOException {
+        LogTokenIndex index = liveIndex(tempDir.resolve("pod.log"));
+
+        assertArrayEquals(new int[]{3}, index.query(List.of("error", "abc123"), true));
+        assertArrayEquals(new int[]{0, 1, 3}, index.query(List.of("error", "abc123"), false));
+    }
+
+    @Test
+    void query_fromLine_shouldAnswerOnlyNewLines() throws IOException {
+        LogTokenIndex index = liveIndex(tempDir.resolve("pod.log"));
+
+        assertArrayEquals(new int[]{3}, index.query(List.of("error", "abc123"), true, 2, () -> false));
+        assertArrayEquals(new int[]{3}, index.query(List.of("error", "abc123"), false, 2, () -> false));
+        assertArrayEquals(new int[]{1, 3}, index.query(List.of("Request", "reset"), false, 1, () -> false));
+        assertArrayEquals(new int[0], index.query(List.of("error"), false, 5, () -> false));
+        assertNull(index.query(List.of("traceId=abc"), false, 2, () -> false));
+    }
+
+    @Test
+    void query_fromLine_shouldFallBackToFullPostingsOnceRecentOccurrencesAreOverwritten() throws IOException {
+        LogTokenIndex index = LogTokenIndex.createEmpty(tempDir.resolve("pod.log"));
+        int lines = LogTokenIndex.RECENT_CAPACITY;
+        for (int i = 0; i < lines; i++) {
+            byte[] bytes = ("tok" + i + " common").getBytes(StandardCharsets.UTF_8);
+            index.addLine(bytes, 0, bytes.length);
+        }
+
+        // 每行两次词出现，较早的行已被覆盖，须按完整倒排表截取
+        int[] early = index.query(List.of("common"), false, 1, () -> false);
+        assertEquals(lines - 1, early.length);
+        assertEquals(1, early[0]);
+        assertArrayEquals(new int[]{lines - 2, lines - 1},
+                index.query(List.of("common"), false, lines - 2, () -> false));
+        assertArrayEquals(new int[]{lines - 1},
+                index.query(List.of("common", "tok" + (lines - 1)), true, lines - 2, () -> false));
+    }
+
+    @Test
+    void queryPartial_shouldLeaveOnlyUnanswerableKeywordsToCaller() throws IOException {
+        LogTokenIndex index = liveIndex(tempDir.resolve("pod.log"));
+
+        LogTokenIndex.Partial and = index.queryPartial(List.of("error", "traceId=abc"), true, 0, () -> false);
+        assertArrayEquals(new int[]{1, 3}, and.getLines());
+        assertEquals(List.of("traceId=abc"), and.getRemaining());
+        assertFalse(and.isComplete());
+
+        LogTokenIndex.Partial or = index.queryPartial(List.of("中文", "slow", "reset"), false, 0, () -> false);
+        assertArrayEquals(new int[]{2, 3}, or.getLines());
+        assertEquals(List.of("中文"), or.getRemaining());
+
+        assertArrayEquals(new int[]{3}, index.queryPartial(List.of("error", "中文"), true, 2, () -> false).getLines());
+        assertNull(index.queryPartial(List.of("中文", "a=b"), true, 0, () -> false));
+    }
+
+    @Test
+    void queryPartial_shouldTreatKeywordsBeyondTokenCapAsRemaining() throws IOException {
+        LogTokenIndex index = LogTokenIndex.createEmpty(tempDir.resolve("pod.log"));
+        for (int i = 0; i <= LogTokenIndex.MAX_LOOKUP_TOKENS; i++) {
+            byte[] bytes = ("req" + i + (i % 2 == 0 ? " done" : " fail")).getBytes(StandardCharsets.UTF_8);
+            index.addLine(bytes, 0, bytes.length);
+        }
+
+        LogTokenIndex.Partial partial = index.queryPartial(List.of("fail", "req"), true, 0, () -> false);
+        assertEquals(LogTokenIndex.MAX_LOOKUP_TOKENS / 2, partial.getLines().length);
+        assertEquals(List.of("req"), partial.getRemaining());
+        assertNull(index.queryPartial(List.of("fail", "req"), true, 0, () -> true));
+    }
+
+    @Test
+    void query_shouldFallBackForKeywordsNotAlignedToTokens() throws IOException {
+        LogTokenIndex index = liveIndex(tempDir.resolve("pod.log"));
+
+        assertNull(index.query(List.of("traceId=abc"), false));
+        assertNull(index.query(List.of("error", "中文"), true));
+    }
+
+    @Test
+    void open_shouldReloadPersistedIndexAndCatchUpAppendedLines() throws IOException {
+        Path file = tempDir.resolve("pod.log");
+        LogTokenIndex live = liveIndex(file);
+        live.persist();
+        assertTrue(Files.exists(LogTokenIndex.indexFileOf(file)));
+
+        Files.write(file, "2024-01-02 ERROR retry traceId=abc123\n".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+        LogTokenIndex reopened = LogTokenIndex.open(file, LineOffsetIndex.open(file));
+
+        assertEquals(6, reopened.getLineCount());
+        assertEquals(Files.size(file), reopened.getIndexedBytes());
+        assertArrayEquals(new int[]{0, 3, 5}, reopened.lookup("abc123"));
+    }
+
+    @Test
+    void open_shouldRebuildWhenSidecarIsStale() throws IOException {
+        Path file = tempDir.resolve("pod.log");
+        liveIndex(file).persist();
+        // 文件被重写为更短的内容，旁路文件记录的位置失效
+        Files.write(file, "only ERROR line\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.TRUNCATE_EXISTING);
+
+        LogTokenIndex reopened = LogTokenIndex.open(file, LineOffsetIndex.open(file));
+
+        assertEquals(1, reopened.getLineCount());
+        assertArrayEquals(new int[]{0}, reopened.lookup("error"));
+    }
+}
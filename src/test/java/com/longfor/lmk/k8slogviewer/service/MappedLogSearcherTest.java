@@ -0,0 +1,162 @@
+package com.longfor.lmk.k8slogviewer.service;
+
+import com.longfor.lmk.k8slogviewer.utils.LogQuery;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedLogSearcherTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path writeLog(String content) throws IOException {
+        Path file = tempDir.resolve("pod.log");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    void search_shouldMatchCaseInsensitively() throws IOException {
+        Path file = writeLog("INFO start\nerror: boom\nWARN slow\nERROR again\n");
+
+        PodLogFileManager.DiskSearchResult result = MappedLogSearcher.search(file, List.of("Error"), false);
+
+        assertEquals(List.of(1, 3), result.matchedLineNumbers);
+        assertEquals(4, result.totalLines);
+    }
+
+    @Test
+    void search_shouldSupportAndOrModes() throws IOException {
+        Path file = writeLog("user login ok\nuser logout\norder created\nlogin failed for order\n");
+
+        assertEquals(List.of(0, 2, 3),
+                MappedLogSearcher.search(file, List.of("login", "order"), false).matchedLineNumbers);
+        assertEquals(List.of(3),
+                MappedLogSearcher.search(file, List.of("login", "order"), true).matchedLineNumbers);
+    }
+
+    @Test
+    void search_shouldMatchMultiByteKeywordsAndTrailingPartialLine() throws IOException {
+        Path file = writeLog("第一行 正常\n订单创建失败\nlast 订单");
+
+        PodLogFileManager.DiskSearchResult result = MappedLogSearcher.search(file, List.of("订单"), false);
+
+        assertEquals(List.of(1, 2), result.matchedLineNumbers);
+        assertEquals(3, result.totalLines);
+    }
+
+    @Test
+    void search_shouldMatchNonAsciiCapitalKeywordsExactly() throws IOException {
+        Path file = writeLog("kein Ärger hier\nПривет, мир\nhello HELLO\närger klein\n");
+
+        assertEquals(List.of(0), MappedLogSearcher.search(file, List.of("Ärger"), false).matchedLineNumbers);
+        assertEquals(List.of(1), MappedLogSearcher.search(file, List.of("Привет"), false).matchedLineNumbers);
+        assertEquals(List.of(0, 2), MappedLogSearcher.search(file, List.of("ÄRGER", "hello"), false).matchedLineNumbers);
+        assertEquals(List.of(2), MappedLogSearcher.search(file, List.of("HELLO"), false).matchedLineNumbers);
+    }
+
+    @Test
+    void search_shouldNotMatchAcrossLineBoundaries() throws IOException {
+        Path file = writeLog("abc\ndef\n");
+
+        assertTrue(MappedLogSearcher.search(file, List.of("c\nd"), false).matchedLineNumbers.isEmpty());
+        assertTrue(MappedLogSearcher.search(file, List.of("cd"), false).matchedLineNumbers.isEmpty());
+    }
+
+    @Test
+    void search_shouldHandleEmptyFile() throws IOException {
+        Path file = writeLog("");
+
+        PodLogFileManager.DiskSearchResult result = MappedLogSearcher.search(file, List.of("x"), false);
+
+        assertTrue(result.matchedLineNumbers.isEmpty());
+        assertEquals(0, result.totalLines);
+    }
+
+    @Test
+    void search_shouldMergeParallelChunksIntoAbsoluteLineNumbers() throws IOException {
+        // 约 12MB，超过 2 个最小分块，走并行路径
+        StringBuilder sb = new StringBuilder();
+        List<Integer> expected = new ArrayList<>();
+        int lines = 200_000;
+        for (int i = 0; i < lines; i++) {
+            boolean hit = i % 997 == 0;
+            if (hit) expected.add(i);
+            sb.append("2024-01-01 12:00:00 INFO worker-").append(i)
+                    .append(hit ? " Timeout 超时" : " ok").append(" padding-padding\n");
+        }
+        Path file = writeLog(sb.toString());
+
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = MappedLogSearcher.chunkBoundaries(ch, 0, ch.size(), 4);
+            assertTrue(bounds.length > 2);
+            for (int i = 1; i < bounds.length - 1; i++) {
+                ch.position(bounds[i] - 1);
+                ByteBuffer one = ByteBuffer.allocate(1);
+                ch.read(one);
+                assertEquals('\n', one.get(0));
+            }
+        }
+
+        PodLogFileManager.DiskSearchResult result = MappedLogSearcher.search(file, List.of("timeout"), false);
+        assertEquals(expected, result.matchedLineNumbers);
+        assertEquals(lines, result.totalLines);
+    }
+
+    @Test
+    void search_shouldAbortWhenCancelled() throws IOException {
+        Path file = writeLog("error\n".repeat(1000));
+
+        assertThrows(CancellationException.class,
+                () -> MappedLogSearcher.search(file, List.of("error"), false, () -> true));
+    }
+
+    @Test
+    void searchFrom_shouldResumeFromPreviousEndOffset() throws IOException {
+        Path file = writeLog("error a\nok b\nerror c\npartial err");
+
+        PodLogFileManager.DiskSearchResult first = MappedLogSearcher.searchFrom(file, List.of("error"), false, 0, 0, () -> false);
+        // 残行不参与扫描，留待续搜
+        assertEquals(List.of(0, 2), first.matchedLineNumbers);
+        assertEquals(3, first.totalLines);
+        assertEquals("error a\nok b\nerror c\n".getBytes(StandardCharsets.UTF_8).length, first.endOffset);
+        assertTrue(first.isResumable());
+
+        Files.write(file, "or done\nok\nERROR d\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        PodLogFileManager.DiskSearchResult next = MappedLogSearcher.searchFrom(
+                file, List.of("error"), false, first.endOffset, first.totalLines, () -> false);
+
+        assertEquals(List.of(3, 5), next.matchedLineNumbers);
+        assertEquals(6, next.totalLines);
+        assertEquals(Files.size(file), next.endOffset);
+    }
+
+    @Test
+    void search_shouldVerifyQueryCandidatesAfterLiteralPrefilter() throws IOException {
+        Path file = writeLog("GET /a took 12ms\nGET /b took 12034ms\nhealthcheck took 99999ms\nstatus=503 Took 5000ms\n");
+        LogQuery query = LogQuery.forSearchKeyword(LogQuery.QUERY_MODE_PREFIX + "/took \\d{4,}ms/ NOT healthcheck\0");
+
+        PodLogFileManager.DiskSearchResult result = MappedLogSearcher.search(file, query, false, () -> false);
+        assertEquals(List.of(1, 3), result.matchedLineNumbers);
+        assertEquals(4, result.totalLines);
+
+        // 无预筛字面量时逐行校验
+        LogQuery notOnly = LogQuery.forSearchKeyword(LogQuery.QUERY_MODE_PREFIX + "NOT took\0");
+        assertTrue(MappedLogSearcher.search(file, notOnly, false, () -> false).matchedLineNumbers.isEmpty());
+        LogQuery status = LogQuery.forSearchKeyword(LogQuery.QUERY_MODE_PREFIX + "status=5\\d\\d\0");
+        assertEquals(List.of(3), MappedLogSearcher.search(file, status, false, () -> false).matchedLineNumbers);
+    }
+}
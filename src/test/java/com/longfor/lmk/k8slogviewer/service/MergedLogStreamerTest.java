@@ -0,0 +1,77 @@
+package com.longfor.lmk.k8slogviewer.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MergedLogStreamerTest {
+
+    private static List<String> run(Map<String, String> logs, List<String> pods) throws IOException {
+        List<String> lines = new ArrayList<>();
+        MergedLogStreamer merger = new MergedLogStreamer(pods, new HashMap<>(),
+                (pod, resume) -> new ByteArrayInputStream(logs.get(pod).getBytes(StandardCharsets.UTF_8)),
+                chunk -> {
+                    for (int i = 0; i < chunk.lineCount(); i++) lines.add(chunk.decodeLine(i));
+                }, 5_000);
+        merger.run();
+        return lines;
+    }
+
+    @Test
+    void run_shouldInterleaveLinesByTimestampWithPodPrefix() throws IOException {
+        Map<String, String> logs = Map.of(
+                "api-1", "2024-01-01T00:00:01.000000000Z a1\n2024-01-01T00:00:03.5Z a2\n",
+                "api-2", "2024-01-01T00:00:02Z b1\n2024-01-01T00:00:03.25Z b2\n2024-01-01T00:00:04Z b3\n");
+
+        List<String> lines = run(logs, List.of("api-1", "api-2"));
+
+        assertEquals(List.of("[api-1] a1", "[api-2] b1", "[api-2] b2", "[api-1] a2", "[api-2] b3"), lines);
+    }
+
+    @Test
+    void run_shouldKeepContinuationLinesAfterTheirTimestampedLine() throws IOException {
+        Map<String, String> logs = Map.of(
+                "a", "2024-01-01T00:00:01Z error\n\tat Foo.bar\n2024-01-01T00:00:05Z done\n",
+                "b", "2024-01-01T00:00:02Z tick\n");
+
+        List<String> lines = run(logs, List.of("a", "b"));
+
+        assertEquals(List.of("[a] error", "[a] \tat Foo.bar", "[b] tick", "[a] done"), lines);
+    }
+
+    @Test
+    void run_shouldFinishWhenOneStreamFailsAndThrowWhenAllFail() throws IOException {
+        List<String> lines = new ArrayList<>();
+        MergedLogStreamer partial = new MergedLogStreamer(List.of("ok", "bad"), new HashMap<>(), (pod, resume) -> {
+            if (pod.equals("bad")) throw new IOException("boom");
+            return new ByteArrayInputStream("2024-01-01T00:00:01Z x\n".getBytes(StandardCharsets.UTF_8));
+        }, chunk -> lines.add(chunk.decodeLine(0)), 50);
+        partial.run();
+        assertEquals(List.of("[ok] x"), lines);
+
+        MergedLogStreamer failing = new MergedLogStreamer(List.of("bad"), new HashMap<>(), (pod, resume) -> {
+            throw new IOException("boom");
+        }, chunk -> { }, 50);
+        assertThrows(IOException.class, failing::run);
+    }
+
+    @Test
+    void timestamp_shouldParseRfc3339Prefix() {
+        byte[] line = "2024-01-01T00:00:01.123456789Z hello".getBytes(StandardCharsets.US_ASCII);
+
+        int end = LogResumeState.timestampEnd(line, 0, line.length);
+
+        assertEquals(30, end);
+        assertEquals(1704067201_123456789L, LogResumeState.parseTimestamp(line, 0, end));
+        byte[] plain = "plain text line without timestamp".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(-1, LogResumeState.timestampEnd(plain, 0, plain.length));
+    }
+}
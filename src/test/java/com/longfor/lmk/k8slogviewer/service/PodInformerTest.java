@@ -0,0 +1,58 @@
+package com.longfor.lmk.k8slogviewer.service;
+
+import com.longfor.lmk.k8slogviewer.model.PodEvent;
+import com.longfor.lmk.k8slogviewer.model.PodFilter;
+import com.longfor.lmk.k8slogviewer.model.PodSummary;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PodInformerTest {
+
+    private static PodSummary pod(String name, String phase, String rv) {
+        return new PodSummary("ns", name, phase, List.of("app"), rv);
+    }
+
+    private static PodInformer informer() {
+        return new PodInformer(null, List.of("ns"), PodFilter.NONE, 1000, events -> { });
+    }
+
+    @Test
+    void replaceNamespace_shouldEmitOnlyDifferencesAgainstCache() {
+        PodInformer informer = informer();
+        informer.replaceNamespace("ns", List.of(pod("a", "Running", "1"), pod("b", "Pending", "2")));
+        assertEquals(2, informer.drainPending().size());
+
+        // 重新 list：a 只是版本变化，b 状态变化，c 新增，无 d 删除
+        informer.replaceNamespace("ns", List.of(pod("a", "Running", "5"), pod("b", "Running", "6"), pod("c", "Pending", "7")));
+        List<PodEvent> events = informer.drainPending();
+        assertEquals(2, events.size());
+        assertEquals(PodEvent.Type.MODIFIED, events.get(0).getType());
+        assertEquals("b", events.get(0).getPod().getName());
+        assertEquals(PodEvent.Type.ADDED, events.get(1).getType());
+
+        informer.replaceNamespace("ns", List.of(pod("a", "Running", "8")));
+        events = informer.drainPending();
+        assertEquals(2, events.size());
+        assertTrue(events.stream().allMatch(e -> e.getType() == PodEvent.Type.DELETED));
+    }
+
+    @Test
+    void applyWatchEvent_shouldSwallowUnchangedUpdatesAndCoalescePerPod() {
+        PodInformer informer = informer();
+        informer.applyWatchEvent("ns", "ADDED", pod("a", "Pending", "1"));
+        informer.applyWatchEvent("ns", "MODIFIED", pod("a", "Pending", "2"));
+        informer.applyWatchEvent("ns", "MODIFIED", pod("a", "Running", "3"));
+        informer.applyWatchEvent("ns", "DELETED", pod("missing", "Running", "4"));
+
+        List<PodEvent> events = informer.drainPending();
+        assertEquals(1, events.size());
+        assertEquals(PodEvent.Type.MODIFIED, events.get(0).getType());
+        assertEquals("Running", events.get(0).getPod().getPhase());
+
+        informer.applyWatchEvent("ns", "MODIFIED", pod("a", "Running", "9"));
+        assertTrue(informer.drainPending().isEmpty());
+    }
+}
@@ -0,0 +1,74 @@
+package com.longfor.lmk.k8slogviewer.service;
+
+import com.longfor.lmk.k8slogviewer.model.PodSummary;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PodListJsonReaderTest {
+
+    private static PodListJsonReader.ListMeta read(String json, List<PodSummary> out) throws IOException {
+        return PodListJsonReader.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), out::add);
+    }
+
+    @Test
+    void read_shouldExtractSummaryFieldsAndSkipTheRest() throws IOException {
+        String json = """
+                {"kind":"PodList","apiVersion":"v1",
+                 "metadata":{"resourceVersion":"123","continue":"next-token"},
+                 "items":[
+                  {"metadata":{"name":"web-1","namespace":"prod","resourceVersion":"120",
+                               "labels":{"app":"web"},"ownerReferences":[{"name":"rs","uid":"x"}]},
+                   "spec":{"initContainers":[{"name":"init","image":"busybox"}],
+                           "containers":[{"name":"app","env":[{"name":"A","value":"1"}],
+                                          "volumeMounts":[{"name":"v","mountPath":"/v"}]},
+                                         {"name":"sidecar"}],
+                           "volumes":[{"name":"v","emptyDir":{}}],
+                           "nodeName":"node-a"},
+                   "status":{"phase":"Running","startTime":"2024-05-01T08:00:00Z",
+                             "conditions":[{"type":"Ready","status":"True"}],
+                             "containerStatuses":[{"name":"app","restartCount":2,"ready":true},
+                                                  {"name":"sidecar","restartCount":1}]}},
+                  {"metadata":{"namespace":"prod"},"spec":{},"status":{}},
+                  {"metadata":{"name":"job-1","namespace":"prod"},"spec":{"containers":[]},
+                   "status":{"phase":null}}
+                 ]}
+                """;
+        List<PodSummary> pods = new ArrayList<>();
+        PodListJsonReader.ListMeta meta = read(json, pods);
+
+        assertEquals("123", meta.getResourceVersion());
+        assertEquals("next-token", meta.getContinueToken());
+        assertEquals(2, pods.size());
+
+        PodSummary web = pods.get(0);
+        assertEquals("prod/web-1", web.getKey());
+        assertEquals("Running", web.getPhase());
+        assertEquals(List.of("app", "sidecar", "init"), web.getContainerNames());
+        assertEquals(3, web.getRestartCount());
+        assertEquals("node-a", web.getNodeName());
+        assertEquals(Instant.parse("2024-05-01T08:00:00Z"), web.getStartTime());
+        assertEquals("120", web.getResourceVersion());
+
+        PodSummary job = pods.get(1);
+        assertEquals("Unknown", job.getPhase());
+        assertNull(job.getNodeName());
+        assertTrue(job.getContainerNames().isEmpty());
+    }
+
+    @Test
+    void read_lastPageWithoutItems_shouldReturnMetaOnly() throws IOException {
+        List<PodSummary> pods = new ArrayList<>();
+        PodListJsonReader.ListMeta meta = read("{\"metadata\":{\"resourceVersion\":\"9\"},\"items\":null}", pods);
+        assertEquals("9", meta.getResourceVersion());
+        assertNull(meta.getContinueToken());
+        assertTrue(pods.isEmpty());
+    }
+}
@@ -0,0 +1,168 @@
+package com.longfor.lmk.k8slogviewer.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentedLogStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    /** 每行 10 字节（含换行），分段 50 字节即每段 5 行 */
+    private SegmentedLogStore writeLines(Path dir, int count) throws IOException {
+        SegmentedLogStore store = SegmentedLogStore.openWritable(dir, 50, false);
+        for (int i = 0; i < count; i++) {
+            store.append(String.format("line-%04d", i).getBytes(StandardCharsets.UTF_8));
+        }
+        return store;
+    }
+
+    @Test
+    void append_shouldRollSegmentsAndReadAcrossBoundaries() throws IOException {
+        SegmentedLogStore store = writeLines(tempDir.resolve("s"), 12);
+
+        assertEquals(3, store.getSegmentCount());
+        assertEquals(12, store.getLineCount());
+        assertEquals(List.of("line-0003", "line-0004", "line-0005", "line-0006", "line-0007", "line-0008",
+                "line-0009", "line-0010", "line-0011"), store.readLines(3, 20));
+        assertTrue(store.readLines(12, 5).isEmpty());
+    }
+
+    @Test
+    void trimToSize_shouldDropOldestSegmentsAndShiftLogicalLines() throws IOException {
+        SegmentedLogStore store = writeLines(tempDir.resolve("s"), 12);
+
+        int removed = store.trimToSize(100);
+
+        assertEquals(5, removed);
+        assertEquals(2, store.getSegmentCount());
+        assertEquals(7, store.getLineCount());
+        assertEquals(List.of("line-0005", "line-0006"), store.readLines(0, 2));
+        assertFalse(Files.exists(tempDir.resolve("s").resolve("segment-000000.log")));
+        assertEquals(0, store.trimToSize(100));
+    }
+
+    @Test
+    void search_shouldReturnLogicalLinesAcrossSegmentsAndResume() throws IOException {
+        SegmentedLogStore store = writeLines(tempDir.resolve("s"), 12);
+        store.trimToSize(100);
+
+        PodLogFileManager.DiskSearchResult all = store.search(List.of("line-000"), null, false, null, 0, 0, () -> false);
+        assertEquals(List.of(0, 1, 2, 3, 4), all.matchedLineNumbers);
+        assertEquals(7, all.totalLines);
+        assertTrue(all.isResumable());
+
+        for (int i = 12; i < 20; i++) {
+            store.append(String.format("line-%04d", i).getBytes(StandardCharsets.UTF_8));
+        }
+        PodLogFileManager.DiskSearchResult next = store.search(List.of("line-001"), null, false,
+                all.logFile, all.endOffset, all.totalLines, () -> false);
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 12; i < 20; i++) expected.add(i - 5);
+        assertEquals(expected, next.matchedLineNumbers);
+        assertEquals(15, next.totalLines);
+
+        // 续搜起点所在分段被删除后要求全量搜索
+        store.trimToSize(60);
+        assertNull(store.search(List.of("line"), null, false, all.logFile, all.endOffset, all.totalLines, () -> false));
+    }
+
+    @Test
+    void prepareSearch_shouldScanOnlyPreparedRangesWhileWritesContinue() throws IOException {
+        SegmentedLogStore store = writeLines(tempDir.resolve("s"), 12);
+        SegmentedLogStore.PreparedSearch prepared = store.prepareSearch(List.of("line"), null, false,
+                null, 0, 0, () -> false);
+
+        // 准备之后继续写入并删除最旧分段：新行不计入本次结果，已删除的分段跳过
+        for (int i = 12; i < 14; i++) {
+            store.append(String.format("line-%04d", i).getBytes(StandardCharsets.UTF_8));
+        }
+        store.trimToSize(60);
+
+        PodLogFileManager.DiskSearchResult result = prepared.run();
+        assertEquals(List.of(10, 11), result.matchedLineNumbers);
+        assertEquals(12, result.totalLines);
+        assertEquals(20, result.endOffset);
+    }
+
+    @Test
+    void search_shouldReuseCachedTokenIndexOfSealedSegments() throws IOException {
+        Path dir = tempDir.resolve("s");
+        SegmentedLogStore store = SegmentedLogStore.openWritable(dir, 50, true);
+        for (int i = 0; i < 7; i++) {
+            store.append(String.format("line-%04d", i).getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6),
+                store.search(List.of("line"), null, false, null, 0, 0, () -> false).matchedLineNumbers);
+
+        // 封存分段不会再变化：改写其文件后搜索仍由缓存的词索引回答，不重新读盘
+        Path sealed = dir.resolve("segment-000000.log");
+        Files.writeString(sealed, "xxxx-0000\n".repeat(5), StandardCharsets.UTF_8);
+        Files.delete(LogTokenIndex.indexFileOf(sealed));
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6),
+                store.search(List.of("line"), null, false, null, 0, 0, () -> false).matchedLineNumbers);
+
+        // 保留策略删除分段后缓存随之丢弃
+        store.trimToSize(30);
+        assertEquals(List.of(0, 1),
+                store.search(List.of("line"), null, false, null, 0, 0, () -> false).matchedLineNumbers);
+    }
+
+    @Test
+    void search_shouldCombineTokenIndexWithScanForUnalignedKeywords() throws IOException {
+        SegmentedLogStore store = SegmentedLogStore.openWritable(tempDir.resolve("s"), 60, true);
+        for (int i = 0; i < 12; i++) {
+            store.append(String.format("r%02d st=%s", i, i % 3 == 0 ? "bad" : "ok").getBytes(StandardCharsets.UTF_8));
+        }
+        assertTrue(store.getSegmentCount() > 1);
+
+        // 且：st 由词索引求出候选行，"st=bad" 只在候选行上校验
+        assertEquals(List.of(0, 3, 6, 9),
+                store.search(List.of("st", "st=bad"), null, true, null, 0, 0, () -> false).matchedLineNumbers);
+        PodLogFileManager.DiskSearchResult ok = store.search(List.of("r1", "st=ok"), null, true,
+                null, 0, 0, () -> false);
+        assertEquals(List.of(10, 11), ok.matchedLineNumbers);
+        // 或：词索引回答 r05，"st=bad" 另行扫描后合并
+        assertEquals(List.of(0, 3, 5, 6, 9),
+                store.search(List.of("r05", "st=bad"), null, false, null, 0, 0, () -> false).matchedLineNumbers);
+
+        // 续搜只处理新增行
+        for (int i = 12; i < 15; i++) {
+            store.append(String.format("r%02d st=%s", i, i % 3 == 0 ? "bad" : "ok").getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals(List.of(13, 14), store.search(List.of("r1", "st=ok"), null, true,
+                ok.logFile, ok.endOffset, ok.totalLines, () -> false).matchedLineNumbers);
+    }
+
+    @Test
+    void openWritable_shouldContinueExistingSessionFromManifest() throws IOException {
+        Path dir = tempDir.resolve("s");
+        writeLines(dir, 7).close();
+
+        SegmentedLogStore reopened = SegmentedLogStore.openWritable(dir, 50, false);
+        reopened.append("line-0007".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(8, reopened.getLineCount());
+        assertEquals(List.of("line-0004", "line-0005", "line-0006", "line-0007"), reopened.readLines(4, 10));
+        assertEquals(8, SegmentedLogStore.open(dir).getLineCount());
+    }
+
+    @Test
+    void retainLastLines_shouldKeepWholeSegmentsCoveringTail() throws IOException {
+        SegmentedLogStore store = writeLines(tempDir.resolve("s"), 12);
+
+        assertEquals(5, store.retainLastLines(3));
+
+        assertEquals(7, store.getLineCount());
+        assertEquals("line-0005", store.readLines(0, 1).get(0));
+    }
+}
@@ -0,0 +1,85 @@
+package com.longfor.lmk.k8slogviewer.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedMpscQueueTest {
+
+    @Test
+    void offer_dropOldest_shouldEvictHeadAndCountDroppedWeight() {
+        List<String> dropped = new ArrayList<>();
+        BoundedMpscQueue<String> queue = new BoundedMpscQueue<>(5, String::length,
+                BoundedMpscQueue.OverflowPolicy.DROP_OLDEST, dropped::add);
+
+        assertTrue(queue.offer("aa"));
+        assertTrue(queue.offer("bbb"));
+        assertTrue(queue.offer("cc"));
+
+        List<String> out = new ArrayList<>();
+        assertEquals(2, queue.drainTo(out));
+        assertEquals(List.of("bbb", "cc"), out);
+        assertEquals(List.of("aa"), dropped);
+        assertEquals(1, queue.getDroppedCount());
+        assertEquals(2, queue.getDroppedWeight());
+        assertEquals(0, queue.depth());
+    }
+
+    @Test
+    void offer_dropNewest_shouldRejectWhenFullButAcceptOversizedIntoEmptyQueue() {
+        BoundedMpscQueue<String> queue = new BoundedMpscQueue<>(3, String::length,
+                BoundedMpscQueue.OverflowPolicy.DROP_NEWEST, null);
+
+        assertTrue(queue.offer("abcdef"));
+        assertFalse(queue.offer("x"));
+        assertEquals(6, queue.depth());
+
+        List<String> out = new ArrayList<>();
+        queue.drainTo(out, 10);
+        assertEquals(List.of("abcdef"), out);
+        assertTrue(queue.offer("x"));
+        assertEquals(1, queue.getDroppedWeight());
+    }
+
+    @Test
+    void offer_block_shouldDeliverEveryElementFromMultipleProducersInProducerOrder() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 2_000;
+        BoundedMpscQueue<int[]> queue = new BoundedMpscQueue<>(16, e -> 1,
+                BoundedMpscQueue.OverflowPolicy.BLOCK, null);
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            int id = p;
+            Thread t = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    queue.offer(new int[]{id, i});
+                }
+                done.countDown();
+            });
+            t.setDaemon(true);
+            t.start();
+        }
+
+        int[] next = new int[producers];
+        List<int[]> buffer = new ArrayList<>();
+        int received = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (received < producers * perProducer && System.nanoTime() < deadline) {
+            buffer.clear();
+            received += queue.drainTo(buffer, 8);
+            for (int[] e : buffer) {
+                assertEquals(next[e[0]]++, e[1]);
+            }
+            assertTrue(queue.depth() <= 16);
+        }
+
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertEquals(producers * perProducer, received);
+        assertEquals(0, queue.getDroppedCount());
+    }
+}
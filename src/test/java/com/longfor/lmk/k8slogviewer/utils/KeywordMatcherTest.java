@@ -0,0 +1,88 @@
+package com.longfor.lmk.k8slogviewer.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeywordMatcherTest {
+
+    private static List<int[]> collect(KeywordMatcher matcher, String text) {
+        List<int[]> result = new ArrayList<>();
+        matcher.forEachMatch(text, (start, end, kw) -> result.add(new int[]{start, end, kw}));
+        return result;
+    }
+
+    /** 用字节自动机判断一行是否满足条件 */
+    private static boolean byteMatches(KeywordMatcher matcher, String line, boolean andMode) {
+        KeywordMatcher.ByteAutomaton dfa = matcher.bytes();
+        boolean all = andMode && dfa.keywordCount() > 1;
+        long[] seen = dfa.newSeenMask();
+        int state = dfa.start();
+        for (byte b : line.getBytes(StandardCharsets.UTF_8)) {
+            state = dfa.next(state, b);
+            if (dfa.isAccepting(state) && (!all || dfa.accumulate(state, seen))) return true;
+        }
+        return false;
+    }
+
+    @Test
+    void forEachMatch_shouldReportAllKeywordsInOnePass() {
+        KeywordMatcher matcher = KeywordMatcher.of(List.of("he", "she", "his", "hers"));
+
+        List<int[]> matches = collect(matcher, "uSHErs");
+
+        // she@1-4, he@2-4, hers@2-6
+        assertEquals(3, matches.size());
+        assertArrayEquals(new int[]{1, 4, 1}, matches.get(0));
+        assertArrayEquals(new int[]{2, 4, 0}, matches.get(1));
+        assertArrayEquals(new int[]{2, 6, 3}, matches.get(2));
+    }
+
+    @Test
+    void matches_shouldSupportAndOrModes() {
+        KeywordMatcher matcher = KeywordMatcher.forSearchKeyword("error\0timeout\0");
+
+        assertTrue(matcher.matches("ERROR: read Timeout", true));
+        assertFalse(matcher.matches("ERROR: connection reset", true));
+        assertTrue(matcher.matches("ERROR: connection reset", false));
+        assertFalse(matcher.matches("all good", false));
+    }
+
+    @Test
+    void bytes_shouldAgreeWithCharAutomaton() {
+        KeywordMatcher matcher = KeywordMatcher.of(List.of("Error", "订单", "abcab", "bca"));
+        String[] lines = {"error here", "ERROR", "订单已创建", "xxabcabxx", "abca", "abcb", "no match", "订"};
+
+        for (String line : lines) {
+            assertEquals(matcher.matches(line, false), byteMatches(matcher, line, false), line);
+            assertEquals(matcher.matches(line, true), byteMatches(matcher, line, true), line);
+        }
+    }
+
+    @Test
+    void bytes_shouldHandleMoreThan64Keywords() {
+        List<String> keywords = new ArrayList<>();
+        for (int i = 0; i < 70; i++) {
+            keywords.add("k" + i + "x");
+        }
+        KeywordMatcher matcher = KeywordMatcher.of(keywords);
+        StringBuilder allInOne = new StringBuilder();
+        for (String kw : keywords) {
+            allInOne.append(kw).append(' ');
+        }
+
+        assertTrue(byteMatches(matcher, allInOne.toString(), true));
+        assertFalse(byteMatches(matcher, allInOne.toString().replace("k69x", ""), true));
+        assertTrue(byteMatches(matcher, "only k65x", false));
+    }
+
+    @Test
+    void forSearchKeyword_shouldReturnCachedInstance() {
+        assertSame(KeywordMatcher.forSearchKeyword("foo\0bar\0"), KeywordMatcher.forSearchKeyword("foo\0bar\0"));
+        assertTrue(KeywordMatcher.forSearchKeyword(null).isEmpty());
+    }
+}
@@ -0,0 +1,55 @@
+package com.longfor.lmk.k8slogviewer.utils;
+
+import org.fxmisc.richtext.model.StyleSpans;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineSpanCacheTest {
+
+    @Test
+    void get_shouldReuseSpansForSameLineInstanceAndKeyword() {
+        LineSpanCache cache = new LineSpanCache(16);
+        String line = new String("ERROR connection refused");
+
+        StyleSpans<Collection<String>> first = cache.get(line, "error", false);
+        StyleSpans<Collection<String>> second = cache.get(line, "error", false);
+
+        assertSame(first, second);
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        // 内容相同但不是同一实例，按身份缓存不命中
+        cache.get(new String("ERROR connection refused"), "error", false);
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    void get_shouldInvalidateWhenKeywordOrModeChanges() {
+        LineSpanCache cache = new LineSpanCache(16);
+        String line = "a b";
+
+        StyleSpans<Collection<String>> or = cache.get(line, "a c", false);
+        StyleSpans<Collection<String>> and = cache.get(line, "a c", true);
+
+        assertNotSame(or, and);
+        assertEquals(2, or.getSpanCount());
+        assertEquals(1, and.getSpanCount());
+        cache.get(line, "b", true);
+        assertEquals(3, cache.getMisses());
+    }
+
+    @Test
+    void get_shouldKeepRecentlyUsedLinesAcrossGenerations() {
+        LineSpanCache cache = new LineSpanCache(2);
+        String a = "a", b = "b", c = "c";
+        cache.get(a, "x", false);
+        cache.get(b, "x", false);
+        cache.get(c, "x", false);   // 当前代已满，a、b 进入上一代
+        cache.get(a, "x", false);   // 从上一代提升
+
+        assertEquals(3, cache.getMisses());
+        assertEquals(1, cache.getHits());
+    }
+}
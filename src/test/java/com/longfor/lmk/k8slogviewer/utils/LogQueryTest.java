@@ -0,0 +1,84 @@
+package com.longfor.lmk.k8slogviewer.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogQueryTest {
+
+    private static LogQuery query(String... tags) {
+        return LogQuery.forSearchKeyword(LogQuery.QUERY_MODE_PREFIX + String.join("\0", tags) + "\0");
+    }
+
+    @Test
+    void matches_shouldSupportRegexTerms() {
+        LogQuery q = query("took \\d{4,}ms");
+
+        assertTrue(q.matches("GET /orders took 12034ms", false));
+        assertFalse(q.matches("GET /orders took 120ms", false));
+        assertTrue(query("status=5\\d\\d").matches("GET /a status=503 took 3ms", false));
+        assertFalse(query("status=5\\d\\d").matches("GET /a status=200 took 3ms", false));
+    }
+
+    @Test
+    void matches_shouldEvaluateBooleanQueryWithPrecedence() {
+        LogQuery q = query("level:ERROR AND \"timeout\" NOT healthcheck");
+
+        assertTrue(q.matches("2024-01-01 ERROR read Timeout from db", false));
+        assertTrue(q.matches("{\"level\":\"error\",\"msg\":\"timeout\"}", false));
+        assertFalse(q.matches("2024-01-01 ERROR read timeout healthcheck", false));
+        assertFalse(q.matches("2024-01-01 INFO read timeout", false));
+        // NOT > AND > OR
+        LogQuery or = query("foo OR bar baz");
+        assertTrue(or.matches("foo", false));
+        assertFalse(or.matches("bar", false));
+        assertTrue(or.matches("baz bar", false));
+        assertTrue(query("(foo OR bar) baz").matches("bar baz", false));
+        assertFalse(query("(foo OR bar) baz").matches("foo", false));
+    }
+
+    @Test
+    void matches_shouldCombineTagsByAndOrMode() {
+        LogQuery q = query("error", "/user \\d+/");
+
+        assertTrue(q.matches("error for user 42", true));
+        assertFalse(q.matches("error for user x", true));
+        assertTrue(q.matches("error for user x", false));
+    }
+
+    @Test
+    void forEachMatch_shouldReportPositiveTermsOfMatchedTags() {
+        LogQuery q = query("level:ERROR NOT healthcheck", "/took \\d+ms/");
+        List<int[]> matches = new ArrayList<>();
+
+        q.forEachMatch("ERROR took 15ms", (start, end, tag) -> matches.add(new int[]{start, end, tag}));
+
+        assertEquals(2, matches.size());
+        assertArrayEquals(new int[]{0, 5, 0}, matches.get(0));
+        assertArrayEquals(new int[]{6, 15, 1}, matches.get(1));
+    }
+
+    @Test
+    void prefilter_shouldExtractRequiredLiterals() {
+        assertEquals(List.of("took"), query("took \\d{4,}ms").prefilter(false));
+        assertEquals(List.of("took "), query("/took \\d{4,}ms/").prefilter(false));
+        assertEquals(List.of("timeout"), query("level:ERROR AND \"timeout\" NOT healthcheck").prefilter(false));
+        assertEquals(List.of("foo", "bar"), query("foo", "bar").prefilter(false));
+        assertNull(query("foo", "NOT bar").prefilter(false));
+        assertEquals(List.of("foo"), query("foo", "NOT bar").prefilter(true));
+        assertNull(query("a.*b|cde").prefilter(false));
+        assertNull(LogQuery.requiredLiteral("ab?c"));
+        assertEquals(" timeout", LogQuery.requiredLiteral("(?:read|write) timeout\\.?"));
+    }
+
+    @Test
+    void forSearchKeyword_shouldCacheAndFallBackToLiteralForInvalidRegex() {
+        assertSame(query("a+b"), query("a+b"));
+        assertTrue(query("[oops").matches("value [oops here", false));
+        assertTrue(LineMatcher.forSearchKeyword("plain\0") instanceof KeywordMatcher);
+        assertTrue(LineMatcher.forSearchKeyword(LogQuery.QUERY_MODE_PREFIX + "x\0") instanceof LogQuery);
+    }
+}
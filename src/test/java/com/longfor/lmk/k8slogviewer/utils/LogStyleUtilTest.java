@@ -130,4 +130,69 @@ class LogStyleUtilTest {
         assertFalse(styles.contains("log-highlight"));
         assertTrue(styles.contains(LogStyleUtil.PLAIN_TEXT));
     }
+
+    @Test
+    void computeHighlighting_shouldShareInternedStyleCollections() {
+        StyleSpans<Collection<String>> spans =
+                LogStyleUtil.computeHighlighting(false, "foo bar foo", "foo bar", false);
+
+        // [foo][ ][bar][ ][foo]
+        assertEquals(5, spans.getSpanCount());
+        assertSame(LogStyleUtil.searchStyle(0), spans.getStyleSpan(0).getStyle());
+        assertSame(LogStyleUtil.plainStyle(), spans.getStyleSpan(1).getStyle());
+        assertSame(LogStyleUtil.searchStyle(1), spans.getStyleSpan(2).getStyle());
+        assertSame(spans.getStyleSpan(1).getStyle(), spans.getStyleSpan(3).getStyle());
+        assertSame(LogStyleUtil.searchStyle(0), spans.getStyleSpan(4).getStyle());
+    }
+
+    @Test
+    void displayText_shouldStripAnsiSequencesAndKeepPlainLinesIdentical() {
+        String plain = "no escapes here";
+        assertSame(plain, LogStyleUtil.displayText(plain));
+        assertEquals("red bold text", LogStyleUtil.displayText("\u001B[31mred\u001B[0m \u001B[1mbold\u001B[22m text\u001B[K"));
+        assertEquals(13, LogStyleUtil.displayLength("\u001B[31mred\u001B[0m \u001B[1mbold\u001B[22m text\u001B[K"));
+    }
+
+    @Test
+    void computeHighlighting_shouldMapAnsiColorsToStyleSpans() {
+        StyleSpans<Collection<String>> spans =
+                LogStyleUtil.computeHighlighting(false, "\u001B[1;32mok\u001B[0m done", null, null);
+
+        // [ok][ done]，长度按去掉转义后的文本
+        assertEquals(2, spans.getSpanCount());
+        assertEquals(7, spans.length());
+        assertEquals(Set.of(LogStyleUtil.PLAIN_TEXT, "ansi-fg-2", "ansi-bold"), spans.getStyleSpan(0).getStyle());
+        assertSame(LogStyleUtil.plainStyle(), spans.getStyleSpan(1).getStyle());
+    }
+
+    @Test
+    void computeHighlighting_shouldTagTimestampLevelAndException() {
+        String line = "2024-05-01T10:20:30.123Z ERROR java.lang.IllegalStateException: boom";
+        StyleSpans<Collection<String>> spans = LogStyleUtil.computeHighlighting(false, line, null, null);
+
+        // [timestamp][ ][ERROR][ ][exception][: boom]
+        assertEquals(6, spans.getSpanCount());
+        assertTrue(spans.getStyleSpan(0).getStyle().contains("log-timestamp"));
+        assertEquals(24, spans.getStyleSpan(0).getLength());
+        assertTrue(spans.getStyleSpan(2).getStyle().contains("log-level-error"));
+        assertTrue(spans.getStyleSpan(4).getStyle().contains("log-exception"));
+        assertSame(LogStyleUtil.plainStyle(), spans.getStyleSpan(5).getStyle());
+
+        StyleSpans<Collection<String>> frame =
+                LogStyleUtil.computeHighlighting(false, "\tat com.example.Foo.bar(Foo.java:42)", null, null);
+        assertEquals(1, frame.getSpanCount());
+        assertTrue(frame.getStyleSpan(0).getStyle().contains("log-exception"));
+    }
+
+    @Test
+    void computeHighlighting_shouldMergeSearchHighlightWithLexerStyles() {
+        StyleSpans<Collection<String>> spans =
+                LogStyleUtil.computeHighlighting(false, "\u001B[33mWARN\u001B[0m disk low", "disk", false);
+
+        // [WARN][ ][disk][ low]
+        assertEquals(4, spans.getSpanCount());
+        assertEquals(Set.of(LogStyleUtil.PLAIN_TEXT, "log-level-warn", "ansi-fg-3"), spans.getStyleSpan(0).getStyle());
+        assertSame(LogStyleUtil.searchStyle(0), spans.getStyleSpan(2).getStyle());
+        assertEquals(4, spans.getStyleSpan(2).getLength());
+    }
 }